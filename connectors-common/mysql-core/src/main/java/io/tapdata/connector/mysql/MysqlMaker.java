@@ -11,6 +11,7 @@ import io.tapdata.entity.schema.TapTable;
 import io.tapdata.entity.schema.type.TapNumber;
 import io.tapdata.entity.utils.DataMap;
 import io.tapdata.pdk.apis.context.TapConnectorContext;
+import io.tapdata.pdk.apis.entity.BatchReadSplit;
 import io.tapdata.pdk.apis.entity.QueryOperator;
 import io.tapdata.pdk.apis.entity.SortOn;
 import io.tapdata.pdk.apis.entity.TapAdvanceFilter;
@@ -19,6 +20,7 @@ import org.apache.commons.collections4.MapUtils;
 import org.apache.commons.lang3.RandomStringUtils;
 import org.apache.commons.lang3.StringUtils;
 
+import java.math.BigDecimal;
 import java.util.*;
 import java.util.stream.Collectors;
 
@@ -70,6 +72,11 @@ public class MysqlMaker implements SqlMaker {
 
 	@Override
 	public String selectSql(TapConnectorContext tapConnectorContext, TapTable tapTable, MysqlSnapshotOffset mysqlSnapshotOffset) throws Throwable {
+		return selectSql(tapConnectorContext, tapTable, null, mysqlSnapshotOffset);
+	}
+
+	@Override
+	public String selectSql(TapConnectorContext tapConnectorContext, TapTable tapTable, BatchReadSplit batchReadSplit, MysqlSnapshotOffset mysqlSnapshotOffset) throws Throwable {
 		DataMap connectionConfig = tapConnectorContext.getConnectionConfig();
 		String database = connectionConfig.getString("database");
 		String tableId = tapTable.getId();
@@ -77,6 +84,15 @@ public class MysqlMaker implements SqlMaker {
 		Collection<String> pks = tapTable.primaryKeys(true);
 		List<String> whereList = new ArrayList<>();
 		List<String> orderList = new ArrayList<>();
+		if (null != batchReadSplit) {
+			String splitKey = String.format(MYSQL_FIELD_TEMPLATE, batchReadSplit.getSplitKey());
+			if (null != batchReadSplit.getLowerBound()) {
+				whereList.add(splitKey + ">=" + splitBoundValue(batchReadSplit.getLowerBound()));
+			}
+			if (null != batchReadSplit.getUpperBound()) {
+				whereList.add(splitKey + "<" + splitBoundValue(batchReadSplit.getUpperBound()));
+			}
+		}
 		if (MapUtils.isNotEmpty(mysqlSnapshotOffset.getOffset())) {
 			for (Map.Entry<String, Object> entry : mysqlSnapshotOffset.getOffset().entrySet()) {
 				String key = entry.getKey();
@@ -109,6 +125,15 @@ public class MysqlMaker implements SqlMaker {
 		return sql;
 	}
 
+	private String splitBoundValue(Object value) {
+		if (value instanceof BigDecimal) {
+			return ((BigDecimal) value).toPlainString();
+		} else if (value instanceof Number) {
+			return value.toString();
+		}
+		return "'" + value + "'";
+	}
+
 	@Override
 	public String selectSql(TapConnectorContext tapConnectorContext, TapTable tapTable, TapAdvanceFilter tapAdvanceFilter) throws Throwable {
 		DataMap connectionConfig = tapConnectorContext.getConnectionConfig();
@@ -24,6 +24,7 @@ import io.tapdata.entity.schema.TapField;
 import io.tapdata.entity.schema.TapTable;
 import io.tapdata.entity.schema.type.TapDate;
 import io.tapdata.entity.schema.type.TapDateTime;
+import io.tapdata.entity.schema.type.TapNumber;
 import io.tapdata.entity.schema.type.TapType;
 import io.tapdata.entity.simplify.TapSimplify;
 import io.tapdata.entity.utils.DataMap;
@@ -34,6 +35,7 @@ import io.tapdata.entity.utils.cache.KVMap;
 import io.tapdata.entity.utils.cache.KVReadOnlyMap;
 import io.tapdata.pdk.apis.consumer.StreamReadConsumer;
 import io.tapdata.pdk.apis.context.TapConnectorContext;
+import io.tapdata.pdk.apis.entity.BatchReadSplit;
 import io.tapdata.pdk.apis.entity.TapAdvanceFilter;
 import org.apache.commons.collections4.CollectionUtils;
 import org.apache.commons.lang3.StringUtils;
@@ -45,6 +47,8 @@ import org.apache.kafka.connect.storage.OffsetUtils;
 
 import java.io.Closeable;
 import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
 import java.nio.ByteBuffer;
 import java.sql.ResultSetMetaData;
 import java.time.Instant;
@@ -71,6 +75,7 @@ public class MysqlReader implements Closeable {
 	public static final String MYSQL_SCHEMA_HISTORY = "MYSQL_SCHEMA_HISTORY";
 	private static final String SOURCE_RECORD_DDL_KEY = "ddl";
 	public static final String FIRST_TIME_KEY = "FIRST_TIME";
+	private static final String SELECT_MIN_MAX = "SELECT MIN(`%s`), MAX(`%s`) FROM `%s`.`%s`";
 	private static final DDLWrapperConfig DDL_WRAPPER_CONFIG = CCJBaseDDLWrapper.CCJDDLWrapperConfig.create().split("`");
 	private String serverName;
 	private AtomicBoolean running;
@@ -91,8 +96,13 @@ public class MysqlReader implements Closeable {
 
 	public void readWithOffset(TapConnectorContext tapConnectorContext, TapTable tapTable, MysqlSnapshotOffset mysqlSnapshotOffset,
 							   Predicate<?> stop, BiConsumer<Map<String, Object>, MysqlSnapshotOffset> consumer) throws Throwable {
+		readWithOffset(tapConnectorContext, tapTable, null, mysqlSnapshotOffset, stop, consumer);
+	}
+
+	public void readWithOffset(TapConnectorContext tapConnectorContext, TapTable tapTable, BatchReadSplit batchReadSplit, MysqlSnapshotOffset mysqlSnapshotOffset,
+							   Predicate<?> stop, BiConsumer<Map<String, Object>, MysqlSnapshotOffset> consumer) throws Throwable {
 		SqlMaker sqlMaker = new MysqlMaker();
-		String sql = sqlMaker.selectSql(tapConnectorContext, tapTable, mysqlSnapshotOffset);
+		String sql = sqlMaker.selectSql(tapConnectorContext, tapTable, batchReadSplit, mysqlSnapshotOffset);
 		Collection<String> pks = tapTable.primaryKeys(true);
 		AtomicLong row = new AtomicLong(0L);
 		try {
@@ -125,6 +135,52 @@ public class MysqlReader implements Closeable {
 		}
 	}
 
+	/**
+	 * Split the table into even ranges of the first primary key, only numeric key is supported,
+	 * the first and last split are unbounded so the rows out of [min, max] are still covered.
+	 */
+	public List<BatchReadSplit> split(TapConnectorContext tapConnectorContext, TapTable tapTable, int splitCount) throws Throwable {
+		List<BatchReadSplit> splits = new ArrayList<>();
+		Collection<String> pks = tapTable.primaryKeys(true);
+		if (splitCount <= 1 || CollectionUtils.isEmpty(pks)) {
+			return splits;
+		}
+		String splitKey = pks.iterator().next();
+		TapField tapField = tapTable.getNameFieldMap().get(splitKey);
+		if (null == tapField || !(tapField.getTapType() instanceof TapNumber)) {
+			TapLogger.info(TAG, "Table {} cannot be split, the first primary key {} is not a number", tapTable.getId(), splitKey);
+			return splits;
+		}
+		String database = tapConnectorContext.getConnectionConfig().getString("database");
+		AtomicReference<BigDecimal> min = new AtomicReference<>();
+		AtomicReference<BigDecimal> max = new AtomicReference<>();
+		this.mysqlJdbcContext.query(String.format(SELECT_MIN_MAX, splitKey, splitKey, database, tapTable.getId()), rs -> {
+			if (rs.next()) {
+				min.set(rs.getBigDecimal(1));
+				max.set(rs.getBigDecimal(2));
+			}
+		});
+		if (null == min.get() || null == max.get() || min.get().compareTo(max.get()) >= 0) {
+			return splits;
+		}
+		boolean integral = min.get().scale() <= 0 && max.get().scale() <= 0;
+		BigDecimal step = max.get().subtract(min.get()).divide(BigDecimal.valueOf(splitCount), integral ? 0 : 10, RoundingMode.DOWN);
+		if (step.signum() <= 0) {
+			step = BigDecimal.ONE;
+		}
+		BigDecimal lowerBound = null;
+		for (int i = 1; i < splitCount; i++) {
+			BigDecimal upperBound = min.get().add(step.multiply(BigDecimal.valueOf(i)));
+			if (upperBound.compareTo(max.get()) > 0) {
+				break;
+			}
+			splits.add(BatchReadSplit.create(tapTable.getId(), splits.size()).splitKey(splitKey).lowerBound(lowerBound).upperBound(upperBound));
+			lowerBound = upperBound;
+		}
+		splits.add(BatchReadSplit.create(tapTable.getId(), splits.size()).splitKey(splitKey).lowerBound(lowerBound));
+		return splits;
+	}
+
 	public void readWithFilter(TapConnectorContext tapConnectorContext, TapTable tapTable, TapAdvanceFilter tapAdvanceFilter,
 							   Predicate<?> stop, Consumer<Map<String, Object>> consumer) throws Throwable {
 		SqlMaker sqlMaker = new MysqlMaker();
@@ -5,6 +5,7 @@ import io.tapdata.entity.event.ddl.table.TapCreateTableEvent;
 import io.tapdata.entity.schema.TapIndex;
 import io.tapdata.entity.schema.TapTable;
 import io.tapdata.pdk.apis.context.TapConnectorContext;
+import io.tapdata.pdk.apis.entity.BatchReadSplit;
 import io.tapdata.pdk.apis.entity.TapAdvanceFilter;
 
 /**
@@ -17,6 +18,8 @@ public interface SqlMaker {
 
 	String selectSql(TapConnectorContext tapConnectorContext, TapTable tapTable, MysqlSnapshotOffset mysqlSnapshotOffset) throws Throwable;
 
+	String selectSql(TapConnectorContext tapConnectorContext, TapTable tapTable, BatchReadSplit batchReadSplit, MysqlSnapshotOffset mysqlSnapshotOffset) throws Throwable;
+
 	String selectSql(TapConnectorContext tapConnectorContext, TapTable tapTable, TapAdvanceFilter tapAdvanceFilter) throws Throwable;
 
 	String createIndex(TapConnectorContext tapConnectorContext, TapTable tapTable, TapIndex tapIndex) throws Throwable;
@@ -16,9 +16,10 @@ import io.tapdata.entity.utils.BeanUtils;
 import io.tapdata.entity.utils.InstanceFactory;
 import io.tapdata.entity.utils.cache.KVReadOnlyMap;
 import io.tapdata.kit.EmptyKit;
-import io.tapdata.kit.StringKit;
 import io.tapdata.pdk.apis.consumer.StreamReadConsumer;
 
+import java.io.File;
+import java.io.IOException;
 import java.util.*;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.LinkedBlockingQueue;
@@ -47,6 +48,13 @@ public abstract class LogMiner implements ILogMiner {
     protected final Map<Integer, Long> instanceThreadMindedSCNMap = new HashMap<>();
     protected final Map<Long, Long> instanceThreadSCNMap = new HashMap<>();
     protected boolean hasRollbackTemp;
+    public static final String TRANSACTION_MEMORY_THRESHOLD_KEY = "LOG_MINER_TRANSACTION_MEMORY_THRESHOLD";
+    public static final String TRANSACTION_SPILL_DIRECTORY_KEY = "LOG_MINER_TRANSACTION_SPILL_DIRECTORY";
+    public static final String TRANSACTION_SPILL_SEGMENT_BYTES_KEY = "LOG_MINER_TRANSACTION_SPILL_SEGMENT_BYTES";
+    protected long transactionMemoryThreshold = Long.getLong(TRANSACTION_MEMORY_THRESHOLD_KEY, LogTransaction.DEFAULT_MEMORY_THRESHOLD); //bytes of one transaction in memory, beyond it the transaction spills to disk, <= 0 never spill
+    protected String transactionSpillDirectory = System.getProperty(TRANSACTION_SPILL_DIRECTORY_KEY, "." + File.separator + "cdc-spill"); //directory of transaction spill files
+    protected long transactionSpillSegmentBytes = Long.getLong(TRANSACTION_SPILL_SEGMENT_BYTES_KEY, TransactionSpillFile.DEFAULT_SEGMENT_BYTES); //max bytes of one spill file
+    private boolean spillFailed;
 
     protected KVReadOnlyMap<TapTable> tableMap;
     protected List<String> tableList;
@@ -64,6 +72,26 @@ public abstract class LogMiner implements ILogMiner {
         makeLobTables();
     }
 
+    /**
+     * @param transactionMemoryThreshold bytes of one transaction in memory, beyond it the transaction spills to disk, <= 0 never spill
+     */
+    public LogMiner transactionMemoryThreshold(long transactionMemoryThreshold) {
+        this.transactionMemoryThreshold = transactionMemoryThreshold;
+        return this;
+    }
+
+    public LogMiner transactionSpillDirectory(String transactionSpillDirectory) {
+        if (EmptyKit.isNotBlank(transactionSpillDirectory)) {
+            this.transactionSpillDirectory = transactionSpillDirectory;
+        }
+        return this;
+    }
+
+    public LogMiner transactionSpillSegmentBytes(long transactionSpillSegmentBytes) {
+        this.transactionSpillSegmentBytes = transactionSpillSegmentBytes;
+        return this;
+    }
+
     protected void makeLobTables() {
         List<TapTable> lobTables = new ArrayList<>();
         tableList.forEach(table -> {
@@ -91,6 +119,16 @@ public abstract class LogMiner implements ILogMiner {
         Thread.sleep(500);
         Optional.ofNullable(redoLogConsumerThreadPool).ifPresent(ExecutorService::shutdown);
         redoLogConsumerThreadPool = null;
+        transactionBucket.values().forEach(LogTransaction::discardSpillFile);
+    }
+
+    /**
+     * @return buffered bytes (in memory and spilled) of the uncommitted transactions, key: xid
+     */
+    protected Map<String, Long> transactionBufferedBytes() {
+        Map<String, Long> bufferedBytes = new LinkedHashMap<>();
+        transactionBucket.forEach((xid, logTransaction) -> bufferedBytes.put(xid, logTransaction.getBufferedBytes()));
+        return bufferedBytes;
     }
 
     protected void processOrBuffRedoLogContent(RedoLogContent redoLogContent,
@@ -137,18 +175,23 @@ public abstract class LogMiner implements ILogMiner {
                     transactionBucket.put(xid, orclTransaction);
                 } else {
                     LogTransaction logTransaction = transactionBucket.get(xid);
-                    Map<String, List<RedoLogContent>> redoLogContents = logTransaction.getRedoLogContents();
+                    boolean aborted;
                     try {
-                        if (!needToAborted(operation, redoLogContent, redoLogContents)) {
-                            logTransaction.addRedoLogContent(redoLogContent);
-                            logTransaction.incrementSize(1);
-                            long txLogContentsSize = logTransaction.getSize();
-                            if (txLogContentsSize % LogTransaction.LARGE_TRANSACTION_UPPER_LIMIT == 0) {
-                                TapLogger.info(TAG, TapLog.CON_LOG_0008.getMsg(), xid, txLogContentsSize);
-                            }
-                        }
+                        aborted = logTransaction.abort(redoLogContent);
                     } catch (Exception e) {
                         TapLogger.error(TAG, e.getMessage());
+                        break;
+                    }
+                    if (!aborted) {
+                        // spill file errors are not ignored, the content would be lost
+                        logTransaction.addRedoLogContent(redoLogContent);
+                        logTransaction.incrementSize(1);
+                        long txLogContentsSize = logTransaction.getSize();
+                        if (txLogContentsSize % LogTransaction.LARGE_TRANSACTION_UPPER_LIMIT == 0) {
+                            TapLogger.info(TAG, TapLog.CON_LOG_0008.getMsg() + " Buffered bytes: {}, spilled: {}.",
+                                    xid, txLogContentsSize, logTransaction.getBufferedBytes(), logTransaction.isSpilled());
+                        }
+                        spillIfNeeded(logTransaction);
                     }
                 }
                 break;
@@ -207,59 +250,79 @@ public abstract class LogMiner implements ILogMiner {
     protected void sendTransaction(Map<String, LogTransaction> txMap) {
         for (Map.Entry<String, LogTransaction> txEntry : txMap.entrySet()) {
             LogTransaction logTransaction = txEntry.getValue();
-            List<TapEvent> eventList = TapSimplify.list();
-            Map<String, List<RedoLogContent>> redoLogContents = logTransaction.getRedoLogContents();
-            RedoLogContent redoLogContent = null;
-            for (List<RedoLogContent> redoLogContentList : redoLogContents.values()) {
-                for (RedoLogContent txRedoLogContent : redoLogContentList) {
-                    redoLogContent = txRedoLogContent;
-                }
-                if (EmptyKit.isNull(Objects.requireNonNull(redoLogContent).getRedoRecord()) && !"DDL".equals(Objects.requireNonNull(redoLogContent).getOperation())) {
-                    continue;
-                }
-                switch (Objects.requireNonNull(redoLogContent).getOperation()) {
-                    case "INSERT":
-                        eventList.add(new TapInsertRecordEvent()
-                                .table(redoLogContent.getTableName())
-                                .after(redoLogContent.getRedoRecord())
-                                .referenceTime(redoLogContent.getTimestamp().getTime()));
-                        break;
-                    case "UPDATE":
-                        eventList.add(new TapUpdateRecordEvent()
-                                .table(redoLogContent.getTableName())
-                                .after(redoLogContent.getRedoRecord())
-                                .before(redoLogContent.getUndoRecord())
-                                .referenceTime(redoLogContent.getTimestamp().getTime()));
-                        break;
-                    case "DELETE":
-                        eventList.add(new TapDeleteRecordEvent()
-                                .table(redoLogContent.getTableName())
-                                .before(redoLogContent.getRedoRecord())
-                                .referenceTime(redoLogContent.getTimestamp().getTime()));
-                        break;
-                    case "DDL":
-                        try {
-                            ddlStop.set(true);
-                            TapSimplify.sleep(5000);
-                            ddlFlush();
-                            ddlStop.set(false);
-                        } catch (Throwable e) {
-                            throw new RuntimeException(e);
-                        }
-                        try {
-                            DDLFactory.ddlToTapDDLEvent(ddlParserType, redoLogContent.getSqlRedo(),
-                                    DDL_WRAPPER_CONFIG,
-                                    tableMap,
-                                    eventList::add);
-                        } catch (Throwable e) {
-                            throw new RuntimeException(e);
-                        }
-                        break;
-                    default:
-                        break;
-                }
+            // a spilled transaction is too large to hold all its events, submit them in batches
+            TransactionEventCollector collector = new TransactionEventCollector(logTransaction.isSpilled() ? Math.max(recordSize, 1) : Integer.MAX_VALUE);
+            try {
+                logTransaction.replayRedoLogContents(collector);
+            } finally {
+                logTransaction.discardSpillFile();
+            }
+            submitEvent(collector.redoLogContent, collector.eventList);
+        }
+    }
+
+    private class TransactionEventCollector implements Consumer<List<RedoLogContent>> {
+        private final int submitBatchSize;
+        private List<TapEvent> eventList = TapSimplify.list();
+        private RedoLogContent redoLogContent;
+
+        private TransactionEventCollector(int submitBatchSize) {
+            this.submitBatchSize = submitBatchSize;
+        }
+
+        @Override
+        public void accept(List<RedoLogContent> redoLogContentList) {
+            for (RedoLogContent txRedoLogContent : redoLogContentList) {
+                redoLogContent = txRedoLogContent;
+            }
+            if (EmptyKit.isNull(Objects.requireNonNull(redoLogContent).getRedoRecord()) && !"DDL".equals(Objects.requireNonNull(redoLogContent).getOperation())) {
+                return;
+            }
+            switch (Objects.requireNonNull(redoLogContent).getOperation()) {
+                case "INSERT":
+                    eventList.add(new TapInsertRecordEvent()
+                            .table(redoLogContent.getTableName())
+                            .after(redoLogContent.getRedoRecord())
+                            .referenceTime(redoLogContent.getTimestamp().getTime()));
+                    break;
+                case "UPDATE":
+                    eventList.add(new TapUpdateRecordEvent()
+                            .table(redoLogContent.getTableName())
+                            .after(redoLogContent.getRedoRecord())
+                            .before(redoLogContent.getUndoRecord())
+                            .referenceTime(redoLogContent.getTimestamp().getTime()));
+                    break;
+                case "DELETE":
+                    eventList.add(new TapDeleteRecordEvent()
+                            .table(redoLogContent.getTableName())
+                            .before(redoLogContent.getRedoRecord())
+                            .referenceTime(redoLogContent.getTimestamp().getTime()));
+                    break;
+                case "DDL":
+                    try {
+                        ddlStop.set(true);
+                        TapSimplify.sleep(5000);
+                        ddlFlush();
+                        ddlStop.set(false);
+                    } catch (Throwable e) {
+                        throw new RuntimeException(e);
+                    }
+                    try {
+                        DDLFactory.ddlToTapDDLEvent(ddlParserType, redoLogContent.getSqlRedo(),
+                                DDL_WRAPPER_CONFIG,
+                                tableMap,
+                                eventList::add);
+                    } catch (Throwable e) {
+                        throw new RuntimeException(e);
+                    }
+                    break;
+                default:
+                    break;
+            }
+            if (eventList.size() >= submitBatchSize) {
+                submitEvent(redoLogContent, eventList);
+                eventList = TapSimplify.list();
             }
-            submitEvent(redoLogContent, eventList);
         }
     }
 
@@ -289,6 +352,7 @@ public abstract class LogMiner implements ILogMiner {
             } else {
                 TapLogger.info(TAG, "It was found that the transaction[first scn: {}, xid: {}] that was rolled back did not commit after {} events, " +
                         "and the modification of this transaction was truly discarded", bucketTransaction.getScn(), bucketXid, ROLLBACK_TEMP_LIMIT);
+                bucketTransaction.discardSpillFile();
                 iterator.remove();
             }
         }
@@ -328,6 +392,22 @@ public abstract class LogMiner implements ILogMiner {
         redoLogContentConsumer.accept(cacheCommitTraction);
     }
 
+    private void spillIfNeeded(LogTransaction logTransaction) {
+        if (spillFailed || transactionMemoryThreshold <= 0 || logTransaction.isSpilled()
+                || logTransaction.getMemoryBytes() < transactionMemoryThreshold) {
+            return;
+        }
+        try {
+            logTransaction.spill(new File(transactionSpillDirectory), transactionSpillSegmentBytes);
+            TapLogger.info(TAG, "Transaction[first scn: {}, xid: {}] exceeds memory threshold {} bytes, spill to disk: {}, redo size: {}",
+                    logTransaction.getScn(), logTransaction.getXid(), transactionMemoryThreshold, transactionSpillDirectory, logTransaction.getSize());
+        } catch (IOException e) {
+            spillFailed = true;
+            TapLogger.warn(TAG, "Spill transaction[first scn: {}, xid: {}] to disk failed, transactions will be kept in memory, err: {}",
+                    logTransaction.getScn(), logTransaction.getXid(), e.getMessage());
+        }
+    }
+
     private void setRacMinimalScn(LogTransaction logTransaction) {
         if (EmptyKit.isNotEmpty(instanceThreadMindedSCNMap) && instanceThreadMindedSCNMap.size() > 1) {
             long racMinimalSCN = 0L;
@@ -338,100 +418,6 @@ public abstract class LogMiner implements ILogMiner {
         }
     }
 
-    private boolean needToAborted(String operation, RedoLogContent redoLogContent, Map<String, List<RedoLogContent>> redoLogContents) {
-        boolean needToAborted = false;
-        if (EmptyKit.isNotBlank(redoLogContent.getSqlUndo()) || EmptyKit.isNotEmpty(redoLogContent.getRedoRecord())) {
-            return false;
-        }
-        String rowId = redoLogContent.getRowId();
-        if (SqlConstant.REDO_LOG_OPERATION_DELETE.equals(operation)) {
-            Iterator<String> keySetIter = redoLogContents.keySet().iterator();
-            while (keySetIter.hasNext()) {
-                String key = keySetIter.next();
-                List<RedoLogContent> logContents = redoLogContents.get(key);
-                Iterator<RedoLogContent> iterator = logContents.iterator();
-                while (iterator.hasNext()) {
-                    RedoLogContent logContent = iterator.next();
-                    if (SqlConstant.REDO_LOG_OPERATION_INSERT.equals(logContent.getOperation())) {
-                        String insertedRowId = logContent.getRowId();
-                        if (insertedRowId.equals(rowId)) {
-                            TapLogger.info("Found insert row was deleted by row id {} on the same transaction, insert event {}, delete event {}", rowId, logContent, redoLogContent);
-                            iterator.remove();
-                            needToAborted = true;
-                        }
-                    }
-                }
-                if (needToAborted && EmptyKit.isEmpty(logContents)) {
-                    keySetIter.remove();
-                }
-            }
-        } else if (SqlConstant.REDO_LOG_OPERATION_UPDATE.equals(operation)) {
-            try {
-                String currentBetweenSetAndWhere = StringKit.subStringBetweenTwoString(redoLogContent.getSqlRedo(), "set", "where");
-                if (EmptyKit.isBlank(currentBetweenSetAndWhere) && EmptyKit.isEmpty(redoLogContent.getRedoRecord())) {
-                    return true;
-                }
-                Iterator<String> keyIter = redoLogContents.keySet().iterator();
-                while (keyIter.hasNext() && !needToAborted) {
-                    List<RedoLogContent> logContents = redoLogContents.get(keyIter.next());
-                    Iterator<RedoLogContent> iterator = logContents.iterator();
-                    while (iterator.hasNext()) {
-                        RedoLogContent logContent = iterator.next();
-                        if (!SqlConstant.REDO_LOG_OPERATION_UPDATE.equals(logContent.getOperation()) || !rowId.equals(logContent.getRowId())) {
-                            continue;
-                        }
-                        String betweenSetAndWhere = StringKit.subStringBetweenTwoString(logContent.getSqlUndo(), "set", "where");
-                        if (currentBetweenSetAndWhere.equals(betweenSetAndWhere)) {
-                            needToAborted = true;
-                        } else if (redoLogContent.getRollback() == 1 && StringKit.indexOf(betweenSetAndWhere, currentBetweenSetAndWhere.trim()) > -1) {
-                            needToAborted = true;
-                        }
-                        if (needToAborted) {
-                            TapLogger.debug(TAG, "Found update row was undo updated by row id {} on the same transaction, update event {}, undo update event {}", rowId, logContent, redoLogContent);
-                            iterator.remove();
-                            break;
-                        }
-                    }
-                    if (needToAborted && EmptyKit.isEmpty(logContents)) {
-                        keyIter.remove();
-                    }
-                }
-            } catch (Exception e) {
-                throw new RuntimeException(String.format("Check abort update oracle log failed, err: %s, scn: %s, xid: %s, timestamp: %s",
-                        e.getMessage(), redoLogContent.getScn(), redoLogContent.getXid(), redoLogContent.getTimestamp()), e);
-            }
-        } else if (SqlConstant.REDO_LOG_OPERATION_INSERT.equals(operation)) {
-            if (EmptyKit.isBlank(redoLogContent.getSqlRedo()) && EmptyKit.isEmpty(redoLogContent.getRedoRecord())) {
-                return true;
-            }
-            Iterator<String> keyIter = redoLogContents.keySet().iterator();
-            while (keyIter.hasNext()) {
-                List<RedoLogContent> logContents = redoLogContents.get(keyIter.next());
-                Iterator<RedoLogContent> iterator = logContents.iterator();
-                while (iterator.hasNext()) {
-                    RedoLogContent logContent = iterator.next();
-                    if (!SqlConstant.REDO_LOG_OPERATION_DELETE.equals(logContent.getOperation())) {
-                        continue;
-                    }
-                    if (EmptyKit.isBlank(logContent.getSqlRedo())) {
-                        continue;
-                    }
-                    if (rowId.equals(logContent.getRowId())
-                            && redoLogContent.getSqlRedo().equals(logContent.getSqlUndo())
-                    ) {
-                        TapLogger.info(TAG, "Found delete row was undo inserted by row id {} on the same transaction, delete event {}, undo insert event {}", rowId, logContent, redoLogContent);
-                        iterator.remove();
-                        needToAborted = true;
-                    }
-                }
-                if (needToAborted && EmptyKit.isEmpty(logContents)) {
-                    keyIter.remove();
-                }
-            }
-        }
-        return needToAborted;
-    }
-
     private boolean need2WaitingCommit(LogTransaction transaction) {
         transaction.setReceivedCommitTs(System.currentTimeMillis());
         return transaction.isHasRollback();
@@ -1,18 +1,29 @@
 package io.tapdata.common.cdc;
 
+import io.tapdata.constant.SqlConstant;
+import io.tapdata.entity.logger.TapLogger;
 import io.tapdata.kit.EmptyKit;
+import io.tapdata.kit.StringKit;
 
+import java.io.File;
+import java.io.IOException;
 import java.util.*;
+import java.util.function.Consumer;
 
 /**
  * Created by tapdata on 23/03/2018.
  */
 public class LogTransaction {
 
+    private final static String TAG = LogTransaction.class.getSimpleName();
+
     public static final String TX_TYPE_DDL = "ddl";
     public static final String TX_TYPE_DML = "dml";
     public static final String TX_TYPE_COMMIT = "commit";
     public static final long LARGE_TRANSACTION_UPPER_LIMIT = 1000L;
+    public static final long DEFAULT_MEMORY_THRESHOLD = 64 * 1024 * 1024L;
+    private static final int CONTENT_BASE_BYTES = 256;
+    private static final int RECORD_FIELD_BYTES = 64;
 
     /**
      * transaction first rs id
@@ -49,22 +60,46 @@ public class LogTransaction {
 
     private long receivedCommitTs;
 
+    /**
+     * estimated bytes of the redo log contents in memory
+     */
+    private long memoryBytes;
+
+    /**
+     * not null when the transaction exceeded the memory threshold, later contents are appended to it
+     */
+    private TransactionSpillFile spillFile;
+
+    /**
+     * undo contents (rollback to savepoint) received after the transaction spilled, key: row id.
+     * The contents they undo are in the spill files and are skipped when the transaction is replayed
+     */
+    private Map<String, List<SpilledUndo>> spilledUndoContents = new HashMap<>();
+
     public LogTransaction(String rsId, long scn, String xid, Map<String, List<RedoLogContent>> redoLogContents) {
         this.rsId = rsId;
         this.scn = scn;
         this.xid = xid;
         this.redoLogContents = redoLogContents;
+        this.memoryBytes = estimateBytes(redoLogContents);
     }
 
     public LogTransaction(String rsId, long scn, String xid, Map<String, List<RedoLogContent>> redoLogContents, Long firstTimestamp) {
-        this.rsId = rsId;
-        this.scn = scn;
-        this.xid = xid;
-        this.redoLogContents = redoLogContents;
+        this(rsId, scn, xid, redoLogContents);
         this.firstTimestamp = firstTimestamp;
     }
 
     public void addRedoLogContent(RedoLogContent redoLogContent) {
+        if (null != spillFile) {
+            // the updated row ids of a spilled transaction are not kept, they would take as much memory as the contents
+            try {
+                spillFile.append(redoLogContent);
+            } catch (IOException e) {
+                throw new RuntimeException(String.format("Append redo log to spill file failed, xid: %s, scn: %s, err: %s",
+                        xid, redoLogContent.getScn(), e.getMessage()), e);
+            }
+            return;
+        }
         String rsId = redoLogContent.getRsId();
         if (redoLogContents == null) {
             redoLogContents = new LinkedHashMap<>();
@@ -75,6 +110,7 @@ public class LogTransaction {
         }
 
         redoLogContents.get(rsId).add(redoLogContent);
+        memoryBytes += estimateBytes(redoLogContent);
         if ("UPDATE".equals(redoLogContent.getOperation())) {
             txUpdatedRowIds.add(redoLogContent.getRowId());
         }
@@ -85,6 +121,204 @@ public class LogTransaction {
             redoLogContents.clear();
             txUpdatedRowIds.clear();
         }
+        memoryBytes = 0L;
+        discardSpillFile();
+    }
+
+    /**
+     * Check whether the content is an undo content of the same transaction (rollback to savepoint), and abort the
+     * contents it undoes. The aborted contents in memory are removed, the ones in spill files are skipped on replay.
+     *
+     * @return true if the content is an undo content which should not be added to the transaction
+     */
+    public boolean abort(RedoLogContent undoContent) {
+        if (EmptyKit.isNotBlank(undoContent.getSqlUndo()) || EmptyKit.isNotEmpty(undoContent.getRedoRecord())) {
+            return false;
+        }
+        String operation = undoContent.getOperation();
+        String undoSetClause = null;
+        if (SqlConstant.REDO_LOG_OPERATION_UPDATE.equals(operation)) {
+            try {
+                undoSetClause = StringKit.subStringBetweenTwoString(undoContent.getSqlRedo(), "set", "where");
+            } catch (Exception e) {
+                throw new RuntimeException(String.format("Check abort update oracle log failed, err: %s, scn: %s, xid: %s, timestamp: %s",
+                        e.getMessage(), undoContent.getScn(), undoContent.getXid(), undoContent.getTimestamp()), e);
+            }
+            if (EmptyKit.isBlank(undoSetClause)) {
+                return true;
+            }
+        } else if (SqlConstant.REDO_LOG_OPERATION_INSERT.equals(operation)) {
+            if (EmptyKit.isBlank(undoContent.getSqlRedo())) {
+                return true;
+            }
+        } else if (!SqlConstant.REDO_LOG_OPERATION_DELETE.equals(operation)) {
+            return false;
+        }
+        if (null != spillFile) {
+            // the undone contents are appended before, the undo content itself is skipped on replay as it has no redo record
+            spilledUndoContents.computeIfAbsent(undoContent.getRowId(), k -> new ArrayList<>())
+                    .add(new SpilledUndo(undoContent, undoSetClause, spillFile.getCount()));
+            return true;
+        }
+        return abortInMemory(undoContent, undoSetClause);
+    }
+
+    private boolean abortInMemory(RedoLogContent undoContent, String undoSetClause) {
+        if (EmptyKit.isEmpty(redoLogContents)) {
+            return false;
+        }
+        // an update undo aborts only one update, insert or delete undo aborts all matched contents
+        boolean abortOne = SqlConstant.REDO_LOG_OPERATION_UPDATE.equals(undoContent.getOperation());
+        boolean needToAborted = false;
+        Iterator<List<RedoLogContent>> listIter = redoLogContents.values().iterator();
+        while (listIter.hasNext() && !(abortOne && needToAborted)) {
+            List<RedoLogContent> logContents = listIter.next();
+            Iterator<RedoLogContent> iterator = logContents.iterator();
+            while (iterator.hasNext()) {
+                RedoLogContent logContent = iterator.next();
+                if (!undoes(undoContent, undoSetClause, logContent)) {
+                    continue;
+                }
+                TapLogger.debug(TAG, "Found {} row was undone by row id {} on the same transaction, event {}, undo event {}",
+                        logContent.getOperation(), undoContent.getRowId(), logContent, undoContent);
+                iterator.remove();
+                memoryBytes -= estimateBytes(logContent);
+                needToAborted = true;
+                if (abortOne) {
+                    break;
+                }
+            }
+            if (needToAborted && EmptyKit.isEmpty(logContents)) {
+                listIter.remove();
+            }
+        }
+        return needToAborted;
+    }
+
+    /**
+     * @return true if the undo content undoes the content: delete undoes insert, insert undoes delete, update undoes
+     * update with the same set clause
+     */
+    private static boolean undoes(RedoLogContent undoContent, String undoSetClause, RedoLogContent logContent) {
+        String rowId = undoContent.getRowId();
+        if (null == rowId || !rowId.equals(logContent.getRowId())) {
+            return false;
+        }
+        switch (undoContent.getOperation()) {
+            case SqlConstant.REDO_LOG_OPERATION_DELETE:
+                return SqlConstant.REDO_LOG_OPERATION_INSERT.equals(logContent.getOperation());
+            case SqlConstant.REDO_LOG_OPERATION_INSERT:
+                return SqlConstant.REDO_LOG_OPERATION_DELETE.equals(logContent.getOperation())
+                        && EmptyKit.isNotBlank(logContent.getSqlRedo())
+                        && undoContent.getSqlRedo().equals(logContent.getSqlUndo());
+            case SqlConstant.REDO_LOG_OPERATION_UPDATE:
+                if (!SqlConstant.REDO_LOG_OPERATION_UPDATE.equals(logContent.getOperation())) {
+                    return false;
+                }
+                String betweenSetAndWhere = StringKit.subStringBetweenTwoString(logContent.getSqlUndo(), "set", "where");
+                return undoSetClause.equals(betweenSetAndWhere)
+                        || (undoContent.getRollback() == 1 && StringKit.indexOf(betweenSetAndWhere, undoSetClause.trim()) > -1);
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Move the contents in memory to append-only files under directory, the following contents are appended to the
+     * files too. The undo contents received afterwards are kept in memory by row id, see {@link #abort(RedoLogContent)}
+     */
+    public void spill(File directory, long segmentBytes) throws IOException {
+        if (null != spillFile) {
+            return;
+        }
+        spillFile = new TransactionSpillFile(directory, xid, segmentBytes);
+        try {
+            if (EmptyKit.isNotEmpty(redoLogContents)) {
+                for (List<RedoLogContent> redoLogContentList : redoLogContents.values()) {
+                    for (RedoLogContent redoLogContent : redoLogContentList) {
+                        spillFile.append(redoLogContent);
+                    }
+                }
+                redoLogContents.clear();
+            }
+        } catch (IOException e) {
+            discardSpillFile();
+            throw e;
+        }
+        txUpdatedRowIds.clear();
+        memoryBytes = 0L;
+    }
+
+    /**
+     * @return true if the content in spill file at the index is undone by an undo content received after it
+     */
+    private boolean abortedOnReplay(RedoLogContent logContent, long index) {
+        List<SpilledUndo> undoList = spilledUndoContents.get(logContent.getRowId());
+        if (null == undoList) {
+            return false;
+        }
+        for (SpilledUndo spilledUndo : undoList) {
+            if (spilledUndo.consumed || spilledUndo.index <= index
+                    || !undoes(spilledUndo.content, spilledUndo.setClause, logContent)) {
+                continue;
+            }
+            if (SqlConstant.REDO_LOG_OPERATION_UPDATE.equals(spilledUndo.content.getOperation())) {
+                spilledUndo.consumed = true;
+            }
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Replay the contents grouped by rs id, in memory or streaming from spill files
+     */
+    public void replayRedoLogContents(Consumer<List<RedoLogContent>> consumer) {
+        if (null == spillFile) {
+            if (EmptyKit.isNotEmpty(redoLogContents)) {
+                redoLogContents.values().forEach(consumer);
+            }
+            return;
+        }
+        RsIdGrouper grouper = new RsIdGrouper(consumer);
+        long[] index = {0L};
+        try {
+            spillFile.replay(redoLogContent -> {
+                if (!abortedOnReplay(redoLogContent, index[0]++)) {
+                    grouper.accept(redoLogContent);
+                }
+            });
+        } catch (IOException e) {
+            throw new RuntimeException(String.format("Replay transaction spill file failed, xid: %s, file: %s, err: %s",
+                    xid, spillFile.getDirectory().getAbsolutePath(), e.getMessage()), e);
+        }
+        grouper.flush();
+    }
+
+    /**
+     * Release the spill files, call it when the transaction is committed or rolled back
+     */
+    public void discardSpillFile() {
+        if (null != spillFile) {
+            spillFile.discard();
+            spillFile = null;
+        }
+        spilledUndoContents.clear();
+    }
+
+    public boolean isSpilled() {
+        return null != spillFile;
+    }
+
+    /**
+     * @return estimated bytes in memory plus bytes in spill files
+     */
+    public long getBufferedBytes() {
+        return memoryBytes + (null == spillFile ? 0L : spillFile.getBytes());
+    }
+
+    public long getMemoryBytes() {
+        return memoryBytes;
     }
 
     public Long getRacMinimalScn() {
@@ -199,11 +433,87 @@ public class LogTransaction {
         this.receivedCommitTs = receivedCommitTs;
     }
 
+    private static long estimateBytes(Map<String, List<RedoLogContent>> redoLogContents) {
+        long bytes = 0L;
+        if (EmptyKit.isNotEmpty(redoLogContents)) {
+            for (List<RedoLogContent> redoLogContentList : redoLogContents.values()) {
+                for (RedoLogContent redoLogContent : redoLogContentList) {
+                    bytes += estimateBytes(redoLogContent);
+                }
+            }
+        }
+        return bytes;
+    }
+
+    private static long estimateBytes(RedoLogContent redoLogContent) {
+        long bytes = CONTENT_BASE_BYTES;
+        if (null != redoLogContent.getSqlRedo()) {
+            bytes += 2L * redoLogContent.getSqlRedo().length();
+        }
+        if (null != redoLogContent.getSqlUndo()) {
+            bytes += 2L * redoLogContent.getSqlUndo().length();
+        }
+        if (null != redoLogContent.getRedoRecord()) {
+            bytes += (long) RECORD_FIELD_BYTES * redoLogContent.getRedoRecord().size();
+        }
+        if (null != redoLogContent.getUndoRecord()) {
+            bytes += (long) RECORD_FIELD_BYTES * redoLogContent.getUndoRecord().size();
+        }
+        return bytes;
+    }
+
+    private static class SpilledUndo {
+        private final RedoLogContent content;
+        private final String setClause;
+        /**
+         * count of the contents in spill file when the undo content is received, it only undoes the contents before
+         */
+        private final long index;
+        private boolean consumed;
+
+        private SpilledUndo(RedoLogContent content, String setClause, long index) {
+            this.content = content;
+            this.setClause = setClause;
+            this.index = index;
+        }
+    }
+
+    /**
+     * Spill files keep the append order, group the adjacent contents with the same rs id as the in memory map does
+     */
+    private static class RsIdGrouper implements Consumer<RedoLogContent> {
+        private final Consumer<List<RedoLogContent>> consumer;
+        private List<RedoLogContent> group = new ArrayList<>();
+        private String groupRsId;
+
+        private RsIdGrouper(Consumer<List<RedoLogContent>> consumer) {
+            this.consumer = consumer;
+        }
+
+        @Override
+        public void accept(RedoLogContent redoLogContent) {
+            if (!group.isEmpty() && !Objects.equals(groupRsId, redoLogContent.getRsId())) {
+                flush();
+            }
+            groupRsId = redoLogContent.getRsId();
+            group.add(redoLogContent);
+        }
+
+        private void flush() {
+            if (!group.isEmpty()) {
+                consumer.accept(group);
+                group = new ArrayList<>();
+            }
+        }
+    }
+
     @Override
     public String toString() {
         return "LogTransaction{" + "rsId='" + rsId + '\'' +
                 ", scn=" + scn +
                 ", xid='" + xid + '\'' +
+                ", bufferedBytes=" + getBufferedBytes() +
+                ", spilled=" + isSpilled() +
                 ", redoLogContents=" + redoLogContents +
                 '}';
     }
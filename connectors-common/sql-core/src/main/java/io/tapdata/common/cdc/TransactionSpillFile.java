@@ -0,0 +1,140 @@
+package io.tapdata.common.cdc;
+
+import io.tapdata.entity.logger.TapLogger;
+
+import java.io.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Append-only segment files of one transaction's redo log contents, used when the transaction exceeds the memory
+ * threshold of log miner. Contents are replayed streaming in append order, and the files are deleted when the
+ * transaction is committed or rolled back.
+ */
+public class TransactionSpillFile {
+
+    private final static String TAG = TransactionSpillFile.class.getSimpleName();
+    public static final long DEFAULT_SEGMENT_BYTES = 64 * 1024 * 1024L;
+    private final static int RESET_INTERVAL = 1000; //object stream keeps the handles of written objects until reset
+
+    private final File directory;
+    private final long segmentBytes;
+    private final List<Segment> segments = new ArrayList<>();
+    private Segment current;
+    private long count;
+
+    public TransactionSpillFile(File baseDirectory, String xid, long segmentBytes) throws IOException {
+        this.directory = new File(baseDirectory, xid.replaceAll("[^a-zA-Z0-9_\\-.]", "_") + "_" + System.nanoTime());
+        this.segmentBytes = segmentBytes > 0 ? segmentBytes : DEFAULT_SEGMENT_BYTES;
+        if (!directory.mkdirs() && !directory.isDirectory()) {
+            throw new IOException("Create transaction spill directory failed: " + directory.getAbsolutePath());
+        }
+    }
+
+    public void append(RedoLogContent redoLogContent) throws IOException {
+        if (null == current || current.counter.bytes >= segmentBytes) {
+            rotate();
+        }
+        current.out.writeObject(redoLogContent);
+        current.count++;
+        if (current.count % RESET_INTERVAL == 0) {
+            current.out.reset();
+        }
+        count++;
+    }
+
+    public void replay(Consumer<RedoLogContent> consumer) throws IOException {
+        closeCurrent();
+        for (Segment segment : segments) {
+            try (ObjectInputStream in = new ObjectInputStream(new BufferedInputStream(new FileInputStream(segment.file)))) {
+                for (long i = 0; i < segment.count; i++) {
+                    consumer.accept((RedoLogContent) in.readObject());
+                }
+            } catch (ClassNotFoundException e) {
+                throw new IOException("Read transaction spill file failed: " + segment.file.getAbsolutePath(), e);
+            }
+        }
+    }
+
+    public void discard() {
+        try {
+            closeCurrent();
+        } catch (IOException e) {
+            TapLogger.warn(TAG, "Close transaction spill file failed: {}", e.getMessage());
+        }
+        for (Segment segment : segments) {
+            if (segment.file.exists() && !segment.file.delete()) {
+                TapLogger.warn(TAG, "Delete transaction spill file failed: {}", segment.file.getAbsolutePath());
+            }
+        }
+        segments.clear();
+        if (!directory.delete()) {
+            TapLogger.warn(TAG, "Delete transaction spill directory failed: {}", directory.getAbsolutePath());
+        }
+    }
+
+    public long getBytes() {
+        long bytes = 0L;
+        for (Segment segment : segments) {
+            bytes += segment.counter.bytes;
+        }
+        return bytes;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public File getDirectory() {
+        return directory;
+    }
+
+    private void rotate() throws IOException {
+        closeCurrent();
+        File file = new File(directory, "segment-" + segments.size() + ".log");
+        current = new Segment(file);
+        segments.add(current);
+    }
+
+    private void closeCurrent() throws IOException {
+        if (null != current) {
+            Segment segment = current;
+            current = null;
+            segment.out.close();
+        }
+    }
+
+    private static class Segment {
+        private final File file;
+        private final CountingOutputStream counter;
+        private final ObjectOutputStream out;
+        private long count;
+
+        private Segment(File file) throws IOException {
+            this.file = file;
+            this.counter = new CountingOutputStream(new FileOutputStream(file));
+            this.out = new ObjectOutputStream(new BufferedOutputStream(counter));
+        }
+    }
+
+    private static class CountingOutputStream extends FilterOutputStream {
+        private long bytes;
+
+        private CountingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            bytes++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            bytes += len;
+        }
+    }
+}
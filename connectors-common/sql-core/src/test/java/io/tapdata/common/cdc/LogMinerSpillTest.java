@@ -0,0 +1,134 @@
+package io.tapdata.common.cdc;
+
+import io.tapdata.constant.SqlConstant;
+import io.tapdata.entity.event.TapEvent;
+import io.tapdata.entity.event.dml.TapInsertRecordEvent;
+import io.tapdata.entity.event.dml.TapUpdateRecordEvent;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class LogMinerSpillTest {
+
+    private static final String XID = "0A001B00C5230000";
+    // every redo entry has its own record set id, the replay groups adjacent entries of the same one into one event
+    private static final AtomicInteger RS_ID_SEQ = new AtomicInteger();
+
+    @TempDir
+    File spillDirectory;
+
+    @Test
+    public void testRollbackToSavepointAfterSpill() {
+        TestLogMiner logMiner = new TestLogMiner();
+        logMiner.transactionMemoryThreshold(1L).transactionSpillDirectory(spillDirectory.getAbsolutePath());
+
+        logMiner.process(insert("AAA", "A"));
+        logMiner.process(insert("BBB", "B"));
+        Assertions.assertTrue(logMiner.transactionBucket.get(XID).isSpilled());
+        logMiner.process(update("AAA", "\"NAME\" = 'A1'", "\"NAME\" = 'A'"));
+        // rollback to savepoint: undo the update of AAA and the insert of BBB
+        logMiner.process(undo(SqlConstant.REDO_LOG_OPERATION_UPDATE, "AAA", "update \"T\" set \"NAME\" = 'A' where ROWID = 'AAA'"));
+        logMiner.process(undo(SqlConstant.REDO_LOG_OPERATION_DELETE, "BBB", "delete from \"T\" where ROWID = 'BBB'"));
+        // the same row id is used again after the savepoint
+        logMiner.process(insert("BBB", "B2"));
+        logMiner.process(commit());
+
+        List<TapEvent> events = logMiner.events;
+        Assertions.assertEquals(2, events.size());
+        Assertions.assertEquals("A", ((TapInsertRecordEvent) events.get(0)).getAfter().get("NAME"));
+        Assertions.assertEquals("B2", ((TapInsertRecordEvent) events.get(1)).getAfter().get("NAME"));
+        Assertions.assertTrue(events.stream().noneMatch(e -> e instanceof TapUpdateRecordEvent));
+        Assertions.assertArrayEquals(new String[0], spillDirectory.list());
+    }
+
+    @Test
+    public void testRollbackToSavepointInMemory() {
+        TestLogMiner logMiner = new TestLogMiner();
+        logMiner.transactionMemoryThreshold(0L);
+
+        logMiner.process(insert("AAA", "A"));
+        long memoryBytes = logMiner.transactionBucket.get(XID).getMemoryBytes();
+        logMiner.process(insert("BBB", "B"));
+        logMiner.process(undo(SqlConstant.REDO_LOG_OPERATION_DELETE, "BBB", "delete from \"T\" where ROWID = 'BBB'"));
+        Assertions.assertEquals(memoryBytes, logMiner.transactionBucket.get(XID).getMemoryBytes());
+        logMiner.process(commit());
+
+        Assertions.assertEquals(1, logMiner.events.size());
+        Assertions.assertEquals("A", ((TapInsertRecordEvent) logMiner.events.get(0)).getAfter().get("NAME"));
+    }
+
+    private static RedoLogContent content(String operation, String rowId) {
+        RedoLogContent redoLogContent = new RedoLogContent();
+        redoLogContent.setOperation(operation);
+        redoLogContent.setRowId(rowId);
+        redoLogContent.setXid(XID);
+        redoLogContent.setRsId(String.format("0x000001.00000002.%04x", RS_ID_SEQ.incrementAndGet()));
+        redoLogContent.setScn(100L);
+        redoLogContent.setTableName("T");
+        redoLogContent.setTimestamp(new Timestamp(System.currentTimeMillis()));
+        return redoLogContent;
+    }
+
+    private static RedoLogContent insert(String rowId, String name) {
+        RedoLogContent redoLogContent = content(SqlConstant.REDO_LOG_OPERATION_INSERT, rowId);
+        redoLogContent.setSqlRedo("insert into \"T\"(\"NAME\") values ('" + name + "')");
+        redoLogContent.setSqlUndo("delete from \"T\" where ROWID = '" + rowId + "'");
+        redoLogContent.setRedoRecord(record(name));
+        return redoLogContent;
+    }
+
+    private static RedoLogContent update(String rowId, String redoSet, String undoSet) {
+        RedoLogContent redoLogContent = content(SqlConstant.REDO_LOG_OPERATION_UPDATE, rowId);
+        redoLogContent.setSqlRedo("update \"T\" set " + redoSet + " where ROWID = '" + rowId + "'");
+        redoLogContent.setSqlUndo("update \"T\" set " + undoSet + " where ROWID = '" + rowId + "'");
+        redoLogContent.setRedoRecord(record("A1"));
+        redoLogContent.setUndoRecord(record("A"));
+        return redoLogContent;
+    }
+
+    private static RedoLogContent undo(String operation, String rowId, String sqlRedo) {
+        RedoLogContent redoLogContent = content(operation, rowId);
+        redoLogContent.setSqlRedo(sqlRedo);
+        redoLogContent.setRollback(1);
+        return redoLogContent;
+    }
+
+    private static RedoLogContent commit() {
+        return content(SqlConstant.REDO_LOG_OPERATION_COMMIT, null);
+    }
+
+    private static Map<String, Object> record(String name) {
+        Map<String, Object> record = new HashMap<>();
+        record.put("NAME", name);
+        return record;
+    }
+
+    private static class TestLogMiner extends LogMiner {
+        private final List<TapEvent> events = new ArrayList<>();
+
+        private void process(RedoLogContent redoLogContent) {
+            processOrBuffRedoLogContent(redoLogContent, this::sendTransaction);
+        }
+
+        @Override
+        public void startMiner() {
+        }
+
+        @Override
+        protected void ddlFlush() {
+        }
+
+        @Override
+        protected void submitEvent(RedoLogContent redoLogContent, List<TapEvent> list) {
+            events.addAll(list);
+        }
+    }
+}
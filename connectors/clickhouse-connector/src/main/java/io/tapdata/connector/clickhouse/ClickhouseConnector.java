@@ -101,6 +101,7 @@ public class ClickhouseConnector extends ConnectorBase {
                     tapTable.setComment(subTable.getString("comment"));
                     List<String> primaryKey = TapSimplify.list();
                     columnList.stream().filter(col->table.equals(col.getString("table")))
+                            .filter(col -> !ClickhouseJdbcContext.VERSION_COLUMN.equals(col.getString("name")) && !ClickhouseJdbcContext.IS_DELETED_COLUMN.equals(col.getString("name")))
                             .forEach(col->{
                                 String columnName = col.getString("name");
                                 String columnType = col.getString("type");
@@ -213,7 +214,13 @@ public class ClickhouseConnector extends ConnectorBase {
         TapTable tapTable = tapCreateTableEvent.getTable();
         Collection<String> primaryKeys = tapTable.primaryKeys(true);
         String sql = "CREATE TABLE IF NOT EXISTS \"" + clickhouseConfig.getDatabase() + "\".\"" + tapTable.getId() + "\"(" + ClickhouseDDLSqlMaker.buildColumnDefinition(tapTable, true);
-        sql = sql.substring(0, sql.length() - 1) + ") ENGINE = MergeTree ";
+        if (Boolean.TRUE.equals(clickhouseConfig.getReplacingMergeTree()) && EmptyKit.isNotEmpty(primaryKeys)) {
+            //updates and deletes are written as versioned rows, see ClickhouseWriter
+            sql += "\"" + ClickhouseJdbcContext.VERSION_COLUMN + "\" UInt64,\"" + ClickhouseJdbcContext.IS_DELETED_COLUMN + "\" UInt8,";
+            sql = sql.substring(0, sql.length() - 1) + ") ENGINE = ReplacingMergeTree(\"" + ClickhouseJdbcContext.VERSION_COLUMN + "\") ";
+        } else {
+            sql = sql.substring(0, sql.length() - 1) + ") ENGINE = MergeTree ";
+        }
         if (EmptyKit.isNotEmpty(primaryKeys)) {
             sql += " PRIMARY KEY (\"" + String.join("\",\"", primaryKeys) + "\")";
         } else {
@@ -224,6 +231,7 @@ public class ClickhouseConnector extends ConnectorBase {
             sqls.add(sql);
             TapLogger.info("table 为:","table->{}",tapTable.getId());
             clickhouseJdbcContext.batchExecute(sqls);
+            clickhouseJdbcContext.clearTableEngine(tapTable.getId());
         } catch (Throwable e) {
             e.printStackTrace();
             throw new RuntimeException("Create Table " + tapTable.getId() + " Failed! " + e.getMessage());
@@ -270,11 +278,11 @@ public class ClickhouseConnector extends ConnectorBase {
     }
 
     private void queryByAdvanceFilter(TapConnectorContext connectorContext, TapAdvanceFilter filter, TapTable table, Consumer<FilterResults> consumer) throws Throwable {
-        String sql = "SELECT * FROM \"" + clickhouseConfig.getDatabase() + "\".\"" + table.getId() + "\" " + CommonSqlMaker.buildSqlByAdvanceFilter(filter);
+        String sql = "SELECT * FROM " + tableSource(table.getId()) + " " + CommonSqlMaker.buildSqlByAdvanceFilter(filter);
         clickhouseJdbcContext.query(sql, resultSet -> {
             FilterResults filterResults = new FilterResults();
             while (resultSet!=null && resultSet.next()) {
-                filterResults.add(DbKit.getRowFromResultSet(resultSet, DbKit.getColumnsFromResultSet(resultSet)));
+                filterResults.add(removeVersionColumns(DbKit.getRowFromResultSet(resultSet, DbKit.getColumnsFromResultSet(resultSet))));
                 if (filterResults.getResults().size() == BATCH_ADVANCE_READ_LIMIT) {
                     consumer.accept(filterResults);
                     filterResults = new FilterResults();
@@ -294,11 +302,13 @@ public class ClickhouseConnector extends ConnectorBase {
 
     // 不支持偏移量
     private void batchRead(TapConnectorContext tapConnectorContext, TapTable tapTable, Object offsetState, int eventBatchSize, BiConsumer<List<TapEvent>, Object> eventsOffsetConsumer) throws Throwable {
-        String sql = "SELECT * FROM \"" + clickhouseConfig.getDatabase() + "\".\"" + tapTable.getId()+"\"";
+        String sql = "SELECT * FROM " + tableSource(tapTable.getId());
         clickhouseJdbcContext.query(sql, resultSet -> {
             List<TapEvent> tapEvents = list();
             //get all column names
             List<String> columnNames = DbKit.getColumnsFromResultSet(resultSet);
+            columnNames.remove(ClickhouseJdbcContext.VERSION_COLUMN);
+            columnNames.remove(ClickhouseJdbcContext.IS_DELETED_COLUMN);
             while (isAlive() && resultSet.next()) {
                 DataMap dataMap = DbKit.getRowFromResultSet(resultSet, columnNames);
                 for (Map.Entry<String, Object> e : dataMap.entrySet()) {
@@ -320,11 +330,29 @@ public class ClickhouseConnector extends ConnectorBase {
 
     private long batchCount(TapConnectorContext tapConnectorContext, TapTable tapTable) throws Throwable {
         AtomicLong count = new AtomicLong(0);
-        String sql = "SELECT COUNT(1) FROM \"" + clickhouseConfig.getDatabase() + "\".\"" + tapTable.getId() + "\"";
+        String sql = "SELECT COUNT(1) FROM " + tableSource(tapTable.getId());
         clickhouseJdbcContext.queryWithNext(sql, resultSet -> count.set(resultSet.getLong(1)));
         return count.get();
     }
 
+    /**
+     * ReplacingMergeTree tables are read with FINAL and without deleted rows when readFinal is on,
+     * so the rows are the same as the source after merging
+     */
+    private String tableSource(String tableId) {
+        String table = "\"" + clickhouseConfig.getDatabase() + "\".\"" + tableId + "\"";
+        if (!Boolean.FALSE.equals(clickhouseConfig.getReadFinal()) && clickhouseJdbcContext.isReplacingMergeTree(tableId)) {
+            return "(SELECT * FROM " + table + " FINAL WHERE \"" + ClickhouseJdbcContext.IS_DELETED_COLUMN + "\" = 0)";
+        }
+        return table;
+    }
+
+    private DataMap removeVersionColumns(DataMap row) {
+        row.remove(ClickhouseJdbcContext.VERSION_COLUMN);
+        row.remove(ClickhouseJdbcContext.IS_DELETED_COLUMN);
+        return row;
+    }
+
     private void clearTable(TapConnectorContext tapConnectorContext, TapClearTableEvent tapClearTableEvent) {
         try {
             if (clickhouseJdbcContext.queryAllTables(Collections.singletonList(tapClearTableEvent.getTableId())).size() == 1) {
@@ -341,6 +369,7 @@ public class ClickhouseConnector extends ConnectorBase {
             if (clickhouseJdbcContext.queryAllTables(Collections.singletonList(tapDropTableEvent.getTableId())).size() == 1) {
                 clickhouseJdbcContext.execute("DROP TABLE IF EXISTS \"" + clickhouseConfig.getDatabase() + "\".\"" + tapDropTableEvent.getTableId() + "\"");
             }
+            clickhouseJdbcContext.clearTableEngine(tapDropTableEvent.getTableId());
         } catch (Throwable e) {
             e.printStackTrace();
             throw new RuntimeException("Drop Table " + tapDropTableEvent.getTableId() + " Failed! \n ");
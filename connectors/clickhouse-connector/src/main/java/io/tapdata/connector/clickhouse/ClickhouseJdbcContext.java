@@ -17,6 +17,9 @@ import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Consumer;
 
@@ -28,6 +31,13 @@ public class ClickhouseJdbcContext extends JdbcContext {
     private final static String CK_ALL_TABLE = "select database,name from system.tables where database !='system' and database='%s' ";
     private final static String CK_ALL_COLUMN = "select * from system.columns where database='%s'";
     private final static String CK_ALL_INDEX = "";//从异构数据源 同步到clickhouse 索引对应不上
+    private final static String CK_TABLE_ENGINE = "select engine from system.tables where database='%s' and name='%s'";
+    private final static String CK_REPLACING_COLUMN_COUNT = "select count(1) from system.columns where database='%s' and table='%s' and name in ('%s','%s')";
+
+    public static final String VERSION_COLUMN = "_tapd_version";
+    public static final String IS_DELETED_COLUMN = "_tapd_is_deleted";
+
+    private final Map<String, Boolean> replacingMergeTreeTables = new ConcurrentHashMap<>();
 
     public ClickhouseJdbcContext(ClickhouseConfig config, HikariDataSource hikariDataSource) {
         super(config, hikariDataSource);
@@ -130,6 +140,35 @@ public class ClickhouseJdbcContext extends JdbcContext {
         }
     }
 
+    /**
+     * @return true if the table is a ReplacingMergeTree created with version and is_deleted columns, the result is cached
+     */
+    public boolean isReplacingMergeTree(String tableName) {
+        return replacingMergeTreeTables.computeIfAbsent(tableName, table -> {
+            AtomicReference<String> engine = new AtomicReference<>("");
+            AtomicInteger columnCount = new AtomicInteger();
+            try {
+                query(String.format(CK_TABLE_ENGINE, getConfig().getDatabase(), table), resultSet -> {
+                    if (null != resultSet && resultSet.next()) {
+                        engine.set(resultSet.getString(1));
+                    }
+                });
+                queryWithNext(String.format(CK_REPLACING_COLUMN_COUNT, getConfig().getDatabase(), table, VERSION_COLUMN, IS_DELETED_COLUMN),
+                        resultSet -> columnCount.set(resultSet.getInt(1)));
+            } catch (Throwable e) {
+                throw new RuntimeException("Query engine of table " + table + " failed, error: " + e.getMessage(), e);
+            }
+            return EmptyKit.isNotBlank(engine.get()) && engine.get().endsWith("ReplacingMergeTree") && columnCount.get() == 2;
+        });
+    }
+
+    /**
+     * forget the cached engine after the table is created or dropped
+     */
+    public void clearTableEngine(String tableName) {
+        replacingMergeTreeTables.remove(tableName);
+    }
+
     public String timezone() throws SQLException {
 
         String timeZone = null;
@@ -7,9 +7,33 @@ import java.io.Serializable;
 
 public class ClickhouseConfig extends CommonDbConfig implements Serializable {
 
+    /**
+     * create tables as ReplacingMergeTree, and write inserts, updates and deletes as versioned rows
+     */
+    private Boolean replacingMergeTree = false;
+    /**
+     * read ReplacingMergeTree tables with FINAL and skip deleted rows
+     */
+    private Boolean readFinal = true;
 
     public ClickhouseConfig() {
         setDbType("clickhouse");
         setJdbcDriver("ru.yandex.clickhouse.ClickHouseDriver");
     }
+
+    public Boolean getReplacingMergeTree() {
+        return replacingMergeTree;
+    }
+
+    public void setReplacingMergeTree(Boolean replacingMergeTree) {
+        this.replacingMergeTree = replacingMergeTree;
+    }
+
+    public Boolean getReadFinal() {
+        return readFinal;
+    }
+
+    public void setReadFinal(Boolean readFinal) {
+        this.readFinal = readFinal;
+    }
 }
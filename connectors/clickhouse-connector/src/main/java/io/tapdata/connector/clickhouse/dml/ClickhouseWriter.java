@@ -46,6 +46,11 @@ public class ClickhouseWriter {
     //alter table default.student delete where id =0
     protected static final String DELETE_SQL_TEMPLATE = "ALTER TABLE `%s`.`%s` DELETE WHERE %s";
     protected static final String CHECK_ROW_EXISTS_TEMPLATE = "SELECT COUNT(1) as count FROM `%s`.`%s` WHERE %s";
+    protected static final String SELECT_FINAL_ROW_TEMPLATE = "SELECT %s FROM `%s`.`%s` FINAL WHERE %s LIMIT 1";
+
+    private final Map<String, PreparedStatement> replacingInsertMap = new LRUOnRemoveMap<>(10, entry -> JdbcUtil.closeQuietly(entry.getValue()));
+    private final Map<String, PreparedStatement> replacingSelectMap = new LRUOnRemoveMap<>(10, entry -> JdbcUtil.closeQuietly(entry.getValue()));
+    private long lastVersion;
 
 
     public ClickhouseWriter(ClickhouseJdbcContext clickhouseJdbcContext) throws Throwable {
@@ -54,6 +59,9 @@ public class ClickhouseWriter {
     }
 
     public WriteListResult<TapRecordEvent> write(TapConnectorContext tapConnectorContext, TapTable tapTable, List<TapRecordEvent> tapRecordEvents) throws Throwable {
+        if (CollectionUtils.isNotEmpty(getUniqueKeys(tapTable)) && clickhouseJdbcContext.isReplacingMergeTree(tapTable.getId())) {
+            return writeReplacing(tapConnectorContext, tapTable, tapRecordEvents);
+        }
         WriteListResult<TapRecordEvent> writeListResult = new WriteListResult<>(0L, 0L, 0L, new HashMap<>());
         TapRecordEvent errorRecord = null;
         try {
@@ -95,6 +103,227 @@ public class ClickhouseWriter {
         this.updateMap.clear();
         this.deleteMap.clear();
         this.checkExistsMap.clear();
+        this.replacingInsertMap.clear();
+        this.replacingSelectMap.clear();
+    }
+
+    /**
+     * Write the events of a ReplacingMergeTree table as inserts only, instead of ALTER TABLE mutations:
+     * every event becomes a row stamped with an increasing version, deletes are rows with is_deleted = 1,
+     * the rows with the same columns are sent in one batch, ClickHouse keeps the row with the biggest version when merging.
+     * <p>
+     * The whole row is written. The columns missing in the after image of an update are taken from before, from the row
+     * written earlier in the same batch, or from the current row read with FINAL. An update of a row that does not
+     * exist is not written and reported as an error. Insert and update policies are not used, an insert of an existing
+     * key replaces the row.
+     */
+    private WriteListResult<TapRecordEvent> writeReplacing(TapConnectorContext tapConnectorContext, TapTable tapTable, List<TapRecordEvent> tapRecordEvents) throws Throwable {
+        WriteListResult<TapRecordEvent> writeListResult = new WriteListResult<>(0L, 0L, 0L, new HashMap<>());
+        Map<Set<String>, List<Map<String, Object>>> batches = new LinkedHashMap<>();
+        // latest row of each key written in this batch, not in ClickHouse yet
+        Map<List<Object>, Map<String, Object>> pendingRows = new HashMap<>();
+        for (TapRecordEvent tapRecordEvent : tapRecordEvents) {
+            if (!running.get()) break;
+            try {
+                if (tapRecordEvent instanceof TapInsertRecordEvent) {
+                    addReplacingRow(batches, pendingRows, tapTable, getAfter(tapRecordEvent), null, false);
+                    writeListResult.incrementInserted(1);
+                } else if (tapRecordEvent instanceof TapUpdateRecordEvent) {
+                    Map<String, Object> before = getBefore(tapRecordEvent);
+                    Map<String, Object> after = getAfter(tapRecordEvent);
+                    Map<String, Object> current = completeUpdateRow(tapConnectorContext, tapTable, before, after, pendingRows);
+                    if (null == current) {
+                        TapLogger.warn(TAG, "Skip the update of table {}, the row to update does not exist and the after image is partial: {}", tapTable.getId(), after);
+                        writeListResult.addError(tapRecordEvent, new Exception("Update versioned row failed, the row to update does not exist and the after image is partial: " + after));
+                        continue;
+                    }
+                    if (primaryKeyChanged(tapTable, before, after)) {
+                        addReplacingRow(batches, pendingRows, tapTable, current, null, true);
+                    }
+                    addReplacingRow(batches, pendingRows, tapTable, after, current, false);
+                    writeListResult.incrementModified(1);
+                } else if (tapRecordEvent instanceof TapDeleteRecordEvent) {
+                    addReplacingRow(batches, pendingRows, tapTable, getBefore(tapRecordEvent), null, true);
+                    writeListResult.incrementRemove(1);
+                } else {
+                    writeListResult.addError(tapRecordEvent, new Exception("Event type \"" + tapRecordEvent.getClass().getSimpleName() + "\" not support: " + tapRecordEvent));
+                }
+            } catch (Exception e) {
+                writeListResult.addError(tapRecordEvent, e);
+            }
+        }
+        try {
+            for (Map.Entry<Set<String>, List<Map<String, Object>>> entry : batches.entrySet()) {
+                PreparedStatement preparedStatement = getReplacingInsertPreparedStatement(tapConnectorContext, tapTable, entry.getKey());
+                for (Map<String, Object> row : entry.getValue()) {
+                    int parameterIndex = 1;
+                    for (Object value : row.values()) {
+                        preparedStatement.setObject(parameterIndex++, value);
+                    }
+                    preparedStatement.addBatch();
+                }
+                try {
+                    preparedStatement.executeBatch();
+                } catch (Throwable e) {
+                    throw new RuntimeException("Insert versioned rows failed, sql: " + preparedStatement + ", message: " + e.getMessage(), e);
+                }
+            }
+            ClickhouseJdbcContext.tryCommit(connection);
+        } catch (Throwable e) {
+            ClickhouseJdbcContext.tryRollBack(connection);
+            throw e;
+        }
+        return writeListResult;
+    }
+
+    /**
+     * Values of the columns missing in the after image of an update, from before, from the row written earlier in the
+     * batch or from the current row in ClickHouse. The current row is the one of the before key when the key changed.
+     *
+     * @return all columns of the row before the update, only before when after is full, null if the row does not exist
+     */
+    private Map<String, Object> completeUpdateRow(TapConnectorContext tapConnectorContext, TapTable tapTable, Map<String, Object> before,
+                                                  Map<String, Object> after, Map<List<Object>, Map<String, Object>> pendingRows) throws Throwable {
+        Map<String, Object> current = new LinkedHashMap<>();
+        if (MapUtils.isNotEmpty(before)) {
+            current.putAll(before);
+        }
+        List<String> missingColumns = new ArrayList<>();
+        for (String fieldName : tapTable.getNameFieldMap().keySet()) {
+            if ((null == after || !after.containsKey(fieldName)) && !current.containsKey(fieldName)) {
+                missingColumns.add(fieldName);
+            }
+        }
+        if (missingColumns.isEmpty()) {
+            return current;
+        }
+        Collection<String> uniqueKeys = getUniqueKeys(tapTable);
+        Map<String, Object> keyData = MapUtils.isNotEmpty(before) && before.keySet().containsAll(uniqueKeys) ? before : after;
+        if (null == keyData || !keyData.keySet().containsAll(uniqueKeys)) {
+            return null;
+        }
+        Map<String, Object> row = pendingRows.get(uniqueKeyValues(uniqueKeys, keyData));
+        if (null == row) {
+            row = selectFinalRow(tapConnectorContext, tapTable, uniqueKeys, keyData, missingColumns);
+        }
+        if (null == row || Objects.equals(1, row.get(ClickhouseJdbcContext.IS_DELETED_COLUMN))) {
+            return null;
+        }
+        for (String missingColumn : missingColumns) {
+            current.put(missingColumn, row.get(missingColumn));
+        }
+        return current;
+    }
+
+    /**
+     * @return the missing columns and is_deleted of the current (FINAL) row of the key, null if not exists
+     */
+    private Map<String, Object> selectFinalRow(TapConnectorContext tapConnectorContext, TapTable tapTable, Collection<String> uniqueKeys,
+                                               Map<String, Object> keyData, List<String> columns) throws Throwable {
+        String key = tapTable.getId() + "-" + String.join("-", columns);
+        PreparedStatement preparedStatement = replacingSelectMap.get(key);
+        if (null == preparedStatement) {
+            String database = tapConnectorContext.getConnectionConfig().getString("database");
+            List<String> fields = columns.stream().map(c -> "`" + c + "`").collect(Collectors.toList());
+            fields.add("`" + ClickhouseJdbcContext.IS_DELETED_COLUMN + "`");
+            String where = uniqueKeys.stream().map(k -> "`" + k + "`=?").collect(Collectors.joining(" AND "));
+            String sql = String.format(SELECT_FINAL_ROW_TEMPLATE, String.join(",", fields), database, tapTable.getId(), where);
+            try {
+                preparedStatement = this.connection.prepareStatement(sql);
+            } catch (SQLException e) {
+                throw new Exception("Create select final row prepared statement error, sql: " + sql + ", message: " + e.getSQLState() + " " + e.getErrorCode() + " " + e.getMessage(), e);
+            }
+            replacingSelectMap.put(key, preparedStatement);
+        }
+        int parameterIndex = 1;
+        for (String uniqueKey : uniqueKeys) {
+            preparedStatement.setObject(parameterIndex++, keyData.get(uniqueKey));
+        }
+        try (ResultSet resultSet = preparedStatement.executeQuery()) {
+            if (!resultSet.next()) {
+                return null;
+            }
+            Map<String, Object> row = new HashMap<>();
+            for (String column : columns) {
+                row.put(column, resultSet.getObject(column));
+            }
+            row.put(ClickhouseJdbcContext.IS_DELETED_COLUMN, resultSet.getInt(ClickhouseJdbcContext.IS_DELETED_COLUMN));
+            return row;
+        }
+    }
+
+    private static List<Object> uniqueKeyValues(Collection<String> uniqueKeys, Map<String, Object> data) {
+        List<Object> values = new ArrayList<>(uniqueKeys.size());
+        for (String uniqueKey : uniqueKeys) {
+            values.add(data.get(uniqueKey));
+        }
+        return values;
+    }
+
+    /**
+     * @param data   columns of the row, after of insert and update, before of delete
+     * @param before values of the columns missing in data
+     */
+    private void addReplacingRow(Map<Set<String>, List<Map<String, Object>>> batches, Map<List<Object>, Map<String, Object>> pendingRows,
+                                 TapTable tapTable, Map<String, Object> data, Map<String, Object> before, boolean deleted) throws Exception {
+        if (MapUtils.isEmpty(data)) {
+            throw new Exception("Write versioned row failed, data is empty");
+        }
+        for (String uniqueKey : getUniqueKeys(tapTable)) {
+            if (!data.containsKey(uniqueKey)) {
+                throw new Exception("Write versioned row failed, unique key \"" + uniqueKey + "\" not exists in data: " + data);
+            }
+        }
+        Map<String, Object> row = new LinkedHashMap<>();
+        for (String fieldName : tapTable.getNameFieldMap().keySet()) {
+            if (data.containsKey(fieldName)) {
+                row.put(fieldName, data.get(fieldName));
+            } else if (null != before && before.containsKey(fieldName)) {
+                row.put(fieldName, before.get(fieldName));
+            }
+        }
+        row.put(ClickhouseJdbcContext.VERSION_COLUMN, nextVersion());
+        row.put(ClickhouseJdbcContext.IS_DELETED_COLUMN, deleted ? 1 : 0);
+        batches.computeIfAbsent(row.keySet(), k -> new ArrayList<>()).add(row);
+        pendingRows.put(uniqueKeyValues(getUniqueKeys(tapTable), row), row);
+    }
+
+    private boolean primaryKeyChanged(TapTable tapTable, Map<String, Object> before, Map<String, Object> after) {
+        if (MapUtils.isEmpty(before) || MapUtils.isEmpty(after)) {
+            return false;
+        }
+        for (String uniqueKey : getUniqueKeys(tapTable)) {
+            if (before.containsKey(uniqueKey) && after.containsKey(uniqueKey) && !Objects.equals(before.get(uniqueKey), after.get(uniqueKey))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Versions are microseconds, increasing in one writer and greater than the versions written before restart
+     */
+    private synchronized long nextVersion() {
+        lastVersion = Math.max(lastVersion + 1, System.currentTimeMillis() * 1000);
+        return lastVersion;
+    }
+
+    protected PreparedStatement getReplacingInsertPreparedStatement(TapConnectorContext tapConnectorContext, TapTable tapTable, Set<String> columns) throws Throwable {
+        String key = tapTable.getId() + "-" + String.join("-", columns);
+        PreparedStatement preparedStatement = replacingInsertMap.get(key);
+        if (null == preparedStatement) {
+            String database = tapConnectorContext.getConnectionConfig().getString("database");
+            List<String> fields = columns.stream().map(c -> "`" + c + "`").collect(Collectors.toList());
+            List<String> questionMarks = fields.stream().map(f -> "?").collect(Collectors.toList());
+            String sql = String.format(INSERT_SQL_TEMPLATE, database, tapTable.getId(), String.join(",", fields), String.join(",", questionMarks));
+            try {
+                preparedStatement = this.connection.prepareStatement(sql);
+            } catch (SQLException e) {
+                throw new Exception("Create insert prepared statement error, sql: " + sql + ", message: " + e.getSQLState() + " " + e.getErrorCode() + " " + e.getMessage(), e);
+            }
+            replacingInsertMap.put(key, preparedStatement);
+        }
+        return preparedStatement;
     }
 
     private int doInsertOne(TapConnectorContext tapConnectorContext, TapTable tapTable, TapRecordEvent tapRecordEvent) throws Throwable {
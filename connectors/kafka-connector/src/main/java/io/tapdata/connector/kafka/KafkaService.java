@@ -6,6 +6,7 @@ import io.tapdata.common.constant.MqOp;
 import io.tapdata.connector.kafka.admin.Admin;
 import io.tapdata.connector.kafka.admin.DefaultAdmin;
 import io.tapdata.connector.kafka.config.*;
+import io.tapdata.connector.kafka.util.JsonRecordEncoder;
 import io.tapdata.connector.kafka.util.Krb5Util;
 import io.tapdata.constant.MqTestItem;
 import io.tapdata.entity.event.TapEvent;
@@ -25,9 +26,11 @@ import io.tapdata.pdk.apis.functions.connection.ConnectionCheckItem;
 import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.apache.kafka.clients.consumer.ConsumerRecords;
 import org.apache.kafka.clients.consumer.KafkaConsumer;
-import org.apache.kafka.clients.producer.Callback;
 import org.apache.kafka.clients.producer.KafkaProducer;
 import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.KafkaException;
+import org.apache.kafka.common.errors.RecordTooLargeException;
+import org.apache.kafka.common.errors.SerializationException;
 import org.apache.kafka.common.header.internals.RecordHeaders;
 
 import java.time.Duration;
@@ -44,7 +47,12 @@ public class KafkaService extends AbstractMqService {
     private static final String TAG = KafkaService.class.getSimpleName();
     private static final JsonParser jsonParser = InstanceFactory.instance(JsonParser.class);
     private String connectorId;
+    private static final int PARALLEL_ENCODE_THRESHOLD = 1000;
+    private static final long ACK_REPORT_INTERVAL_MS = 1000L;
+    private static final long PRODUCER_CLOSE_TIMEOUT_SECONDS = 30L;
     private final ExecutorService produceService;
+    private final ThreadLocal<JsonRecordEncoder> recordEncoder = ThreadLocal.withInitial(JsonRecordEncoder::new);
+    private KafkaProducer<byte[], byte[]> kafkaProducer;
 
     public KafkaService(KafkaConfig mqConfig) {
         this.mqConfig = mqConfig;
@@ -207,73 +215,195 @@ public class KafkaService extends AbstractMqService {
     }
 
     @Override
-    public void produce(List<TapRecordEvent> tapRecordEvents, TapTable tapTable, Consumer<WriteListResult<TapRecordEvent>> writeListResultConsumer) {
-        ProducerConfiguration producerConfiguration = new ProducerConfiguration(((KafkaConfig) mqConfig), connectorId);
-        KafkaProducer<byte[], byte[]> kafkaProducer = new KafkaProducer<>(producerConfiguration.build());
-        AtomicLong insert = new AtomicLong(0);
-        AtomicLong update = new AtomicLong(0);
-        AtomicLong delete = new AtomicLong(0);
-        WriteListResult<TapRecordEvent> listResult = new WriteListResult<>();
-        List<List<TapRecordEvent>> subEventLists = Lists.partition(tapRecordEvents, tapRecordEvents.size() <= concurrency ? tapRecordEvents.size() : (tapRecordEvents.size() - 1) / concurrency + 1);
-        CountDownLatch countDownLatch = new CountDownLatch(subEventLists.size());
-        subEventLists.forEach(subEventList -> produceService.submit(() -> {
-            try {
-                subEventList.forEach(event -> {
-                    Map<String, Object> data;
-                    MqOp mqOp = MqOp.INSERT;
-                    if (event instanceof TapInsertRecordEvent) {
-                        data = ((TapInsertRecordEvent) event).getAfter();
-                    } else if (event instanceof TapUpdateRecordEvent) {
-                        data = ((TapUpdateRecordEvent) event).getAfter();
-                        mqOp = MqOp.UPDATE;
-                    } else if (event instanceof TapDeleteRecordEvent) {
-                        data = ((TapDeleteRecordEvent) event).getBefore();
-                        mqOp = MqOp.DELETE;
-                    } else {
-                        data = new HashMap<>();
+    public void produce(List<TapRecordEvent> tapRecordEvents, TapTable tapTable, Consumer<WriteListResult<TapRecordEvent>> writeListResultConsumer) throws Throwable {
+        KafkaProducer<byte[], byte[]> producer = getKafkaProducer();
+        List<ProducerRecord<byte[], byte[]>> producerRecords = encodeRecords(tapRecordEvents, tapTable);
+        ProduceAcks produceAcks = new ProduceAcks(tapRecordEvents.size());
+        boolean transactional = ((KafkaConfig) mqConfig).getKafkaProducerUseTransactional();
+        try {
+            if (transactional) {
+                producer.beginTransaction();
+            }
+            // send in event order from one thread, records with the same key go to the same partition in order
+            for (int i = 0; i < tapRecordEvents.size(); i++) {
+                TapRecordEvent event = tapRecordEvents.get(i);
+                MqOp mqOp = mqOp(event);
+                try {
+                    producer.send(producerRecords.get(i), (metadata, exception) -> produceAcks.ack(event, mqOp, exception));
+                } catch (KafkaException e) {
+                    if (transactional || !(e instanceof SerializationException || e instanceof RecordTooLargeException)) {
+                        throw e;
                     }
-                    byte[] body = jsonParser.toJsonBytes(data);
-                    MqOp finalMqOp = mqOp;
-                    Callback callback = (metadata, exception) -> {
-                        if (EmptyKit.isNotNull(exception)) {
-                            listResult.addError(event, exception);
-                        }
-                        switch (finalMqOp) {
-                            case INSERT:
-                                insert.incrementAndGet();
-                                break;
-                            case UPDATE:
-                                update.incrementAndGet();
-                                break;
-                            case DELETE:
-                                delete.incrementAndGet();
-                                break;
-                        }
-                    };
-                    ProducerRecord<byte[], byte[]> producerRecord = new ProducerRecord<>(tapTable.getId(),
-                            null, event.getTime(), getKafkaMessageKey(data, tapTable), body,
-                            new RecordHeaders().add("mqOp", mqOp.getOp().getBytes()));
-                    kafkaProducer.send(producerRecord, callback);
-                });
-            } finally {
-                countDownLatch.countDown();
+                    produceAcks.ack(event, mqOp, e);
+                }
+            }
+            if (transactional) {
+                producer.commitTransaction();
             }
-        }));
+        } catch (KafkaException e) {
+            // the producer may be broken (fenced, transaction aborted...), next batch will create a new one
+            closeKafkaProducer(transactional);
+            throw e;
+        }
+        // report acks as they arrive, return when all the records are acknowledged
+        while (!produceAcks.await(ACK_REPORT_INTERVAL_MS)) {
+            produceAcks.report(writeListResultConsumer, false);
+        }
+        produceAcks.report(writeListResultConsumer, true);
+    }
+
+    private synchronized KafkaProducer<byte[], byte[]> getKafkaProducer() {
+        if (null == kafkaProducer) {
+            ProducerConfiguration producerConfiguration = new ProducerConfiguration(((KafkaConfig) mqConfig), connectorId);
+            KafkaProducer<byte[], byte[]> producer = new KafkaProducer<>(producerConfiguration.build());
+            if (((KafkaConfig) mqConfig).getKafkaProducerUseTransactional()) {
+                try {
+                    producer.initTransactions();
+                } catch (KafkaException e) {
+                    producer.close(Duration.ZERO);
+                    throw e;
+                }
+            }
+            kafkaProducer = producer;
+        }
+        return kafkaProducer;
+    }
+
+    private synchronized void closeKafkaProducer(boolean abortTransaction) {
+        if (null == kafkaProducer) {
+            return;
+        }
+        try {
+            if (abortTransaction) {
+                kafkaProducer.abortTransaction();
+            }
+        } catch (Exception e) {
+            TapLogger.warn(TAG, "abort kafka transaction failed: {}", e.getMessage());
+        }
         try {
-            countDownLatch.await();
-        } catch (InterruptedException e) {
-            TapLogger.error(TAG, "error occur when await", e);
+            kafkaProducer.close(Duration.ofSeconds(PRODUCER_CLOSE_TIMEOUT_SECONDS));
+        } catch (Exception e) {
+            TapLogger.warn(TAG, "close kafka producer failed: {}", e.getMessage());
         } finally {
-            kafkaProducer.close();
-            writeListResultConsumer.accept(listResult.insertedCount(insert.get()).modifiedCount(update.get()).removedCount(delete.get()));
+            kafkaProducer = null;
+        }
+    }
+
+    /**
+     * Encode the records on produceService when the batch is big enough, the records keep the order of the events
+     */
+    private List<ProducerRecord<byte[], byte[]>> encodeRecords(List<TapRecordEvent> tapRecordEvents, TapTable tapTable) throws Throwable {
+        List<String> primaryKeys = EmptyKit.isEmpty(tapTable.primaryKeys(true)) ? null : new ArrayList<>(tapTable.primaryKeys(true));
+        if (tapRecordEvents.size() < PARALLEL_ENCODE_THRESHOLD) {
+            return encodeRecords(tapRecordEvents, tapTable.getId(), primaryKeys);
+        }
+        List<List<TapRecordEvent>> subEventLists = Lists.partition(tapRecordEvents, (tapRecordEvents.size() - 1) / concurrency + 1);
+        List<Future<List<ProducerRecord<byte[], byte[]>>>> futures = new ArrayList<>(subEventLists.size());
+        subEventLists.forEach(subEventList -> futures.add(produceService.submit(() -> encodeRecords(subEventList, tapTable.getId(), primaryKeys))));
+        List<ProducerRecord<byte[], byte[]>> producerRecords = new ArrayList<>(tapRecordEvents.size());
+        for (Future<List<ProducerRecord<byte[], byte[]>>> future : futures) {
+            try {
+                producerRecords.addAll(future.get());
+            } catch (ExecutionException e) {
+                throw e.getCause();
+            }
+        }
+        return producerRecords;
+    }
+
+    private List<ProducerRecord<byte[], byte[]>> encodeRecords(List<TapRecordEvent> tapRecordEvents, String topic, List<String> primaryKeys) {
+        JsonRecordEncoder encoder = recordEncoder.get();
+        List<ProducerRecord<byte[], byte[]>> producerRecords = new ArrayList<>(tapRecordEvents.size());
+        for (TapRecordEvent event : tapRecordEvents) {
+            Map<String, Object> data;
+            if (event instanceof TapInsertRecordEvent) {
+                data = ((TapInsertRecordEvent) event).getAfter();
+            } else if (event instanceof TapUpdateRecordEvent) {
+                data = ((TapUpdateRecordEvent) event).getAfter();
+            } else if (event instanceof TapDeleteRecordEvent) {
+                data = ((TapDeleteRecordEvent) event).getBefore();
+            } else {
+                data = new HashMap<>();
+            }
+            producerRecords.add(new ProducerRecord<>(topic, null, event.getTime(),
+                    getKafkaMessageKey(encoder, data, primaryKeys), encoder.encode(data),
+                    new RecordHeaders().add("mqOp", mqOp(event).getOp().getBytes())));
+        }
+        return producerRecords;
+    }
+
+    private static MqOp mqOp(TapRecordEvent event) {
+        if (event instanceof TapUpdateRecordEvent) {
+            return MqOp.UPDATE;
+        } else if (event instanceof TapDeleteRecordEvent) {
+            return MqOp.DELETE;
         }
+        return MqOp.INSERT;
     }
 
-    private byte[] getKafkaMessageKey(Map<String, Object> data, TapTable tapTable) {
-        if (EmptyKit.isEmpty(tapTable.primaryKeys(true))) {
+    private byte[] getKafkaMessageKey(JsonRecordEncoder encoder, Map<String, Object> data, List<String> primaryKeys) {
+        if (null == primaryKeys || null == data) {
             return null;
         } else {
-            return jsonParser.toJsonBytes(tapTable.primaryKeys(true).stream().map(key -> data.get(key).toString()).collect(Collectors.joining("_")));
+            return encoder.encodeString(primaryKeys.stream().map(key -> String.valueOf(data.get(key))).collect(Collectors.joining("_")));
+        }
+    }
+
+    /**
+     * Acknowledgements of one batch, counted by the producer io thread and reported by the writing thread
+     */
+    private static class ProduceAcks {
+        private final CountDownLatch countDownLatch;
+        private final AtomicLong insert = new AtomicLong(0);
+        private final AtomicLong update = new AtomicLong(0);
+        private final AtomicLong delete = new AtomicLong(0);
+        private final Queue<Map.Entry<TapRecordEvent, Throwable>> errors = new ConcurrentLinkedQueue<>();
+
+        private ProduceAcks(int size) {
+            this.countDownLatch = new CountDownLatch(size);
+        }
+
+        private void ack(TapRecordEvent event, MqOp mqOp, Exception exception) {
+            try {
+                if (EmptyKit.isNotNull(exception)) {
+                    errors.add(new AbstractMap.SimpleImmutableEntry<>(event, exception));
+                    return;
+                }
+                switch (mqOp) {
+                    case INSERT:
+                        insert.incrementAndGet();
+                        break;
+                    case UPDATE:
+                        update.incrementAndGet();
+                        break;
+                    case DELETE:
+                        delete.incrementAndGet();
+                        break;
+                }
+            } finally {
+                countDownLatch.countDown();
+            }
+        }
+
+        private boolean await(long timeoutMs) throws InterruptedException {
+            return countDownLatch.await(timeoutMs, TimeUnit.MILLISECONDS);
+        }
+
+        /**
+         * Report the acks since last report, nothing is reported when there is no new ack unless it is the last report
+         */
+        private void report(Consumer<WriteListResult<TapRecordEvent>> writeListResultConsumer, boolean last) {
+            WriteListResult<TapRecordEvent> listResult = new WriteListResult<>();
+            listResult.insertedCount(insert.getAndSet(0)).modifiedCount(update.getAndSet(0)).removedCount(delete.getAndSet(0));
+            Map.Entry<TapRecordEvent, Throwable> error;
+            boolean hasError = false;
+            while (null != (error = errors.poll())) {
+                listResult.addError(error.getKey(), error.getValue());
+                hasError = true;
+            }
+            if (last || hasError || listResult.getInsertedCount() + listResult.getModifiedCount() + listResult.getRemovedCount() > 0) {
+                writeListResultConsumer.accept(listResult);
+            }
         }
     }
 
@@ -351,6 +481,7 @@ public class KafkaService extends AbstractMqService {
     @Override
     public void close() {
         super.close();
+        closeKafkaProducer(false);
         produceService.shutdown();
     }
 }
@@ -37,6 +37,10 @@ public class ProducerConfiguration extends AbstractConfiguration {
             boolean enableIdempotence = StringUtils.equalsAny(this.kafkaConfig.getKafkaAcks(), "-1", "all");
             configMap.put(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, enableIdempotence);
             configMap.put(ProducerConfig.ACKS_CONFIG, this.kafkaConfig.getKafkaAcks());
+            if (!enableIdempotence) {
+                // keep the order of the records with the same key when retrying without idempotence
+                configMap.put(ProducerConfig.MAX_IN_FLIGHT_REQUESTS_PER_CONNECTION, 1);
+            }
         }
         if (this.kafkaConfig.getKafkaLingerMS() >= 0) {
             configMap.put(ProducerConfig.LINGER_MS_CONFIG, this.kafkaConfig.getKafkaLingerMS());
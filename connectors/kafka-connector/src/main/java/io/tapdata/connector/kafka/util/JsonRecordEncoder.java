@@ -0,0 +1,161 @@
+package io.tapdata.connector.kafka.util;
+
+import io.tapdata.entity.utils.InstanceFactory;
+import io.tapdata.entity.utils.JsonParser;
+
+import java.io.ByteArrayOutputStream;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * Write record bodies as json straight into a reused buffer, in the format of
+ * {@link JsonParser#toJsonBytes(Object, JsonParser.ToJsonFeature...)} (null values of maps are skipped).
+ * Strings, integers, booleans, maps and collections are written directly, other values are written by
+ * {@link JsonParser} one by one, so dates, decimals and binaries keep their current format.
+ * <p>
+ * Not thread safe, use one encoder per thread.
+ */
+public class JsonRecordEncoder {
+
+    private static final JsonParser jsonParser = InstanceFactory.instance(JsonParser.class);
+    private static final byte[] HEX = "0123456789abcdef".getBytes(StandardCharsets.US_ASCII);
+
+    private final Buffer buffer = new Buffer();
+
+    public byte[] encode(Object value) {
+        buffer.reset();
+        writeValue(value);
+        return buffer.toByteArray();
+    }
+
+    /**
+     * @return the value as a json string, the same bytes as jsonParser.toJsonBytes(string)
+     */
+    public byte[] encodeString(String value) {
+        buffer.reset();
+        writeString(value);
+        return buffer.toByteArray();
+    }
+
+    private void writeValue(Object value) {
+        if (null == value) {
+            buffer.writeAscii("null");
+        } else if (value instanceof String) {
+            writeString((String) value);
+        } else if (value instanceof Integer || value instanceof Long || value instanceof Short
+                || value instanceof Byte || value instanceof BigInteger) {
+            buffer.writeAscii(value.toString());
+        } else if (value instanceof Boolean) {
+            buffer.writeAscii((Boolean) value ? "true" : "false");
+        } else if (value instanceof Map) {
+            writeMap((Map<?, ?>) value);
+        } else if (value instanceof Collection) {
+            writeArray((Collection<?>) value);
+        } else if (value instanceof Object[]) {
+            writeArray(Arrays.asList((Object[]) value));
+        } else {
+            byte[] bytes = jsonParser.toJsonBytes(value);
+            buffer.write(bytes, 0, bytes.length);
+        }
+    }
+
+    private void writeMap(Map<?, ?> map) {
+        buffer.write('{');
+        boolean first = true;
+        for (Map.Entry<?, ?> entry : map.entrySet()) {
+            if (null == entry.getValue()) {
+                continue;
+            }
+            if (!first) {
+                buffer.write(',');
+            }
+            first = false;
+            writeString(String.valueOf(entry.getKey()));
+            buffer.write(':');
+            writeValue(entry.getValue());
+        }
+        buffer.write('}');
+    }
+
+    private void writeArray(Collection<?> collection) {
+        buffer.write('[');
+        boolean first = true;
+        for (Object element : collection) {
+            if (!first) {
+                buffer.write(',');
+            }
+            first = false;
+            writeValue(element);
+        }
+        buffer.write(']');
+    }
+
+    private void writeString(String value) {
+        buffer.write('"');
+        int length = value.length();
+        int start = 0;
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            if (c >= 0x20 && c != '"' && c != '\\') {
+                continue;
+            }
+            buffer.writeUtf8(value, start, i);
+            start = i + 1;
+            buffer.write('\\');
+            switch (c) {
+                case '"':
+                case '\\':
+                    buffer.write(c);
+                    break;
+                case '\b':
+                    buffer.write('b');
+                    break;
+                case '\f':
+                    buffer.write('f');
+                    break;
+                case '\n':
+                    buffer.write('n');
+                    break;
+                case '\r':
+                    buffer.write('r');
+                    break;
+                case '\t':
+                    buffer.write('t');
+                    break;
+                default:
+                    buffer.write('u');
+                    buffer.write('0');
+                    buffer.write('0');
+                    buffer.write(HEX[(c >> 4) & 0xF]);
+                    buffer.write(HEX[c & 0xF]);
+                    break;
+            }
+        }
+        buffer.writeUtf8(value, start, length);
+        buffer.write('"');
+    }
+
+    private static class Buffer extends ByteArrayOutputStream {
+
+        private Buffer() {
+            super(1024);
+        }
+
+        private void writeAscii(String value) {
+            for (int i = 0; i < value.length(); i++) {
+                write(value.charAt(i));
+            }
+        }
+
+        private void writeUtf8(String value, int from, int to) {
+            if (from >= to) {
+                return;
+            }
+            byte[] bytes = value.substring(from, to).getBytes(StandardCharsets.UTF_8);
+            write(bytes, 0, bytes.length);
+        }
+    }
+}
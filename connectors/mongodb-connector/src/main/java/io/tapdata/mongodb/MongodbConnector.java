@@ -352,6 +352,8 @@ public class MongodbConnector extends ConnectorBase {
 
 		//TO be as a source, need to implement below methods.
 		connectorFunctions.supportBatchRead(this::batchRead);
+		connectorFunctions.supportSplitTable(this::splitTable);
+		connectorFunctions.supportBatchReadSplit(this::batchReadSplit);
 		connectorFunctions.supportBatchCount(this::batchCount);
 		connectorFunctions.supportCreateIndex(this::createIndex);
 		connectorFunctions.supportStreamRead(this::streamRead);
@@ -655,6 +657,106 @@ public class MongodbConnector extends ConnectorBase {
 		}
 	}
 
+	/**
+	 * Split the collection into _id ranges, boundaries come from splitVector command which walks the _id index,
+	 * if it is not permitted (e.g. without clusterManager role), fall back to sample the _id values.
+	 *
+	 * @param connectorContext
+	 * @param table
+	 * @param splitCount
+	 * @return
+	 */
+	private List<BatchReadSplit> splitTable(TapConnectorContext connectorContext, TapTable table, int splitCount) {
+		List<BatchReadSplit> splits = list();
+		if (splitCount <= 1) {
+			return splits;
+		}
+		List<Object> boundaries;
+		try {
+			boundaries = splitVectorBoundaries(table.getId(), splitCount);
+		} catch (Exception e) {
+			TapLogger.info(TAG, "Split collection {} by splitVector failed, will split by sample, error: {}", table.getId(), e.getMessage());
+			boundaries = sampleBoundaries(table.getId(), splitCount);
+		}
+		Object lowerBound = null;
+		for (Object boundary : boundaries) {
+			splits.add(BatchReadSplit.create(table.getId(), splits.size()).splitKey(COLLECTION_ID_FIELD).lowerBound(lowerBound).upperBound(boundary));
+			lowerBound = boundary;
+		}
+		if (!splits.isEmpty()) {
+			splits.add(BatchReadSplit.create(table.getId(), splits.size()).splitKey(COLLECTION_ID_FIELD).lowerBound(lowerBound));
+		}
+		return splits;
+	}
+
+	private List<Object> splitVectorBoundaries(String collectionName, int splitCount) {
+		Document collStats = mongoDatabase.runCommand(new Document("collStats", collectionName));
+		long size = collStats.get("size") instanceof Number ? ((Number) collStats.get("size")).longValue() : 0L;
+		// maxChunkSize is in MB
+		long maxChunkSize = Math.max(1L, size / splitCount / 1024 / 1024);
+		Document result = mongoDatabase.runCommand(new Document("splitVector", mongoConfig.getDatabase() + "." + collectionName)
+				.append("keyPattern", new Document(COLLECTION_ID_FIELD, 1))
+				.append("maxChunkSize", maxChunkSize));
+		List<Document> splitKeys = result.getList("splitKeys", Document.class, Collections.emptyList());
+		List<Object> boundaries = new ArrayList<>();
+		// splitVector may return more keys than expected for small maxChunkSize, pick them evenly
+		double interval = Math.max(1D, (double) splitKeys.size() / splitCount);
+		for (double i = interval - 1; i < splitKeys.size(); i += interval) {
+			boundaries.add(splitKeys.get((int) i).get(COLLECTION_ID_FIELD));
+		}
+		return boundaries;
+	}
+
+	private List<Object> sampleBoundaries(String collectionName, int splitCount) {
+		List<Object> ids = new ArrayList<>();
+		getMongoCollection(collectionName).aggregate(Arrays.asList(
+				new Document("$sample", new Document("size", splitCount * 20)),
+				new Document("$project", new Document(COLLECTION_ID_FIELD, 1)),
+				new Document("$sort", new Document(COLLECTION_ID_FIELD, 1))
+		)).forEach(document -> ids.add(document.get(COLLECTION_ID_FIELD)));
+		List<Object> boundaries = new ArrayList<>();
+		for (int i = 1; i < splitCount && !ids.isEmpty(); i++) {
+			Object boundary = ids.get(i * ids.size() / splitCount);
+			if (boundaries.isEmpty() || !boundaries.get(boundaries.size() - 1).equals(boundary)) {
+				boundaries.add(boundary);
+			}
+		}
+		return boundaries;
+	}
+
+	private void batchReadSplit(TapConnectorContext connectorContext, TapTable table, BatchReadSplit split, Object offset, int eventBatchSize, BiConsumer<List<TapEvent>, Object> tapReadOffsetConsumer) {
+		List<Bson> filters = new ArrayList<>();
+		if (split.getLowerBound() != null) {
+			filters.add(gte(COLLECTION_ID_FIELD, split.getLowerBound()));
+		}
+		if (split.getUpperBound() != null) {
+			filters.add(lt(COLLECTION_ID_FIELD, split.getUpperBound()));
+		}
+		if (offset instanceof MongoBatchOffset && ((MongoBatchOffset) offset).value() != null) {
+			filters.add(queryCondition(COLLECTION_ID_FIELD, ((MongoBatchOffset) offset).value()));
+		}
+		final int batchSize = eventBatchSize > 0 ? eventBatchSize : 5000;
+		MongoCollection<Document> collection = getMongoCollection(table.getId());
+		FindIterable<Document> findIterable = filters.isEmpty() ? collection.find() : collection.find(and(filters));
+		List<TapEvent> tapEvents = list();
+		Document lastDocument = null;
+		try (MongoCursor<Document> mongoCursor = findIterable.sort(Sorts.ascending(COLLECTION_ID_FIELD)).batchSize(batchSize).iterator()) {
+			while (mongoCursor.hasNext()) {
+				if (!isAlive()) return;
+				lastDocument = mongoCursor.next();
+				tapEvents.add(insertRecordEvent(lastDocument, table.getId()));
+
+				if (tapEvents.size() == eventBatchSize) {
+					tapReadOffsetConsumer.accept(tapEvents, new MongoBatchOffset(COLLECTION_ID_FIELD, lastDocument.get(COLLECTION_ID_FIELD)));
+					tapEvents = list();
+				}
+			}
+		}
+		if (!tapEvents.isEmpty()) {
+			tapReadOffsetConsumer.accept(tapEvents, new MongoBatchOffset(COLLECTION_ID_FIELD, lastDocument.get(COLLECTION_ID_FIELD)));
+		}
+	}
+
 	private Object streamOffset(TapConnectorContext connectorContext, Long offsetStartTime) {
 		if (mongodbStreamReader == null) {
 			mongodbStreamReader = createStreamReader();
@@ -96,6 +96,8 @@ public class MysqlConnector extends ConnectorBase {
         connectorFunctions.supportClearTable(this::clearTable);
         connectorFunctions.supportBatchCount(this::batchCount);
         connectorFunctions.supportBatchRead(this::batchRead);
+        connectorFunctions.supportSplitTable(this::splitTable);
+        connectorFunctions.supportBatchReadSplit(this::batchReadSplit);
         connectorFunctions.supportStreamRead(this::streamRead);
         connectorFunctions.supportTimestampToStreamOffset(this::timestampToStreamOffset);
         connectorFunctions.supportQueryByAdvanceFilter(this::query);
@@ -284,6 +286,39 @@ public class MysqlConnector extends ConnectorBase {
         }
     }
 
+    private List<BatchReadSplit> splitTable(TapConnectorContext tapConnectorContext, TapTable tapTable, int splitCount) throws Throwable {
+        return this.mysqlReader.split(tapConnectorContext, tapTable, splitCount);
+    }
+
+    private void batchReadSplit(TapConnectorContext tapConnectorContext, TapTable tapTable, BatchReadSplit split, Object offset, int batchSize, BiConsumer<List<TapEvent>, Object> consumer) throws Throwable {
+        MysqlSnapshotOffset mysqlSnapshotOffset;
+        if (offset instanceof MysqlSnapshotOffset) {
+            mysqlSnapshotOffset = (MysqlSnapshotOffset) offset;
+        } else {
+            mysqlSnapshotOffset = new MysqlSnapshotOffset();
+        }
+        List<TapEvent> tempList = new ArrayList<>();
+        // splits are read concurrently, the offset is mutated by the reader, so hand out a copy with each batch
+        this.mysqlReader.readWithOffset(tapConnectorContext, tapTable, split, mysqlSnapshotOffset, n -> !isAlive(), (data, snapshotOffset) -> {
+            TapRecordEvent tapRecordEvent = tapRecordWrapper(tapConnectorContext, null, data, tapTable, "i");
+            tempList.add(tapRecordEvent);
+            if (tempList.size() == batchSize) {
+                consumer.accept(new ArrayList<>(tempList), copySnapshotOffset(snapshotOffset));
+                tempList.clear();
+            }
+        });
+        if (CollectionUtils.isNotEmpty(tempList)) {
+            consumer.accept(new ArrayList<>(tempList), copySnapshotOffset(mysqlSnapshotOffset));
+            tempList.clear();
+        }
+    }
+
+    private MysqlSnapshotOffset copySnapshotOffset(MysqlSnapshotOffset mysqlSnapshotOffset) {
+        MysqlSnapshotOffset copy = new MysqlSnapshotOffset();
+        copy.setOffset(new HashMap<>(mysqlSnapshotOffset.getOffset()));
+        return copy;
+    }
+
     private void query(TapConnectorContext tapConnectorContext, TapAdvanceFilter tapAdvanceFilter, TapTable tapTable, Consumer<FilterResults> consumer) throws Throwable {
         FilterResults filterResults = new FilterResults();
         filterResults.setFilter(tapAdvanceFilter);
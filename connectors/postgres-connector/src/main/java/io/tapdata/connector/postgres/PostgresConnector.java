@@ -18,6 +18,7 @@ import io.tapdata.entity.event.dml.TapRecordEvent;
 import io.tapdata.entity.schema.TapField;
 import io.tapdata.entity.schema.TapIndex;
 import io.tapdata.entity.schema.TapTable;
+import io.tapdata.entity.schema.type.TapNumber;
 import io.tapdata.entity.schema.value.*;
 import io.tapdata.entity.simplify.TapSimplify;
 import io.tapdata.entity.simplify.pretty.BiClassHandlers;
@@ -31,10 +32,13 @@ import io.tapdata.pdk.apis.context.TapConnectorContext;
 import io.tapdata.pdk.apis.entity.*;
 import io.tapdata.pdk.apis.functions.ConnectorFunctions;
 
+import java.math.BigDecimal;
+import java.math.RoundingMode;
 import java.sql.SQLException;
 import java.util.*;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.BiConsumer;
 import java.util.function.Consumer;
 import java.util.stream.Collectors;
@@ -162,6 +166,8 @@ public class PostgresConnector extends ConnectorBase {
         // source
         connectorFunctions.supportBatchCount(this::batchCount);
         connectorFunctions.supportBatchRead(this::batchRead);
+        connectorFunctions.supportSplitTable(this::splitTable);
+        connectorFunctions.supportBatchReadSplit(this::batchReadSplit);
         connectorFunctions.supportStreamRead(this::streamRead);
         connectorFunctions.supportTimestampToStreamOffset(this::timestampToStreamOffset);
         // query
@@ -455,6 +461,89 @@ public class PostgresConnector extends ConnectorBase {
 
     }
 
+    /**
+     * split by even ranges of the first primary key between min and max, only numeric key is supported
+     */
+    private List<BatchReadSplit> splitTable(TapConnectorContext tapConnectorContext, TapTable tapTable, int splitCount) throws Throwable {
+        List<BatchReadSplit> splits = list();
+        Collection<String> primaryKeys = tapTable.primaryKeys(true);
+        if (splitCount <= 1 || EmptyKit.isEmpty(primaryKeys)) {
+            return splits;
+        }
+        String splitKey = primaryKeys.iterator().next();
+        TapField tapField = tapTable.getNameFieldMap().get(splitKey);
+        if (EmptyKit.isNull(tapField) || !(tapField.getTapType() instanceof TapNumber)) {
+            return splits;
+        }
+        AtomicReference<BigDecimal> min = new AtomicReference<>();
+        AtomicReference<BigDecimal> max = new AtomicReference<>();
+        String sql = "SELECT MIN(\"" + splitKey + "\"), MAX(\"" + splitKey + "\") FROM \"" + postgresConfig.getSchema() + "\".\"" + tapTable.getId() + "\"";
+        postgresJdbcContext.queryWithNext(sql, resultSet -> {
+            min.set(resultSet.getBigDecimal(1));
+            max.set(resultSet.getBigDecimal(2));
+        });
+        if (EmptyKit.isNull(min.get()) || EmptyKit.isNull(max.get()) || min.get().compareTo(max.get()) >= 0) {
+            return splits;
+        }
+        boolean integral = min.get().scale() <= 0 && max.get().scale() <= 0;
+        BigDecimal step = max.get().subtract(min.get()).divide(BigDecimal.valueOf(splitCount), integral ? 0 : 10, RoundingMode.DOWN);
+        if (step.signum() <= 0) {
+            step = BigDecimal.ONE;
+        }
+        BigDecimal lowerBound = null;
+        for (int i = 1; i < splitCount; i++) {
+            BigDecimal upperBound = min.get().add(step.multiply(BigDecimal.valueOf(i)));
+            if (upperBound.compareTo(max.get()) > 0) {
+                break;
+            }
+            splits.add(BatchReadSplit.create(tapTable.getId(), splits.size()).splitKey(splitKey).lowerBound(lowerBound).upperBound(upperBound));
+            lowerBound = upperBound;
+        }
+        splits.add(BatchReadSplit.create(tapTable.getId(), splits.size()).splitKey(splitKey).lowerBound(lowerBound));
+        return splits;
+    }
+
+    private void batchReadSplit(TapConnectorContext tapConnectorContext, TapTable tapTable, BatchReadSplit split, Object offsetState, int eventBatchSize, BiConsumer<List<TapEvent>, Object> eventsOffsetConsumer) throws Throwable {
+        //offset value is the row count read in the split
+        long offsetValue = offsetState instanceof PostgresOffset ? ((PostgresOffset) offsetState).getOffsetValue() : 0L;
+        String sortString = offsetState instanceof PostgresOffset ? ((PostgresOffset) offsetState).getSortString() : CommonSqlMaker.getOrderByUniqueKey(tapTable);
+        List<String> whereList = list();
+        if (EmptyKit.isNotNull(split.getLowerBound())) {
+            whereList.add("\"" + split.getSplitKey() + "\">=" + boundValue(split.getLowerBound()));
+        }
+        if (EmptyKit.isNotNull(split.getUpperBound())) {
+            whereList.add("\"" + split.getSplitKey() + "\"<" + boundValue(split.getUpperBound()));
+        }
+        String sql = "SELECT * FROM \"" + postgresConfig.getSchema() + "\".\"" + tapTable.getId() + "\""
+                + (EmptyKit.isEmpty(whereList) ? "" : " WHERE " + String.join(" AND ", whereList))
+                + sortString + " OFFSET " + offsetValue;
+        postgresJdbcContext.query(sql, resultSet -> {
+            List<TapEvent> tapEvents = list();
+            List<String> columnNames = DbKit.getColumnsFromResultSet(resultSet);
+            long readCount = offsetValue;
+            while (isAlive() && resultSet.next()) {
+                tapEvents.add(insertRecordEvent(DbKit.getRowFromResultSet(resultSet, columnNames), tapTable.getId()));
+                if (tapEvents.size() == eventBatchSize) {
+                    readCount += eventBatchSize;
+                    //splits are read concurrently, a new offset object for each batch
+                    eventsOffsetConsumer.accept(tapEvents, new PostgresOffset(sortString, readCount));
+                    tapEvents = list();
+                }
+            }
+            if (EmptyKit.isNotEmpty(tapEvents)) {
+                readCount += tapEvents.size();
+                eventsOffsetConsumer.accept(tapEvents, new PostgresOffset(sortString, readCount));
+            }
+        });
+    }
+
+    /**
+     * bounds restored from a saved offset may be deserialized as double, long or string instead of BigDecimal
+     */
+    private static String boundValue(Object bound) {
+        return new BigDecimal(String.valueOf(bound)).toPlainString();
+    }
+
     private void streamRead(TapConnectorContext nodeContext, List<String> tableList, Object offsetState, int recordSize, StreamReadConsumer consumer) throws Throwable {
         if (EmptyKit.isNull(cdcRunner)) {
             cdcRunner = new PostgresCdcRunner(postgresJdbcContext);
@@ -1,5 +1,8 @@
 package io.tapdata;
 
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -13,6 +16,21 @@ public interface HazelcastConstruct<T> {
 		throw new UnsupportedOperationException();
 	}
 
+	/**
+	 * Insert many values in one call, constructs with a batch append override it to save the round trips
+	 *
+	 * @param data values to insert, in order
+	 * @return inserted count
+	 * @throws Exception
+	 */
+	default int insertMany(List<T> data) throws Exception {
+		int inserted = 0;
+		for (T datum : data) {
+			inserted += insert(datum);
+		}
+		return inserted;
+	}
+
 	default int insert(String key, T data) throws Exception {
 		throw new UnsupportedOperationException();
 	}
@@ -44,6 +62,24 @@ public interface HazelcastConstruct<T> {
 		throw new UnsupportedOperationException();
 	}
 
+	/**
+	 * Find values of many keys in one call, constructs with a multi-get override it to save the round trips
+	 *
+	 * @param keys keys to find
+	 * @return key and value of the existing keys
+	 * @throws Exception
+	 */
+	default Map<String, T> findAll(Collection<String> keys) throws Exception {
+		Map<String, T> result = new HashMap<>();
+		for (String key : keys) {
+			T data = find(key);
+			if (null != data) {
+				result.put(key, data);
+			}
+		}
+		return result;
+	}
+
 	/**
 	 * For ringbuffer
 	 *
@@ -63,6 +99,54 @@ public interface HazelcastConstruct<T> {
 		throw new UnsupportedOperationException();
 	}
 
+	/**
+	 * Find all the keys start with prefix, for the constructs which keep keys in order
+	 *
+	 * @param prefix key prefix
+	 * @return key and value, in key order
+	 * @throws Exception
+	 */
+	default Map<String, T> findByPrefix(String prefix) throws Exception {
+		throw new UnsupportedOperationException();
+	}
+
+	/**
+	 * @param prefix key prefix
+	 * @return true if any key starts with prefix
+	 * @throws Exception
+	 */
+	default boolean existsByPrefix(String prefix) throws Exception {
+		return !findByPrefix(prefix).isEmpty();
+	}
+
+	/**
+	 * Add a value to the values of key, for the constructs keeping a set of values under each key
+	 *
+	 * @return true if the value is added, false if it is already there
+	 * @throws Exception
+	 */
+	default boolean addValue(String key, T value) throws Exception {
+		throw new UnsupportedOperationException();
+	}
+
+	/**
+	 * Remove a value from the values of key, the key is removed with its last value
+	 *
+	 * @return true if the value is removed
+	 * @throws Exception
+	 */
+	default boolean removeValue(String key, T value) throws Exception {
+		throw new UnsupportedOperationException();
+	}
+
+	/**
+	 * @return all the values of key, empty if not exists
+	 * @throws Exception
+	 */
+	default Collection<T> findValues(String key) throws Exception {
+		throw new UnsupportedOperationException();
+	}
+
 	default boolean isEmpty() {
 		throw new UnsupportedOperationException();
 	}
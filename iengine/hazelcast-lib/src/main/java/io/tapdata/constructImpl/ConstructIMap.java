@@ -3,6 +3,11 @@ package io.tapdata.constructImpl;
 import com.hazelcast.core.HazelcastInstance;
 import com.hazelcast.map.IMap;
 
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+
 /**
  * @author samuel
  * @Description
@@ -47,6 +52,19 @@ public class ConstructIMap<T> extends BaseConstruct<T> {
 		return (T) iMap.get(key);
 	}
 
+	@Override
+	public Map<String, T> findAll(Collection<String> keys) throws Exception {
+		Map<String, T> result = new HashMap<>();
+		if (null == keys || keys.isEmpty()) {
+			return result;
+		}
+		// getAll groups the keys by partition owner, one operation per member instead of one per key
+		for (Map.Entry<String, Object> entry : iMap.getAll(new HashSet<>(keys)).entrySet()) {
+			result.put(entry.getKey(), (T) entry.getValue());
+		}
+		return result;
+	}
+
 	@Override
 	public boolean exists(String key) throws Exception {
 		return iMap.containsKey(key);
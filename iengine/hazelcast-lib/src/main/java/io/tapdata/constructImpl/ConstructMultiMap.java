@@ -0,0 +1,74 @@
+package io.tapdata.constructImpl;
+
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.multimap.MultiMap;
+
+import java.util.ArrayList;
+import java.util.Collection;
+
+/**
+ * Set of values under each key, backed by hazelcast MultiMap.
+ * <p>
+ * Values are stored one by one, adding or removing a value only sends that value to the partition owner instead of
+ * reading and writing back all the values of the key like a set in IMap does
+ **/
+public class ConstructMultiMap<T> extends BaseConstruct<T> {
+
+	public static final String TYPE = "MultiMap";
+
+	private final MultiMap<String, Object> multiMap;
+
+	public ConstructMultiMap(HazelcastInstance hazelcastInstance, String name) {
+		this.multiMap = hazelcastInstance.getMultiMap(name);
+	}
+
+	@Override
+	public boolean addValue(String key, T value) throws Exception {
+		return multiMap.put(key, value);
+	}
+
+	@Override
+	public boolean removeValue(String key, T value) throws Exception {
+		return multiMap.remove(key, value);
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public Collection<T> findValues(String key) throws Exception {
+		Collection<T> values = new ArrayList<>();
+		for (Object value : multiMap.get(key)) {
+			values.add((T) value);
+		}
+		return values;
+	}
+
+	@Override
+	public int delete(String key) throws Exception {
+		return multiMap.remove(key).size();
+	}
+
+	@Override
+	public boolean exists(String key) throws Exception {
+		return multiMap.containsKey(key);
+	}
+
+	@Override
+	public void clear() throws Exception {
+		multiMap.clear();
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return multiMap.size() == 0;
+	}
+
+	@Override
+	public String getName() {
+		return multiMap.getName();
+	}
+
+	@Override
+	public String getType() {
+		return TYPE;
+	}
+}
@@ -0,0 +1,321 @@
+package io.tapdata.constructImpl;
+
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.ringbuffer.ReadResultSet;
+import com.hazelcast.ringbuffer.Ringbuffer;
+import io.tapdata.ConstructIterator;
+import io.tapdata.HazelcastConstruct;
+import io.tapdata.pdk.core.utils.CommonUtils;
+import org.bson.Document;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Share cdc log storage partitioned by table.
+ * <p>
+ * Logs are appended to the partition ringbuffer of their table (hash of the table name), then a small entry
+ * {fromTable, timestamp, partition, partitionSequence} is appended to the index ringbuffer. The index keeps the commit order
+ * of all the logs, readers read the index with the table filter and fetch only their tables' logs from the partitions in bulk,
+ * so a reader of 2 tables does not read the rows of the other tables.
+ * <p>
+ * Sequences in {@link #find(Map)} and {@link #findSequence(long)} are index sequences.
+ * Partition of each log is kept in its index entry, so readers do not depend on the partition count of the writer.
+ **/
+public class ConstructPartitionedRingBuffer extends BaseConstruct<Document> {
+
+	public static final String TYPE = "PartitionedRingBuffer";
+	public static final String PARTITIONS_KEY = "SHARE_CDC_PARTITIONS";
+	private static final int DEFAULT_PARTITIONS = 16;
+	private static final String INDEX_SUFFIX = "_INDEX";
+	private static final String PARTITION_SUFFIX = "_P";
+	static final String PARTITION_FIELD = "partition";
+	static final String PARTITION_SEQUENCE_FIELD = "partitionSequence";
+	static final String TIMESTAMP_FIELD = "timestamp";
+	static final String DATE_FIELD = "date";
+
+	private final HazelcastInstance hazelcastInstance;
+	private final String name;
+	private final int partitions;
+	private final Integer shareCdcTTLDay;
+	private final ConstructRingBuffer<Document> index;
+	private final Map<Integer, ConstructRingBuffer<Document>> partitionMap = new ConcurrentHashMap<>();
+
+	/**
+	 * @param partitions     partition count of the writer, readers can use any value
+	 * @param shareCdcTTLDay ttl of the index and partitions, null for readers
+	 */
+	public ConstructPartitionedRingBuffer(HazelcastInstance hazelcastInstance, String name, int partitions, Integer shareCdcTTLDay) {
+		this.hazelcastInstance = hazelcastInstance;
+		this.name = name;
+		this.partitions = Math.max(1, partitions);
+		this.shareCdcTTLDay = shareCdcTTLDay;
+		this.index = new ConstructRingBuffer<>(hazelcastInstance, name + INDEX_SUFFIX, shareCdcTTLDay);
+	}
+
+	/**
+	 * Open the share cdc log storage by name, writer and readers choose the same layout:
+	 * <ul>
+	 *     <li>index has logs: partitioned</li>
+	 *     <li>single ringbuffer has logs: single ringbuffer, logs written before the upgrade are kept readable</li>
+	 *     <li>both empty: partitioned, unless {@link #PARTITIONS_KEY} is 0</li>
+	 * </ul>
+	 */
+	public static HazelcastConstruct<Document> create(HazelcastInstance hazelcastInstance, String name, Integer shareCdcTTLDay) {
+		int partitions = CommonUtils.getPropertyInt(PARTITIONS_KEY, DEFAULT_PARTITIONS);
+		ConstructPartitionedRingBuffer partitioned = new ConstructPartitionedRingBuffer(hazelcastInstance, name, partitions, shareCdcTTLDay);
+		if (!partitioned.isEmpty()) {
+			return partitioned;
+		}
+		ConstructRingBuffer<Document> single = new ConstructRingBuffer<>(hazelcastInstance, name, shareCdcTTLDay);
+		if (!single.isEmpty() || partitions <= 0) {
+			return single;
+		}
+		return partitioned;
+	}
+
+	@Override
+	public int insert(Document data) throws Exception {
+		return insertMany(Collections.singletonList(data));
+	}
+
+	@Override
+	public int insertMany(List<Document> data) throws Exception {
+		if (null == data || data.isEmpty()) {
+			return 0;
+		}
+		// 按分区分组, 组内保持原有顺序
+		Map<Integer, List<Integer>> positionsByPartition = new LinkedHashMap<>();
+		for (int i = 0; i < data.size(); i++) {
+			positionsByPartition.computeIfAbsent(partitionOf(data.get(i).get(ConstructRingBuffer.FROM_TABLE_FIELD)), k -> new ArrayList<>()).add(i);
+		}
+		long[] partitionSequences = new long[data.size()];
+		int[] partitionOfPositions = new int[data.size()];
+		for (Map.Entry<Integer, List<Integer>> entry : positionsByPartition.entrySet()) {
+			List<Document> partitionData = new ArrayList<>(entry.getValue().size());
+			for (Integer position : entry.getValue()) {
+				partitionData.add(data.get(position));
+			}
+			long[] sequences = partition(entry.getKey()).appendAll(partitionData);
+			for (int i = 0; i < sequences.length; i++) {
+				partitionSequences[entry.getValue().get(i)] = sequences[i];
+				partitionOfPositions[entry.getValue().get(i)] = entry.getKey();
+			}
+		}
+		// 数据写入分区后再写索引, 读到索引时数据一定已经存在
+		List<Document> indexEntries = new ArrayList<>(data.size());
+		for (int i = 0; i < data.size(); i++) {
+			Document document = data.get(i);
+			indexEntries.add(new Document(ConstructRingBuffer.FROM_TABLE_FIELD, document.get(ConstructRingBuffer.FROM_TABLE_FIELD))
+					.append(TIMESTAMP_FIELD, document.get(TIMESTAMP_FIELD))
+					.append(DATE_FIELD, document.get(DATE_FIELD))
+					.append(PARTITION_FIELD, partitionOfPositions[i])
+					.append(PARTITION_SEQUENCE_FIELD, partitionSequences[i]));
+		}
+		index.appendAll(indexEntries);
+		return data.size();
+	}
+
+	@Override
+	public void destroy() throws Exception {
+		index.destroy();
+		for (ConstructRingBuffer<Document> partition : partitionMap.values()) {
+			partition.destroy();
+		}
+	}
+
+	@Override
+	public long findSequence(long timestamp) throws Exception {
+		return index.findSequence(timestamp);
+	}
+
+	@Override
+	public ConstructIterator<Document> find() throws Exception {
+		return new PartitionedIterator(this, index.find(), null, 0L);
+	}
+
+	@Override
+	public ConstructIterator<Document> find(Map<String, Object> filter) throws Exception {
+		ConstructIterator<Document> indexIterator = index.find(filter);
+		return new PartitionedIterator(this, indexIterator, ConstructRingBuffer.TableFilter.of(filter), indexIterator.getSequence());
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return index.isEmpty();
+	}
+
+	@Override
+	public String getName() {
+		return name;
+	}
+
+	@Override
+	public String getType() {
+		return TYPE;
+	}
+
+	/**
+	 * @return logs appended by this instance
+	 */
+	public long getAppended() {
+		return index.getAppended();
+	}
+
+	/**
+	 * @return logs returned to the iterators of this instance
+	 */
+	public long getRead() {
+		return index.getRead();
+	}
+
+	/**
+	 * @return logs of other tables skipped in the index by the iterators of this instance
+	 */
+	public long getSkipped() {
+		return index.getSkipped();
+	}
+
+	int partitionOf(Object table) {
+		if (!(table instanceof String) || ((String) table).isEmpty()) {
+			return 0;
+		}
+		return Math.floorMod(table.hashCode(), partitions);
+	}
+
+	ConstructRingBuffer<Document> partition(int partition) {
+		return partitionMap.computeIfAbsent(partition, p -> new ConstructRingBuffer<>(hazelcastInstance, name + PARTITION_SUFFIX + p, shareCdcTTLDay));
+	}
+
+	/**
+	 * Read index entries in batches, then fetch the logs of a batch from each partition with range reads.
+	 * Logs are returned in index (commit) order
+	 */
+	static class PartitionedIterator implements ConstructIterator<Document> {
+
+		private final ConstructPartitionedRingBuffer construct;
+		private final ConstructRingBuffer.RingBufferIterator<Document> indexIterator;
+		private final ConstructRingBuffer.TableFilter tableFilter;
+		private final Deque<Document> documents = new ArrayDeque<>();
+		// 每条日志之后的索引 sequence, 与 documents 一一对应
+		private final Deque<Long> nextSequences = new ArrayDeque<>();
+		private long sequence;
+
+		PartitionedIterator(ConstructPartitionedRingBuffer construct, ConstructIterator<Document> indexIterator,
+							ConstructRingBuffer.TableFilter tableFilter, long sequence) {
+			this.construct = construct;
+			this.indexIterator = (ConstructRingBuffer.RingBufferIterator<Document>) indexIterator;
+			this.tableFilter = tableFilter;
+			this.sequence = sequence;
+		}
+
+		@Override
+		public Document tryNext() {
+			if (hasNext()) {
+				return next();
+			} else {
+				return null;
+			}
+		}
+
+		@Override
+		public boolean hasNext() {
+			return !documents.isEmpty() || indexIterator.hasNext();
+		}
+
+		@Override
+		public Document peek() {
+			if (!fill()) {
+				return null;
+			}
+			return documents.peekFirst();
+		}
+
+		@Override
+		public Document next() {
+			if (!fill()) {
+				return null;
+			}
+			sequence = nextSequences.pollFirst();
+			return documents.pollFirst();
+		}
+
+		@Override
+		public long getSequence() {
+			return sequence;
+		}
+
+		private boolean fill() {
+			if (!documents.isEmpty()) {
+				return true;
+			}
+			Document indexEntry = indexIterator.next();
+			if (null == indexEntry) {
+				return false;
+			}
+			List<Document> indexEntries = new ArrayList<>();
+			List<Long> indexNextSequences = new ArrayList<>();
+			do {
+				indexEntries.add(indexEntry);
+				indexNextSequences.add(indexIterator.getSequence());
+			} while (null != (indexEntry = indexIterator.nextBuffered()));
+
+			Map<Integer, long[]> ranges = new HashMap<>();
+			for (Document entry : indexEntries) {
+				long partitionSequence = entry.getLong(PARTITION_SEQUENCE_FIELD);
+				ranges.compute(entry.getInteger(PARTITION_FIELD), (k, range) -> null == range
+						? new long[]{partitionSequence, partitionSequence}
+						: new long[]{Math.min(range[0], partitionSequence), Math.max(range[1], partitionSequence)});
+			}
+			Map<Integer, Map<Long, Document>> partitionDocuments = new HashMap<>();
+			for (Map.Entry<Integer, long[]> range : ranges.entrySet()) {
+				partitionDocuments.put(range.getKey(), readRange(construct.partition(range.getKey()).getRingbuffer(), range.getValue()[0], range.getValue()[1]));
+			}
+			for (int i = 0; i < indexEntries.size(); i++) {
+				Document entry = indexEntries.get(i);
+				Document document = partitionDocuments.get(entry.getInteger(PARTITION_FIELD)).get(entry.getLong(PARTITION_SEQUENCE_FIELD));
+				if (null == document) {
+					throw new IllegalStateException("Log not found in partition " + entry.getInteger(PARTITION_FIELD) + " of " + construct.getName()
+							+ ", partition sequence: " + entry.getLong(PARTITION_SEQUENCE_FIELD) + ", it may be overwritten");
+				}
+				documents.addLast(document);
+				nextSequences.addLast(indexNextSequences.get(i));
+			}
+			return true;
+		}
+
+		private Map<Long, Document> readRange(Ringbuffer<Document> ringbuffer, long from, long to) {
+			Map<Long, Document> result = new HashMap<>();
+			long start = from;
+			while (start <= to) {
+				int count = (int) Math.min(ConstructRingBuffer.MAX_BATCH_SIZE, to - start + 1);
+				ReadResultSet<Document> resultSet;
+				try {
+					resultSet = ringbuffer.readManyAsync(start, 0, count, tableFilter).toCompletableFuture().get();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					throw new RuntimeException("Read partition " + ringbuffer.getName() + " interrupted", e);
+				} catch (ExecutionException e) {
+					Exception cause = ConstructRingBuffer.unwrap(e);
+					throw cause instanceof RuntimeException ? (RuntimeException) cause : new RuntimeException(cause.getMessage(), cause);
+				}
+				for (int i = 0; i < resultSet.size(); i++) {
+					result.put(resultSet.getSequence(i), resultSet.get(i));
+				}
+				if (resultSet.readCount() <= 0) {
+					break;
+				}
+				start = resultSet.getNextSequenceToReadFrom();
+			}
+			return result;
+		}
+	}
+}
@@ -1,12 +1,25 @@
 package io.tapdata.constructImpl;
 
 import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.core.IFunction;
 import com.hazelcast.persistence.PersistenceStorage;
+import com.hazelcast.ringbuffer.OverflowPolicy;
+import com.hazelcast.ringbuffer.ReadResultSet;
 import com.hazelcast.ringbuffer.Ringbuffer;
 import io.tapdata.ConstructIterator;
+import io.tapdata.pdk.core.utils.CommonUtils;
 import org.bson.Document;
 
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * @author samuel
@@ -16,8 +29,36 @@ import java.util.Map;
 public class ConstructRingBuffer<T extends Document> extends BaseConstruct<T> {
 
 	public final static String SEQUENCE_KEY = "sequence";
+	/**
+	 * Filter key of {@link #find(Map)}, a collection of table names, logs of other tables are dropped by the ringbuffer
+	 * before they are returned to the reader. Logs without table name are always returned
+	 */
+	public final static String TABLES_KEY = "tables";
+	public final static String FROM_TABLE_FIELD = "fromTable";
+	public final static String READ_BATCH_SIZE_KEY = "SHARE_CDC_RING_BUFFER_READ_BATCH_SIZE";
+	/**
+	 * OVERWRITE(default): same as add, the oldest logs are overwritten when the ringbuffer is full;
+	 * FAIL: wait until the logs are expired by ttl, used to keep the logs not read by slow tasks. Only allowed when the
+	 * share cdc ttl is set, otherwise no log ever expires and the append would wait forever
+	 */
+	public final static String OVERFLOW_POLICY_KEY = "SHARE_CDC_RING_BUFFER_OVERFLOW_POLICY";
+	/**
+	 * Max time in seconds to wait for free space with the FAIL policy, the append fails after it
+	 */
+	public final static String FAIL_MAX_WAIT_SECONDS_KEY = "SHARE_CDC_RING_BUFFER_FAIL_MAX_WAIT_SECONDS";
+	// Ringbuffer 单次批量读写的上限
+	final static int MAX_BATCH_SIZE = 1000;
+	private final static int DEFAULT_READ_BATCH_SIZE = 500;
+	private final static long READ_WAIT_MS = 1000L;
+	private final static long FAIL_RETRY_MAX_WAIT_MS = 1000L;
+	private final static int DEFAULT_FAIL_MAX_WAIT_SECONDS = 300;
 
 	private Ringbuffer<Document> ringbuffer;
+	private final OverflowPolicy overflowPolicy = overflowPolicy();
+	private final int failMaxWaitSeconds = Math.max(1, CommonUtils.getPropertyInt(FAIL_MAX_WAIT_SECONDS_KEY, DEFAULT_FAIL_MAX_WAIT_SECONDS));
+	private final LongAdder appendCounter = new LongAdder();
+	final LongAdder readCounter = new LongAdder();
+	final LongAdder skipCounter = new LongAdder();
 
 	public ConstructRingBuffer(HazelcastInstance hazelcastInstance, String name) {
 		this.ringbuffer = hazelcastInstance.getRingbuffer(name);
@@ -34,9 +75,62 @@ public class ConstructRingBuffer<T extends Document> extends BaseConstruct<T> {
 	@Override
 	public int insert(T data) throws Exception {
 		this.ringbuffer.add(data);
+		appendCounter.increment();
 		return 1;
 	}
 
+	@Override
+	public int insertMany(List<T> data) throws Exception {
+		if (null == data || data.isEmpty()) {
+			return 0;
+		}
+		appendAll(data);
+		return data.size();
+	}
+
+	/**
+	 * Append in batches of the ringbuffer limit, the items of one batch get consecutive sequences
+	 *
+	 * @return sequence of each item, in order
+	 */
+	long[] appendAll(List<T> data) throws Exception {
+		if (OverflowPolicy.FAIL == overflowPolicy && null == ttlSecond) {
+			throw new IllegalStateException("Overflow policy " + OverflowPolicy.FAIL + " of ringbuffer " + getName()
+					+ " needs the share cdc ttl, logs never expire without it. Set the ttl or use " + OverflowPolicy.OVERWRITE
+					+ " for " + OVERFLOW_POLICY_KEY);
+		}
+		long[] sequences = new long[data.size()];
+		for (int from = 0; from < data.size(); from += MAX_BATCH_SIZE) {
+			List<T> batch = data.subList(from, Math.min(from + MAX_BATCH_SIZE, data.size()));
+			long waitMs = 10L;
+			long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(failMaxWaitSeconds);
+			long lastSequence;
+			// FAIL 策略下空间不足时返回 -1, 等待旧数据过期后重试, 超过最大等待时间则报错
+			while ((lastSequence = addAll(batch)) < 0) {
+				if (System.currentTimeMillis() >= deadline) {
+					throw new IllegalStateException("Ringbuffer " + getName() + " is full (capacity: " + ringbuffer.capacity()
+							+ ", ttl: " + ttlSecond + "s), no log expired in " + failMaxWaitSeconds + "s with overflow policy "
+							+ OverflowPolicy.FAIL + ". Increase the capacity, reduce the ttl, or raise " + FAIL_MAX_WAIT_SECONDS_KEY);
+				}
+				TimeUnit.MILLISECONDS.sleep(waitMs);
+				waitMs = Math.min(waitMs * 2, FAIL_RETRY_MAX_WAIT_MS);
+			}
+			for (int i = 0; i < batch.size(); i++) {
+				sequences[from + i] = lastSequence - batch.size() + 1 + i;
+			}
+			appendCounter.add(batch.size());
+		}
+		return sequences;
+	}
+
+	private long addAll(Collection<? extends Document> batch) throws Exception {
+		try {
+			return this.ringbuffer.addAllAsync(batch, overflowPolicy).toCompletableFuture().get();
+		} catch (ExecutionException e) {
+			throw unwrap(e);
+		}
+	}
+
 	@Override
 	public void destroy() throws Exception {
 		this.ringbuffer.destroy();
@@ -51,9 +145,30 @@ public class ConstructRingBuffer<T extends Document> extends BaseConstruct<T> {
 		return ringbuffer;
 	}
 
+	/**
+	 * @return logs appended by this instance
+	 */
+	public long getAppended() {
+		return appendCounter.sum();
+	}
+
+	/**
+	 * @return logs returned to the iterators of this instance
+	 */
+	public long getRead() {
+		return readCounter.sum();
+	}
+
+	/**
+	 * @return logs dropped by the table filter before returned to the iterators of this instance
+	 */
+	public long getSkipped() {
+		return skipCounter.sum();
+	}
+
 	@Override
 	public ConstructIterator<T> find() throws Exception {
-		return new RingBufferIterator(ringbuffer, 0);
+		return new RingBufferIterator(this, 0, null);
 	}
 
 	@Override
@@ -66,7 +181,7 @@ public class ConstructRingBuffer<T extends Document> extends BaseConstruct<T> {
 				throw new Exception("Filter is invalid, should be {\"" + SEQUENCE_KEY + "\", some-long-value}");
 			}
 		}
-		return new RingBufferIterator(ringbuffer, sequence);
+		return new RingBufferIterator(this, sequence, TableFilter.of(filter));
 	}
 
 	@Override
@@ -87,15 +202,87 @@ public class ConstructRingBuffer<T extends Document> extends BaseConstruct<T> {
 		return "RingBuffer";
 	}
 
+	private static OverflowPolicy overflowPolicy() {
+		String policy = CommonUtils.getProperty(OVERFLOW_POLICY_KEY, OverflowPolicy.OVERWRITE.name());
+		try {
+			return OverflowPolicy.valueOf(policy.trim().toUpperCase());
+		} catch (IllegalArgumentException e) {
+			return OverflowPolicy.OVERWRITE;
+		}
+	}
+
+	static Exception unwrap(ExecutionException e) {
+		Throwable cause = e.getCause();
+		if (cause instanceof RuntimeException) {
+			return (RuntimeException) cause;
+		}
+		return cause instanceof Exception ? (Exception) cause : e;
+	}
+
+	/**
+	 * Runs in the ringbuffer read operation, only the logs of the given tables (and logs without table name) are returned
+	 */
+	static class TableFilter implements IFunction<Document, Boolean> {
+
+		private static final long serialVersionUID = 2841538425176419326L;
+		private final Set<String> tables;
+
+		TableFilter(Set<String> tables) {
+			this.tables = tables;
+		}
+
+		/**
+		 * @return table filter of the {@link #TABLES_KEY} in find filter, null if not set
+		 */
+		static TableFilter of(Map<String, Object> filter) {
+			if (null == filter || !(filter.get(TABLES_KEY) instanceof Collection)) {
+				return null;
+			}
+			Set<String> tables = new HashSet<>();
+			for (Object table : (Collection<?>) filter.get(TABLES_KEY)) {
+				if (null != table) {
+					tables.add(table.toString());
+				}
+			}
+			return new TableFilter(tables);
+		}
+
+		@Override
+		public Boolean apply(Document document) {
+			if (null == document) {
+				return true;
+			}
+			Object table = document.get(FROM_TABLE_FIELD);
+			return !(table instanceof String) || ((String) table).trim().isEmpty() || tables.contains(table);
+		}
+	}
+
+	/**
+	 * Read the ringbuffer in batches with readManyAsync, items of a batch are kept in the iterator.
+	 * <p>
+	 * {@link #next()} waits at most {@link #READ_WAIT_MS} for new logs and returns null when there is none, the pending read
+	 * is kept and continued by the next call
+	 */
 	static class RingBufferIterator<E extends Document> implements ConstructIterator<E> {
 
-		private Ringbuffer<E> ringbuffer;
+		private final Ringbuffer<E> ringbuffer;
+		private final IFunction<E, Boolean> filter;
+		private final int batchSize;
+		private final LongAdder readCounter;
+		private final LongAdder skipCounter;
 		private long sequence;
+		private ReadResultSet<E> resultSet;
+		private int resultIndex;
+		private CompletableFuture<ReadResultSet<E>> pendingRead;
 
-		public RingBufferIterator(Ringbuffer<E> ringbuffer, long sequence) {
-			assert ringbuffer != null;
+		public RingBufferIterator(ConstructRingBuffer<?> construct, long sequence, IFunction<E, Boolean> filter) {
+			assert construct != null;
 			assert sequence >= 0;
-			this.ringbuffer = ringbuffer;
+			this.ringbuffer = (Ringbuffer<E>) construct.ringbuffer;
+			this.filter = filter;
+			this.batchSize = Math.max(1, Math.min(MAX_BATCH_SIZE, CommonUtils.getPropertyInt(READ_BATCH_SIZE_KEY, DEFAULT_READ_BATCH_SIZE)));
+			this.readCounter = construct.readCounter;
+			this.skipCounter = construct.skipCounter;
 			this.sequence = sequence;
 		}
 
@@ -110,24 +297,32 @@ public class ConstructRingBuffer<T extends Document> extends BaseConstruct<T> {
 
 		@Override
 		public boolean hasNext() {
+			if (buffered()) {
+				return true;
+			}
 			long tailSequence = ringbuffer.tailSequence();
 			return sequence <= tailSequence;
 		}
 
 		@Override
 		public E peek() {
-			E e = null;
-			try {
-				e = ringbuffer.readOne(sequence < 0 ? 0 : sequence);
-			} catch (InterruptedException ignore) {
+			if (!fill()) {
+				return null;
 			}
-			return e;
+			return resultSet.get(resultIndex);
 		}
 
 		@Override
 		public E next() {
 			E e = peek();
-			sequence++;
+			if (null != e) {
+				sequence = resultSet.getSequence(resultIndex) + 1;
+				resultIndex++;
+				if (!buffered()) {
+					sequence = resultSet.getNextSequenceToReadFrom();
+					resultSet = null;
+				}
+			}
 			return e;
 		}
 
@@ -135,5 +330,48 @@ public class ConstructRingBuffer<T extends Document> extends BaseConstruct<T> {
 		public long getSequence() {
 			return sequence;
 		}
+
+		/**
+		 * @return next item already read by the last batch, null without waiting if the batch is consumed
+		 */
+		E nextBuffered() {
+			return buffered() ? next() : null;
+		}
+
+		private boolean buffered() {
+			return null != resultSet && resultIndex < resultSet.size();
+		}
+
+		private boolean fill() {
+			if (buffered()) {
+				return true;
+			}
+			if (null == pendingRead) {
+				pendingRead = ringbuffer.readManyAsync(sequence < 0 ? 0 : sequence, 1, batchSize, filter).toCompletableFuture();
+			}
+			ReadResultSet<E> readResultSet;
+			try {
+				readResultSet = pendingRead.get(READ_WAIT_MS, TimeUnit.MILLISECONDS);
+			} catch (TimeoutException e) {
+				return false;
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return false;
+			} catch (ExecutionException e) {
+				pendingRead = null;
+				Exception cause = unwrap(e);
+				throw cause instanceof RuntimeException ? (RuntimeException) cause : new RuntimeException(cause.getMessage(), cause);
+			}
+			pendingRead = null;
+			readCounter.add(readResultSet.size());
+			skipCounter.add(readResultSet.readCount() - readResultSet.size());
+			if (readResultSet.size() <= 0) {
+				sequence = readResultSet.getNextSequenceToReadFrom();
+				return false;
+			}
+			resultSet = readResultSet;
+			resultIndex = 0;
+			return true;
+		}
 	}
 }
@@ -0,0 +1,243 @@
+package io.tapdata.constructImpl;
+
+import io.tapdata.entity.utils.InstanceFactory;
+import io.tapdata.entity.utils.ObjectSerializable;
+import io.tapdata.pdk.core.utils.CommonUtils;
+import org.rocksdb.BlockBasedTableConfig;
+import org.rocksdb.BloomFilter;
+import org.rocksdb.Cache;
+import org.rocksdb.CompressionType;
+import org.rocksdb.LRUCache;
+import org.rocksdb.Options;
+import org.rocksdb.RocksDB;
+import org.rocksdb.RocksDBException;
+import org.rocksdb.RocksIterator;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keep the state of processor nodes (join/merge caches) in an embedded RocksDB instead of hazelcast IMap, so the cache
+ * size is limited by disk instead of heap. Hot data blocks are kept in a RocksDB block cache shared by all the states of
+ * the process, values are deserialized on every read.
+ * <p>
+ * Keys are stored in byte order, {@link #findByPrefix(String)} seeks to the prefix and scans the keys with the prefix,
+ * so callers can group rows by join key with "joinKey + delimiter + pk" keys. {@link #existsByPrefix(String)} only seeks
+ * to the first key with the prefix.
+ * <p>
+ * Values returned by find, findAll and findByPrefix are new instances, modifying them does not change the state until
+ * they are written back.
+ **/
+public class ConstructRocksDB<T> extends BaseConstruct<T> {
+
+	public static final String TYPE = "RocksDB";
+	public static final String DB_PATH_KEY = "STATE_STORE_ROCKSDB_PATH";
+	public static final String BLOCK_CACHE_SIZE_KEY = "STATE_STORE_BLOCK_CACHE_SIZE_MB";
+	private static final String DEFAULT_DB_PATH = "." + File.separator + "rocksdb-data" + File.separator + "state" + File.separator;
+	private static final long DEFAULT_BLOCK_CACHE_SIZE_MB = 256L;
+	private static final Map<String, ConstructRocksDB<?>> OPENED = new ConcurrentHashMap<>();
+	private static final Cache BLOCK_CACHE;
+
+	static {
+		RocksDB.loadLibrary();
+		BLOCK_CACHE = new LRUCache(CommonUtils.getPropertyLong(BLOCK_CACHE_SIZE_KEY, DEFAULT_BLOCK_CACHE_SIZE_MB) * 1024L * 1024L);
+	}
+
+	private final String name;
+	private final String path;
+	private final Options options;
+	private final RocksDB rocksDB;
+	private final ObjectSerializable objectSerializable;
+
+	public ConstructRocksDB(String name) {
+		this.name = name;
+		this.path = dbPath(name);
+		this.objectSerializable = InstanceFactory.instance(ObjectSerializable.class);
+		this.options = new Options()
+				.setCreateIfMissing(true)
+				.setCompressionType(CompressionType.LZ4_COMPRESSION)
+				.setTableFormatConfig(new BlockBasedTableConfig()
+						.setBlockCache(BLOCK_CACHE)
+						.setFilterPolicy(new BloomFilter(10, false)));
+		try {
+			new File(path).mkdirs();
+			this.rocksDB = RocksDB.open(options, path);
+		} catch (RocksDBException e) {
+			options.close();
+			throw new RuntimeException("Open rocksdb failed, name: " + name + ", path: " + path + ", error: " + e.getMessage(), e);
+		}
+		OPENED.put(name, this);
+	}
+
+	/**
+	 * Clear the state by name, it may be opened by a running node or not
+	 */
+	public static void clear(String name) throws Exception {
+		ConstructRocksDB<?> opened = OPENED.get(name);
+		if (null != opened) {
+			opened.clear();
+			return;
+		}
+		String path = dbPath(name);
+		if (!new File(path).exists()) {
+			return;
+		}
+		try (Options options = new Options()) {
+			RocksDB.destroyDB(path, options);
+		}
+	}
+
+	@Override
+	public int insert(String key, T data) throws Exception {
+		rocksDB.put(toBytes(key), objectSerializable.fromObject(data));
+		return 1;
+	}
+
+	@Override
+	public int update(String key, T data) throws Exception {
+		return insert(key, data);
+	}
+
+	@Override
+	public int upsert(String key, T data) throws Exception {
+		return insert(key, data);
+	}
+
+	@Override
+	public int delete(String key) throws Exception {
+		rocksDB.delete(toBytes(key));
+		return 1;
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public T find(String key) throws Exception {
+		byte[] bytes = rocksDB.get(toBytes(key));
+		if (null == bytes) {
+			return null;
+		}
+		return (T) objectSerializable.toObject(bytes);
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public Map<String, T> findAll(Collection<String> keys) throws Exception {
+		Map<String, T> result = new HashMap<>();
+		if (keys.isEmpty()) {
+			return result;
+		}
+		List<String> keyList = new ArrayList<>(keys);
+		List<byte[]> keyBytes = new ArrayList<>(keyList.size());
+		for (String key : keyList) {
+			keyBytes.add(toBytes(key));
+		}
+		List<byte[]> values = rocksDB.multiGetAsList(keyBytes);
+		for (int i = 0; i < keyList.size(); i++) {
+			byte[] bytes = values.get(i);
+			if (null != bytes) {
+				result.put(keyList.get(i), (T) objectSerializable.toObject(bytes));
+			}
+		}
+		return result;
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public Map<String, T> findByPrefix(String prefix) throws Exception {
+		Map<String, T> result = new LinkedHashMap<>();
+		byte[] prefixBytes = toBytes(prefix);
+		try (RocksIterator iterator = rocksDB.newIterator()) {
+			for (iterator.seek(prefixBytes); iterator.isValid() && startsWith(iterator.key(), prefixBytes); iterator.next()) {
+				result.put(new String(iterator.key(), StandardCharsets.UTF_8), (T) objectSerializable.toObject(iterator.value()));
+			}
+		}
+		return result;
+	}
+
+	@Override
+	public boolean existsByPrefix(String prefix) throws Exception {
+		byte[] prefixBytes = toBytes(prefix);
+		try (RocksIterator iterator = rocksDB.newIterator()) {
+			iterator.seek(prefixBytes);
+			return iterator.isValid() && startsWith(iterator.key(), prefixBytes);
+		}
+	}
+
+	@Override
+	public boolean exists(String key) throws Exception {
+		byte[] keyBytes = toBytes(key);
+		// bloom filter answers most of the absent keys without reading the data blocks
+		return rocksDB.keyMayExist(keyBytes, null) && null != rocksDB.get(keyBytes);
+	}
+
+	@Override
+	public void clear() throws Exception {
+		try (RocksIterator iterator = rocksDB.newIterator()) {
+			iterator.seekToFirst();
+			if (!iterator.isValid()) {
+				return;
+			}
+			byte[] first = iterator.key();
+			iterator.seekToLast();
+			byte[] last = iterator.key();
+			rocksDB.deleteRange(first, last);
+			rocksDB.delete(last);
+		}
+	}
+
+	@Override
+	public void destroy() throws Exception {
+		OPENED.remove(name, this);
+		rocksDB.close();
+		options.close();
+	}
+
+	@Override
+	public boolean isEmpty() {
+		try (RocksIterator iterator = rocksDB.newIterator()) {
+			iterator.seekToFirst();
+			return !iterator.isValid();
+		}
+	}
+
+	@Override
+	public String getName() {
+		return name;
+	}
+
+	@Override
+	public String getType() {
+		return TYPE;
+	}
+
+	private static String dbPath(String name) {
+		String basePath = CommonUtils.getProperty(DB_PATH_KEY, DEFAULT_DB_PATH);
+		if (!basePath.endsWith(File.separator)) {
+			basePath += File.separator;
+		}
+		return basePath + name.replaceAll("[^a-zA-Z0-9_\\-.]", "_");
+	}
+
+	private static byte[] toBytes(String key) {
+		return key.getBytes(StandardCharsets.UTF_8);
+	}
+
+	private static boolean startsWith(byte[] bytes, byte[] prefix) {
+		if (bytes.length < prefix.length) {
+			return false;
+		}
+		for (int i = 0; i < prefix.length; i++) {
+			if (bytes[i] != prefix[i]) {
+				return false;
+			}
+		}
+		return true;
+	}
+}
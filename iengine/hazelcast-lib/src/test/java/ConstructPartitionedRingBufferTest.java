@@ -0,0 +1,86 @@
+import com.hazelcast.config.Config;
+import com.hazelcast.core.Hazelcast;
+import com.hazelcast.core.HazelcastInstance;
+import com.tapdata.constant.HazelcastUtil;
+import com.tapdata.entity.hazelcast.HZLoggingType;
+import io.tapdata.ConstructIterator;
+import io.tapdata.constructImpl.ConstructPartitionedRingBuffer;
+import io.tapdata.constructImpl.ConstructRingBuffer;
+import org.bson.Document;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+
+public class ConstructPartitionedRingBufferTest {
+
+	private HazelcastInstance hazelcastInstance;
+	private ConstructPartitionedRingBuffer hazelcastConstruct;
+
+	@Before
+	public void init() {
+		String instanceName = "unit-test-" + System.currentTimeMillis();
+		Config config = HazelcastUtil.getConfig(instanceName, HZLoggingType.NONE);
+		hazelcastInstance = Hazelcast.newHazelcastInstance(config);
+		hazelcastConstruct = new ConstructPartitionedRingBuffer(hazelcastInstance, "unit-test-partitioned-ringbuffer", 4, null);
+	}
+
+	@After
+	public void after() throws Exception {
+		if (hazelcastConstruct != null) {
+			hazelcastConstruct.destroy();
+		}
+		if (hazelcastInstance != null) {
+			hazelcastInstance.shutdown();
+		}
+	}
+
+	@Test
+	public void testFindInCommitOrder() throws Exception {
+		int num = 200;
+		List<Document> documents = new ArrayList<>();
+		for (int i = 0; i < num; i++) {
+			documents.add(new Document(ConstructRingBuffer.FROM_TABLE_FIELD, "table_" + (i % 10)).append("no", i));
+		}
+		Assert.assertEquals(num, hazelcastConstruct.insertMany(documents));
+		ConstructIterator<Document> iterator = hazelcastConstruct.find();
+		for (int i = 0; i < num; i++) {
+			Document row = iterator.next();
+			Assert.assertNotNull(row);
+			Assert.assertEquals(i, row.getInteger("no").intValue());
+		}
+		Assert.assertEquals(num, iterator.getSequence());
+	}
+
+	@Test
+	public void testFindByTables() throws Exception {
+		int num = 200;
+		List<Document> documents = new ArrayList<>();
+		for (int i = 0; i < num; i++) {
+			documents.add(new Document(ConstructRingBuffer.FROM_TABLE_FIELD, "table_" + (i % 10)).append("no", i));
+		}
+		hazelcastConstruct.insertMany(documents);
+		ConstructIterator<Document> iterator = hazelcastConstruct.find(new HashMap<String, Object>() {{
+			put(ConstructRingBuffer.SEQUENCE_KEY, 0);
+			put(ConstructRingBuffer.TABLES_KEY, Arrays.asList("table_2", "table_7"));
+		}});
+		List<Integer> numbers = new ArrayList<>();
+		while (iterator.hasNext()) {
+			Document row = iterator.next();
+			if (null == row) {
+				break;
+			}
+			numbers.add(row.getInteger("no"));
+		}
+		Assert.assertEquals(num / 5, numbers.size());
+		for (int i = 1; i < numbers.size(); i++) {
+			Assert.assertTrue(numbers.get(i - 1) < numbers.get(i));
+		}
+		numbers.forEach(no -> Assert.assertTrue(no % 10 == 2 || no % 10 == 7));
+	}
+}
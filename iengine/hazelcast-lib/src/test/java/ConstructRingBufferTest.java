@@ -15,6 +15,7 @@ import org.junit.Before;
 import org.junit.Test;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 
@@ -91,6 +92,69 @@ public class ConstructRingBufferTest {
 		Assert.assertEquals(0, iterator.getSequence());
 	}
 
+	@Test
+	public void testInsertMany() throws Exception {
+		int num = 2500;
+		List<Document> documents = new ArrayList<>();
+		for (int i = 0; i < num; i++) {
+			documents.add(mockDocument());
+		}
+		Assert.assertEquals(num, hazelcastConstruct.insertMany(documents));
+		ConstructIterator<Document> iterator = hazelcastConstruct.find();
+		int count = 0;
+		while (iterator.hasNext()) {
+			Assert.assertNotNull(iterator.next());
+			count++;
+		}
+		Assert.assertEquals(num, count);
+		Assert.assertEquals(num, iterator.getSequence());
+		Assert.assertEquals(num, ((ConstructRingBuffer<Document>) hazelcastConstruct).getAppended());
+	}
+
+	@Test
+	public void testFindByTables() throws Exception {
+		int num = 100;
+		List<Document> documents = new ArrayList<>();
+		for (int i = 0; i < num; i++) {
+			documents.add(mockDocument().append(ConstructRingBuffer.FROM_TABLE_FIELD, "table_" + (i % 4)));
+		}
+		hazelcastConstruct.insertMany(documents);
+		ConstructIterator<Document> iterator = hazelcastConstruct.find(new HashMap<String, Object>() {{
+			put(ConstructRingBuffer.SEQUENCE_KEY, 0);
+			put(ConstructRingBuffer.TABLES_KEY, Arrays.asList("table_1", "table_3"));
+		}});
+		List<Document> list = new ArrayList<>();
+		while (iterator.hasNext()) {
+			Document row = iterator.next();
+			if (null == row) {
+				break;
+			}
+			list.add(row);
+		}
+		Assert.assertEquals(num / 2, list.size());
+		list.forEach(row -> Assert.assertTrue(Arrays.asList("table_1", "table_3").contains(row.getString(ConstructRingBuffer.FROM_TABLE_FIELD))));
+		Assert.assertEquals(num, iterator.getSequence());
+		Assert.assertEquals(num / 2, ((ConstructRingBuffer<Document>) hazelcastConstruct).getSkipped());
+	}
+
+	@Test
+	public void testFailPolicyWithoutTtl() throws Exception {
+		System.setProperty(ConstructRingBuffer.OVERFLOW_POLICY_KEY, "FAIL");
+		try {
+			ConstructRingBuffer<Document> ringBuffer = new ConstructRingBuffer<>(hazelcastInstance, "unit-test-ringbuffer-fail", 0);
+			try {
+				ringBuffer.insertMany(Arrays.asList(mockDocument(), mockDocument()));
+				Assert.fail("FAIL policy without ttl should be refused");
+			} catch (IllegalStateException e) {
+				Assert.assertTrue(e.getMessage().contains(ConstructRingBuffer.OVERFLOW_POLICY_KEY));
+			}
+			Assert.assertEquals(0, ringBuffer.getAppended());
+			ringBuffer.destroy();
+		} finally {
+			System.clearProperty(ConstructRingBuffer.OVERFLOW_POLICY_KEY);
+		}
+	}
+
 	private Document mockDocument() {
 		return new Document("name", RandomStringUtils.randomAlphabetic(10))
 				.append("insertTs", System.currentTimeMillis())
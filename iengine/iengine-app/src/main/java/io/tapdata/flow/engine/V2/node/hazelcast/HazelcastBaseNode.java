@@ -44,6 +44,7 @@ import io.tapdata.flow.engine.V2.exception.node.NodeException;
 import io.tapdata.flow.engine.V2.node.hazelcast.data.pdk.HazelcastSourcePdkDataNode;
 import io.tapdata.flow.engine.V2.node.hazelcast.processor.HazelcastProcessorBaseNode;
 import io.tapdata.flow.engine.V2.node.hazelcast.processor.aggregation.HazelcastMultiAggregatorProcessor;
+import io.tapdata.flow.engine.V2.util.CooperativeModeUtil;
 import io.tapdata.flow.engine.V2.util.GraphUtil;
 import io.tapdata.flow.engine.V2.util.NodeUtil;
 import io.tapdata.flow.engine.V2.util.TapEventUtil;
@@ -65,6 +66,7 @@ import org.jetbrains.annotations.NotNull;
 import java.util.*;
 import java.util.concurrent.Callable;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
@@ -110,9 +112,25 @@ public abstract class HazelcastBaseNode extends AbstractProcessor {
 	 * Whether to process data from multiple tables
 	 */
 	protected final boolean multipleTables;
+	/**
+	 * 协作模式下节点运行在 Jet 共享的协作线程上, 不能阻塞, 见 {@link CooperativeModeUtil}; 只对覆盖了 {@link #isCooperative()} 的节点生效
+	 */
+	protected final boolean cooperative;
 
 	protected ObsLogger obsLogger;
 
+	/**
+	 * 多分支下发中的事件, 下发失败时从未成功的分支继续, 已下发的分支不再重复
+	 */
+	private TapdataEvent fanOutEvent;
+	private TapdataEvent.TapEventShare fanOutShare;
+	private int fanOutOrdinal;
+	/**
+	 * 多分支下发时共享而未复制的记录数, 及本节点写时复制的记录数
+	 */
+	private final LongAdder fanOutSharedRecords = new LongAdder();
+	private final LongAdder copyOnWriteRecords = new LongAdder();
+
 	public HazelcastBaseNode(ProcessorBaseContext processorBaseContext) {
 		this.processorBaseContext = processorBaseContext;
 		this.obsLogger = ObsLoggerFactory.getInstance().getObsLogger(
@@ -137,6 +155,7 @@ public abstract class HazelcastBaseNode extends AbstractProcessor {
 
 		//如果为迁移任务、且源节点为数据库类型
 		this.multipleTables = CollectionUtils.isNotEmpty(processorBaseContext.getTaskDto().getDag().getSourceNode());
+		this.cooperative = CooperativeModeUtil.isCooperative(processorBaseContext.getTaskDto(), processorBaseContext.getNode());
 	}
 
 	public <T extends DataFunctionAspect<T>> AspectInterceptResult executeDataFuncAspect(Class<T> aspectClass, Callable<T> aspectCallable, Consumer<T> consumer) {
@@ -207,8 +226,18 @@ public abstract class HazelcastBaseNode extends AbstractProcessor {
 		return null;
 	}
 
+	/**
+	 * Call before modifying the TapEvent of an input event, copies the record if it is shared with other branches
+	 */
+	protected void ensureWritable(TapdataEvent tapdataEvent) {
+		if (tapdataEvent.ensureWritable()) {
+			copyOnWriteRecords.increment();
+		}
+	}
+
 	protected void transformFromTapValue(TapdataEvent tapdataEvent, Map<String, TapField> sourceNameFieldMap) {
 		if (null == tapdataEvent.getTapEvent()) return;
+		ensureWritable(tapdataEvent);
 		TapEvent tapEvent = tapdataEvent.getTapEvent();
 		Map<String, Object> before = TapEventUtil.getBefore(tapEvent);
 		if (MapUtils.isNotEmpty(before)) {
@@ -311,12 +340,24 @@ public abstract class HazelcastBaseNode extends AbstractProcessor {
 			}
 			final int bucketCount = outbox.bucketCount();
 			if (bucketCount > 1) {
-				for (int ordinal = 0; ordinal < bucketCount; ordinal++) {
-					final TapdataEvent cloneEvent = (TapdataEvent) dataEvent.clone();
-					if (!tryEmit(ordinal, cloneEvent)) {
+				if (fanOutEvent != dataEvent) {
+					fanOutEvent = dataEvent;
+					fanOutOrdinal = 0;
+					// 记录事件各分支共享 TapEvent, 分支修改时才复制; 其他事件仍然每个分支复制一份
+					ensureWritable(dataEvent);
+					fanOutShare = dataEvent.isDML() ? new TapdataEvent.TapEventShare(bucketCount) : null;
+				}
+				for (; fanOutOrdinal < bucketCount; fanOutOrdinal++) {
+					final TapdataEvent branchEvent = null == fanOutShare ? (TapdataEvent) dataEvent.clone() : dataEvent.shareCopy(fanOutShare);
+					if (!tryEmit(fanOutOrdinal, branchEvent)) {
 						return false;
 					}
+					if (null != fanOutShare) {
+						fanOutSharedRecords.increment();
+					}
 				}
+				fanOutEvent = null;
+				fanOutShare = null;
 			} else {
 				return tryEmit(dataEvent);
 			}
@@ -530,6 +571,18 @@ public abstract class HazelcastBaseNode extends AbstractProcessor {
 			CollectorFactory.getInstance().registerSampleCollectorToGroup(processorBaseContext.getTaskDto().getId().toString(), sampleCollector);
 			CollectorFactory.getInstance().registerStatisticCollectorToGroup(processorBaseContext.getTaskDto().getId().toString(), statisticCollector);
 		}
+		TapTableMap<String, TapTable> tapTableMap = processorBaseContext.getTapTableMap();
+		if (null != tapTableMap) {
+			// 表模型缓存的命中和加载情况
+			statisticCollector.addSampler("tableCacheHeapHits", tapTableMap::getHeapHits);
+			statisticCollector.addSampler("tableCacheDiskHits", tapTableMap::getDiskHits);
+			statisticCollector.addSampler("tableCacheMisses", tapTableMap::getMisses);
+			statisticCollector.addSampler("tableCacheLoadedTables", tapTableMap::getLoadedTables);
+			statisticCollector.addSampler("tableCacheLoadTimeMs", tapTableMap::getLoadTimeMs);
+		}
+		// 多分支写时复制: 共享下发的记录数与实际复制的记录数之差即为省下的复制
+		statisticCollector.addSampler("fanOutSharedRecords", fanOutSharedRecords::sum);
+		statisticCollector.addSampler("copyOnWriteRecords", copyOnWriteRecords::sum);
 	}
 
 	protected void onDataStats(OnData onData, Stats stats) {
@@ -115,6 +115,7 @@ public class HazelcastSchemaTargetNode extends HazelcastVirtualTargetNode {
 							if (null != tapdataEvent.getMessageEntity()) {
 								tapEvent = message2TapEvent(tapdataEvent.getMessageEntity());
 							} else if (null != tapdataEvent.getTapEvent()) {
+								ensureWritable(tapdataEvent);
 								tapEvent = (TapRecordEvent) tapdataEvent.getTapEvent();
 							} else {
 								continue;
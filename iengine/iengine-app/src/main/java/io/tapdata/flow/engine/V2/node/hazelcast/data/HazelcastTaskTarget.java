@@ -192,6 +192,7 @@ public class HazelcastTaskTarget extends HazelcastBaseNode {
 							if (tapdataEvent.getMessageEntity() != null) {
 								messageEntity = tapdataEvent.getMessageEntity();
 							} else {
+								ensureWritable(tapdataEvent);
 								messageEntity = tapEvent2Message((TapRecordEvent) tapdataEvent.getTapEvent());
 							}
 							final OperationType operationType = OperationType.fromOp(messageEntity.getOp());
@@ -102,7 +102,7 @@ public abstract class HazelcastPdkBaseNode extends HazelcastDataBaseNode {
 	private void initDmlPolicy(Node<?> node, ConnectorCapabilities connectorCapabilities) {
 		if (node instanceof DatabaseNode && null != ((DatabaseNode) node).getDmlPolicy()) {
 			DmlPolicy dmlPolicy = ((DatabaseNode) node).getDmlPolicy();
-			DmlPolicyEnum insertPolicy = null == dmlPolicy.getInsertPolicy() ? DmlPolicyEnum.update_on_exists : dmlPolicy.getInsertPolicy();
+			DmlPolicyEnum insertPolicy = insertPolicy(node);
 			if (insertPolicy == DmlPolicyEnum.ignore_on_exists) {
 				connectorCapabilities.alternative(ConnectionOptions.DML_INSERT_POLICY, ConnectionOptions.DML_INSERT_POLICY_IGNORE_ON_EXISTS);
 			} else {
@@ -121,6 +121,17 @@ public abstract class HazelcastPdkBaseNode extends HazelcastDataBaseNode {
 		}
 	}
 
+	/**
+	 * @return insert policy of the node, update_on_exists by default
+	 */
+	protected static DmlPolicyEnum insertPolicy(Node<?> node) {
+		if (node instanceof DatabaseNode && null != ((DatabaseNode) node).getDmlPolicy()
+				&& null != ((DatabaseNode) node).getDmlPolicy().getInsertPolicy()) {
+			return ((DatabaseNode) node).getDmlPolicy().getInsertPolicy();
+		}
+		return DmlPolicyEnum.update_on_exists;
+	}
+
 	protected void toTapValue(Map<String, Object> data, String tableName, TapCodecsFilterManager tapCodecsFilterManager) {
 		if (MapUtils.isEmpty(data)) {
 			return;
@@ -8,6 +8,8 @@ import com.tapdata.entity.SyncStage;
 import com.tapdata.entity.TapdataEvent;
 import com.tapdata.entity.TapdataHeartbeatEvent;
 import com.tapdata.entity.TapdataShareLogEvent;
+import com.tapdata.entity.dataflow.BatchOffsetSnapshot;
+import com.tapdata.entity.dataflow.SplitBatchOffset;
 import com.tapdata.entity.dataflow.SyncProgress;
 import com.tapdata.entity.task.NodeUtil;
 import com.tapdata.entity.task.context.DataProcessorContext;
@@ -36,6 +38,7 @@ import io.tapdata.entity.event.ddl.table.TapCreateTableEvent;
 import io.tapdata.entity.event.ddl.table.TapDropTableEvent;
 import io.tapdata.entity.event.dml.TapRecordEvent;
 import io.tapdata.entity.mapping.DefaultExpressionMatchingMap;
+import io.tapdata.entity.schema.TapField;
 import io.tapdata.entity.schema.TapTable;
 import io.tapdata.entity.utils.InstanceFactory;
 import io.tapdata.exception.SourceException;
@@ -45,6 +48,9 @@ import io.tapdata.flow.engine.V2.ddl.DDLSchemaHandler;
 import io.tapdata.flow.engine.V2.exception.node.NodeException;
 import io.tapdata.flow.engine.V2.monitor.MonitorManager;
 import io.tapdata.flow.engine.V2.monitor.impl.TableMonitor;
+import io.tapdata.flow.engine.V2.node.hazelcast.data.pdk.queue.BlockingSourceEventQueue;
+import io.tapdata.flow.engine.V2.node.hazelcast.data.pdk.queue.RingBufferSourceEventQueue;
+import io.tapdata.flow.engine.V2.node.hazelcast.data.pdk.queue.SourceEventQueue;
 import io.tapdata.flow.engine.V2.progress.SnapshotProgressManager;
 import io.tapdata.flow.engine.V2.util.PdkUtil;
 import io.tapdata.flow.engine.V2.util.TapEventUtil;
@@ -57,11 +63,14 @@ import io.tapdata.pdk.apis.functions.connector.source.TimestampToStreamOffsetFun
 import io.tapdata.pdk.core.api.PDKIntegration;
 import io.tapdata.pdk.core.monitor.PDKInvocationMonitor;
 import io.tapdata.pdk.core.monitor.PDKMethod;
+import io.tapdata.pdk.core.utils.CommonUtils;
+import io.tapdata.schema.TapTableMap;
 import org.apache.commons.collections.CollectionUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.apache.logging.log4j.ThreadContext;
+import org.apache.lucene.util.RamUsageEstimator;
 import org.jetbrains.annotations.NotNull;
 import org.springframework.data.mongodb.core.query.Query;
 
@@ -80,8 +89,19 @@ import java.util.stream.Collectors;
 public abstract class HazelcastSourcePdkBaseNode extends HazelcastPdkBaseNode {
 	private static final String TAG = HazelcastTargetPdkDataNode.class.getSimpleName();
 	public static final long PERIOD_SECOND_HANDLE_TABLE_MONITOR_RESULT = 10L;
+	public static final String SOURCE_QUEUE_TYPE_KEY = "SOURCE_QUEUE_TYPE";
+	public static final String SOURCE_QUEUE_CAPACITY_KEY = "SOURCE_QUEUE_CAPACITY";
+	public static final String SOURCE_QUEUE_MAX_MB_KEY = "SOURCE_QUEUE_MAX_MB";
+	public static final String SOURCE_QUEUE_TYPE_BLOCKING = "BLOCKING";
+	public static final int DEFAULT_SOURCE_QUEUE_CAPACITY = 1024;
+	private static final int DRAIN_BATCH_SIZE = 256;
 	private final Logger logger = LogManager.getLogger(HazelcastSourcePdkBaseNode.class);
 	protected SyncProgress syncProgress;
+	/**
+	 * 全量阶段各表 offset 的不可变快照, 随每批最后一个事件传给目标节点, 由 {@link #updateBatchOffset(String, Object)} 更新
+	 */
+	private volatile BatchOffsetSnapshot batchOffsetSnapshot;
+	private final Object batchOffsetLock = new Object();
 	protected ExecutorService sourceRunner = new ThreadPoolExecutor(2, 2, 0L, TimeUnit.SECONDS, new SynchronousQueue<>());
 	protected ScheduledExecutorService tableMonitorResultHandler;
 	protected SnapshotProgressManager snapshotProgressManager;
@@ -89,9 +109,11 @@ public abstract class HazelcastSourcePdkBaseNode extends HazelcastPdkBaseNode {
 	/**
 	 * This is added as an async control center because pdk and jet have two different thread model. pdk thread is
 	 * blocked when reading data from data source while jet using async when passing the event to next node.
+	 * <p>
+	 * Ring buffer by default, set SOURCE_QUEUE_TYPE=BLOCKING to use the former LinkedBlockingQueue
 	 */
-	protected LinkedBlockingQueue<TapdataEvent> eventQueue = new LinkedBlockingQueue<>(10);
-	private TapdataEvent pendingEvent;
+	protected SourceEventQueue<TapdataEvent> eventQueue = initEventQueue();
+	private final Deque<TapdataEvent> pendingEvents = new ArrayDeque<>();
 	protected SourceMode sourceMode = SourceMode.NORMAL;
 	protected Long initialFirstStartTime = System.currentTimeMillis();
 	protected TransformerWsMessageDto transformerWsMessageDto;
@@ -273,6 +295,41 @@ public abstract class HazelcastSourcePdkBaseNode extends HazelcastPdkBaseNode {
 					break;
 			}
 		}
+		initBatchOffsetSnapshot();
+	}
+
+	@SuppressWarnings("unchecked")
+	private void initBatchOffsetSnapshot() {
+		Map<String, Object> batchOffsets = new HashMap<>();
+		if (syncProgress.getBatchOffsetObj() instanceof Map) {
+			try {
+				MapUtil.deepCloneMap((Map<String, Object>) syncProgress.getBatchOffsetObj(), batchOffsets);
+			} catch (IllegalAccessException | InstantiationException e) {
+				throw new NodeException("Deep clone batch offset map failed: " + e.getMessage(), e).context(getProcessorBaseContext());
+			}
+		}
+		batchOffsetSnapshot = BatchOffsetSnapshot.of(batchOffsets);
+	}
+
+	/**
+	 * Record the batch offset of a table, the events wrapped afterwards carry a snapshot which contains it.
+	 * Only this table offset is cloned, the offsets of the other tables are shared with the previous snapshot. A
+	 * {@link SplitBatchOffset} only clones the offsets of the splits changed since its last snapshot
+	 *
+	 * @param tableId     table id
+	 * @param tableOffset batch offset of the table
+	 */
+	@SuppressWarnings("unchecked")
+	protected void updateBatchOffset(String tableId, Object tableOffset) {
+		synchronized (batchOffsetLock) {
+			((Map<String, Object>) syncProgress.getBatchOffsetObj()).put(tableId, tableOffset);
+			try {
+				Object tableOffsetCopy = tableOffset instanceof SplitBatchOffset ? ((SplitBatchOffset) tableOffset).snapshot() : MapUtil.deepCloneValue(tableOffset);
+				batchOffsetSnapshot = batchOffsetSnapshot.put(tableId, tableOffsetCopy);
+			} catch (IllegalAccessException | InstantiationException e) {
+				throw new RuntimeException("Deep clone batch offset of table " + tableId + " failed: " + e.getMessage(), e);
+			}
+		}
 	}
 
 	private void initStreamOffsetFromTime(Long offsetStartTimeMs) {
@@ -301,6 +358,11 @@ public abstract class HazelcastSourcePdkBaseNode extends HazelcastPdkBaseNode {
 		}
 	}
 
+	@Override
+	public boolean isCooperative() {
+		return cooperative;
+	}
+
 	@Override
 	final public boolean complete() {
 		try {
@@ -310,29 +372,25 @@ public abstract class HazelcastSourcePdkBaseNode extends HazelcastPdkBaseNode {
 			if (!isRunning()) {
 				return true;
 			}
-			if (pendingEvent != null) {
-				dataEvent = pendingEvent;
-				pendingEvent = null;
-			} else {
-				dataEvent = eventQueue.poll(5, TimeUnit.SECONDS);
-				if (null != dataEvent) {
-					// covert to tap value before enqueue the event. when the event is enqueued into the eventQueue,
-					// the event is considered been output to the next node.
-					TapCodecsFilterManager codecsFilterManager = getConnectorNode().getCodecsFilterManager();
-					TapEvent tapEvent = dataEvent.getTapEvent();
-					if (sourceMode == SourceMode.NORMAL) {
-						tapRecordToTapValue(tapEvent, codecsFilterManager);
-					}
+			// 协作模式下不能阻塞等待, 队列为空时直接返回, 由 Jet 稍后再次调用
+			if (pendingEvents.isEmpty()
+					&& eventQueue.drainTo(pendingEvents, DRAIN_BATCH_SIZE, cooperative ? 0L : 5L, TimeUnit.SECONDS) > 0
+					&& sourceMode == SourceMode.NORMAL) {
+				// covert to tap value before enqueue the event. when the event is enqueued into the eventQueue,
+				// the event is considered been output to the next node.
+				TapCodecsFilterManager codecsFilterManager = getConnectorNode().getCodecsFilterManager();
+				for (TapdataEvent pendingEvent : pendingEvents) {
+					tapRecordToTapValue(pendingEvent.getTapEvent(), codecsFilterManager);
 				}
 			}
 
-			if (dataEvent != null) {
+			while (null != (dataEvent = pendingEvents.peekFirst())) {
 				if (!offer(dataEvent)) {
-					pendingEvent = dataEvent;
 					return false;
 				}
-				Optional.ofNullable(snapshotProgressManager)
-						.ifPresent(s -> s.incrementEdgeFinishNumber(TapEventUtil.getTableId(dataEvent.getTapEvent())));
+				pendingEvents.pollFirst();
+				String tableId = TapEventUtil.getTableId(dataEvent.getTapEvent());
+				Optional.ofNullable(snapshotProgressManager).ifPresent(s -> s.incrementEdgeFinishNumber(tableId));
 			}
 			if (error != null) {
 				throw new NodeException(error).context(getProcessorBaseContext());
@@ -408,7 +466,7 @@ public abstract class HazelcastSourcePdkBaseNode extends HazelcastPdkBaseNode {
 								if (!isRunning()) {
 									return;
 								}
-								tapdataEvents.forEach(this::enqueue);
+								enqueue(tapdataEvents);
 								this.newTables.addAll(addList);
 								AspectUtils.executeAspect(new SourceDynamicTableAspect()
 										.dataProcessorContext(getDataProcessorContext())
@@ -459,7 +517,7 @@ public abstract class HazelcastSourcePdkBaseNode extends HazelcastPdkBaseNode {
 									TapdataEvent tapdataEvent = wrapTapdataEvent(tapDropTableEvent, SyncStage.valueOf(syncProgress.getSyncStage()), null, false);
 									tapdataEvents.add(tapdataEvent);
 								}
-								tapdataEvents.forEach(this::enqueue);
+								enqueue(tapdataEvents);
 								AspectUtils.executeAspect(new SourceDynamicTableAspect()
 										.dataProcessorContext(getDataProcessorContext())
 										.type(SourceDynamicTableAspect.DYNAMIC_TABLE_TYPE_REMOVE)
@@ -541,14 +599,7 @@ public abstract class HazelcastSourcePdkBaseNode extends HazelcastPdkBaseNode {
 			if (SyncStage.INITIAL_SYNC == syncStage) {
 				if (isLast && !StringUtils.equalsAnyIgnoreCase(dataProcessorContext.getTaskDto().getSyncType(),
 						TaskDto.SYNC_TYPE_DEDUCE_SCHEMA, TaskDto.SYNC_TYPE_TEST_RUN)) {
-					Map<String, Object> batchOffsetObj = (Map<String, Object>) syncProgress.getBatchOffsetObj();
-					Map<String, Object> newMap = new HashMap<>();
-					try {
-						MapUtil.deepCloneMap(batchOffsetObj, newMap);
-					} catch (IllegalAccessException | InstantiationException e) {
-						throw new RuntimeException("Deep clone batch offset map failed: " + e.getMessage(), e);
-					}
-					tapdataEvent.setBatchOffset(newMap);
+					tapdataEvent.setBatchOffset(batchOffsetSnapshot);
 				}
 			} else if (SyncStage.CDC == syncStage) {
 				tapdataEvent.setStreamOffset(offsetObj);
@@ -577,11 +628,18 @@ public abstract class HazelcastSourcePdkBaseNode extends HazelcastPdkBaseNode {
 				tapTable = ((TapCreateTableEvent) tapEvent).getTable();
 			} else {
 				try {
-					tapTable = processorBaseContext.getTapTableMap().get(tableId);
-					InstanceFactory.bean(DDLSchemaHandler.class).updateSchemaByDDLEvent((TapDDLEvent) tapEvent, tapTable);
+					TapTableMap<String, TapTable> tapTableMap = processorBaseContext.getTapTableMap();
+					Map<String, TapField> oldNameFieldMap = tapTableMap.get(tableId).getNameFieldMap();
 					TableFieldTypesGenerator tableFieldTypesGenerator = InstanceFactory.instance(TableFieldTypesGenerator.class);
 					DefaultExpressionMatchingMap dataTypesMap = getConnectorNode().getConnectorContext().getSpecification().getDataTypesMap();
-					tableFieldTypesGenerator.autoFill(tapTable.getNameFieldMap(), dataTypesMap);
+					TapDDLEvent tapDDLEvent = (TapDDLEvent) tapEvent;
+					// 缓存中的表模型是共享的, 复制后修改再整体替换
+					tapTable = tapTableMap.modify(tableId, table -> {
+						InstanceFactory.bean(DDLSchemaHandler.class).updateSchemaByDDLEvent(tapDDLEvent, table);
+						tableFieldTypesGenerator.autoFill(table.getNameFieldMap(), dataTypesMap);
+					});
+					// 旧的表模型不再使用, 丢弃它已编译的 TapValue 转换计划
+					getConnectorNode().getCodecsFilterManager().invalidateToTapValuePlan(oldNameFieldMap);
 				} catch (Exception e) {
 					throw errorHandle(e, "Modify schema by ddl failed, ddl type: " + tapEvent.getClass() + ", error: " + e.getMessage());
 				}
@@ -662,11 +720,8 @@ public abstract class HazelcastSourcePdkBaseNode extends HazelcastPdkBaseNode {
 
 	protected void enqueue(TapdataEvent tapdataEvent) {
 		try {
-			if (tapdataEvent.getTapEvent() instanceof TapRecordEvent) {
-				String tableId = ((TapRecordEvent) tapdataEvent.getTapEvent()).getTableId();
-				if (removeTables != null && removeTables.contains(tableId)) {
-					return;
-				}
+			if (isRemovedTableEvent(tapdataEvent)) {
+				return;
 			}
 
 			while (isRunning()) {
@@ -681,6 +736,73 @@ public abstract class HazelcastSourcePdkBaseNode extends HazelcastPdkBaseNode {
 		}
 	}
 
+	/**
+	 * Publish a batch of events to eventQueue at once, keep the order of events
+	 */
+	protected void enqueue(List<TapdataEvent> tapdataEvents) {
+		if (CollectionUtils.isEmpty(tapdataEvents)) {
+			return;
+		}
+		List<TapdataEvent> events = tapdataEvents;
+		if (CollectionUtils.isNotEmpty(removeTables)) {
+			events = tapdataEvents.stream().filter(tapdataEvent -> !isRemovedTableEvent(tapdataEvent)).collect(Collectors.toList());
+		}
+		int published = 0;
+		try {
+			while (isRunning() && published < events.size()) {
+				published += eventQueue.offerBatch(events.subList(published, events.size()), 3, TimeUnit.SECONDS);
+			}
+		} catch (InterruptedException ignore) {
+			logger.warn("TapdataEvent enqueue thread interrupted");
+		} catch (Throwable throwable) {
+			throw new NodeException(throwable).context(getDataProcessorContext())
+					.event(events.get(Math.min(published, events.size() - 1)).getTapEvent());
+		}
+	}
+
+	private boolean isRemovedTableEvent(TapdataEvent tapdataEvent) {
+		if (tapdataEvent.getTapEvent() instanceof TapRecordEvent) {
+			String tableId = ((TapRecordEvent) tapdataEvent.getTapEvent()).getTableId();
+			return removeTables != null && removeTables.contains(tableId);
+		}
+		return false;
+	}
+
+	private static SourceEventQueue<TapdataEvent> initEventQueue() {
+		int capacity = CommonUtils.getPropertyInt(SOURCE_QUEUE_CAPACITY_KEY, DEFAULT_SOURCE_QUEUE_CAPACITY);
+		if (SOURCE_QUEUE_TYPE_BLOCKING.equalsIgnoreCase(CommonUtils.getProperty(SOURCE_QUEUE_TYPE_KEY, ""))) {
+			return new BlockingSourceEventQueue<>(capacity);
+		}
+		long maxBytes = CommonUtils.getPropertyLong(SOURCE_QUEUE_MAX_MB_KEY, 0L) * 1024L * 1024L;
+		return new RingBufferSourceEventQueue<>(capacity, maxBytes, HazelcastSourcePdkBaseNode::estimateEventBytes);
+	}
+
+	private static long estimateEventBytes(TapdataEvent tapdataEvent) {
+		TapEvent tapEvent = tapdataEvent.getTapEvent();
+		if (!(tapEvent instanceof TapRecordEvent)) {
+			return 0L;
+		}
+		long bytes = 0L;
+		Map<String, Object> before = TapEventUtil.getBefore(tapEvent);
+		if (null != before) {
+			bytes += RamUsageEstimator.sizeOfMap(before);
+		}
+		Map<String, Object> after = TapEventUtil.getAfter(tapEvent);
+		if (null != after) {
+			bytes += RamUsageEstimator.sizeOfMap(after);
+		}
+		return bytes;
+	}
+
+	@Override
+	protected void initSampleCollector() {
+		super.initSampleCollector();
+		sampleCollector.addSampler("sourceQueueSize", () -> eventQueue.size());
+		sampleCollector.addSampler("sourceQueueFillRate", () -> eventQueue.size() * 100 / eventQueue.capacity());
+		sampleCollector.addSampler("sourceQueueBytes", () -> eventQueue.bytes());
+		sampleCollector.addSampler("sourceQueueStallMs", () -> eventQueue.producerStallMs());
+	}
+
 	@Override
 	public void doClose() throws Exception {
 		try {
@@ -691,7 +813,7 @@ public abstract class HazelcastSourcePdkBaseNode extends HazelcastPdkBaseNode {
 		}
 	}
 
-	public LinkedBlockingQueue<TapdataEvent> getEventQueue() {
+	public SourceEventQueue<TapdataEvent> getEventQueue() {
 		return eventQueue;
 	}
 
@@ -8,9 +8,11 @@ import com.tapdata.entity.SyncStage;
 import com.tapdata.entity.TapdataCompleteSnapshotEvent;
 import com.tapdata.entity.TapdataEvent;
 import com.tapdata.entity.TapdataStartCdcEvent;
+import com.tapdata.entity.dataflow.SplitBatchOffset;
 import com.tapdata.entity.dataflow.SyncProgress;
 import com.tapdata.entity.task.context.DataProcessorContext;
 import com.tapdata.tm.commons.dag.Node;
+import com.tapdata.tm.commons.dag.nodes.DataParentNode;
 import com.tapdata.tm.commons.task.dto.TaskDto;
 import io.tapdata.aspect.BatchReadFuncAspect;
 import io.tapdata.aspect.SourceStateAspect;
@@ -30,12 +32,16 @@ import io.tapdata.flow.engine.V2.sharecdc.ShareCdcTaskContext;
 import io.tapdata.flow.engine.V2.sharecdc.ShareCdcTaskPdkContext;
 import io.tapdata.flow.engine.V2.sharecdc.exception.ShareCdcUnsupportedException;
 import io.tapdata.flow.engine.V2.sharecdc.impl.ShareCdcFactory;
+import io.tapdata.flow.engine.V2.sharecdc.impl.ShareCdcPDKTaskReader;
 import io.tapdata.metrics.TaskSampleRetriever;
 import io.tapdata.milestone.MilestoneStage;
 import io.tapdata.milestone.MilestoneStatus;
 import io.tapdata.pdk.apis.consumer.StreamReadConsumer;
+import io.tapdata.pdk.apis.entity.BatchReadSplit;
 import io.tapdata.pdk.apis.functions.connector.source.BatchCountFunction;
 import io.tapdata.pdk.apis.functions.connector.source.BatchReadFunction;
+import io.tapdata.pdk.apis.functions.connector.source.BatchReadSplitFunction;
+import io.tapdata.pdk.apis.functions.connector.source.SplitTableFunction;
 import io.tapdata.pdk.apis.functions.connector.source.StreamReadFunction;
 import io.tapdata.pdk.core.api.ConnectorNode;
 import io.tapdata.pdk.core.monitor.PDKInvocationMonitor;
@@ -55,11 +61,15 @@ import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.SynchronousQueue;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
 
 /**
  * @author jackin
@@ -82,6 +92,9 @@ public class HazelcastSourcePdkDataNode extends HazelcastSourcePdkBaseNode {
 	private final SourceStateAspect sourceStateAspect;
 	private Map<String, Long> snapshotRowSizeMap;
 	private ExecutorService snapshotRowSizeThreadPool;
+	private boolean initialConcurrentRead;
+	private int initialConcurrentReadNum;
+	private ExecutorService splitReadThreadPool;
 
 	public HazelcastSourcePdkDataNode(DataProcessorContext dataProcessorContext) {
 		super(dataProcessorContext);
@@ -92,6 +105,13 @@ public class HazelcastSourcePdkDataNode extends HazelcastSourcePdkBaseNode {
 	protected void doInit(@NotNull Context context) throws Exception {
 		try {
 			super.doInit(context);
+			Node<?> node = dataProcessorContext.getNode();
+			if (node instanceof DataParentNode) {
+				Boolean initialConcurrentRead = ((DataParentNode<?>) node).getInitialConcurrentRead();
+				Integer initialConcurrentReadNum = ((DataParentNode<?>) node).getInitialConcurrentReadNum();
+				this.initialConcurrentReadNum = null != initialConcurrentReadNum ? initialConcurrentReadNum : 4;
+				this.initialConcurrentRead = null != initialConcurrentRead && initialConcurrentRead && this.initialConcurrentReadNum > 1;
+			}
 			// MILESTONE-INIT_CONNECTOR-FINISH
 			TaskMilestoneFuncAspect.execute(dataProcessorContext, MilestoneStage.INIT_CONNECTOR, MilestoneStatus.FINISH);
 			MilestoneUtil.updateMilestone(milestoneService, MilestoneStage.INIT_CONNECTOR, MilestoneStatus.FINISH);
@@ -211,6 +231,9 @@ public class HazelcastSourcePdkDataNode extends HazelcastSourcePdkBaseNode {
 							logger.info("Starting batch read, table name: " + tapTable.getId() + ", offset: " + tableOffset);
 							int eventBatchSize = 100;
 
+							if (splitBatchRead(tapTable, tableOffset, eventBatchSize)) {
+								continue;
+							}
 							executeDataFuncAspect(BatchReadFuncAspect.class, () -> new BatchReadFuncAspect()
 									.eventBatchSize(eventBatchSize)
 									.connectorContext(getConnectorNode().getConnectorContext())
@@ -223,14 +246,14 @@ public class HazelcastSourcePdkDataNode extends HazelcastSourcePdkBaseNode {
 											if (logger.isDebugEnabled()) {
 												logger.debug("Batch read {} of events, {}", events.size(), LoggerUtils.sourceNodeMessage(getConnectorNode()));
 											}
-											((Map<String, Object>) syncProgress.getBatchOffsetObj()).put(tapTable.getId(), offsetObject);
+											updateBatchOffset(tapTable.getId(), offsetObject);
 											List<TapdataEvent> tapdataEvents = wrapTapdataEvent(events);
 
 											if (batchReadFuncAspect != null)
 												AspectUtils.accept(batchReadFuncAspect.state(BatchReadFuncAspect.STATE_READ_COMPLETE).getReadCompleteConsumers(), tapdataEvents);
 
 											if (CollectionUtil.isNotEmpty(tapdataEvents)) {
-												tapdataEvents.forEach(this::enqueue);
+												enqueue(tapdataEvents);
 
 												if (batchReadFuncAspect != null)
 													AspectUtils.accept(batchReadFuncAspect.state(BatchReadFuncAspect.STATE_ENQUEUED).getEnqueuedConsumers(), tapdataEvents);
@@ -299,6 +322,124 @@ public class HazelcastSourcePdkDataNode extends HazelcastSourcePdkBaseNode {
 		}
 	}
 
+	/**
+	 * Read the table by key range splits concurrently when the connector supports it, each split keeps its own offset
+	 * in {@link SplitBatchOffset}, so an interrupted table can be resumed split by split.
+	 *
+	 * @return false if the table should be read by {@link BatchReadFunction}
+	 */
+	private boolean splitBatchRead(TapTable tapTable, Object tableOffset, int eventBatchSize) {
+		SplitTableFunction splitTableFunction = getConnectorNode().getConnectorFunctions().getSplitTableFunction();
+		BatchReadSplitFunction batchReadSplitFunction = getConnectorNode().getConnectorFunctions().getBatchReadSplitFunction();
+		if (!initialConcurrentRead || null == splitTableFunction || null == batchReadSplitFunction) {
+			return false;
+		}
+		if (null != tableOffset && !(tableOffset instanceof SplitBatchOffset)) {
+			// table was started by a single cursor, continue with its offset
+			return false;
+		}
+		SplitBatchOffset splitBatchOffset;
+		if (tableOffset instanceof SplitBatchOffset) {
+			splitBatchOffset = (SplitBatchOffset) tableOffset;
+		} else {
+			List<BatchReadSplit> tableSplits = new ArrayList<>();
+			PDKInvocationMonitor.invoke(getConnectorNode(), PDKMethod.SOURCE_SPLIT_TABLE,
+					() -> Optional.ofNullable(splitTableFunction.split(getConnectorNode().getConnectorContext(), tapTable, initialConcurrentReadNum))
+							.ifPresent(tableSplits::addAll), TAG);
+			if (tableSplits.size() <= 1) {
+				logger.info("Table " + tapTable.getId() + " cannot be split, will batch read it by single thread");
+				return false;
+			}
+			splitBatchOffset = new SplitBatchOffset(tableSplits);
+			updateBatchOffset(tapTable.getId(), splitBatchOffset);
+		}
+		List<BatchReadSplit> splits = splitBatchOffset.getSplits().stream()
+				.filter(split -> !splitBatchOffset.isCompleted(split.getId()))
+				.collect(Collectors.toList());
+		logger.info("Starting split batch read, table name: " + tapTable.getId() + ", splits: " + splitBatchOffset.getSplits().size()
+				+ ", uncompleted: " + splits.size() + ", threads: " + initialConcurrentReadNum);
+		obsLogger.info("Starting split batch read, table name: " + tapTable.getId() + ", splits: " + splitBatchOffset.getSplits().size()
+				+ ", uncompleted: " + splits.size() + ", threads: " + initialConcurrentReadNum);
+		if (null == splitReadThreadPool) {
+			AtomicInteger threadNo = new AtomicInteger();
+			Node<?> node = dataProcessorContext.getNode();
+			splitReadThreadPool = new ThreadPoolExecutor(initialConcurrentReadNum, initialConcurrentReadNum, 0L, TimeUnit.SECONDS, new LinkedBlockingQueue<>(),
+					r -> new Thread(r, "PDK-SPLIT-READER-" + node.getName() + "(" + node.getId() + ")-" + threadNo.incrementAndGet()));
+		}
+
+		executeDataFuncAspect(BatchReadFuncAspect.class, () -> new BatchReadFuncAspect()
+				.eventBatchSize(eventBatchSize)
+				.connectorContext(getConnectorNode().getConnectorContext())
+				.offsetState(splitBatchOffset)
+				.dataProcessorContext(this.getDataProcessorContext())
+				.start()
+				.table(tapTable), batchReadFuncAspect -> {
+			CompletableFuture<?>[] futures = splits.stream().map(split -> CompletableFuture.runAsync(() -> {
+				Log4jUtil.setThreadContext(dataProcessorContext.getTaskDto());
+				if (!isRunning()) {
+					return;
+				}
+				Object splitOffset = splitBatchOffset.getSplitOffset(split.getId());
+				logger.info("Starting batch read split: " + split + ", offset: " + splitOffset);
+				PDKInvocationMonitor.invoke(getConnectorNode(), PDKMethod.SOURCE_BATCH_READ_SPLIT,
+						() -> batchReadSplitFunction.batchReadSplit(getConnectorNode().getConnectorContext(), tapTable, split, splitOffset, eventBatchSize, (events, offsetObject) -> {
+							if (events == null || events.isEmpty()) {
+								return;
+							}
+							// offsets of all splits are recorded into the snapshot of the last event of a batch, so update offset,
+							// wrap and enqueue in one step, otherwise a snapshot may contain a position whose events are not enqueued yet
+							synchronized (splitBatchOffset) {
+								splitBatchOffset.setSplitOffset(split.getId(), offsetObject);
+								updateBatchOffset(tapTable.getId(), splitBatchOffset);
+								List<TapdataEvent> tapdataEvents = wrapTapdataEvent(events);
+
+								if (batchReadFuncAspect != null)
+									AspectUtils.accept(batchReadFuncAspect.state(BatchReadFuncAspect.STATE_READ_COMPLETE).getReadCompleteConsumers(), tapdataEvents);
+
+								if (CollectionUtil.isNotEmpty(tapdataEvents)) {
+									enqueue(tapdataEvents);
+
+									if (batchReadFuncAspect != null)
+										AspectUtils.accept(batchReadFuncAspect.state(BatchReadFuncAspect.STATE_ENQUEUED).getEnqueuedConsumers(), tapdataEvents);
+
+									resetOutputCounter.inc(tapdataEvents.size());
+									outputCounter.inc(tapdataEvents.size());
+									outputQPS.add(tapdataEvents.size());
+									resetInitialWriteCounter.inc(tapdataEvents.size());
+									initialWriteCounter.inc(tapdataEvents.size());
+								}
+							}
+						}), TAG);
+				if (isRunning()) {
+					splitBatchOffset.complete(split.getId());
+					logger.info("Batch read split completed: " + split.getId());
+				}
+			}, splitReadThreadPool)).toArray(CompletableFuture[]::new);
+			// 任一分片失败时立即返回, 不等其余分片读完
+			CompletableFuture<Void> firstFailure = new CompletableFuture<>();
+			for (CompletableFuture<?> future : futures) {
+				future.whenComplete((v, throwable) -> {
+					if (null != throwable) {
+						firstFailure.completeExceptionally(throwable);
+					}
+				});
+			}
+			try {
+				CompletableFuture.anyOf(CompletableFuture.allOf(futures), firstFailure).join();
+			} catch (CompletionException e) {
+				// 停止正在读的分片, 取消还在排队的分片
+				this.running.set(false);
+				for (CompletableFuture<?> future : futures) {
+					future.cancel(true);
+				}
+				Throwable cause = null != e.getCause() ? e.getCause() : e;
+				throw new NodeException("Batch read split of table " + tapTable.getId() + " failed: " + cause.getMessage(), cause)
+						.context(getProcessorBaseContext());
+			}
+		});
+		return true;
+	}
+
 	@SneakyThrows
 	private void doCount(List<String> tableList) {
 		BatchCountFunction batchCountFunction = getConnectorNode().getConnectorFunctions().getBatchCountFunction();
@@ -460,7 +601,7 @@ public class HazelcastSourcePdkDataNode extends HazelcastSourcePdkBaseNode {
 											AspectUtils.accept(streamReadFuncAspect.state(StreamReadFuncAspect.STATE_STREAMING_READ_COMPLETED).getStreamingReadCompleteConsumers(), tapdataEvents);
 
 										if (CollectionUtils.isNotEmpty(tapdataEvents)) {
-											tapdataEvents.forEach(this::enqueue);
+											enqueue(tapdataEvents);
 											syncProgress.setStreamOffsetObj(offsetObj);
 											resetOutputCounter.inc(tapdataEvents.size());
 											outputCounter.inc(tapdataEvents.size());
@@ -532,6 +673,7 @@ public class HazelcastSourcePdkDataNode extends HazelcastSourcePdkBaseNode {
 	@Override
 	public void doClose() throws Exception {
 		try {
+			Optional.ofNullable(splitReadThreadPool).ifPresent(ExecutorService::shutdownNow);
 			if (null != getConnectorNode()) {
 				PDKInvocationMonitor.invoke(getConnectorNode(), PDKMethod.STOP, () -> getConnectorNode().connectorStop(), TAG);
 			}
@@ -569,6 +711,9 @@ public class HazelcastSourcePdkDataNode extends HazelcastSourcePdkBaseNode {
 		if (syncProgress != null) {
 			statisticCollector.addSampler("cdcTime", () -> syncProgress.getEventTime());
 		}
+		// 共享挖掘日志的读取量, 以及在 ringbuffer 中按表过滤掉的日志量
+		statisticCollector.addSampler("shareCdcReadTotal", () -> shareCdcReader instanceof ShareCdcPDKTaskReader ? ((ShareCdcPDKTaskReader) shareCdcReader).getReadCount() : 0L);
+		statisticCollector.addSampler("shareCdcSkippedTotal", () -> shareCdcReader instanceof ShareCdcPDKTaskReader ? ((ShareCdcPDKTaskReader) shareCdcReader).getSkippedCount() : 0L);
 	}
 
 	private void setDefaultRowSizeMap() {
@@ -7,8 +7,10 @@ import com.tapdata.constant.JSONUtil;
 import com.tapdata.constant.Log4jUtil;
 import com.tapdata.constant.MilestoneUtil;
 import com.tapdata.entity.*;
+import com.tapdata.entity.dataflow.BatchOffsetSnapshot;
 import com.tapdata.entity.dataflow.SyncProgress;
 import com.tapdata.entity.task.context.DataProcessorContext;
+import com.tapdata.tm.commons.dag.DmlPolicyEnum;
 import com.tapdata.tm.commons.dag.Node;
 import com.tapdata.tm.commons.dag.nodes.DataParentNode;
 import com.tapdata.tm.commons.dag.nodes.DatabaseNode;
@@ -29,9 +31,13 @@ import io.tapdata.entity.event.dml.TapInsertRecordEvent;
 import io.tapdata.entity.event.dml.TapRecordEvent;
 import io.tapdata.entity.schema.TapTable;
 import io.tapdata.flow.engine.V2.exception.node.NodeException;
+import io.tapdata.flow.engine.V2.node.hazelcast.data.pdk.compaction.TapRecordEventCompactor;
+import io.tapdata.flow.engine.V2.node.hazelcast.data.pdk.concurrent.AdaptivePartitionConcurrentProcessor;
+import io.tapdata.flow.engine.V2.node.hazelcast.data.pdk.concurrent.ConcurrentProcessor;
 import io.tapdata.flow.engine.V2.node.hazelcast.data.pdk.concurrent.PartitionConcurrentProcessor;
 import io.tapdata.flow.engine.V2.node.hazelcast.data.pdk.concurrent.partitioner.KeysPartitioner;
 import io.tapdata.flow.engine.V2.node.hazelcast.data.pdk.concurrent.selector.TapEventPartitionKeySelector;
+import io.tapdata.flow.engine.V2.util.CooperativeModeUtil;
 import io.tapdata.flow.engine.V2.util.PdkUtil;
 import io.tapdata.flow.engine.V2.util.TapEventUtil;
 import io.tapdata.metrics.TaskSampleRetriever;
@@ -39,6 +45,7 @@ import io.tapdata.milestone.MilestoneContext;
 import io.tapdata.milestone.MilestoneStage;
 import io.tapdata.milestone.MilestoneStatus;
 import io.tapdata.pdk.core.utils.CommonUtils;
+import io.tapdata.schema.TapTableMap;
 import org.apache.commons.collections.CollectionUtils;
 import org.apache.commons.collections.MapUtils;
 import org.apache.commons.lang3.StringUtils;
@@ -48,8 +55,11 @@ import org.apache.logging.log4j.ThreadContext;
 import org.jetbrains.annotations.NotNull;
 
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Consumer;
@@ -64,14 +74,26 @@ import static com.hazelcast.jet.impl.util.ExceptionUtil.sneakyThrow;
  **/
 public abstract class HazelcastTargetPdkBaseNode extends HazelcastPdkBaseNode {
 	private static final String TAG = HazelcastTargetPdkDataNode.class.getSimpleName();
+	public static final String TARGET_WRITE_REGROUP_KEY = "TARGET_WRITE_REGROUP";
+	public static final String TARGET_WRITE_REGROUP_WINDOW_KEY = "TARGET_WRITE_REGROUP_WINDOW";
+	private static final int DEFAULT_TARGET_WRITE_REGROUP_WINDOW = 5000;
+	public static final String TARGET_EVENT_COMPACTION_KEY = "TARGET_EVENT_COMPACTION";
 	private final Logger logger = LogManager.getLogger(HazelcastTargetPdkBaseNode.class);
 	protected Map<String, SyncProgress> syncProgressMap = new ConcurrentHashMap<>();
+	/**
+	 * 已编码的全量 offset 快照, 快照不变时不重复物化与编码
+	 */
+	private final Map<String, BatchOffsetSnapshot> encodedBatchOffsetSnapshots = new HashMap<>();
 	protected Map<String, String> tableNameMap;
 	protected String tableName;
 	private AtomicBoolean firstBatchEvent = new AtomicBoolean();
 	private AtomicBoolean firstStreamEvent = new AtomicBoolean();
 	protected List<String> updateConditionFields;
 	protected String writeStrategy = "updateOrInsert";
+	/**
+	 * 已经处理过主键的表模型, 按对象判断; 表模型被 DDL 替换或者从 ehcache 重新加载后会再处理一次
+	 */
+	private final Map<TapTable, Boolean> primaryKeysHandledTables = Collections.synchronizedMap(new WeakHashMap<>());
 	private AtomicBoolean flushOffset = new AtomicBoolean(false);
 	protected ResetCounterSampler resetInputCounter;
 	protected CounterSampler inputCounter;
@@ -83,6 +105,7 @@ public abstract class HazelcastTargetPdkBaseNode extends HazelcastPdkBaseNode {
 	protected CounterSampler deletedCounter;
 	protected SpeedSampler inputQPS;
 	protected AverageSampler timeCostAvg;
+	protected CounterSampler compactedCounter;
 	protected AtomicBoolean uploadDagService;
 	private List<MetadataInstancesDto> insertMetadata;
 	private Map<String, MetadataInstancesDto> updateMetadata;
@@ -91,10 +114,20 @@ public abstract class HazelcastTargetPdkBaseNode extends HazelcastPdkBaseNode {
 	private int initialConcurrentWriteNum;
 	private boolean cdcConcurrent;
 	private int cdcConcurrentWriteNum;
+	private boolean adaptiveConcurrentWrite;
 
-	private PartitionConcurrentProcessor initialPartitionConcurrentProcessor;
-	private PartitionConcurrentProcessor cdcPartitionConcurrentProcessor;
+	private ConcurrentProcessor initialPartitionConcurrentProcessor;
+	private ConcurrentProcessor cdcPartitionConcurrentProcessor;
 	private boolean inCdc = false;
+	// 是否在一个窗口内按目标表重新分组写入
+	protected boolean writeRegroup;
+	// 每次从 inbox 取出的最大事件数, 即重新分组的窗口大小, 窗口内的事件全部写入后才提交偏移量
+	private int drainSize;
+	// 写入前按主键合并 CDC 事件, 为 null 时不合并
+	private TapRecordEventCompactor eventCompactor;
+	// 协作模式下在共享 io 线程池中执行的写入与断点保存, 同一时间最多各一个
+	private CompletableFuture<Void> pendingWrite;
+	private CompletableFuture<Void> pendingSnapshot;
 
 	public HazelcastTargetPdkBaseNode(DataProcessorContext dataProcessorContext) {
 		super(dataProcessorContext);
@@ -125,6 +158,7 @@ public abstract class HazelcastTargetPdkBaseNode extends HazelcastPdkBaseNode {
 		deletedCounter.inc(values.getOrDefault("deletedTotal", 0).longValue());
 		inputQPS = sampleCollector.getSpeedSampler("inputQPS");
 		timeCostAvg = sampleCollector.getAverageSampler("timeCostAvg");
+		compactedCounter = sampleCollector.getCounterSampler("compactedTotal");
 
 		statisticCollector.addSampler("replicateLag", () -> {
 			Long ts = null;
@@ -153,6 +187,18 @@ public abstract class HazelcastTargetPdkBaseNode extends HazelcastPdkBaseNode {
 			}
 		}
 		this.uploadDagService = new AtomicBoolean(false);
+		this.writeRegroup = CommonUtils.getPropertyBool(TARGET_WRITE_REGROUP_KEY, true);
+		int readBatchSize = dataProcessorContext.getTaskDto().getReadBatchSize();
+		if (CommonUtils.getPropertyBool(TARGET_EVENT_COMPACTION_KEY, false)) {
+			this.eventCompactor = new TapRecordEventCompactor(tapRecordEvent -> {
+				TapTable tapTable = handleTapTablePrimaryKeys(getTgtTableNameFromTapEvent(tapRecordEvent));
+				if (null == tapTable) {
+					return null;
+				}
+				return tapTable.primaryKeys(true);
+			}, DmlPolicyEnum.ignore_on_exists == insertPolicy(dataProcessorContext.getNode()));
+		}
+		this.drainSize = writeRegroup ? Math.max(readBatchSize, CommonUtils.getPropertyInt(TARGET_WRITE_REGROUP_WINDOW_KEY, DEFAULT_TARGET_WRITE_REGROUP_WINDOW)) : readBatchSize;
 		this.insertMetadata = new CopyOnWriteArrayList<>();
 		this.updateMetadata = new ConcurrentHashMap<>();
 		this.removeMetadata = new CopyOnWriteArrayList<>();
@@ -160,6 +206,7 @@ public abstract class HazelcastTargetPdkBaseNode extends HazelcastPdkBaseNode {
 		final Node<?> node = this.dataProcessorContext.getNode();
 		if (node instanceof DataParentNode) {
 			DataParentNode dataParentNode = (DataParentNode) node;
+			this.adaptiveConcurrentWrite = Boolean.TRUE.equals(dataParentNode.getAdaptiveConcurrentWrite());
 			final Boolean initialConcurrent = dataParentNode.getInitialConcurrent();
 			if (initialConcurrent != null) {
 				this.initialConcurrent = initialConcurrent;
@@ -181,41 +228,25 @@ public abstract class HazelcastTargetPdkBaseNode extends HazelcastPdkBaseNode {
 		}
 	}
 
+	@Override
+	public boolean isCooperative() {
+		return cooperative;
+	}
+
 	@Override
 	final public void process(int ordinal, @NotNull Inbox inbox) {
 		try {
 			Log4jUtil.setThreadContext(dataProcessorContext.getTaskDto());
+			if (cooperative) {
+				processCooperative(inbox);
+				return;
+			}
 			if (!inbox.isEmpty()) {
 				while (isRunning()) {
 					List<TapdataEvent> tapdataEvents = new ArrayList<>();
-					final int count = inbox.drainTo(tapdataEvents, dataProcessorContext.getTaskDto().getReadBatchSize());
+					final int count = inbox.drainTo(tapdataEvents, drainSize);
 					if (count > 0) {
-						if (!inCdc) {
-							List<TapdataEvent> partialCdcEvents = new ArrayList<>();
-							final Iterator<TapdataEvent> iterator = tapdataEvents.iterator();
-							while (iterator.hasNext()) {
-								final TapdataEvent tapdataEvent = iterator.next();
-								if (tapdataEvent instanceof TapdataStartCdcEvent || inCdc) {
-									inCdc = true;
-									partialCdcEvents.add(tapdataEvent);
-									iterator.remove();
-								}
-							}
-
-							// initial events and cdc events both in the queue
-							if (CollectionUtils.isNotEmpty(partialCdcEvents)) {
-								initialProcessEvents(tapdataEvents, false);
-								// process partial cdc event
-								if (this.initialPartitionConcurrentProcessor != null) {
-									this.initialPartitionConcurrentProcessor.stop();
-								}
-								cdcProcessEvents(partialCdcEvents);
-							} else {
-								initialProcessEvents(tapdataEvents, true);
-							}
-						} else {
-							cdcProcessEvents(tapdataEvents);
-						}
+						dispatchTapdataEvents(tapdataEvents);
 					} else {
 						break;
 					}
@@ -229,6 +260,109 @@ public abstract class HazelcastTargetPdkBaseNode extends HazelcastPdkBaseNode {
 		}
 	}
 
+	/**
+	 * 协作模式: 上一个窗口写入完成后才从 inbox 取下一个窗口, 交给共享 io 线程池写入, 不阻塞协作线程;
+	 * 未取出的事件留在 inbox 中, Jet 会再次调用
+	 */
+	private void processCooperative(Inbox inbox) {
+		if (!isIoTaskDone(pendingWrite)) {
+			return;
+		}
+		pendingWrite = null;
+		List<TapdataEvent> tapdataEvents = new ArrayList<>();
+		if (!isRunning() || inbox.drainTo(tapdataEvents, drainSize) <= 0) {
+			return;
+		}
+		pendingWrite = runIoTask(() -> dispatchTapdataEvents(tapdataEvents));
+	}
+
+	@Override
+	public boolean tryProcess() {
+		// 没有输入时也检查写入结果, 写入失败时尽早停止任务
+		isWriteDone();
+		return true;
+	}
+
+	@Override
+	public boolean complete() {
+		return isWriteDone();
+	}
+
+	/**
+	 * @return true if no write is running on the io pool, the error of the last write is thrown
+	 */
+	private boolean isWriteDone() {
+		try {
+			if (!isIoTaskDone(pendingWrite)) {
+				return false;
+			}
+			pendingWrite = null;
+			return true;
+		} catch (Throwable e) {
+			errorHandle(e, "Target process failed " + e.getMessage());
+			throw sneakyThrow(e);
+		}
+	}
+
+	private CompletableFuture<Void> runIoTask(Runnable runnable) {
+		TaskDto taskDto = dataProcessorContext.getTaskDto();
+		return CompletableFuture.runAsync(() -> {
+			Log4jUtil.setThreadContext(taskDto);
+			try {
+				runnable.run();
+			} finally {
+				ThreadContext.clearAll();
+			}
+		}, CooperativeModeUtil.getIoExecutor());
+	}
+
+	/**
+	 * @return true if there is no io task or it is done, the error of the task is thrown
+	 */
+	private static boolean isIoTaskDone(CompletableFuture<Void> ioTask) {
+		if (null == ioTask) {
+			return true;
+		}
+		if (!ioTask.isDone()) {
+			return false;
+		}
+		try {
+			ioTask.join();
+		} catch (CompletionException e) {
+			throw sneakyThrow(null != e.getCause() ? e.getCause() : e);
+		}
+		return true;
+	}
+
+	private void dispatchTapdataEvents(List<TapdataEvent> tapdataEvents) {
+		if (!inCdc) {
+			List<TapdataEvent> partialCdcEvents = new ArrayList<>();
+			final Iterator<TapdataEvent> iterator = tapdataEvents.iterator();
+			while (iterator.hasNext()) {
+				final TapdataEvent tapdataEvent = iterator.next();
+				if (tapdataEvent instanceof TapdataStartCdcEvent || inCdc) {
+					inCdc = true;
+					partialCdcEvents.add(tapdataEvent);
+					iterator.remove();
+				}
+			}
+
+			// initial events and cdc events both in the queue
+			if (CollectionUtils.isNotEmpty(partialCdcEvents)) {
+				initialProcessEvents(tapdataEvents, false);
+				// process partial cdc event
+				if (this.initialPartitionConcurrentProcessor != null) {
+					this.initialPartitionConcurrentProcessor.stop();
+				}
+				cdcProcessEvents(partialCdcEvents);
+			} else {
+				initialProcessEvents(tapdataEvents, true);
+			}
+		} else {
+			cdcProcessEvents(tapdataEvents);
+		}
+	}
+
 	private void initialProcessEvents(List<TapdataEvent> initialEvents, boolean async) {
 
 		if (CollectionUtils.isNotEmpty(initialEvents)) {
@@ -300,8 +434,14 @@ public abstract class HazelcastTargetPdkBaseNode extends HazelcastPdkBaseNode {
 			resetInputCounter.inc(tapEvents.size());
 			inputCounter.inc(tapEvents.size());
 			inputQPS.add(tapEvents.size());
+			List<TapEvent> writeEvents = tapEvents;
+			if (null != eventCompactor) {
+				// 同一批次的事件一起写入并提交偏移量, 批次内合并不影响断点
+				writeEvents = eventCompactor.compact(tapEvents);
+				compactedCounter.inc(tapEvents.size() - writeEvents.size());
+			}
 			try {
-				processEvents(tapEvents);
+				processEvents(writeEvents);
 			} catch (Throwable throwable) {
 				throw errorHandle(throwable, "process events failed: " + throwable.getMessage());
 			}
@@ -320,6 +460,7 @@ public abstract class HazelcastTargetPdkBaseNode extends HazelcastPdkBaseNode {
 	}
 
 	private void handleTapdataShareLogEvent(List<TapdataShareLogEvent> tapdataShareLogEvents, TapdataEvent tapdataEvent, Consumer<TapdataEvent> consumer) {
+		ensureWritable(tapdataEvent);
 		tapdataShareLogEvents.add((TapdataShareLogEvent) tapdataEvent);
 		if (null != tapdataEvent.getBatchOffset() || null != tapdataEvent.getStreamOffset()) {
 			consumer.accept(tapdataEvent);
@@ -331,7 +472,7 @@ public abstract class HazelcastTargetPdkBaseNode extends HazelcastPdkBaseNode {
 		TaskMilestoneFuncAspect.execute(dataProcessorContext, MilestoneStage.WRITE_CDC_EVENT, MilestoneStatus.RUNNING);
 		MilestoneUtil.updateMilestone(milestoneService, MilestoneStage.WRITE_CDC_EVENT, MilestoneStatus.RUNNING);
 		flushSyncProgressMap(tapdataEvent);
-		saveToSnapshot();
+		flushSnapshot();
 	}
 
 	protected void handleTapdataCompleteSnapshotEvent() {
@@ -342,7 +483,7 @@ public abstract class HazelcastTargetPdkBaseNode extends HazelcastPdkBaseNode {
 
 	private void handleTapdataHeartbeatEvent(TapdataEvent tapdataEvent) {
 		flushSyncProgressMap(tapdataEvent);
-		saveToSnapshot();
+		flushSnapshot();
 	}
 
 	private void handleTapdataRecordEvent(TapdataEvent tapdataEvent, List<TapEvent> tapEvents, Consumer<TapdataEvent> consumer) {
@@ -352,6 +493,8 @@ public abstract class HazelcastTargetPdkBaseNode extends HazelcastPdkBaseNode {
 				return;
 			}
 		}
+		ensureWritable(tapdataEvent);
+		tapRecordEvent = (TapRecordEvent) tapdataEvent.getTapEvent();
 		fromTapValue(TapEventUtil.getBefore(tapRecordEvent), codecsFilterManager);
 		fromTapValue(TapEventUtil.getAfter(tapRecordEvent), codecsFilterManager);
 		tapEvents.add(tapRecordEvent);
@@ -437,7 +580,24 @@ public abstract class HazelcastTargetPdkBaseNode extends HazelcastPdkBaseNode {
 		}
 	}
 
-	protected void handleTapTablePrimaryKeys(TapTable tapTable) {
+	/**
+	 * 按写入策略设置表的逻辑主键. 表模型是 TapTableMap 中共享的缓存对象, 第一次处理时复制一份修改后放回, 之后直接返回处理过的对象
+	 *
+	 * @param tableName 目标表名
+	 * @return 处理过主键的表模型, 表不存在时返回 null
+	 */
+	protected TapTable handleTapTablePrimaryKeys(String tableName) {
+		TapTableMap<String, TapTable> tapTableMap = dataProcessorContext.getTapTableMap();
+		TapTable tapTable = tapTableMap.get(tableName);
+		if (null == tapTable || primaryKeysHandledTables.containsKey(tapTable)) {
+			return tapTable;
+		}
+		tapTable = tapTableMap.modify(tableName, this::setTapTablePrimaryKeys);
+		primaryKeysHandledTables.put(tapTable, Boolean.TRUE);
+		return tapTable;
+	}
+
+	private void setTapTablePrimaryKeys(TapTable tapTable) {
 		if (writeStrategy.equals(com.tapdata.tm.commons.task.dto.MergeTableProperties.MergeType.updateOrInsert.name())) {
 			if (CollectionUtils.isNotEmpty(updateConditionFields)) {
 				// 设置逻辑主键
@@ -445,7 +605,7 @@ public abstract class HazelcastTargetPdkBaseNode extends HazelcastPdkBaseNode {
 			} else {
 				Collection<String> logicUniqueKey = tapTable.primaryKeys(true);
 				if (CollectionUtils.isEmpty(logicUniqueKey)) {
-					tapTable.setLogicPrimaries(tapTable.getNameFieldMap().keySet());
+					tapTable.setLogicPrimaries(new ArrayList<>(tapTable.getNameFieldMap().keySet()));
 				}
 			}
 		} else if (writeStrategy.equals(com.tapdata.tm.commons.task.dto.MergeTableProperties.MergeType.appendWrite.name())) {
@@ -457,6 +617,30 @@ public abstract class HazelcastTargetPdkBaseNode extends HazelcastPdkBaseNode {
 
 	@Override
 	public boolean saveToSnapshot() {
+		if (!cooperative) {
+			return flushSnapshot();
+		}
+		// 协作模式: 当前窗口写入完成后在 io 线程池保存断点, 未完成时返回 false, Jet 会再次调用
+		if (null == pendingSnapshot) {
+			if (!isWriteDone()) {
+				return false;
+			}
+			pendingSnapshot = runIoTask(this::flushSnapshot);
+			return false;
+		}
+		if (!isIoTaskDone(pendingSnapshot)) {
+			return false;
+		}
+		pendingSnapshot = null;
+		return true;
+	}
+
+	/**
+	 * Save the sync progress of the written events
+	 *
+	 * @return true
+	 */
+	protected boolean flushSnapshot() {
 		try {
 			Log4jUtil.setThreadContext(dataProcessorContext.getTaskDto());
 			if (!flushOffset.get()) return true;
@@ -466,8 +650,14 @@ public abstract class HazelcastTargetPdkBaseNode extends HazelcastPdkBaseNode {
 				String key = entry.getKey();
 				SyncProgress syncProgress = entry.getValue();
 				List<String> list = Arrays.asList(key.split(","));
-				if (null != syncProgress.getBatchOffsetObj()) {
-					syncProgress.setBatchOffset(PdkUtil.encodeOffset(syncProgress.getBatchOffsetObj()));
+				Object batchOffsetObj = syncProgress.getBatchOffsetObj();
+				if (batchOffsetObj instanceof BatchOffsetSnapshot) {
+					if (encodedBatchOffsetSnapshots.get(key) != batchOffsetObj) {
+						syncProgress.setBatchOffset(PdkUtil.encodeOffset(((BatchOffsetSnapshot) batchOffsetObj).toMap()));
+						encodedBatchOffsetSnapshots.put(key, (BatchOffsetSnapshot) batchOffsetObj);
+					}
+				} else if (null != batchOffsetObj) {
+					syncProgress.setBatchOffset(PdkUtil.encodeOffset(batchOffsetObj));
 				}
 				if (null != syncProgress.getStreamOffsetObj()) {
 					syncProgress.setStreamOffset(PdkUtil.encodeOffset(syncProgress.getStreamOffsetObj()));
@@ -514,17 +704,30 @@ public abstract class HazelcastTargetPdkBaseNode extends HazelcastPdkBaseNode {
 	}
 
 	@NotNull
-	private PartitionConcurrentProcessor initConcurrentProcessor(int cdcConcurrentWriteNum) {
+	private ConcurrentProcessor initConcurrentProcessor(int cdcConcurrentWriteNum) {
+		final TapEventPartitionKeySelector keySelector = new TapEventPartitionKeySelector(tapEvent -> {
+			final String tgtTableName = getTgtTableNameFromTapEvent(tapEvent);
+			TapTable tapTable = handleTapTablePrimaryKeys(tgtTableName);
+			return new ArrayList<>(tapTable.primaryKeys(true));
+		});
+		if (adaptiveConcurrentWrite) {
+			return new AdaptivePartitionConcurrentProcessor(
+					cdcConcurrentWriteNum,
+					dataProcessorContext.getTaskDto().getReadBatchSize(),
+					new KeysPartitioner(),
+					keySelector,
+					this::handleTapdataEvents,
+					this::flushSyncProgressMap,
+					this::errorHandle,
+					this::isRunning,
+					dataProcessorContext.getTaskDto()
+			);
+		}
 		return new PartitionConcurrentProcessor(
 				cdcConcurrentWriteNum,
 				dataProcessorContext.getTaskDto().getReadBatchSize(),
 				new KeysPartitioner(),
-				new TapEventPartitionKeySelector(tapEvent -> {
-					final String tgtTableName = getTgtTableNameFromTapEvent(tapEvent);
-					TapTable tapTable = dataProcessorContext.getTapTableMap().get(tgtTableName);
-					handleTapTablePrimaryKeys(tapTable);
-					return new ArrayList<>(tapTable.primaryKeys(true));
-				}),
+				keySelector,
 				this::handleTapdataEvents,
 				this::flushSyncProgressMap,
 				this::errorHandle,
@@ -536,8 +739,14 @@ public abstract class HazelcastTargetPdkBaseNode extends HazelcastPdkBaseNode {
 	@Override
 	public void doClose() throws Exception {
 		try {
-			CommonUtils.ignoreAnyError(() -> Optional.ofNullable(this.initialPartitionConcurrentProcessor).ifPresent(PartitionConcurrentProcessor::forceStop), TAG);
-			CommonUtils.ignoreAnyError(() -> Optional.ofNullable(this.cdcPartitionConcurrentProcessor).ifPresent(PartitionConcurrentProcessor::forceStop), TAG);
+			// 协作模式下等待 io 线程池中的写入结束, 再释放连接
+			CommonUtils.ignoreAnyError(() -> {
+				if (null != pendingWrite) {
+					pendingWrite.get(30L, TimeUnit.SECONDS);
+				}
+			}, TAG);
+			CommonUtils.ignoreAnyError(() -> Optional.ofNullable(this.initialPartitionConcurrentProcessor).ifPresent(ConcurrentProcessor::forceStop), TAG);
+			CommonUtils.ignoreAnyError(() -> Optional.ofNullable(this.cdcPartitionConcurrentProcessor).ifPresent(ConcurrentProcessor::forceStop), TAG);
 		} finally {
 			super.doClose();
 		}
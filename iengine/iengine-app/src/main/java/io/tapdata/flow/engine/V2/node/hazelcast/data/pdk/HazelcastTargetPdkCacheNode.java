@@ -65,6 +65,7 @@ public class HazelcastTargetPdkCacheNode extends HazelcastPdkBaseNode {
 						for (TapdataEvent tapdataEvent : tapdataEvents) {
 
 							if (tapdataEvent.isDML()) {
+								ensureWritable(tapdataEvent);
 								TapRecordEvent tapRecordEvent = (TapRecordEvent) tapdataEvent.getTapEvent();
 								fromTapValue(TapEventUtil.getBefore(tapRecordEvent), codecsFilterManager);
 								fromTapValue(TapEventUtil.getAfter(tapRecordEvent), codecsFilterManager);
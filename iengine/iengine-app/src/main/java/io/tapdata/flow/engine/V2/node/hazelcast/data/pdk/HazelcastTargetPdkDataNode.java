@@ -11,6 +11,7 @@ import com.tapdata.tm.commons.dag.nodes.DatabaseNode;
 import com.tapdata.tm.commons.dag.nodes.TableNode;
 import io.tapdata.aspect.*;
 import io.tapdata.aspect.utils.AspectUtils;
+import io.tapdata.common.sample.sampler.CounterSampler;
 import io.tapdata.entity.event.TapEvent;
 import io.tapdata.entity.event.ddl.TapDDLEvent;
 import io.tapdata.entity.event.ddl.index.TapCreateIndexEvent;
@@ -21,16 +22,19 @@ import io.tapdata.entity.schema.TapIndex;
 import io.tapdata.entity.schema.TapIndexField;
 import io.tapdata.entity.schema.TapTable;
 import io.tapdata.entity.simplify.pretty.ClassHandlers;
+import io.tapdata.entity.utils.DataMap;
 import io.tapdata.flow.engine.V2.common.task.SyncTypeEnum;
 import io.tapdata.flow.engine.V2.exception.node.NodeException;
 import io.tapdata.milestone.MilestoneStage;
 import io.tapdata.milestone.MilestoneStatus;
+import io.tapdata.pdk.apis.entity.ConnectionOptions;
 import io.tapdata.pdk.apis.entity.merge.MergeInfo;
 import io.tapdata.pdk.apis.entity.merge.MergeTableProperties;
 import io.tapdata.pdk.apis.functions.connector.target.*;
 import io.tapdata.pdk.core.api.ConnectorNode;
 import io.tapdata.pdk.core.monitor.PDKInvocationMonitor;
 import io.tapdata.pdk.core.monitor.PDKMethod;
+import io.tapdata.pdk.core.utils.CommonUtils;
 import io.tapdata.pdk.core.utils.LoggerUtils;
 import io.tapdata.schema.TapTableMap;
 import org.apache.commons.collections.CollectionUtils;
@@ -38,10 +42,21 @@ import org.apache.commons.collections4.MapUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.apache.logging.log4j.ThreadContext;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Consumer;
 import java.util.function.Predicate;
@@ -56,13 +71,33 @@ import static io.tapdata.entity.simplify.TapSimplify.*;
 public class HazelcastTargetPdkDataNode extends HazelcastTargetPdkBaseNode {
 	private static final String TAG = HazelcastTargetPdkDataNode.class.getSimpleName();
 	public static final int MAX_INDEX_FIELDS_COUNT = 10;
+	public static final String TARGET_DEFERRED_INDEX_KEY = "TARGET_DEFERRED_INDEX";
+	public static final String TARGET_DEFERRED_INDEX_THREADS_KEY = "TARGET_DEFERRED_INDEX_THREADS";
+	private static final int DEFAULT_DEFERRED_INDEX_THREADS = 4;
+	public static final String TARGET_INIT_TABLE_THREADS_KEY = "TARGET_INIT_TABLE_THREADS";
+	private static final int DEFAULT_INIT_TABLE_THREADS = 8;
 	private final Logger logger = LogManager.getLogger(HazelcastTargetPdkDataNode.class);
 	private ClassHandlers ddlEventHandlers;
+	// 延迟到全量完成后创建的索引, {"table id": "索引事件"}
+	private final Map<String, TapCreateIndexEvent> deferredIndexEvents = new ConcurrentHashMap<>();
+	private CounterSampler deferredIndexCreatedCounter;
+	// 后台并发初始化目标表, {"table id": "初始化结果"}, 串行初始化时为空
+	private final Map<String, CompletableFuture<Void>> tableInitFutures = new ConcurrentHashMap<>();
+	private CompletableFuture<Void> allTablesInitFuture;
+	private ExecutorService initTableThreadPool;
+	private volatile boolean allTablesInitialized;
 
 	public HazelcastTargetPdkDataNode(DataProcessorContext dataProcessorContext) {
 		super(dataProcessorContext);
 	}
 
+	@Override
+	protected void initSampleCollector() {
+		super.initSampleCollector();
+		deferredIndexCreatedCounter = sampleCollector.getCounterSampler("deferredIndexCreated");
+		statisticCollector.addSampler("deferredIndexPending", deferredIndexEvents::size);
+	}
+
 	@Override
 	protected void doInit(@NotNull Context context) throws Exception {
 		try {
@@ -106,29 +141,274 @@ public class HazelcastTargetPdkDataNode extends HazelcastTargetPdkBaseNode {
 		Node<?> node = dataProcessorContext.getNode();
 		ExistsDataProcessEnum existsDataProcessEnum = getExistsDataProcess(node);
 		SyncProgress syncProgress = initSyncProgress(dataProcessorContext.getTaskDto().getAttrs());
-		if (null != syncProgress) return;
-		for (String tableId : tapTableMap.keySet()) {
-			if (!this.running.get()) {
-				break;
+		boolean deferIndex = CommonUtils.getPropertyBool(TARGET_DEFERRED_INDEX_KEY, false) && need2InitialSync(syncProgress);
+		if (null != syncProgress) {
+			if (deferIndex) {
+				// 全量未完成时重启, 表已经存在, 重新记录需要在全量完成后创建的索引
+				for (String tableId : tapTableMap.keySet()) {
+					TapTable tapTable = tapTableMap.get(tableId);
+					if (null != tapTable) {
+						deferTargetIndex(node, tableId, tapTable);
+					}
+				}
 			}
-			TapTable tapTable = tapTableMap.get(tableId);
-			if (null == tapTable) {
-				throw new NodeException("Init target node failed, table \"" + tableId + "\"'s schema is null").context(getDataProcessorContext());
+			return;
+		}
+		List<String> tableIds = new ArrayList<>(tapTableMap.keySet());
+		int threads = initTableThreads(tableIds.size());
+		if (threads <= 1) {
+			for (String tableId : tableIds) {
+				if (!this.running.get()) {
+					break;
+				}
+				initTargetTable(node, existsDataProcessEnum, tableId, deferIndex);
 			}
-			dropTable(existsDataProcessEnum, tableId);
-			createTable(tapTable);
-			clearData(existsDataProcessEnum, tableId);
+			logDeferredIndexes();
+			return;
+		}
+		// 后台并发初始化目标表, 源节点可以先开始读取, 写入时只等待事件所在的表初始化完成
+		logger.info("Initializing " + tableIds.size() + " target tables in background, threads: " + threads);
+		obsLogger.info("Initializing " + tableIds.size() + " target tables in background, threads: " + threads);
+		long startTime = System.currentTimeMillis();
+		AtomicInteger threadNo = new AtomicInteger();
+		AtomicInteger initialized = new AtomicInteger();
+		initTableThreadPool = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.SECONDS, new LinkedBlockingQueue<>(),
+				r -> new Thread(r, "Target-Init-Table-" + node.getName() + "(" + node.getId() + ")-" + threadNo.incrementAndGet()));
+		for (String tableId : tableIds) {
+			tableInitFutures.put(tableId, CompletableFuture.runAsync(() -> {
+				Log4jUtil.setThreadContext(dataProcessorContext.getTaskDto());
+				try {
+					if (isRunning()) {
+						initTargetTable(node, existsDataProcessEnum, tableId, deferIndex);
+						initialized.incrementAndGet();
+					}
+				} finally {
+					ThreadContext.clearAll();
+				}
+			}, initTableThreadPool));
+		}
+		allTablesInitFuture = CompletableFuture.allOf(tableInitFutures.values().toArray(new CompletableFuture[0]))
+				.whenComplete((v, throwable) -> {
+					initTableThreadPool.shutdown();
+					if (null == throwable && initialized.get() == tableIds.size()) {
+						allTablesInitialized = true;
+						logger.info("Target tables initialized, tables: " + tableIds.size() + ", cost: " + (System.currentTimeMillis() - startTime) + " ms");
+						obsLogger.info("Target tables initialized, tables: " + tableIds.size() + ", cost: " + (System.currentTimeMillis() - startTime) + " ms");
+						logDeferredIndexes();
+					} else if (null != throwable && isRunning()) {
+						// 表初始化失败时任务不能继续, 否则断点一直不保存
+						Throwable cause = throwable instanceof CompletionException && null != throwable.getCause() ? throwable.getCause() : throwable;
+						errorHandle(cause, "Initialize target tables failed: " + cause.getMessage());
+					}
+				});
+	}
+
+	/**
+	 * 同步前处理一张目标表: 删除表, 建表, 清空数据, 创建或者延迟创建索引
+	 */
+	private void initTargetTable(Node<?> node, ExistsDataProcessEnum existsDataProcessEnum, String tableId, boolean deferIndex) {
+		TapTable tapTable = dataProcessorContext.getTapTableMap().get(tableId);
+		if (null == tapTable) {
+			throw new NodeException("Init target node failed, table \"" + tableId + "\"'s schema is null").context(getDataProcessorContext());
+		}
+		dropTable(existsDataProcessEnum, tableId);
+		tapTable = createTable(tableId, tapTable);
+		clearData(existsDataProcessEnum, tableId);
+		if (deferIndex) {
+			deferTargetIndex(node, tableId, tapTable);
+		} else {
 			createTargetIndex(node, tableId, tapTable);
 		}
 	}
 
+	/**
+	 * @return 初始化目标表的线程数, 取配置和连接器声明的表 DDL 并发数中较小的值, 连接器未声明时不并发
+	 */
+	private int initTableThreads(int tableCount) {
+		int threads = CommonUtils.getPropertyInt(TARGET_INIT_TABLE_THREADS_KEY, DEFAULT_INIT_TABLE_THREADS);
+		return Math.max(1, Math.min(tableCount, Math.min(threads, tableDdlConcurrency())));
+	}
+
+	/**
+	 * @return 连接器声明的表 DDL 并发数, 未声明时为 1
+	 */
+	private int tableDdlConcurrency() {
+		int connectorLimit = 1;
+		DataMap configOptions = getConnectorNode().getConnectorContext().getSpecification().getConfigOptions();
+		Object capabilities = null == configOptions ? null : configOptions.get("capabilities");
+		if (capabilities instanceof List) {
+			for (Object capability : (List<?>) capabilities) {
+				if (!(capability instanceof Map) || !ConnectionOptions.CAPABILITY_TABLE_DDL_CONCURRENCY.equals(((Map<?, ?>) capability).get("id"))) {
+					continue;
+				}
+				Object alternatives = ((Map<?, ?>) capability).get("alternatives");
+				if (alternatives instanceof List && !((List<?>) alternatives).isEmpty()) {
+					try {
+						connectorLimit = Integer.parseInt(String.valueOf(((List<?>) alternatives).get(0)));
+					} catch (NumberFormatException e) {
+						logger.warn("Invalid " + ConnectionOptions.CAPABILITY_TABLE_DDL_CONCURRENCY + " capability: " + alternatives + ", table ddl will be executed one by one");
+					}
+				}
+			}
+		}
+		return connectorLimit;
+	}
+
+	/**
+	 * 等待事件所在的目标表初始化完成
+	 */
+	private void awaitTargetTablesInit(List<TapEvent> tapEvents) {
+		if (null == allTablesInitFuture) {
+			return;
+		}
+		if (allTablesInitFuture.isDone()) {
+			if (allTablesInitFuture.isCompletedExceptionally()) {
+				awaitFuture(allTablesInitFuture, "Waiting for target tables to be initialized");
+			}
+			return;
+		}
+		Set<String> tableIds = new HashSet<>();
+		for (TapEvent tapEvent : tapEvents) {
+			if (tapEvent instanceof TapRecordEvent || tapEvent instanceof TapDDLEvent) {
+				tableIds.add(getTgtTableNameFromTapEvent(tapEvent));
+			}
+		}
+		for (String tableId : tableIds) {
+			CompletableFuture<Void> future = tableInitFutures.get(tableId);
+			if (null != future) {
+				awaitFuture(future, "Waiting for target table " + tableId + " to be initialized");
+			}
+		}
+	}
+
+	private void awaitFuture(CompletableFuture<Void> future, String waitingMessage) {
+		boolean logged = false;
+		while (isRunning()) {
+			try {
+				future.get(1L, TimeUnit.SECONDS);
+				return;
+			} catch (TimeoutException e) {
+				if (!logged) {
+					logger.info(waitingMessage);
+					obsLogger.info(waitingMessage);
+					logged = true;
+				}
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return;
+			} catch (ExecutionException e) {
+				Throwable cause = null != e.getCause() ? e.getCause() : e;
+				if (cause instanceof NodeException) {
+					throw (NodeException) cause;
+				}
+				throw new NodeException(cause).context(getDataProcessorContext());
+			}
+		}
+	}
+
+	private void logDeferredIndexes() {
+		if (!deferredIndexEvents.isEmpty()) {
+			logger.info("Creation of " + deferredIndexEvents.size() + " table indexes is deferred until initial sync completed");
+			obsLogger.info("Creation of " + deferredIndexEvents.size() + " table indexes is deferred until initial sync completed");
+		}
+	}
+
+	/**
+	 * 记录表的索引, 全量写入无索引的表, 全量完成后再创建
+	 */
+	private void deferTargetIndex(Node<?> node, String tableId, TapTable tapTable) {
+		if (null == getConnectorNode().getConnectorFunctions().getCreateIndexFunction()) {
+			return;
+		}
+		TapCreateIndexEvent indexEvent = buildTargetIndexEvent(node, tableId, tapTable);
+		if (null != indexEvent) {
+			deferredIndexEvents.put(tableId, indexEvent);
+		}
+	}
+
+	@Override
+	protected void handleTapdataCompleteSnapshotEvent() {
+		if (null != allTablesInitFuture) {
+			awaitFuture(allTablesInitFuture, "Initial sync completed, waiting for all target tables to be initialized");
+		}
+		// 增量事件在该事件之后写入, 需要先创建更新条件的索引
+		createDeferredIndexes();
+		super.handleTapdataCompleteSnapshotEvent();
+	}
+
+	private void createDeferredIndexes() {
+		if (deferredIndexEvents.isEmpty()) {
+			return;
+		}
+		CreateIndexFunction createIndexFunction = getConnectorNode().getConnectorFunctions().getCreateIndexFunction();
+		TapTableMap<String, TapTable> tapTableMap = dataProcessorContext.getTapTableMap();
+		List<TapCreateIndexEvent> indexEvents = new ArrayList<>(deferredIndexEvents.values());
+		int total = indexEvents.size();
+		// 建索引同样是表 DDL, 线程数不超过连接器声明的表 DDL 并发数
+		int threads = Math.max(1, Math.min(total, Math.min(tableDdlConcurrency(),
+				CommonUtils.getPropertyInt(TARGET_DEFERRED_INDEX_THREADS_KEY, DEFAULT_DEFERRED_INDEX_THREADS))));
+		int logStep = Math.max(1, total / 10);
+		logger.info("Initial sync completed, starting to create deferred indexes, tables: " + total + ", threads: " + threads);
+		obsLogger.info("Initial sync completed, starting to create deferred indexes, tables: " + total + ", threads: " + threads);
+		long startTime = System.currentTimeMillis();
+		AtomicInteger threadNo = new AtomicInteger();
+		AtomicInteger created = new AtomicInteger();
+		Node<?> node = dataProcessorContext.getNode();
+		ExecutorService indexThreadPool = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.SECONDS, new LinkedBlockingQueue<>(),
+				r -> new Thread(r, "Target-Deferred-Index-" + node.getName() + "(" + node.getId() + ")-" + threadNo.incrementAndGet()));
+		try {
+			CompletableFuture<?>[] futures = indexEvents.stream().map(indexEvent -> CompletableFuture.runAsync(() -> {
+				Log4jUtil.setThreadContext(dataProcessorContext.getTaskDto());
+				try {
+					if (!isRunning()) {
+						return;
+					}
+					String tableId = indexEvent.getTableId();
+					TapTable tapTable = tapTableMap.get(tableId);
+					if (null == tapTable) {
+						throw new NodeException("Create deferred index failed, table \"" + tableId + "\"'s schema is null").context(getDataProcessorContext()).event(indexEvent);
+					}
+					executeCreateIndex(createIndexFunction, tapTable, indexEvent);
+					deferredIndexEvents.remove(tableId);
+					deferredIndexCreatedCounter.inc();
+					int count = created.incrementAndGet();
+					if (count % logStep == 0 || count == total) {
+						logger.info("Deferred index creation progress: " + count + "/" + total);
+						obsLogger.info("Deferred index creation progress: " + count + "/" + total);
+					}
+				} finally {
+					ThreadContext.clearAll();
+				}
+			}, indexThreadPool)).toArray(CompletableFuture[]::new);
+			CompletableFuture.allOf(futures).join();
+		} catch (CompletionException e) {
+			Throwable cause = null != e.getCause() ? e.getCause() : e;
+			if (cause instanceof NodeException) {
+				throw (NodeException) cause;
+			}
+			throw new NodeException(cause).context(getDataProcessorContext());
+		} finally {
+			indexThreadPool.shutdownNow();
+		}
+		logger.info("Deferred indexes created, tables: " + created.get() + ", cost: " + (System.currentTimeMillis() - startTime) + " ms");
+		obsLogger.info("Deferred indexes created, tables: " + created.get() + ", cost: " + (System.currentTimeMillis() - startTime) + " ms");
+	}
+
 	private void createTargetIndex(Node node, String tableId, TapTable tapTable) {
 		CreateIndexFunction createIndexFunction = getConnectorNode().getConnectorFunctions().getCreateIndexFunction();
 		if (null == createIndexFunction) {
 			return;
 		}
+		TapCreateIndexEvent indexEvent = buildTargetIndexEvent(node, tableId, tapTable);
+		if (null != indexEvent) {
+			executeCreateIndex(createIndexFunction, tapTable, indexEvent);
+		}
+	}
 
-		AtomicReference<TapCreateIndexEvent> indexEvent = new AtomicReference<>();
+	/**
+	 * @return 按更新条件字段(表节点)或主键(库节点)创建的索引事件, 不需要创建时返回 null
+	 */
+	private TapCreateIndexEvent buildTargetIndexEvent(Node<?> node, String tableId, TapTable tapTable) {
 		try {
 			List<TapIndex> tapIndices = new ArrayList<>();
 			TapIndex tapIndex = new TapIndex();
@@ -142,38 +422,45 @@ public class HazelcastTargetPdkDataNode extends HazelcastTargetPdkBaseNode {
 			if (null == updateConditionFields) {
 				logger.warn("Table " + tableId + " index fields is null, will not create index automatically");
 				obsLogger.warn("Table " + tableId + " index fields is null, will not create index automatically");
-				return;
+				return null;
 			}
 			if (updateConditionFields.size() > MAX_INDEX_FIELDS_COUNT) {
 				logger.warn("Table " + tableId + " index field exceeds the maximum value of 10, the index will not be created automatically, please create it manually");
 				obsLogger.warn("Table " + tableId + " index field exceeds the maximum value of 10, the index will not be created automatically, please create it manually");
-				return;
+				return null;
 			}
-			if (CollectionUtils.isNotEmpty(updateConditionFields)) {
-				updateConditionFields.forEach(field -> {
-					TapIndexField tapIndexField = new TapIndexField();
-					tapIndexField.setName(field);
-					tapIndexField.setFieldAsc(true);
-					tapIndexFields.add(tapIndexField);
-				});
-				tapIndex.setIndexFields(tapIndexFields);
-				tapIndices.add(tapIndex);
-				indexEvent.set(createIndexEvent(tableId, tapIndices));
-
-				executeDataFuncAspect(CreateIndexFuncAspect.class, () -> new CreateIndexFuncAspect()
-						.table(tapTable)
-						.connectorContext(getConnectorNode().getConnectorContext())
-						.dataProcessorContext(dataProcessorContext)
-						.createIndexEvent(indexEvent.get())
-						.start(), createIndexFuncAspect -> PDKInvocationMonitor.invoke(getConnectorNode(),
-						PDKMethod.TARGET_CREATE_INDEX,
-						() -> createIndexFunction.createIndex(getConnectorNode().getConnectorContext(), tapTable, indexEvent.get()), TAG));
+			if (CollectionUtils.isEmpty(updateConditionFields)) {
+				return null;
 			}
+			updateConditionFields.forEach(field -> {
+				TapIndexField tapIndexField = new TapIndexField();
+				tapIndexField.setName(field);
+				tapIndexField.setFieldAsc(true);
+				tapIndexFields.add(tapIndexField);
+			});
+			tapIndex.setIndexFields(tapIndexFields);
+			tapIndices.add(tapIndex);
+			return createIndexEvent(tableId, tapIndices);
 		} catch (Throwable throwable) {
 			NodeException nodeException = new NodeException(throwable).context(getDataProcessorContext());
-			if (null != indexEvent.get()) {
-				nodeException.event(indexEvent.get());
-			}
+			logger.error(nodeException.getMessage(), nodeException);
+			obsLogger.error(nodeException.getMessage(), nodeException);
+			throw nodeException;
+		}
+	}
+
+	private void executeCreateIndex(CreateIndexFunction createIndexFunction, TapTable tapTable, TapCreateIndexEvent indexEvent) {
+		try {
+			executeDataFuncAspect(CreateIndexFuncAspect.class, () -> new CreateIndexFuncAspect()
+					.table(tapTable)
+					.connectorContext(getConnectorNode().getConnectorContext())
+					.dataProcessorContext(dataProcessorContext)
+					.createIndexEvent(indexEvent)
+					.start(), createIndexFuncAspect -> PDKInvocationMonitor.invoke(getConnectorNode(),
+					PDKMethod.TARGET_CREATE_INDEX,
+					() -> createIndexFunction.createIndex(getConnectorNode().getConnectorContext(), tapTable, indexEvent), TAG));
+		} catch (Throwable throwable) {
+			NodeException nodeException = new NodeException(throwable).context(getDataProcessorContext()).event(indexEvent);
 			logger.error(nodeException.getMessage(), nodeException);
 			obsLogger.error(nodeException.getMessage(), nodeException);
 			throw nodeException;
@@ -206,13 +493,16 @@ public class HazelcastTargetPdkDataNode extends HazelcastTargetPdkBaseNode {
 		}
 	}
 
-	private void createTable(TapTable tapTable) {
+	/**
+	 * @return 建表使用的表模型, 处理过主键时是替换后的对象
+	 */
+	private TapTable createTable(String tableName, TapTable tapTable) {
 		AtomicReference<TapCreateTableEvent> tapCreateTableEvent = new AtomicReference<>();
 		try {
 			CreateTableFunction createTableFunction = getConnectorNode().getConnectorFunctions().getCreateTableFunction();
 			CreateTableV2Function createTableV2Function = getConnectorNode().getConnectorFunctions().getCreateTableV2Function();
 			if (createTableV2Function != null || createTableFunction != null) {
-				handleTapTablePrimaryKeys(tapTable);
+				tapTable = handleTapTablePrimaryKeys(tableName);
 				tapCreateTableEvent.set(createTableEvent(tapTable));
 				executeDataFuncAspect(CreateTableFuncAspect.class, () -> new CreateTableFuncAspect()
 						.createTableEvent(tapCreateTableEvent.get())
@@ -244,7 +534,7 @@ public class HazelcastTargetPdkDataNode extends HazelcastTargetPdkBaseNode {
 			obsLogger.error(nodeException.getMessage(), nodeException);
 			throw nodeException;
 		}
-
+		return tapTable;
 	}
 
 	private void dropTable(ExistsDataProcessEnum existsDataProcessEnum, String tableId) {
@@ -294,6 +584,15 @@ public class HazelcastTargetPdkDataNode extends HazelcastTargetPdkBaseNode {
 
 	@Override
 	void processEvents(List<TapEvent> tapEvents) {
+		awaitTargetTablesInit(tapEvents);
+		if (writeRegroup) {
+			regroupTapRecordEvents(tapEvents, this::writeEvents);
+		} else {
+			writeEvents(tapEvents);
+		}
+	}
+
+	private void writeEvents(List<TapEvent> tapEvents) {
 		dispatchTapRecordEvents(tapEvents,
 				dispatchEntity -> {
 					if (dispatchEntity.getCurrentTapEvent() instanceof TapRecordEvent && dispatchEntity.getLastTapEvent() instanceof TapRecordEvent) {
@@ -486,7 +785,7 @@ public class HazelcastTargetPdkDataNode extends HazelcastTargetPdkBaseNode {
 	private boolean executeCreateTableFunction(TapCreateTableEvent tapCreateTableEvent) {
 		String tgtTableName = getTgtTableNameFromTapEvent(tapCreateTableEvent);
 		TapTable tgtTapTable = dataProcessorContext.getTapTableMap().get(tgtTableName);
-		createTable(tgtTapTable);
+		createTable(tgtTableName, tgtTapTable);
 		return true;
 	}
 
@@ -500,8 +799,7 @@ public class HazelcastTargetPdkDataNode extends HazelcastTargetPdkBaseNode {
 			throw new NodeException("Get target table name from event failed, event table id: " + tableId)
 					.context(getDataProcessorContext()).events(events);
 		}
-		TapTable tapTable = dataProcessorContext.getTapTableMap().get(tgtTableName);
-		handleTapTablePrimaryKeys(tapTable);
+		TapTable tapTable = handleTapTablePrimaryKeys(tgtTableName);
 		events.forEach(this::addPropertyForMergeEvent);
 		WriteRecordFunction writeRecordFunction = getConnectorNode().getConnectorFunctions().getWriteRecordFunction();
 		if (writeRecordFunction != null) {
@@ -548,6 +846,27 @@ public class HazelcastTargetPdkDataNode extends HazelcastTargetPdkBaseNode {
 		}
 	}
 
+	/**
+	 * 将窗口内交错的多表事件按目标表重新分组, 每个分组一次写入, 避免表切换时拆成很小的批次
+	 * <ul>
+	 *     <li>同一目标表的事件保持原有顺序, 相同主键的事件顺序不变</li>
+	 *     <li>DDL 事件是屏障, 先写完之前的所有分组, 再单独处理 DDL</li>
+	 * </ul>
+	 */
+	private void regroupTapRecordEvents(List<TapEvent> tapEvents, Consumer<List<TapEvent>> consumer) {
+		Map<String, List<TapEvent>> tableEventsMap = new LinkedHashMap<>();
+		for (TapEvent tapEvent : tapEvents) {
+			if (tapEvent instanceof TapRecordEvent) {
+				tableEventsMap.computeIfAbsent(getTgtTableNameFromTapEvent(tapEvent), k -> new ArrayList<>()).add(tapEvent);
+			} else if (tapEvent instanceof TapDDLEvent) {
+				tableEventsMap.values().forEach(consumer);
+				tableEventsMap.clear();
+				consumer.accept(Collections.singletonList(tapEvent));
+			}
+		}
+		tableEventsMap.values().forEach(consumer);
+	}
+
 	private void dispatchTapRecordEvents(List<TapEvent> tapEvents, Predicate<DispatchEntity> dispatchClause, Consumer<List<TapEvent>> consumer) {
 		DispatchEntity dispatchEntity = new DispatchEntity();
 		List<TapEvent> tempList = new ArrayList<>();
@@ -603,9 +922,19 @@ public class HazelcastTargetPdkDataNode extends HazelcastTargetPdkBaseNode {
 		}
 	}
 
+	@Override
+	protected boolean flushSnapshot() {
+		if (null != allTablesInitFuture && !allTablesInitialized) {
+			// 目标表未全部初始化时不保存断点, 重启后重新初始化所有表
+			return true;
+		}
+		return super.flushSnapshot();
+	}
+
 	@Override
 	public void doClose() throws Exception {
 		try {
+			CommonUtils.ignoreAnyError(() -> Optional.ofNullable(initTableThreadPool).ifPresent(ExecutorService::shutdownNow), TAG);
 			if (null != getConnectorNode()) {
 				PDKInvocationMonitor.invoke(getConnectorNode(), PDKMethod.STOP, () -> getConnectorNode().connectorStop(), TAG);
 			}
@@ -10,8 +10,10 @@ import com.tapdata.tm.commons.dag.Node;
 import com.tapdata.tm.commons.dag.logCollector.LogCollectorNode;
 import com.tapdata.tm.commons.task.dto.TaskDto;
 import io.tapdata.HazelcastConstruct;
+import io.tapdata.common.sample.sampler.CounterSampler;
+import io.tapdata.common.sample.sampler.SpeedSampler;
 import io.tapdata.common.sharecdc.ShareCdcUtil;
-import io.tapdata.constructImpl.ConstructRingBuffer;
+import io.tapdata.constructImpl.ConstructPartitionedRingBuffer;
 import io.tapdata.entity.event.TapEvent;
 import io.tapdata.entity.event.dml.TapRecordEvent;
 import io.tapdata.flow.engine.V2.util.GraphUtil;
@@ -26,6 +28,7 @@ import org.apache.logging.log4j.Logger;
 import org.bson.Document;
 import org.jetbrains.annotations.NotNull;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 
@@ -38,11 +41,20 @@ public class HazelcastTargetPdkShareCDCNode extends HazelcastTargetPdkBaseNode {
 
 	private final Logger logger = LogManager.getLogger(HazelcastTargetPdkShareCDCNode.class);
 	private HazelcastConstruct<Document> hazelcastConstruct;
+	private CounterSampler shareLogAppendedCounter;
+	private SpeedSampler shareLogAppendQPS;
 
 	public HazelcastTargetPdkShareCDCNode(DataProcessorContext dataProcessorContext) {
 		super(dataProcessorContext);
 	}
 
+	@Override
+	protected void initSampleCollector() {
+		super.initSampleCollector();
+		shareLogAppendedCounter = sampleCollector.getCounterSampler("shareLogAppended");
+		shareLogAppendQPS = sampleCollector.getSpeedSampler("shareLogAppendQPS");
+	}
+
 	@Override
 	protected void doInit(@NotNull Context context) throws Exception {
 		super.doInit(context);
@@ -59,7 +71,7 @@ public class HazelcastTargetPdkShareCDCNode extends HazelcastTargetPdkBaseNode {
 	}
 
 	private static HazelcastConstruct<Document> getHazelcastConstruct(HazelcastInstance hazelcastInstance, Integer shareCdcTtlDay, TaskDto taskDto) {
-		return new ConstructRingBuffer<>(
+		return ConstructPartitionedRingBuffer.create(
 				hazelcastInstance,
 				ShareCdcUtil.getConstructName(taskDto),
 				shareCdcTtlDay
@@ -75,6 +87,7 @@ public class HazelcastTargetPdkShareCDCNode extends HazelcastTargetPdkBaseNode {
 	@SneakyThrows
 	void processShareLog(List<TapdataShareLogEvent> tapdataShareLogEvents) {
 		if (CollectionUtils.isEmpty(tapdataShareLogEvents)) return;
+		List<Document> documents = new ArrayList<>(tapdataShareLogEvents.size());
 		for (TapdataShareLogEvent tapdataShareLogEvent : tapdataShareLogEvents) {
 			TapEvent tapEvent = tapdataShareLogEvent.getTapEvent();
 			if (!(tapEvent instanceof TapRecordEvent)) {
@@ -107,12 +120,16 @@ public class HazelcastTargetPdkShareCDCNode extends HazelcastTargetPdkBaseNode {
 			} catch (Exception e) {
 				throw new RuntimeException("Convert map to document failed; Map data: " + logContent + ". Error: " + e.getMessage(), e);
 			}
-			try {
-				this.hazelcastConstruct.insert(document);
-			} catch (Exception e) {
-				throw new RuntimeException("Insert document into ringbuffer failed; Document data: " + document + ". Error: " + e.getMessage(), e);
-			}
+			documents.add(document);
+		}
+		// 整批追加到 ringbuffer, 减少逐条 add 的调用次数
+		try {
+			this.hazelcastConstruct.insertMany(documents);
+		} catch (Exception e) {
+			throw new RuntimeException("Insert " + documents.size() + " documents into ringbuffer failed; First document: " + documents.get(0) + ". Error: " + e.getMessage(), e);
 		}
+		shareLogAppendedCounter.inc(documents.size());
+		shareLogAppendQPS.add(documents.size());
 	}
 
 	private void handleData(Map<String, Object> data) {
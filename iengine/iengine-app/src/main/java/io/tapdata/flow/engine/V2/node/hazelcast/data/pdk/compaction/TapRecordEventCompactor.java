@@ -0,0 +1,207 @@
+package io.tapdata.flow.engine.V2.node.hazelcast.data.pdk.compaction;
+
+import io.tapdata.entity.event.TapEvent;
+import io.tapdata.entity.event.dml.TapDeleteRecordEvent;
+import io.tapdata.entity.event.dml.TapInsertRecordEvent;
+import io.tapdata.entity.event.dml.TapRecordEvent;
+import io.tapdata.entity.event.dml.TapUpdateRecordEvent;
+import io.tapdata.pdk.apis.entity.merge.MergeInfo;
+import org.apache.commons.collections4.CollectionUtils;
+import org.apache.commons.collections4.MapUtils;
+
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * 按主键合并一个批次内的 CDC 事件, 减少写入目标的事件数
+ * <ul>
+ *     <li>insert + update -> insert, after 为合并后的值; 插入策略为 ignore_on_exists 时不合并, 目标已存在的行会忽略 insert,
+ *     之后的 update 合并为一个 update</li>
+ *     <li>update + update -> update, before 为第一个事件的 before, after 按字段合并(支持只包含部分字段的 update)</li>
+ *     <li>insert/update + delete -> delete</li>
+ * </ul>
+ * 合并后的事件放在该主键第一个事件的位置, 同一主键的事件顺序不变.
+ * 其它情况不合并: delete 之后的事件, 重复的 insert, 修改主键的 update, 无法取得主键的事件, 合并表(MergeInfo)事件;
+ * 后三种是该表的屏障, 之后的事件不会合并到屏障之前; 非 DML 事件(DDL)是所有表的屏障.
+ * <p>
+ * 调用方需保证一个批次不跨越 PartitionConcurrentProcessor 的 barrier, 并发写入时同一主键的事件在同一个分区.
+ */
+public class TapRecordEventCompactor {
+
+	private final Function<TapRecordEvent, Collection<String>> primaryKeysGetter;
+	private final boolean insertIgnoreOnExists;
+
+	/**
+	 * @param primaryKeysGetter    事件对应的目标表主键, 返回空时该事件不合并
+	 * @param insertIgnoreOnExists 目标的插入策略是否为 ignore_on_exists
+	 */
+	public TapRecordEventCompactor(Function<TapRecordEvent, Collection<String>> primaryKeysGetter, boolean insertIgnoreOnExists) {
+		this.primaryKeysGetter = primaryKeysGetter;
+		this.insertIgnoreOnExists = insertIgnoreOnExists;
+	}
+
+	/**
+	 * @return 合并后的事件, 批次内没有 update 和 delete 时直接返回原列表
+	 */
+	public List<TapEvent> compact(List<TapEvent> tapEvents) {
+		if (!containsUpdateOrDelete(tapEvents)) {
+			return tapEvents;
+		}
+		List<TapEvent> results = new ArrayList<>(tapEvents.size());
+		// {"table id": {"主键值": "合并后事件在 results 中的位置"}}
+		Map<String, Map<List<Object>, Integer>> tablePositions = new HashMap<>();
+		Map<String, Collection<String>> tablePrimaryKeys = new HashMap<>();
+		for (TapEvent tapEvent : tapEvents) {
+			if (!(tapEvent instanceof TapRecordEvent)) {
+				tablePositions.clear();
+				results.add(tapEvent);
+				continue;
+			}
+			TapRecordEvent tapRecordEvent = (TapRecordEvent) tapEvent;
+			Map<List<Object>, Integer> positions = tablePositions.computeIfAbsent(tapRecordEvent.getTableId(), k -> new HashMap<>());
+			Collection<String> primaryKeys = tablePrimaryKeys.computeIfAbsent(tapRecordEvent.getTableId(), k -> primaryKeysGetter.apply(tapRecordEvent));
+			List<Object> key = compactKey(tapRecordEvent, primaryKeys);
+			if (null == key) {
+				positions.clear();
+				results.add(tapEvent);
+				continue;
+			}
+			Integer position = positions.get(key);
+			if (null != position) {
+				TapRecordEvent folded = fold((TapRecordEvent) results.get(position), tapRecordEvent);
+				if (null != folded) {
+					results.set(position, folded);
+					continue;
+				}
+			}
+			positions.put(key, results.size());
+			results.add(tapEvent);
+		}
+		return results;
+	}
+
+	private static boolean containsUpdateOrDelete(List<TapEvent> tapEvents) {
+		for (TapEvent tapEvent : tapEvents) {
+			if (tapEvent instanceof TapUpdateRecordEvent || tapEvent instanceof TapDeleteRecordEvent) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * @return 表名以外的主键值, null 表示不能合并
+	 */
+	private static List<Object> compactKey(TapRecordEvent tapRecordEvent, Collection<String> primaryKeys) {
+		if (CollectionUtils.isEmpty(primaryKeys) || tapRecordEvent.getInfo(MergeInfo.EVENT_INFO_KEY) instanceof MergeInfo) {
+			return null;
+		}
+		if (tapRecordEvent instanceof TapInsertRecordEvent) {
+			return keyValues(((TapInsertRecordEvent) tapRecordEvent).getAfter(), null, primaryKeys);
+		} else if (tapRecordEvent instanceof TapDeleteRecordEvent) {
+			return keyValues(((TapDeleteRecordEvent) tapRecordEvent).getBefore(), null, primaryKeys);
+		} else if (tapRecordEvent instanceof TapUpdateRecordEvent) {
+			Map<String, Object> before = ((TapUpdateRecordEvent) tapRecordEvent).getBefore();
+			List<Object> afterKey = keyValues(((TapUpdateRecordEvent) tapRecordEvent).getAfter(), before, primaryKeys);
+			if (MapUtils.isNotEmpty(before)) {
+				List<Object> beforeKey = keyValues(before, null, primaryKeys);
+				if (null != beforeKey && !beforeKey.equals(afterKey)) {
+					// 修改了主键
+					return null;
+				}
+			}
+			return afterKey;
+		}
+		return null;
+	}
+
+	private static List<Object> keyValues(Map<String, Object> data, Map<String, Object> fallback, Collection<String> primaryKeys) {
+		if (null == data) {
+			return null;
+		}
+		List<Object> values = new ArrayList<>(primaryKeys.size());
+		for (String primaryKey : primaryKeys) {
+			if (data.containsKey(primaryKey)) {
+				values.add(normalize(data.get(primaryKey)));
+			} else if (null != fallback && fallback.containsKey(primaryKey)) {
+				values.add(normalize(fallback.get(primaryKey)));
+			} else {
+				return null;
+			}
+		}
+		return values;
+	}
+
+	/**
+	 * 相同的主键值可能是不同的类型(Integer/Long, byte[]), 统一后再比较, 避免同一主键被当作不同主键而乱序
+	 */
+	private static Object normalize(Object value) {
+		if (value instanceof Integer || value instanceof Long || value instanceof Short || value instanceof Byte) {
+			return ((Number) value).longValue();
+		} else if (value instanceof Float || value instanceof Double) {
+			return ((Number) value).doubleValue();
+		} else if (value instanceof BigDecimal) {
+			return ((BigDecimal) value).stripTrailingZeros();
+		} else if (value instanceof byte[]) {
+			return ByteBuffer.wrap((byte[]) value);
+		}
+		return value;
+	}
+
+	/**
+	 * @return 合并后的新事件, 不修改原事件; null 表示不能合并
+	 */
+	private TapRecordEvent fold(TapRecordEvent previous, TapRecordEvent current) {
+		if (current instanceof TapUpdateRecordEvent) {
+			Map<String, Object> after = ((TapUpdateRecordEvent) current).getAfter();
+			if (previous instanceof TapInsertRecordEvent) {
+				if (insertIgnoreOnExists) {
+					// 行可能已存在(如增量重放全量已写入的数据), 合并后的 insert 会被忽略, update 丢失
+					return null;
+				}
+				TapInsertRecordEvent insertRecordEvent = TapInsertRecordEvent.create()
+						.after(merge(((TapInsertRecordEvent) previous).getAfter(), after));
+				return copyAttributes(current, insertRecordEvent);
+			} else if (previous instanceof TapUpdateRecordEvent) {
+				TapUpdateRecordEvent updateRecordEvent = TapUpdateRecordEvent.create()
+						.before(((TapUpdateRecordEvent) previous).getBefore())
+						.after(merge(((TapUpdateRecordEvent) previous).getAfter(), after));
+				return copyAttributes(current, updateRecordEvent);
+			}
+		} else if (current instanceof TapDeleteRecordEvent) {
+			if (previous instanceof TapInsertRecordEvent || previous instanceof TapUpdateRecordEvent) {
+				return current;
+			}
+		}
+		return null;
+	}
+
+	private static Map<String, Object> merge(Map<String, Object> previous, Map<String, Object> current) {
+		Map<String, Object> merged = new LinkedHashMap<>();
+		if (null != previous) {
+			merged.putAll(previous);
+		}
+		if (null != current) {
+			merged.putAll(current);
+		}
+		return merged;
+	}
+
+	private static <T extends TapRecordEvent> T copyAttributes(TapRecordEvent from, T to) {
+		to.setTableId(from.getTableId());
+		to.setAssociateId(from.getAssociateId());
+		to.setReferenceTime(from.getReferenceTime());
+		to.setTime(from.getTime());
+		to.setInfo(from.getInfo());
+		to.setConnector(from.getConnector());
+		to.setConnectorVersion(from.getConnectorVersion());
+		return to;
+	}
+}
@@ -0,0 +1,466 @@
+package io.tapdata.flow.engine.V2.node.hazelcast.data.pdk.concurrent;
+
+import com.tapdata.constant.ExecutorUtil;
+import com.tapdata.constant.Log4jUtil;
+import com.tapdata.entity.TapdataEvent;
+import com.tapdata.tm.commons.task.dto.TaskDto;
+import io.tapdata.entity.event.TapEvent;
+import io.tapdata.entity.event.dml.TapDeleteRecordEvent;
+import io.tapdata.entity.event.dml.TapInsertRecordEvent;
+import io.tapdata.entity.event.dml.TapUpdateRecordEvent;
+import io.tapdata.flow.engine.V2.node.hazelcast.data.pdk.concurrent.partitioner.PartitionResult;
+import io.tapdata.flow.engine.V2.node.hazelcast.data.pdk.concurrent.partitioner.Partitioner;
+import io.tapdata.flow.engine.V2.node.hazelcast.data.pdk.concurrent.selector.PartitionKeySelector;
+import io.tapdata.pdk.core.utils.CommonUtils;
+import org.apache.commons.collections.CollectionUtils;
+import org.apache.commons.collections.MapUtils;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.apache.logging.log4j.ThreadContext;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Adaptive mode of {@link PartitionConcurrentProcessor}
+ * <p>
+ * Events are hashed by key into many key slots instead of one queue per thread, a slot is owned by at most one worker
+ * at the same time so events of the same key are still processed in order. Each worker has a deque of ready slots,
+ * an idle worker steals whole slots from the tail of the other deques, so a hot key only occupies one worker.
+ * <p>
+ * Active worker count grows when the backlog is deeper than one batch per active worker, and shrinks after the backlog
+ * keeps low for a while. Watermarks do not stop the workers, a control thread tracks the smallest unfinished event
+ * sequence and only flushes the offset of the latest watermark before it once per interval.
+ **/
+public class AdaptivePartitionConcurrentProcessor implements ConcurrentProcessor {
+
+	public static final String WATERMARK_INTERVAL_MS_KEY = "CONCURRENT_WRITE_WATERMARK_INTERVAL_MS";
+	private final static String LOG_PREFIX = "[adaptive partition concurrent] ";
+	private final static int SLOTS_PER_WORKER = 32;
+	private final static long CONTROL_INTERVAL_MS = 100L;
+	private final static int SHRINK_IDLE_ROUNDS = 50;
+
+	private final Logger logger = LogManager.getLogger(AdaptivePartitionConcurrentProcessor.class);
+
+	private final String concurrentProcessThreadNamePrefix;
+	private final ExecutorService executorService;
+	private final int maxWorkers;
+	private final int batchSize;
+	private final long capacity;
+	private final long watermarkIntervalMs;
+	private final KeySlot[] slots;
+	private final List<ConcurrentLinkedDeque<KeySlot>> readySlots;
+	private final AtomicInteger activeWorkers;
+	private final AtomicLong eventSeq = new AtomicLong(0L);
+	private final AtomicLong pending = new AtomicLong(0L);
+	// sequence of the last event or watermark which is visible to control thread
+	private volatile long publishedSeq = 0L;
+	private final Queue<Watermark> watermarks = new ConcurrentLinkedQueue<>();
+	private final AtomicBoolean flushRequested = new AtomicBoolean(false);
+	private final AtomicBoolean currentRunning = new AtomicBoolean(false);
+
+	private final Consumer<List<TapdataEvent>> eventProcessor;
+	private final Partitioner<TapdataEvent, List<Object>> partitioner;
+	private final PartitionKeySelector<TapEvent, Object, Map<String, Object>> keySelector;
+	private final Consumer<TapdataEvent> flushOffset;
+	private final PartitionConcurrentProcessor.ErrorHandler<Throwable, String> errorHandler;
+	private final Supplier<Boolean> nodeRunning;
+	private final TaskDto taskDto;
+
+	public AdaptivePartitionConcurrentProcessor(
+			int maxWorkers,
+			int batchSize,
+			Partitioner<TapdataEvent, List<Object>> partitioner,
+			PartitionKeySelector<TapEvent, Object, Map<String, Object>> keySelector,
+			Consumer<List<TapdataEvent>> eventProcessor,
+			Consumer<TapdataEvent> flushOffset,
+			PartitionConcurrentProcessor.ErrorHandler<Throwable, String> errorHandler,
+			Supplier<Boolean> nodeRunning,
+			TaskDto taskDto
+	) {
+		if (partitioner == null) {
+			throw new RuntimeException(LOG_PREFIX + "partitioner cannot be null.");
+		}
+		if (keySelector == null) {
+			throw new RuntimeException(LOG_PREFIX + "key selector cannot be null.");
+		}
+		this.concurrentProcessThreadNamePrefix = "concurrent-process-thread-" + taskDto.getId().toHexString() + "-" + taskDto.getName() + "-";
+		this.maxWorkers = Math.max(1, maxWorkers);
+		this.batchSize = Math.max(1, batchSize);
+		this.capacity = (long) this.batchSize * 2 * this.maxWorkers;
+		this.watermarkIntervalMs = CommonUtils.getPropertyLong(WATERMARK_INTERVAL_MS_KEY, 1000L);
+		this.partitioner = partitioner;
+		this.keySelector = keySelector;
+		this.eventProcessor = eventProcessor;
+		this.flushOffset = flushOffset;
+		this.errorHandler = errorHandler;
+		this.nodeRunning = nodeRunning;
+		this.taskDto = taskDto;
+
+		this.slots = new KeySlot[this.maxWorkers * SLOTS_PER_WORKER];
+		for (int i = 0; i < slots.length; i++) {
+			slots[i] = new KeySlot(i);
+		}
+		this.readySlots = new ArrayList<>(this.maxWorkers);
+		for (int i = 0; i < this.maxWorkers; i++) {
+			readySlots.add(new ConcurrentLinkedDeque<>());
+		}
+		this.activeWorkers = new AtomicInteger(Math.max(1, this.maxWorkers / 2));
+		this.executorService = new ThreadPoolExecutor(this.maxWorkers + 1, this.maxWorkers + 1,
+				60L, TimeUnit.SECONDS, new SynchronousQueue<>());
+		logger.info(LOG_PREFIX + "completed create thread pool, max workers {}, key slots {}", this.maxWorkers, slots.length);
+		currentRunning.compareAndSet(false, true);
+	}
+
+	@Override
+	public void start() {
+		executorService.submit(this::runControl);
+		for (int i = 0; i < maxWorkers; i++) {
+			final int workerIndex = i;
+			executorService.submit(() -> runWorker(workerIndex));
+		}
+	}
+
+	@Override
+	public void process(List<TapdataEvent> tapdataEvents, boolean async) {
+		if (CollectionUtils.isEmpty(tapdataEvents)) {
+			return;
+		}
+		for (TapdataEvent tapdataEvent : tapdataEvents) {
+			if (!isRunning()) {
+				break;
+			}
+			if (tapdataEvent.isDML()) {
+				final TapEvent tapEvent = tapdataEvent.getTapEvent();
+				Map<String, Object> row = null;
+				if (tapEvent instanceof TapInsertRecordEvent) {
+					row = ((TapInsertRecordEvent) tapEvent).getAfter();
+				} else if (tapEvent instanceof TapDeleteRecordEvent) {
+					row = ((TapDeleteRecordEvent) tapEvent).getBefore();
+				} else if (tapEvent instanceof TapUpdateRecordEvent) {
+					if (updatePartitionValueEvent(tapEvent)) {
+						// the key is moved to another slot, the events before and after it must not be reordered
+						processExclusively(tapdataEvent);
+						continue;
+					}
+					row = ((TapUpdateRecordEvent) tapEvent).getAfter();
+				}
+				final List<Object> partitionValue = keySelector.select(tapEvent, row);
+				final List<Object> partitionOriginalValues = keySelector.convert2OriginValue(partitionValue);
+				final PartitionResult<TapdataEvent> partitionResult = partitioner.partition(slots.length, tapdataEvent, partitionOriginalValues);
+				final int slot = null == partitionResult || partitionResult.getPartition() < 0 ? 0 : partitionResult.getPartition();
+				if (!enqueue(slots[slot], tapdataEvent)) {
+					break;
+				}
+			} else if (tapdataEvent.isDDL()) {
+				processExclusively(tapdataEvent);
+			} else {
+				// heartbeat, start cdc... are applied by control thread in order once the events before them are processed
+				final long seq = eventSeq.incrementAndGet();
+				watermarks.offer(new Watermark(seq, tapdataEvent, true));
+				publishedSeq = seq;
+			}
+		}
+		watermarks.offer(new Watermark(eventSeq.get(), tapdataEvents.get(tapdataEvents.size() - 1), false));
+		publishedSeq = eventSeq.get();
+
+		if (!async) {
+			waitingForProcessToCurrent();
+		}
+	}
+
+	@Override
+	public void stop() {
+		waitingForProcessToCurrent();
+		currentRunning.compareAndSet(true, false);
+		ExecutorUtil.shutdownEx(this.executorService, 60L, TimeUnit.SECONDS);
+	}
+
+	@Override
+	public void forceStop() {
+		currentRunning.compareAndSet(true, false);
+		ExecutorUtil.shutdownEx(this.executorService, 60L, TimeUnit.SECONDS);
+	}
+
+	private boolean enqueue(KeySlot slot, TapdataEvent tapdataEvent) {
+		long waitStart = 0L;
+		while (pending.get() >= capacity) {
+			if (!isRunning()) {
+				return false;
+			}
+			if (waitStart == 0L) {
+				waitStart = System.currentTimeMillis();
+			} else if (System.currentTimeMillis() - waitStart > 3000L) {
+				if (logger.isInfoEnabled()) {
+					logger.info(LOG_PREFIX + "process queue is full, waiting for enqueue, active workers {}.", activeWorkers.get());
+				}
+				waitStart = System.currentTimeMillis();
+			}
+			LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(1L));
+		}
+		pending.incrementAndGet();
+		final long seq = eventSeq.incrementAndGet();
+		slot.events.offer(new NormalEvent<>(seq, tapdataEvent));
+		publishedSeq = seq;
+		schedule(slot);
+		return true;
+	}
+
+	private void schedule(KeySlot slot) {
+		if (slot.scheduled.compareAndSet(false, true)) {
+			readySlots.get(slot.index % activeWorkers.get()).offerLast(slot);
+		}
+	}
+
+	private void release(KeySlot slot) {
+		slot.inflightSeq = Long.MAX_VALUE;
+		slot.scheduled.set(false);
+		// producer may add events after the worker drained the slot but before it is released
+		if (!slot.events.isEmpty()) {
+			schedule(slot);
+		}
+	}
+
+	private void processExclusively(TapdataEvent tapdataEvent) {
+		waitingForProcessToCurrent();
+		if (isRunning()) {
+			eventProcessor.accept(Collections.singletonList(tapdataEvent));
+		}
+	}
+
+	private void waitingForProcessToCurrent() {
+		long lastLogTime = System.currentTimeMillis();
+		while (isRunning() && (pending.get() > 0 || !watermarks.isEmpty())) {
+			flushRequested.set(true);
+			LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(10L));
+			if (System.currentTimeMillis() - lastLogTime > 3000L) {
+				if (logger.isInfoEnabled()) {
+					logger.info(LOG_PREFIX + "waiting all events processed for thread, pending {}", pending.get());
+				}
+				lastLogTime = System.currentTimeMillis();
+			}
+		}
+	}
+
+	private void runWorker(int workerIndex) {
+		try {
+			Log4jUtil.setThreadContext(taskDto);
+			Thread.currentThread().setName(concurrentProcessThreadNamePrefix + workerIndex);
+			List<KeySlot> ownedSlots = new ArrayList<>();
+			List<TapdataEvent> processEvents = new ArrayList<>();
+			int idleCount = 0;
+			while (isRunning()) {
+				try {
+					if (workerIndex >= activeWorkers.get()) {
+						TimeUnit.MILLISECONDS.sleep(CONTROL_INTERVAL_MS);
+						continue;
+					}
+					while (processEvents.size() < batchSize) {
+						KeySlot slot = readySlots.get(workerIndex).pollFirst();
+						if (null == slot) {
+							slot = steal(workerIndex);
+						}
+						if (null == slot) {
+							break;
+						}
+						ownedSlots.add(slot);
+						drain(slot, processEvents, batchSize - processEvents.size());
+					}
+					if (processEvents.isEmpty()) {
+						ownedSlots.forEach(this::release);
+						ownedSlots.clear();
+						LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(Math.min(1000L, 10L * ++idleCount)));
+						continue;
+					}
+					idleCount = 0;
+					eventProcessor.accept(processEvents);
+					pending.addAndGet(-processEvents.size());
+					processEvents.clear();
+					ownedSlots.forEach(this::release);
+					ownedSlots.clear();
+				} catch (InterruptedException e) {
+					break;
+				} catch (Throwable throwable) {
+					currentRunning.compareAndSet(true, false);
+					errorHandler.accept(throwable, "process event failed");
+				}
+			}
+		} finally {
+			ThreadContext.clearAll();
+		}
+	}
+
+	private void drain(KeySlot slot, List<TapdataEvent> processEvents, int maxEvents) {
+		final NormalEvent<TapdataEvent> head = slot.events.peek();
+		if (null == head) {
+			return;
+		}
+		// mark before polling, control thread always sees the unfinished sequence either in queue or in flight
+		slot.inflightSeq = head.getEventSeqNo();
+		for (int i = 0; i < maxEvents; i++) {
+			final NormalEvent<TapdataEvent> normalEvent = slot.events.poll();
+			if (null == normalEvent) {
+				break;
+			}
+			processEvents.add(normalEvent.getEvent());
+		}
+	}
+
+	private KeySlot steal(int workerIndex) {
+		for (int i = 1; i < readySlots.size(); i++) {
+			final KeySlot slot = readySlots.get((workerIndex + i) % readySlots.size()).pollLast();
+			if (null != slot) {
+				return slot;
+			}
+		}
+		return null;
+	}
+
+	private void runControl() {
+		Thread.currentThread().setName(taskDto.getId().toHexString() + "-" + taskDto.getName() + "-watermark-event-process");
+		Log4jUtil.setThreadContext(taskDto);
+		long lastFlushTime = System.currentTimeMillis();
+		int idleRounds = 0;
+		try {
+			while (isRunning()) {
+				try {
+					TimeUnit.MILLISECONDS.sleep(CONTROL_INTERVAL_MS);
+					final boolean flushWatermark = flushRequested.getAndSet(false) || System.currentTimeMillis() - lastFlushTime >= watermarkIntervalMs;
+					if (flushWatermarks(flushWatermark)) {
+						lastFlushTime = System.currentTimeMillis();
+					}
+					idleRounds = adjustWorkers(idleRounds);
+				} catch (InterruptedException e) {
+					break;
+				} catch (Throwable throwable) {
+					currentRunning.compareAndSet(true, false);
+					errorHandler.accept(throwable, "process watermark event failed");
+				}
+			}
+		} finally {
+			ThreadContext.clearAll();
+		}
+	}
+
+	/**
+	 * Apply control events in order and flush the latest watermark whose events are all processed
+	 *
+	 * @return true if a watermark is flushed
+	 */
+	private boolean flushWatermarks(boolean flushWatermark) {
+		// read published sequence before scanning slots, events up to it are already in the slots
+		final long published = publishedSeq;
+		final long unfinishedSeq = minUnfinishedSeq();
+		Watermark latest = null;
+		Watermark watermark;
+		while (null != (watermark = watermarks.peek()) && watermark.seq <= published && watermark.seq < unfinishedSeq) {
+			if (watermark.control) {
+				if (null != latest) {
+					flushOffset.accept(latest.event);
+					latest = null;
+				}
+				eventProcessor.accept(Collections.singletonList(watermark.event));
+			} else if (flushWatermark) {
+				latest = watermark;
+			} else {
+				break;
+			}
+			watermarks.poll();
+		}
+		if (null != latest) {
+			flushOffset.accept(latest.event);
+			return true;
+		}
+		return false;
+	}
+
+	private long minUnfinishedSeq() {
+		long min = Long.MAX_VALUE;
+		for (KeySlot slot : slots) {
+			final NormalEvent<TapdataEvent> head = slot.events.peek();
+			if (null != head) {
+				min = Math.min(min, head.getEventSeqNo());
+			}
+			min = Math.min(min, slot.inflightSeq);
+		}
+		return min;
+	}
+
+	private int adjustWorkers(int idleRounds) {
+		final int active = activeWorkers.get();
+		final long backlog = pending.get();
+		if (backlog > (long) active * batchSize && active < maxWorkers) {
+			activeWorkers.incrementAndGet();
+			if (logger.isDebugEnabled()) {
+				logger.debug(LOG_PREFIX + "grow active workers to {}, pending events {}", active + 1, backlog);
+			}
+			return 0;
+		}
+		if (backlog < batchSize && active > 1) {
+			if (++idleRounds >= SHRINK_IDLE_ROUNDS) {
+				// slots left in the deque of the parked worker will be stolen by the active workers
+				activeWorkers.decrementAndGet();
+				if (logger.isDebugEnabled()) {
+					logger.debug(LOG_PREFIX + "shrink active workers to {}, pending events {}", active - 1, backlog);
+				}
+				return 0;
+			}
+			return idleRounds;
+		}
+		return 0;
+	}
+
+	private boolean isRunning() {
+		return currentRunning.get() && nodeRunning.get();
+	}
+
+	private boolean updatePartitionValueEvent(TapEvent tapEvent) {
+		final Map<String, Object> before = ((TapUpdateRecordEvent) tapEvent).getBefore();
+		final Map<String, Object> after = ((TapUpdateRecordEvent) tapEvent).getAfter();
+		if (MapUtils.isEmpty(before) || MapUtils.isEmpty(after)) {
+			return false;
+		}
+		final List<Object> beforeValue = keySelector.select(tapEvent, before);
+		final List<Object> afterValue = keySelector.select(tapEvent, after);
+		return beforeValue != null && afterValue != null && Objects.hash(beforeValue) != Objects.hash(afterValue);
+	}
+
+	private static class KeySlot {
+		private final int index;
+		private final Queue<NormalEvent<TapdataEvent>> events = new ConcurrentLinkedQueue<>();
+		private final AtomicBoolean scheduled = new AtomicBoolean(false);
+		private volatile long inflightSeq = Long.MAX_VALUE;
+
+		private KeySlot(int index) {
+			this.index = index;
+		}
+	}
+
+	private static class Watermark {
+		private final long seq;
+		private final TapdataEvent event;
+		private final boolean control;
+
+		private Watermark(long seq, TapdataEvent event, boolean control) {
+			this.seq = seq;
+			this.event = event;
+			this.control = control;
+		}
+	}
+}
@@ -0,0 +1,25 @@
+package io.tapdata.flow.engine.V2.node.hazelcast.data.pdk.concurrent;
+
+import com.tapdata.entity.TapdataEvent;
+
+import java.util.List;
+
+/**
+ * Write events of target node by multiple threads, events with the same key must be processed in order
+ **/
+public interface ConcurrentProcessor {
+
+	void start();
+
+	/**
+	 * @param async false means waiting until all the events are processed
+	 */
+	void process(List<TapdataEvent> tapdataEvents, boolean async);
+
+	/**
+	 * Stop after all the received events are processed
+	 */
+	void stop();
+
+	void forceStop();
+}
@@ -39,7 +39,7 @@ import java.util.stream.IntStream;
  * @author jackin
  * @date 2022/7/25 16:42
  **/
-public class PartitionConcurrentProcessor {
+public class PartitionConcurrentProcessor implements ConcurrentProcessor {
 
 	private String concurrentProcessThreadNamePrefix;
 
@@ -151,6 +151,7 @@ public class PartitionConcurrentProcessor {
 		});
 	}
 
+	@Override
 	public void start() {
 		for (int partition = 0; partition < partitionSize; partition++) {
 			final LinkedBlockingQueue<PartitionEvent<TapdataEvent>> linkedBlockingQueue = partitionsQueue.get(partition);
@@ -206,6 +207,7 @@ public class PartitionConcurrentProcessor {
 		}
 	}
 
+	@Override
 	public void process(List<TapdataEvent> tapdataEvents, boolean async) {
 		if (CollectionUtils.isNotEmpty(tapdataEvents)) {
 			for (TapdataEvent tapdataEvent : tapdataEvents) {
@@ -337,6 +339,7 @@ public class PartitionConcurrentProcessor {
 		return currentRunning.get() && nodeRunning.get();
 	}
 
+	@Override
 	public void stop(){
 		waitingForProcessToCurrent();
 		currentRunning.compareAndSet(true, false);
@@ -344,6 +347,7 @@ public class PartitionConcurrentProcessor {
 	}
 
 
+	@Override
 	public void forceStop(){
 		currentRunning.compareAndSet(true, false);
 		ExecutorUtil.shutdownEx(this.executorService, 60L, TimeUnit.SECONDS);
@@ -0,0 +1,83 @@
+package io.tapdata.flow.engine.V2.node.hazelcast.data.pdk.queue;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The former {@link LinkedBlockingQueue} hand off, keep it as a fallback of {@link RingBufferSourceEventQueue}
+ */
+public class BlockingSourceEventQueue<E> implements SourceEventQueue<E> {
+	private final LinkedBlockingQueue<E> queue;
+	private final int capacity;
+	private final LongAdder stallNanos = new LongAdder();
+
+	public BlockingSourceEventQueue(int capacity) {
+		this.capacity = capacity;
+		this.queue = new LinkedBlockingQueue<>(capacity);
+	}
+
+	@Override
+	public boolean offer(E event, long timeout, TimeUnit unit) throws InterruptedException {
+		if (queue.offer(event)) {
+			return true;
+		}
+		long start = System.nanoTime();
+		try {
+			return queue.offer(event, timeout, unit);
+		} finally {
+			stallNanos.add(System.nanoTime() - start);
+		}
+	}
+
+	@Override
+	public int offerBatch(List<E> events, long timeout, TimeUnit unit) throws InterruptedException {
+		long deadline = System.nanoTime() + unit.toNanos(timeout);
+		int published = 0;
+		for (E event : events) {
+			long remaining = Math.max(0L, deadline - System.nanoTime());
+			if (!offer(event, remaining, TimeUnit.NANOSECONDS)) {
+				break;
+			}
+			published++;
+		}
+		return published;
+	}
+
+	@Override
+	public E poll(long timeout, TimeUnit unit) throws InterruptedException {
+		return queue.poll(timeout, unit);
+	}
+
+	@Override
+	public int drainTo(Collection<? super E> collection, int maxElements, long timeout, TimeUnit unit) throws InterruptedException {
+		E first = queue.poll(timeout, unit);
+		if (null == first) {
+			return 0;
+		}
+		collection.add(first);
+		return 1 + queue.drainTo(collection, maxElements - 1);
+	}
+
+	@Override
+	public int size() {
+		return queue.size();
+	}
+
+	@Override
+	public int capacity() {
+		return capacity;
+	}
+
+	@Override
+	public long bytes() {
+		return 0L;
+	}
+
+	@Override
+	public long producerStallMs() {
+		return TimeUnit.NANOSECONDS.toMillis(stallNanos.sum());
+	}
+}
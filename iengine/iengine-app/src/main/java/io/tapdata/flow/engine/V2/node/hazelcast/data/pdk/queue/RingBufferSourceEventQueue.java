@@ -0,0 +1,304 @@
+package io.tapdata.flow.engine.V2.node.hazelcast.data.pdk.queue;
+
+import com.lmax.disruptor.EventPoller;
+import com.lmax.disruptor.InsufficientCapacityException;
+import com.lmax.disruptor.RingBuffer;
+import com.lmax.disruptor.SleepingWaitStrategy;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.ToLongFunction;
+
+/**
+ * Disruptor ring buffer based hand off, producers claim and publish a range of slots at once and the consumer drains
+ * all published slots in one pass, there is no lock between them.
+ * <p>
+ * A consumer which finds the queue empty, or a producer which finds it full, blocks on a condition until the other side
+ * signals it. Each side bumps an epoch after it publishes or drains, and only takes the lock to signal when the other
+ * side is waiting, so the hand off stays lock free while both sides are busy.
+ * <p>
+ * Source node has more than one producer thread (split readers, table monitor, heartbeat...), so the multi producer
+ * sequencer is used, consumer is the jet thread only. When bytesCapacity > 0, producers also wait until the estimated
+ * bytes in queue is under it, this is a soft limit and one event is always accepted by an empty queue.
+ */
+public class RingBufferSourceEventQueue<E> implements SourceEventQueue<E> {
+	private final RingBuffer<Slot<E>> ringBuffer;
+	private final EventPoller<Slot<E>> poller;
+	private final DrainHandler drainHandler = new DrainHandler();
+	private final int bufferSize;
+	private final long bytesCapacity;
+	private final ToLongFunction<E> sizeEstimator;
+	private final AtomicLong bytes = new AtomicLong();
+	private final LongAdder stallNanos = new LongAdder();
+	private final ReentrantLock lock = new ReentrantLock();
+	private final Condition notEmpty = lock.newCondition();
+	private final Condition notFull = lock.newCondition();
+	private final AtomicLong publishEpoch = new AtomicLong();
+	private final AtomicLong drainEpoch = new AtomicLong();
+	private final AtomicInteger waitingProducers = new AtomicInteger();
+	private volatile boolean consumerWaiting;
+
+	public RingBufferSourceEventQueue(int capacity) {
+		this(capacity, 0L, null);
+	}
+
+	public RingBufferSourceEventQueue(int capacity, long bytesCapacity, ToLongFunction<E> sizeEstimator) {
+		this.bufferSize = ceilingPowerOfTwo(capacity);
+		this.bytesCapacity = null == sizeEstimator ? 0L : Math.max(0L, bytesCapacity);
+		this.sizeEstimator = sizeEstimator;
+		this.ringBuffer = RingBuffer.createMultiProducer(Slot::new, bufferSize, new SleepingWaitStrategy());
+		this.poller = ringBuffer.newPoller();
+		this.ringBuffer.addGatingSequences(poller.getSequence());
+	}
+
+	@Override
+	public boolean offer(E event, long timeout, TimeUnit unit) throws InterruptedException {
+		List<E> events = new ArrayList<>(1);
+		events.add(event);
+		return offerBatch(events, timeout, unit) == 1;
+	}
+
+	@Override
+	public int offerBatch(List<E> events, long timeout, TimeUnit unit) throws InterruptedException {
+		if (null == events || events.isEmpty()) {
+			return 0;
+		}
+		long deadline = System.nanoTime() + unit.toNanos(timeout);
+		long[] sizes = estimateSizes(events);
+		int published = 0;
+		long stallStart = 0L;
+		try {
+			while (published < events.size()) {
+				long epoch = drainEpoch.get();
+				int count = Math.min(events.size() - published, bufferSize);
+				long batchBytes = 0L;
+				if (bytesCapacity > 0) {
+					int fit = 0;
+					long current = bytes.get();
+					while (fit < count && (current + batchBytes + sizes[published + fit] <= bytesCapacity || (fit == 0 && current == 0L))) {
+						batchBytes += sizes[published + fit];
+						fit++;
+					}
+					count = fit;
+				}
+				if (count > 0) {
+					try {
+						long hi = ringBuffer.tryNext(count);
+						long lo = hi - count + 1;
+						for (long sequence = lo; sequence <= hi; sequence++) {
+							int index = published + (int) (sequence - lo);
+							Slot<E> slot = ringBuffer.get(sequence);
+							slot.event = events.get(index);
+							slot.bytes = null == sizes ? 0L : sizes[index];
+						}
+						if (batchBytes > 0) {
+							bytes.addAndGet(batchBytes);
+						}
+						ringBuffer.publish(lo, hi);
+						published += count;
+						signalPublished();
+						continue;
+					} catch (InsufficientCapacityException ignored) {
+						// wait for consumer
+					}
+				}
+				if (stallStart == 0L) {
+					stallStart = System.nanoTime();
+				}
+				if (!awaitDrained(deadline, epoch)) {
+					break;
+				}
+			}
+		} finally {
+			if (stallStart != 0L) {
+				stallNanos.add(System.nanoTime() - stallStart);
+			}
+		}
+		return published;
+	}
+
+	@Override
+	public E poll(long timeout, TimeUnit unit) throws InterruptedException {
+		List<E> events = new ArrayList<>(1);
+		drainTo(events, 1, timeout, unit);
+		return events.isEmpty() ? null : events.get(0);
+	}
+
+	@Override
+	public int drainTo(Collection<? super E> collection, int maxElements, long timeout, TimeUnit unit) throws InterruptedException {
+		if (maxElements <= 0) {
+			return 0;
+		}
+		long deadline = System.nanoTime() + unit.toNanos(timeout);
+		while (true) {
+			long epoch = publishEpoch.get();
+			int drained = drain(collection, maxElements);
+			if (drained > 0) {
+				signalDrained();
+				return drained;
+			}
+			if (!awaitPublished(deadline, epoch)) {
+				return 0;
+			}
+		}
+	}
+
+	@Override
+	public int size() {
+		long size = ringBuffer.getCursor() - poller.getSequence().get();
+		return (int) Math.max(0L, Math.min(size, bufferSize));
+	}
+
+	@Override
+	public int capacity() {
+		return bufferSize;
+	}
+
+	@Override
+	public long bytes() {
+		return bytes.get();
+	}
+
+	@Override
+	public long producerStallMs() {
+		return TimeUnit.NANOSECONDS.toMillis(stallNanos.sum());
+	}
+
+	private int drain(Collection<? super E> collection, int maxElements) {
+		drainHandler.target = collection;
+		drainHandler.maxElements = maxElements;
+		drainHandler.count = 0;
+		drainHandler.drainedBytes = 0L;
+		try {
+			poller.poll(drainHandler);
+		} catch (RuntimeException e) {
+			throw e;
+		} catch (Exception e) {
+			throw new RuntimeException(e);
+		} finally {
+			drainHandler.target = null;
+			if (drainHandler.drainedBytes > 0) {
+				bytes.addAndGet(-drainHandler.drainedBytes);
+			}
+		}
+		return drainHandler.count;
+	}
+
+	private long[] estimateSizes(List<E> events) {
+		if (bytesCapacity <= 0) {
+			return null;
+		}
+		long[] sizes = new long[events.size()];
+		for (int i = 0; i < sizes.length; i++) {
+			sizes[i] = Math.max(0L, sizeEstimator.applyAsLong(events.get(i)));
+		}
+		return sizes;
+	}
+
+	/**
+	 * Bump the epoch before reading the waiting flag, the consumer sets the flag before reading the epoch, so either the
+	 * consumer sees the new epoch or the producer sees it waiting
+	 */
+	private void signalPublished() {
+		publishEpoch.incrementAndGet();
+		if (consumerWaiting) {
+			lock.lock();
+			try {
+				notEmpty.signal();
+			} finally {
+				lock.unlock();
+			}
+		}
+	}
+
+	private void signalDrained() {
+		drainEpoch.incrementAndGet();
+		if (waitingProducers.get() > 0) {
+			lock.lock();
+			try {
+				notFull.signalAll();
+			} finally {
+				lock.unlock();
+			}
+		}
+	}
+
+	/**
+	 * @param epoch publish epoch read before the last drain
+	 * @return false if nothing is published until the deadline
+	 */
+	private boolean awaitPublished(long deadline, long epoch) throws InterruptedException {
+		lock.lockInterruptibly();
+		consumerWaiting = true;
+		try {
+			while (publishEpoch.get() == epoch) {
+				long remaining = deadline - System.nanoTime();
+				if (remaining <= 0) {
+					return false;
+				}
+				notEmpty.awaitNanos(remaining);
+			}
+			return true;
+		} finally {
+			consumerWaiting = false;
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * @param epoch drain epoch read before the last offer
+	 * @return false if nothing is drained until the deadline
+	 */
+	private boolean awaitDrained(long deadline, long epoch) throws InterruptedException {
+		lock.lockInterruptibly();
+		waitingProducers.incrementAndGet();
+		try {
+			while (drainEpoch.get() == epoch) {
+				long remaining = deadline - System.nanoTime();
+				if (remaining <= 0) {
+					return false;
+				}
+				notFull.awaitNanos(remaining);
+			}
+			return true;
+		} finally {
+			waitingProducers.decrementAndGet();
+			lock.unlock();
+		}
+	}
+
+	private static int ceilingPowerOfTwo(int capacity) {
+		if (capacity <= 1) {
+			return 1;
+		}
+		return Integer.highestOneBit(capacity - 1) << 1;
+	}
+
+	private static class Slot<E> {
+		private E event;
+		private long bytes;
+	}
+
+	private class DrainHandler implements EventPoller.Handler<Slot<E>> {
+		private Collection<? super E> target;
+		private int maxElements;
+		private int count;
+		private long drainedBytes;
+
+		@Override
+		public boolean onEvent(Slot<E> slot, long sequence, boolean endOfBatch) {
+			target.add(slot.event);
+			drainedBytes += slot.bytes;
+			slot.event = null;
+			slot.bytes = 0L;
+			return ++count < maxElements;
+		}
+	}
+}
@@ -0,0 +1,48 @@
+package io.tapdata.flow.engine.V2.node.hazelcast.data.pdk.queue;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Hand off events from pdk reading threads to the jet thread of source node.
+ * <p>
+ * Any thread can offer, only one thread is allowed to poll/drain at the same time.
+ */
+public interface SourceEventQueue<E> {
+
+	/**
+	 * @return false if the queue is still full after timeout
+	 */
+	boolean offer(E event, long timeout, TimeUnit unit) throws InterruptedException;
+
+	/**
+	 * Publish the events in order, wait until all of them are published or timeout
+	 *
+	 * @return count of published events, events after it are not published
+	 */
+	int offerBatch(List<E> events, long timeout, TimeUnit unit) throws InterruptedException;
+
+	E poll(long timeout, TimeUnit unit) throws InterruptedException;
+
+	/**
+	 * Drain at most maxElements events to collection, wait until at least one event is available or timeout
+	 *
+	 * @return count of drained events
+	 */
+	int drainTo(Collection<? super E> collection, int maxElements, long timeout, TimeUnit unit) throws InterruptedException;
+
+	int size();
+
+	int capacity();
+
+	/**
+	 * @return estimated bytes of events in queue, 0 if bytes capacity is not enabled
+	 */
+	long bytes();
+
+	/**
+	 * @return total milliseconds producers waited because the queue was full
+	 */
+	long producerStallMs();
+}
@@ -0,0 +1,113 @@
+package io.tapdata.flow.engine.V2.node.hazelcast.processor;
+
+import com.hazelcast.jet.core.AbstractProcessor;
+import com.hazelcast.jet.core.Inbox;
+import com.hazelcast.jet.core.Outbox;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.List;
+
+import static com.hazelcast.jet.impl.util.ExceptionUtil.sneakyThrow;
+
+/**
+ * One vertex for a chain of stateless processor nodes, e.g. js -> field rename -> field processor.
+ * <p>
+ * Every node of the chain is the processor node it would be in its own vertex (init, metrics, close), but the outbox
+ * of a node is the input of the next node, so an event goes through the whole chain in-line on one thread instead of a
+ * queue and a thread per node. The last node emits to the real outbox of the vertex.
+ * <p>
+ * Back pressure goes back along the chain: a node which cannot pass on its output keeps it as pending event, and does
+ * not accept a new input until the pending event is taken, as it does with a full Jet outbox
+ **/
+public class HazelcastFusedProcessorNode extends AbstractProcessor {
+
+	private final List<HazelcastProcessorBaseNode> nodes;
+
+	public HazelcastFusedProcessorNode(List<HazelcastProcessorBaseNode> nodes) {
+		if (null == nodes || nodes.isEmpty()) {
+			throw new IllegalArgumentException("Fused processor nodes cannot be empty");
+		}
+		this.nodes = nodes;
+	}
+
+	@Override
+	protected void init(@NotNull Context context) throws Exception {
+		for (int i = 0; i < nodes.size(); i++) {
+			Outbox outbox = i == nodes.size() - 1 ? getOutbox() : new InlineOutbox(nodes.get(i + 1));
+			nodes.get(i).init(outbox, context);
+		}
+	}
+
+	@Override
+	public void process(int ordinal, @NotNull Inbox inbox) {
+		nodes.get(0).process(ordinal, inbox);
+	}
+
+	@Override
+	public boolean isCooperative() {
+		return nodes.stream().allMatch(HazelcastProcessorBaseNode::isCooperative);
+	}
+
+	@Override
+	public void close() throws Exception {
+		Exception closeException = null;
+		for (HazelcastProcessorBaseNode node : nodes) {
+			try {
+				node.close();
+			} catch (Exception e) {
+				if (null == closeException) {
+					closeException = e;
+				} else {
+					closeException.addSuppressed(e);
+				}
+			}
+		}
+		if (null != closeException) {
+			throw closeException;
+		}
+	}
+
+	public List<HazelcastProcessorBaseNode> getNodes() {
+		return nodes;
+	}
+
+	/**
+	 * Outbox of a node inside the chain, an offered item is processed by the next node at once
+	 */
+	private static class InlineOutbox implements Outbox {
+		private final HazelcastProcessorBaseNode next;
+
+		private InlineOutbox(HazelcastProcessorBaseNode next) {
+			this.next = next;
+		}
+
+		@Override
+		public int bucketCount() {
+			return 1;
+		}
+
+		@Override
+		public boolean offer(int ordinal, @NotNull Object item) {
+			try {
+				return next.tryProcess(0, item);
+			} catch (Exception e) {
+				throw sneakyThrow(e);
+			}
+		}
+
+		@Override
+		public boolean offer(@NotNull int[] ordinals, @NotNull Object item) {
+			return offer(0, item);
+		}
+
+		@Override
+		public boolean offerToSnapshot(@NotNull Object key, @NotNull Object value) {
+			throw new UnsupportedOperationException("Fused processor node does not support snapshot");
+		}
+
+		@Override
+		public boolean hasUnfinishedItem() {
+			return false;
+		}
+	}
+}
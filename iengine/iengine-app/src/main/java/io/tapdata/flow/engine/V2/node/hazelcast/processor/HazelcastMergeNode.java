@@ -1,6 +1,7 @@
 package io.tapdata.flow.engine.V2.node.hazelcast.processor;
 
 import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.jet.core.Inbox;
 import com.tapdata.constant.*;
 import com.tapdata.entity.*;
 import com.tapdata.entity.task.context.DataProcessorContext;
@@ -8,7 +9,9 @@ import com.tapdata.tm.commons.dag.Node;
 import com.tapdata.tm.commons.dag.nodes.TableNode;
 import com.tapdata.tm.commons.dag.process.MergeTableNode;
 import com.tapdata.tm.commons.task.dto.MergeTableProperties;
+import io.tapdata.HazelcastConstruct;
 import io.tapdata.constructImpl.ConstructIMap;
+import io.tapdata.constructImpl.ConstructRocksDB;
 import io.tapdata.entity.event.TapEvent;
 import io.tapdata.entity.event.dml.TapRecordEvent;
 import io.tapdata.entity.schema.TapTable;
@@ -17,6 +20,7 @@ import io.tapdata.flow.engine.V2.util.GraphUtil;
 import io.tapdata.flow.engine.V2.util.TapEventUtil;
 import io.tapdata.pdk.apis.entity.merge.MergeInfo;
 import io.tapdata.pdk.apis.entity.merge.MergeLookupResult;
+import io.tapdata.pdk.core.utils.CommonUtils;
 import io.tapdata.schema.SchemaList;
 import io.tapdata.schema.TapTableMap;
 import org.apache.commons.collections.CollectionUtils;
@@ -43,10 +47,13 @@ import static com.tapdata.constant.ConnectorConstant.LOOKUP_TABLE_SUFFIX;
  **/
 public class HazelcastMergeNode extends HazelcastProcessorBaseNode {
 
+	public static final String LOOKUP_BATCH_SIZE_KEY = "MERGE_LOOKUP_BATCH_SIZE";
+	private static final int DEFAULT_LOOKUP_BATCH_SIZE = 100;
+
 	private Logger logger = LogManager.getLogger(HazelcastMergeNode.class);
 
 	// 缓存表信息{"前置节点id": "Hazelcast缓存资源{"join value string": {"pk value string": "after data"}}"}
-	private Map<String, ConstructIMap<Document>> mergeCacheMap;
+	private Map<String, HazelcastConstruct<Document>> mergeCacheMap;
 	// 合并配置信息{"前置节点id": "合并配置"}
 	private Map<String, MergeTableProperties> mergeTablePropertiesMap;
 	// 反查信息{"前置节点id": "需要反查的子表配置"}
@@ -59,6 +66,12 @@ public class HazelcastMergeNode extends HazelcastProcessorBaseNode {
 	private Map<String, List<String>> sourcePkOrUniqueFieldMap;
 	// 存储所有需要反查的节点id，提高判断事件是否需要缓存的效率
 	private List<String> needCacheIdList;
+	// 批量反查的最大事件数，小于等于1时逐条反查
+	private int lookupBatchSize;
+	// 批量预取的反查结果{"子表节点id": {"join value string": "缓存数据, 不存在时为null"}}
+	private final Map<String, Map<String, Document>> prefetchedLookupMap = new HashMap<>();
+	// 预取结果覆盖的剩余事件数, 为0时清空预取结果
+	private int prefetchedRemaining;
 
 	public HazelcastMergeNode(DataProcessorContext dataProcessorContext) {
 		super(dataProcessorContext);
@@ -67,6 +80,7 @@ public class HazelcastMergeNode extends HazelcastProcessorBaseNode {
 	@Override
 	protected void doInit(@NotNull Context context) throws Exception {
 		super.doInit(context);
+		this.lookupBatchSize = CommonUtils.getPropertyInt(LOOKUP_BATCH_SIZE_KEY, DEFAULT_LOOKUP_BATCH_SIZE);
 		initMergeTableProperties(null);
 		initLookupMergeProperties();
 		initMergeCache();
@@ -78,6 +92,7 @@ public class HazelcastMergeNode extends HazelcastProcessorBaseNode {
 	@Override
 	protected void updateNodeConfig() {
 		super.updateNodeConfig();
+		clearPrefetchedLookup();
 		initMergeTableProperties(null);
 		initLookupMergeProperties();
 		initMergeCache();
@@ -86,8 +101,17 @@ public class HazelcastMergeNode extends HazelcastProcessorBaseNode {
 		initSourcePkOrUniqueFieldMap(null);
 	}
 
+	@Override
+	public void process(int ordinal, @NotNull Inbox inbox) {
+		if (lookupBatchSize > 1 && prefetchedRemaining <= 0 && !inbox.isEmpty()) {
+			prefetchLookup(inbox);
+		}
+		super.process(ordinal, inbox);
+	}
+
 	@Override
 	protected void tryProcess(TapdataEvent tapdataEvent, BiConsumer<TapdataEvent, ProcessResult> consumer) {
+		consumePrefetched();
 		TapEvent tapEvent = tapdataEvent.getTapEvent();
 		if (!tapdataEvent.isDML()) {
 			consumer.accept(tapdataEvent, null);
@@ -139,6 +163,8 @@ public class HazelcastMergeNode extends HazelcastProcessorBaseNode {
 	}
 
 	private void initMergeCache() {
+		// node config can be updated at runtime, release the former caches before creating them again
+		destroyMergeCache();
 		this.mergeCacheMap = new HashMap<>();
 		if (MapUtils.isEmpty(this.lookupMap)) {
 			return;
@@ -149,7 +175,7 @@ public class HazelcastMergeNode extends HazelcastProcessorBaseNode {
 				if (StringUtils.isBlank(cacheName)) {
 					break;
 				}
-				ConstructIMap<Document> hazelcastConstruct = new ConstructIMap<>(jetContext.hazelcastInstance(), cacheName);
+				HazelcastConstruct<Document> hazelcastConstruct = createStateConstruct(jetContext.hazelcastInstance(), cacheName);
 				this.mergeCacheMap.put(mergeProperty.getId(), hazelcastConstruct);
 				logger.info("Init hazelcast cache, name: " + cacheName + "(" + mergeProperty.getId() + ")");
 			}
@@ -289,8 +315,8 @@ public class HazelcastMergeNode extends HazelcastProcessorBaseNode {
 		return mergeProperty.getMergeType();
 	}
 
-	private ConstructIMap<Document> getHazelcastConstruct(String sourceNodeId) {
-		ConstructIMap<Document> hazelcastConstruct = this.mergeCacheMap.getOrDefault(sourceNodeId, null);
+	private HazelcastConstruct<Document> getHazelcastConstruct(String sourceNodeId) {
+		HazelcastConstruct<Document> hazelcastConstruct = this.mergeCacheMap.getOrDefault(sourceNodeId, null);
 		if (null == hazelcastConstruct) {
 			throw new HazelcastNotExistsException("Cannot found hazelcast cache by node id: " + sourceNodeId);
 		}
@@ -345,7 +371,7 @@ public class HazelcastMergeNode extends HazelcastProcessorBaseNode {
 	private void cache(TapdataEvent tapdataEvent) {
 		String op = getOp(tapdataEvent);
 		OperationType operationType = OperationType.fromOp(op);
-		ConstructIMap<Document> hazelcastConstruct = getHazelcastConstruct(getPreNodeId(tapdataEvent));
+		HazelcastConstruct<Document> hazelcastConstruct = getHazelcastConstruct(getPreNodeId(tapdataEvent));
 		MergeTableProperties mergeProperty = getMergeProperty(tapdataEvent);
 		switch (operationType) {
 			case INSERT:
@@ -368,7 +394,7 @@ public class HazelcastMergeNode extends HazelcastProcessorBaseNode {
 		}
 	}
 
-	private void upsertCache(TapdataEvent tapdataEvent, MergeTableProperties mergeTableProperty, ConstructIMap<Document> hazelcastConstruct) throws Exception {
+	private void upsertCache(TapdataEvent tapdataEvent, MergeTableProperties mergeTableProperty, HazelcastConstruct<Document> hazelcastConstruct) throws Exception {
 		Map<String, Object> after = getAfter(tapdataEvent);
 		String joinValueKey = getJoinValueKeyBySource(after, mergeTableProperty);
 		String pkOrUniqueKey = getPkOrUniqueValueKey(after, mergeTableProperty);
@@ -382,6 +408,7 @@ public class HazelcastMergeNode extends HazelcastProcessorBaseNode {
 			groupByJoinKeyValues = new Document();
 		}
 		groupByJoinKeyValues.put(pkOrUniqueKey, after);
+		invalidatePrefetched(mergeTableProperty.getId(), joinValueKey);
 		try {
 			hazelcastConstruct.upsert(joinValueKey, groupByJoinKeyValues);
 		} catch (Exception e) {
@@ -389,7 +416,7 @@ public class HazelcastMergeNode extends HazelcastProcessorBaseNode {
 		}
 	}
 
-	private void deleteCache(TapdataEvent tapdataEvent, MergeTableProperties mergeTableProperty, ConstructIMap<Document> hazelcastConstruct) throws Exception {
+	private void deleteCache(TapdataEvent tapdataEvent, MergeTableProperties mergeTableProperty, HazelcastConstruct<Document> hazelcastConstruct) throws Exception {
 		Map<String, Object> before = getBefore(tapdataEvent);
 		String joinValueKey = getJoinValueKeyBySource(before, mergeTableProperty);
 		String pkOrUniqueValueKey = getPkOrUniqueValueKey(before, mergeTableProperty);
@@ -403,12 +430,19 @@ public class HazelcastMergeNode extends HazelcastProcessorBaseNode {
 			return;
 		}
 		groupByJoinKeyValues.remove(pkOrUniqueValueKey);
+		invalidatePrefetched(mergeTableProperty.getId(), joinValueKey);
 		if (MapUtils.isEmpty(groupByJoinKeyValues)) {
 			try {
 				hazelcastConstruct.delete(joinValueKey);
 			} catch (Exception e) {
 				throw new Exception("Remove value error, join value key: " + joinValueKey, e);
 			}
+		} else {
+			try {
+				hazelcastConstruct.upsert(joinValueKey, groupByJoinKeyValues);
+			} catch (Exception e) {
+				throw new Exception("Upsert value error, join value key: " + joinValueKey + ", data: " + groupByJoinKeyValues, e);
+			}
 		}
 	}
 
@@ -565,11 +599,11 @@ public class HazelcastMergeNode extends HazelcastProcessorBaseNode {
 		List<MergeLookupResult> mergeLookupResults = new ArrayList<>();
 		for (MergeTableProperties childMergeProperty : children) {
 			MergeTableProperties.MergeType mergeType = childMergeProperty.getMergeType();
-			ConstructIMap<Document> hazelcastConstruct = getHazelcastConstruct(childMergeProperty.getId());
+			HazelcastConstruct<Document> hazelcastConstruct = getHazelcastConstruct(childMergeProperty.getId());
 			String joinValueKey = getJoinValueKeyByTarget(data, childMergeProperty, mergeTableProperties);
 			Document findData;
 			try {
-				findData = hazelcastConstruct.find(joinValueKey);
+				findData = findLookupCache(childMergeProperty.getId(), hazelcastConstruct, joinValueKey);
 			} catch (Exception e) {
 				throw new RuntimeException("Merge table node lookup in cache failed, join values key" + joinValueKey + ", data: " + data);
 			}
@@ -603,6 +637,142 @@ public class HazelcastMergeNode extends HazelcastProcessorBaseNode {
 		return mergeLookupResults;
 	}
 
+	private Document findLookupCache(String sourceNodeId, HazelcastConstruct<Document> hazelcastConstruct, String joinValueKey) throws Exception {
+		Map<String, Document> prefetched = this.prefetchedLookupMap.get(sourceNodeId);
+		if (null != prefetched && prefetched.containsKey(joinValueKey)) {
+			Document findData = prefetched.get(joinValueKey);
+			if (null == findData) {
+				return null;
+			}
+			// 预取的行被批内查同一个 key 的所有事件共用, 每个事件合并自己的副本
+			Document copy = new Document();
+			MapUtil.deepCloneMap(findData, copy);
+			return copy;
+		}
+		return hazelcastConstruct.find(joinValueKey);
+	}
+
+	/**
+	 * Resolve the lookups of the events at the head of inbox before processing them. The lookup keys of a level depend
+	 * on the rows found in the upper level, so the levels are resolved one by one, each level issues one multi-get per
+	 * child cache for the whole batch, instead of one get per child per event.
+	 * <p>
+	 * The batch only takes the events already in inbox and never waits for more, so the latency added to an event is
+	 * bounded by the multi-get round trips of one batch. Prefetch is only a shortcut, any key not prefetched (or changed
+	 * by the cache writes of the batch) is found by a single get as before.
+	 */
+	private void prefetchLookup(Inbox inbox) {
+		clearPrefetchedLookup();
+		List<LookupRequest> lookupRequests = new ArrayList<>();
+		int count = 0;
+		for (Object item : inbox) {
+			if (count >= lookupBatchSize) {
+				break;
+			}
+			if (!(item instanceof TapdataEvent) || null == ((TapdataEvent) item).getTapEvent()) {
+				// control events do not reach tryProcess(TapdataEvent, BiConsumer)
+				continue;
+			}
+			count++;
+			TapdataEvent tapdataEvent = (TapdataEvent) item;
+			if (!tapdataEvent.isDML() || !needLookup(tapdataEvent)) {
+				continue;
+			}
+			// values are compared with the cached ones, convert them as process will do, it is no-op at the second time
+			transformFromTapValue(tapdataEvent, null);
+			lookupRequests.add(new LookupRequest(this.mergeTablePropertiesMap.get(getPreNodeId(tapdataEvent)), getAfter(tapdataEvent)));
+		}
+		this.prefetchedRemaining = count;
+		try {
+			while (!lookupRequests.isEmpty()) {
+				lookupRequests = prefetchLevel(lookupRequests);
+			}
+		} catch (Exception e) {
+			clearPrefetchedLookup();
+			this.prefetchedRemaining = count;
+			logger.warn("Batch lookup merge cache failed, will lookup one by one, error: " + e.getMessage(), e);
+		}
+	}
+
+	private List<LookupRequest> prefetchLevel(List<LookupRequest> lookupRequests) throws Exception {
+		Map<String, Set<String>> joinValueKeysMap = new HashMap<>();
+		for (LookupRequest lookupRequest : lookupRequests) {
+			for (MergeTableProperties child : lookupRequest.children()) {
+				String joinValueKey = getJoinValueKeyByTarget(lookupRequest.data, child, lookupRequest.mergeTableProperties);
+				Map<String, Document> prefetched = this.prefetchedLookupMap.get(child.getId());
+				if (null == prefetched || !prefetched.containsKey(joinValueKey)) {
+					joinValueKeysMap.computeIfAbsent(child.getId(), k -> new HashSet<>()).add(joinValueKey);
+				}
+			}
+		}
+		for (Map.Entry<String, Set<String>> entry : joinValueKeysMap.entrySet()) {
+			Map<String, Document> found = getHazelcastConstruct(entry.getKey()).findAll(entry.getValue());
+			Map<String, Document> prefetched = this.prefetchedLookupMap.computeIfAbsent(entry.getKey(), k -> new HashMap<>());
+			for (String joinValueKey : entry.getValue()) {
+				prefetched.put(joinValueKey, found.get(joinValueKey));
+			}
+		}
+		List<LookupRequest> nextLevel = new ArrayList<>();
+		for (LookupRequest lookupRequest : lookupRequests) {
+			for (MergeTableProperties child : lookupRequest.children()) {
+				if (CollectionUtils.isEmpty(child.getChildren())) {
+					continue;
+				}
+				String joinValueKey = getJoinValueKeyByTarget(lookupRequest.data, child, lookupRequest.mergeTableProperties);
+				Document findData = this.prefetchedLookupMap.get(child.getId()).get(joinValueKey);
+				if (MapUtils.isEmpty(findData)) {
+					continue;
+				}
+				if (MergeTableProperties.MergeType.updateWrite == child.getMergeType()) {
+					Object first = findData.values().iterator().next();
+					if (first instanceof Map) {
+						nextLevel.add(new LookupRequest(child, (Map<String, Object>) first));
+					}
+				} else if (MergeTableProperties.MergeType.updateIntoArray == child.getMergeType()) {
+					for (Object arrayData : findData.values()) {
+						if (arrayData instanceof Map) {
+							nextLevel.add(new LookupRequest(child, (Map<String, Object>) arrayData));
+						}
+					}
+				}
+			}
+		}
+		return nextLevel;
+	}
+
+	private void consumePrefetched() {
+		if (this.prefetchedRemaining > 0 && --this.prefetchedRemaining == 0) {
+			clearPrefetchedLookup();
+		}
+	}
+
+	private void invalidatePrefetched(String sourceNodeId, String joinValueKey) {
+		Map<String, Document> prefetched = this.prefetchedLookupMap.get(sourceNodeId);
+		if (null != prefetched) {
+			prefetched.remove(joinValueKey);
+		}
+	}
+
+	private void clearPrefetchedLookup() {
+		this.prefetchedLookupMap.clear();
+		this.prefetchedRemaining = 0;
+	}
+
+	private static class LookupRequest {
+		private final MergeTableProperties mergeTableProperties;
+		private final Map<String, Object> data;
+
+		private LookupRequest(MergeTableProperties mergeTableProperties, Map<String, Object> data) {
+			this.mergeTableProperties = mergeTableProperties;
+			this.data = data;
+		}
+
+		private List<MergeTableProperties> children() {
+			List<MergeTableProperties> children = mergeTableProperties.getChildren();
+			return null == children ? Collections.emptyList() : children;
+		}
+	}
+
 	private enum JoinConditionType {
 		SOURCE("source"), TARGET("target"),
 		;
@@ -629,6 +799,29 @@ public class HazelcastMergeNode extends HazelcastProcessorBaseNode {
 		return pdkMergeTableProperties;
 	}
 
+	@Override
+	protected void doClose() throws Exception {
+		try {
+			destroyMergeCache();
+		} finally {
+			super.doClose();
+		}
+	}
+
+	private void destroyMergeCache() {
+		if (MapUtils.isEmpty(this.mergeCacheMap)) {
+			return;
+		}
+		for (HazelcastConstruct<Document> hazelcastConstruct : this.mergeCacheMap.values()) {
+			try {
+				hazelcastConstruct.destroy();
+			} catch (Exception e) {
+				logger.warn("Destroy merge cache failed, name: " + hazelcastConstruct.getName() + ", error: " + e.getMessage(), e);
+			}
+		}
+		this.mergeCacheMap.clear();
+	}
+
 	public static void clearCache(Node<?> node) {
 		if (!(node instanceof MergeTableNode)) return;
 		recursiveClearCache(((MergeTableNode) node).getMergeProperties(), HazelcastUtil.getInstance());
@@ -641,6 +834,7 @@ public class HazelcastMergeNode extends HazelcastProcessorBaseNode {
 			ConstructIMap<Document> imap = new ConstructIMap<>(hazelcastInstance, cacheName);
 			try {
 				imap.clear();
+				ConstructRocksDB.clear(cacheName);
 			} catch (Exception e) {
 				throw new RuntimeException("Clear imap failed, name: " + cacheName + ", error message: " + e.getMessage(), e);
 			}
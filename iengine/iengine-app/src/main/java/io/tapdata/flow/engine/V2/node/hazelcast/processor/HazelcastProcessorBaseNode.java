@@ -1,14 +1,21 @@
 package io.tapdata.flow.engine.V2.node.hazelcast.processor;
 
+import com.hazelcast.core.HazelcastInstance;
 import com.tapdata.constant.Log4jUtil;
 import com.tapdata.entity.TapdataEvent;
+import com.tapdata.entity.TapdataPartitionSkipEvent;
 import com.tapdata.entity.task.context.ProcessorBaseContext;
+import com.tapdata.tm.commons.task.dto.TaskDto;
+import io.tapdata.HazelcastConstruct;
 import io.tapdata.aspect.ProcessorNodeProcessAspect;
 import io.tapdata.aspect.utils.AspectUtils;
 import io.tapdata.common.sample.sampler.AverageSampler;
 import io.tapdata.common.sample.sampler.CounterSampler;
 import io.tapdata.common.sample.sampler.ResetCounterSampler;
 import io.tapdata.common.sample.sampler.SpeedSampler;
+import io.tapdata.constructImpl.ConstructIMap;
+import io.tapdata.constructImpl.ConstructMultiMap;
+import io.tapdata.constructImpl.ConstructRocksDB;
 import io.tapdata.flow.engine.V2.exception.node.NodeException;
 import io.tapdata.flow.engine.V2.node.hazelcast.HazelcastBaseNode;
 import io.tapdata.metrics.TaskSampleRetriever;
@@ -44,6 +51,11 @@ public abstract class HazelcastProcessorBaseNode extends HazelcastBaseNode {
 		super(processorBaseContext);
 	}
 
+	@Override
+	public boolean isCooperative() {
+		return cooperative;
+	}
+
 	@Override
 	protected void initSampleCollector() {
 		super.initSampleCollector();
@@ -64,6 +76,35 @@ public abstract class HazelcastProcessorBaseNode extends HazelcastBaseNode {
 		super.initSampleCollector();
 	}
 
+	/**
+	 * Create the cache of processor node, IMap by default, RocksDB when task state store type is RocksDB
+	 *
+	 * @param hazelcastInstance hazelcast instance
+	 * @param name              cache name
+	 */
+	protected <T> HazelcastConstruct<T> createStateConstruct(HazelcastInstance hazelcastInstance, String name) {
+		final TaskDto taskDto = processorBaseContext.getTaskDto();
+		if (null != taskDto && ConstructRocksDB.TYPE.equalsIgnoreCase(taskDto.getStateStoreType())) {
+			return new ConstructRocksDB<>(name);
+		}
+		return new ConstructIMap<>(hazelcastInstance, name);
+	}
+
+	/**
+	 * Create the index of processor node, a set of values under each key: MultiMap by default, RocksDB when task state
+	 * store type is RocksDB, values are then stored as "key + delimiter + value" keys by the caller
+	 *
+	 * @param hazelcastInstance hazelcast instance
+	 * @param name              index name
+	 */
+	protected <T> HazelcastConstruct<T> createStateIndexConstruct(HazelcastInstance hazelcastInstance, String name) {
+		final TaskDto taskDto = processorBaseContext.getTaskDto();
+		if (null != taskDto && ConstructRocksDB.TYPE.equalsIgnoreCase(taskDto.getStateStoreType())) {
+			return new ConstructRocksDB<>(name);
+		}
+		return new ConstructMultiMap<>(hazelcastInstance, name);
+	}
+
 	@Override
 	protected final boolean tryProcess(int ordinal, @NotNull Object item) throws Exception {
 		try {
@@ -124,9 +165,19 @@ public abstract class HazelcastProcessorBaseNode extends HazelcastBaseNode {
 				throw nodeException;
 			}
 
-			if (processedEvent.get() != null) {
-				if (!offer(processedEvent.get())) {
-					pendingEvent = processedEvent.get();
+			TapdataEvent outputEvent = processedEvent.get();
+			Long partitionSequence = tapdataEvent.getPartitionSequence();
+			if (null != partitionSequence) {
+				// parallel instance: the output keeps the input's sequence, a filtered input leaves a skip event
+				if (null == outputEvent) {
+					outputEvent = new TapdataPartitionSkipEvent(partitionSequence);
+				} else {
+					outputEvent.setPartitionSequence(partitionSequence);
+				}
+			}
+			if (outputEvent != null) {
+				if (!offer(outputEvent)) {
+					pendingEvent = outputEvent;
 				}
 			}
 		} finally {
@@ -1,6 +1,8 @@
 package io.tapdata.flow.engine.V2.node.hazelcast.processor;
 
+import com.hazelcast.jet.core.Inbox;
 import com.tapdata.constant.ConnectorConstant;
+import com.tapdata.constant.ExecutorUtil;
 import com.tapdata.constant.HazelcastUtil;
 import com.tapdata.entity.*;
 import com.tapdata.entity.dataflow.Stage;
@@ -17,7 +19,9 @@ import io.tapdata.entity.schema.type.TapType;
 import io.tapdata.entity.schema.value.TapValue;
 import io.tapdata.entity.utils.JavaTypesToTapTypes;
 import io.tapdata.flow.engine.V2.common.node.NodeTypeEnum;
+import io.tapdata.flow.engine.V2.exception.node.NodeException;
 import io.tapdata.flow.engine.V2.util.TapEventUtil;
+import io.tapdata.pdk.core.utils.CommonUtils;
 import io.tapdata.schema.TapTableMap;
 import org.apache.commons.collections.CollectionUtils;
 import org.apache.commons.collections.MapUtils;
@@ -27,6 +31,11 @@ import org.springframework.data.domain.Sort;
 import org.springframework.data.mongodb.core.query.Query;
 
 import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 import java.util.function.BiConsumer;
 
 import static org.springframework.data.mongodb.core.query.Criteria.where;
@@ -37,8 +46,24 @@ import static org.springframework.data.mongodb.core.query.Criteria.where;
  **/
 public class HazelcastProcessorNode extends HazelcastProcessorBaseNode {
 
+	public static final String SCRIPT_PARALLELISM_KEY = "JS_PROCESSOR_PARALLELISM";
+	public static final String SCRIPT_BATCH_SIZE_KEY = "JS_PROCESSOR_BATCH_SIZE";
+	private static final int DEFAULT_SCRIPT_PARALLELISM = 1;
+	private static final int DEFAULT_SCRIPT_BATCH_SIZE = 1;
+
 	private DataFlowProcessor dataFlowProcessor;
 
+	/**
+	 * Script workers, including the processor thread itself
+	 */
+	private int scriptParallelism;
+	private int scriptBatchSize;
+	private ExecutorService scriptExecutor;
+	/**
+	 * Events of the inbox processed by script workers ahead, the results are emitted in inbox order by tryProcess
+	 */
+	private final Map<TapdataEvent, List<MessageEntity>> processedMessageMap = new IdentityHashMap<>();
+
 	public HazelcastProcessorNode(DataProcessorContext dataProcessorContext) throws Exception {
 		super(dataProcessorContext);
 	}
@@ -46,12 +71,19 @@ public class HazelcastProcessorNode extends HazelcastProcessorBaseNode {
 	@Override
 	protected void doInit(@NotNull Context context) throws Exception {
 		super.doInit(context);
+		this.scriptParallelism = Math.max(1, CommonUtils.getPropertyInt(SCRIPT_PARALLELISM_KEY, DEFAULT_SCRIPT_PARALLELISM));
+		this.scriptBatchSize = Math.max(1, CommonUtils.getPropertyInt(SCRIPT_BATCH_SIZE_KEY, DEFAULT_SCRIPT_BATCH_SIZE));
 		initDataFlowProcessor();
+		if (isScriptBatchMode() && scriptParallelism > 1) {
+			this.scriptExecutor = new ThreadPoolExecutor(scriptParallelism - 1, scriptParallelism - 1,
+					60L, TimeUnit.SECONDS, new LinkedBlockingQueue<>());
+		}
 	}
 
 	@Override
 	protected void updateNodeConfig() {
 		super.updateNodeConfig();
+		processedMessageMap.clear();
 		try {
 			initDataFlowProcessor();
 		} catch (Exception e) {
@@ -60,6 +92,9 @@ public class HazelcastProcessorNode extends HazelcastProcessorBaseNode {
 	}
 
 	private void initDataFlowProcessor() throws Exception {
+		if (dataFlowProcessor instanceof ScriptDataFlowProcessor) {
+			((ScriptDataFlowProcessor) dataFlowProcessor).closeEnginePool();
+		}
 		dataFlowProcessor = new ScriptDataFlowProcessor();
 		final Stage stage = HazelcastUtil.node2CommonStage(processorBaseContext.getNode());
 		dataFlowProcessor = createDataFlowProcessor(processorBaseContext.getNode(), stage);
@@ -83,20 +118,111 @@ public class HazelcastProcessorNode extends HazelcastProcessorBaseNode {
 				((DataProcessorContext) processorBaseContext).getCacheService()
 		);
 		dataFlowProcessor.initialize(processorContext, stage);
+		if (isScriptBatchMode()) {
+			((ScriptDataFlowProcessor) dataFlowProcessor).initializeEnginePool(scriptParallelism);
+		}
+	}
+
+	private boolean isScriptBatchMode() {
+		return dataFlowProcessor instanceof ScriptDataFlowProcessor && (scriptParallelism > 1 || scriptBatchSize > 1);
+	}
+
+	@Override
+	public void process(int ordinal, @NotNull Inbox inbox) {
+		if (isScriptBatchMode() && processedMessageMap.isEmpty() && !inbox.isEmpty()) {
+			processScriptBatch(inbox);
+		}
+		super.process(ordinal, inbox);
+	}
+
+	/**
+	 * Run the script for the records at the head of inbox, split into micro batches of scriptBatchSize, one batch per
+	 * worker. Each worker calls the script once per micro batch on its own pooled context.
+	 * <p>
+	 * Only the records already in inbox are taken, and it stops at the first ddl event, so that the records after it
+	 * are processed with the new schema
+	 */
+	private void processScriptBatch(Inbox inbox) {
+		List<TapdataEvent> events = new ArrayList<>();
+		List<MessageEntity> messages = new ArrayList<>();
+		int limit = scriptBatchSize * scriptParallelism;
+		for (Object item : inbox) {
+			if (events.size() >= limit || !(item instanceof TapdataEvent)) {
+				break;
+			}
+			TapdataEvent tapdataEvent = (TapdataEvent) item;
+			if (null == tapdataEvent.getTapEvent()) {
+				// control events do not reach tryProcess(TapdataEvent, BiConsumer)
+				continue;
+			}
+			if (!tapdataEvent.isDML()) {
+				break;
+			}
+			// convert values as process will do, it is no-op at the second time
+			transformFromTapValue(tapdataEvent, null);
+			MessageEntity messageEntity = tapEvent2Message((TapRecordEvent) tapdataEvent.getTapEvent());
+			messageEntity.setOffset(tapdataEvent.getOffset());
+			events.add(tapdataEvent);
+			messages.add(messageEntity);
+		}
+		if (messages.isEmpty()) {
+			return;
+		}
+
+		ScriptDataFlowProcessor scriptProcessor = (ScriptDataFlowProcessor) dataFlowProcessor;
+		int batchSize = (messages.size() + scriptParallelism - 1) / scriptParallelism;
+		long start = System.currentTimeMillis();
+		List<List<MessageEntity>> results = new ArrayList<>(messages.size());
+		try {
+			List<Future<List<List<MessageEntity>>>> futures = new ArrayList<>();
+			for (int from = batchSize; null != scriptExecutor && from < messages.size(); from += batchSize) {
+				List<MessageEntity> batch = messages.subList(from, Math.min(from + batchSize, messages.size()));
+				futures.add(scriptExecutor.submit(() -> scriptProcessor.processBatch(batch)));
+			}
+			int headSize = null == scriptExecutor ? messages.size() : Math.min(batchSize, messages.size());
+			for (int from = 0; from < headSize; from += scriptBatchSize) {
+				results.addAll(scriptProcessor.processBatch(messages.subList(from, Math.min(from + scriptBatchSize, headSize))));
+			}
+			for (Future<List<List<MessageEntity>>> future : futures) {
+				results.addAll(future.get());
+			}
+		} catch (Exception e) {
+			if (e instanceof InterruptedException) {
+				Thread.currentThread().interrupt();
+			}
+			throw new NodeException("Run script processor in batch failed", e).context(getProcessorBaseContext());
+		}
+		timeCostAvg.add(messages.size(), System.currentTimeMillis() - start);
+
+		for (int i = 0; i < events.size(); i++) {
+			List<MessageEntity> processedMessages = new ArrayList<>();
+			ScriptDataFlowProcessor.addProcessResult(processedMessages, messages.get(i), results.get(i));
+			processedMessageMap.put(events.get(i), processedMessages);
+		}
 	}
 
 	@Override
 	protected void tryProcess(TapdataEvent tapdataEvent, BiConsumer<TapdataEvent, ProcessResult> consumer) {
 		TapEvent tapEvent = tapdataEvent.getTapEvent();
-		MessageEntity messageEntity = tapEvent2Message((TapRecordEvent) tapEvent);
-		messageEntity.setOffset(tapdataEvent.getOffset());
-		int cnt = messageEntity.isDml() ? 1 : 0;
-		resetInputCounter.inc(cnt);
-		inputCounter.inc(cnt);
-		inputQPS.add(cnt);
-		long start = System.currentTimeMillis();
-		final List<MessageEntity> processedMessages = dataFlowProcessor.process(Collections.singletonList(messageEntity));
-		timeCostAvg.add(System.currentTimeMillis() - start);
+		List<MessageEntity> processedMessages = processedMessageMap.remove(tapdataEvent);
+		int cnt;
+		if (null != processedMessages) {
+			// only dml records are processed ahead
+			cnt = 1;
+			resetInputCounter.inc(cnt);
+			inputCounter.inc(cnt);
+			inputQPS.add(cnt);
+		} else {
+			MessageEntity messageEntity = tapEvent2Message((TapRecordEvent) tapEvent);
+			messageEntity.setOffset(tapdataEvent.getOffset());
+			cnt = messageEntity.isDml() ? 1 : 0;
+			resetInputCounter.inc(cnt);
+			inputCounter.inc(cnt);
+			inputQPS.add(cnt);
+			long start = System.currentTimeMillis();
+			processedMessages = dataFlowProcessor.process(Collections.singletonList(messageEntity));
+			timeCostAvg.add(System.currentTimeMillis() - start);
+		}
 		resetOutputCounter.inc(cnt);
 		outputCounter.inc(cnt);
 		outputQPS.add(cnt);
@@ -248,6 +374,9 @@ public class HazelcastProcessorNode extends HazelcastProcessorBaseNode {
 
 	@Override
 	public void doClose() throws Exception {
+		if (null != scriptExecutor) {
+			ExecutorUtil.shutdown(scriptExecutor, 10L, TimeUnit.SECONDS);
+		}
 		if (dataFlowProcessor != null) {
 			dataFlowProcessor.stop();
 		}
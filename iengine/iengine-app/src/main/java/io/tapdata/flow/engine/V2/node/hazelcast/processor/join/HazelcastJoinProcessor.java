@@ -1,12 +1,12 @@
 package io.tapdata.flow.engine.V2.node.hazelcast.processor.join;
 
+import com.hazelcast.map.IMap;
 import com.tapdata.constant.MapUtil;
 import com.tapdata.entity.OperationType;
 import com.tapdata.entity.TapdataEvent;
 import com.tapdata.entity.task.context.ProcessorBaseContext;
 import com.tapdata.tm.commons.dag.Node;
 import com.tapdata.tm.commons.dag.process.JoinProcessorNode;
-import io.tapdata.constructImpl.ConstructIMap;
 import io.tapdata.entity.event.dml.TapDeleteRecordEvent;
 import io.tapdata.entity.event.dml.TapInsertRecordEvent;
 import io.tapdata.entity.event.dml.TapRecordEvent;
@@ -45,9 +45,13 @@ public class HazelcastJoinProcessor extends HazelcastProcessorBaseNode {
 	private JoinType joinType;
 
 	private final static String IMAP_NAME_DELIMITER = "-";
+	// join caches before they were indexed by primary key: join key -> (primary key -> row)
+	private final static String LEGACY_LEFT_CACHE_NAME = "leftJoinCache";
+	private final static String LEGACY_RIGHT_CACHE_NAME = "rightCache";
+	private final static int LEGACY_CACHE_MIGRATE_BATCH = 1000;
 
-	private ConstructIMap<Map<String, Map<String, Object>>> leftJoinCache;
-	private ConstructIMap<Map<String, Map<String, Object>>> rightJoinCache;
+	private JoinKeyIndexedCache leftJoinCache;
+	private JoinKeyIndexedCache rightJoinCache;
 
 //  private List<String> keyFields;
 
@@ -117,20 +121,62 @@ public class HazelcastJoinProcessor extends HazelcastProcessorBaseNode {
 		this.leftPrimaryKeys = joinNode.getLeftPrimaryKeys();
 		this.rightPrimaryKeys = joinNode.getRightPrimaryKeys();
 		pkChecker();
-		this.leftJoinCache = new ConstructIMap<>(
-				context.hazelcastInstance(),
-				joinCacheMapName(leftNodeId, "leftJoinCache")
+		// node config can be updated at runtime, release the former caches before creating them again
+		destroyJoinCaches();
+		this.leftJoinCache = new JoinKeyIndexedCache(
+				createStateConstruct(context.hazelcastInstance(), joinCacheMapName(leftNodeId, "leftJoinRows")),
+				createStateIndexConstruct(context.hazelcastInstance(), joinCacheMapName(leftNodeId, "leftJoinIndex")),
+				row -> project(row, leftJoinKeyFields)
 		);
-		this.rightJoinCache = new ConstructIMap<>(
-				context.hazelcastInstance(),
-				joinCacheMapName(rightNodeId, "rightCache")
+		this.rightJoinCache = new JoinKeyIndexedCache(
+				createStateConstruct(context.hazelcastInstance(), joinCacheMapName(rightNodeId, "rightJoinRows")),
+				createStateIndexConstruct(context.hazelcastInstance(), joinCacheMapName(rightNodeId, "rightJoinIndex")),
+				row -> project(row, rightJoinKeyFields)
 		);
 		if (!taskHasBeenRun()) {
 			leftJoinCache.clear();
 			rightJoinCache.clear();
+			// the former caches of a reset task must not be migrated when it is restarted
+			context.hazelcastInstance().getMap(joinCacheMapName(leftNodeId, LEGACY_LEFT_CACHE_NAME)).destroy();
+			context.hazelcastInstance().getMap(joinCacheMapName(rightNodeId, LEGACY_RIGHT_CACHE_NAME)).destroy();
+		} else {
+			migrateLegacyJoinCache(joinCacheMapName(leftNodeId, LEGACY_LEFT_CACHE_NAME), leftJoinCache);
+			migrateLegacyJoinCache(joinCacheMapName(rightNodeId, LEGACY_RIGHT_CACHE_NAME), rightJoinCache);
 		}
 	}
 
+	/**
+	 * Move the rows of a task which has been run before upgrade from the former join cache into the indexed cache, the
+	 * former IMap is destroyed once all its rows are moved, an interrupted migration is done again on next start
+	 */
+	@SuppressWarnings("unchecked")
+	private void migrateLegacyJoinCache(String legacyMapName, JoinKeyIndexedCache joinCache) throws Exception {
+		final IMap<String, Object> legacyMap = context.hazelcastInstance().getMap(legacyMapName);
+		if (legacyMap.isEmpty()) {
+			legacyMap.destroy();
+			return;
+		}
+		final List<String> joinKeys = new ArrayList<>(legacyMap.keySet());
+		long migrated = 0L;
+		for (int i = 0; i < joinKeys.size(); i += LEGACY_CACHE_MIGRATE_BATCH) {
+			final Set<String> batchKeys = new HashSet<>(joinKeys.subList(i, Math.min(i + LEGACY_CACHE_MIGRATE_BATCH, joinKeys.size())));
+			for (Object keyCache : legacyMap.getAll(batchKeys).values()) {
+				if (!(keyCache instanceof Map)) {
+					continue;
+				}
+				for (Map.Entry<String, Map<String, Object>> entry : ((Map<String, Map<String, Object>>) keyCache).entrySet()) {
+					if (StringUtils.isNotBlank(entry.getKey()) && MapUtils.isNotEmpty(entry.getValue())) {
+						joinCache.upsert(entry.getKey(), entry.getValue());
+						migrated++;
+					}
+				}
+			}
+		}
+		legacyMap.destroy();
+		logger.info("join node [id: {}, name: {}] migrated {} rows of {} join keys from former join cache {}",
+				processorBaseContext.getNode().getId(), processorBaseContext.getNode().getName(), migrated, joinKeys.size(), legacyMapName);
+	}
+
 	@Override
 	protected void updateNodeConfig() {
 		try {
@@ -208,7 +254,22 @@ public class HazelcastJoinProcessor extends HazelcastProcessorBaseNode {
 
 	@Override
 	public void doClose() throws Exception {
-		super.doClose();
+		try {
+			destroyJoinCaches();
+		} finally {
+			super.doClose();
+		}
+	}
+
+	private void destroyJoinCaches() throws Exception {
+		if (null != leftJoinCache) {
+			leftJoinCache.destroy();
+			leftJoinCache = null;
+		}
+		if (null != rightJoinCache) {
+			rightJoinCache.destroy();
+			rightJoinCache = null;
+		}
 	}
 
 	private void vatidate(Node<?> node) {
@@ -346,41 +407,23 @@ public class HazelcastJoinProcessor extends HazelcastProcessorBaseNode {
 				return null;
 		}
 
-		if (!OperationType.DELETE.getOp().equals(opType) && !leftJoinCache.exists(afterJoinKey)) {
-			Map<String, Map<String, Object>> leftKeyCache = new HashMap<>();
-			leftKeyCache.put(afterLeftKey, afterLeftRow);
-			leftJoinCache.insert(afterJoinKey, leftKeyCache);
+		if (OperationType.DELETE.getOp().equals(opType)) {
+			leftJoinCache.delete(beforeLeftKey);
 		} else {
-			String joinKey = afterJoinKey;
-			String key = afterLeftKey;
-			if (OperationType.DELETE.getOp().equals(opType)) {
-				deleteRowFromCache(beforeJoinKey, beforeLeftKey, leftJoinCache);
-			} else {
-				final Map<String, Map<String, Object>> leftKeyCache = leftJoinCache.find(joinKey);
-				if (MapUtils.isNotEmpty(beforeLeftRow) && leftKeyCache.containsKey(key)) {
-					beforeLeftRow = leftKeyCache.get(key);
-					beforeLeftKey = project(beforeLeftRow, leftPrimaryKeys);
-					beforeJoinKey = project(beforeLeftRow, leftJoinKeyFields);
-				}
-				leftKeyCache.put(afterLeftKey, afterLeftRow);
-				leftJoinCache.insert(afterJoinKey, leftKeyCache);
+			if (StringUtils.isNotBlank(beforeLeftKey) && !beforeLeftKey.equals(afterLeftKey)) {
+				leftJoinCache.delete(beforeLeftKey);
+			}
+			final Map<String, Object> cachedRow = leftJoinCache.upsert(afterLeftKey, afterLeftRow);
+			if (MapUtils.isNotEmpty(beforeLeftRow) && MapUtils.isNotEmpty(cachedRow)) {
+				beforeLeftRow = cachedRow;
+				beforeLeftKey = project(beforeLeftRow, leftPrimaryKeys);
+				beforeJoinKey = project(beforeLeftRow, leftJoinKeyFields);
 			}
 		}
 
 		return leftJoinLeftRow(afterJoinKey, afterLeftKey, afterLeftRow, beforeJoinKey, beforeLeftKey, beforeLeftRow, opType);
 	}
 
-	private void deleteRowFromCache(String joinKey, String key, ConstructIMap<Map<String, Map<String, Object>>> joinCache) throws Exception {
-		final Map<String, Map<String, Object>> keyCache = joinCache.find(joinKey);
-		String finalBeforeKey = key;
-		Optional.ofNullable(keyCache).ifPresent(m -> m.remove(finalBeforeKey));
-		if (MapUtils.isEmpty(keyCache)) {
-			joinCache.delete(joinKey);
-		} else {
-			joinCache.update(joinKey, keyCache);
-		}
-	}
-
 	@SneakyThrows
 	private List<JoinResult> leftJoinRightProcess(
 			Map<String, Object> before,
@@ -418,22 +461,17 @@ public class HazelcastJoinProcessor extends HazelcastProcessorBaseNode {
 				return null;
 		}
 
-		if (!OperationType.DELETE.getOp().equals(opType) && !rightJoinCache.exists(afterJoinKey)) {
-			Map<String, Map<String, Object>> rightKeyCache = new HashMap<>();
-			rightKeyCache.put(afterRightKey, afterRightRow);
-			rightJoinCache.insert(afterJoinKey, rightKeyCache);
+		if (OperationType.DELETE.getOp().equals(opType)) {
+			rightJoinCache.delete(beforeRightKey);
 		} else {
-			if (OperationType.DELETE.getOp().equals(opType)) {
-				deleteRowFromCache(beforeJoinKey, beforeRightKey, rightJoinCache);
-			} else {
-				final Map<String, Map<String, Object>> rightKeyCache = rightJoinCache.find(afterJoinKey);
-				if (MapUtils.isEmpty(beforeRightRow) && rightKeyCache.containsKey(beforeRightKey)) {
-					beforeRightRow = rightKeyCache.get(beforeRightKey);
-					beforeRightKey = project(beforeRightRow, rightPrimaryKeys);
-					beforeJoinKey = project(beforeRightRow, rightJoinKeyFields);
-				}
-				rightKeyCache.put(afterRightKey, afterRightRow);
-				rightJoinCache.insert(afterJoinKey, rightKeyCache);
+			if (StringUtils.isNotBlank(beforeRightKey) && !beforeRightKey.equals(afterRightKey)) {
+				rightJoinCache.delete(beforeRightKey);
+			}
+			final Map<String, Object> cachedRow = rightJoinCache.upsert(afterRightKey, afterRightRow);
+			if (MapUtils.isEmpty(beforeRightRow) && MapUtils.isNotEmpty(cachedRow)) {
+				beforeRightRow = cachedRow;
+				beforeRightKey = project(beforeRightRow, rightPrimaryKeys);
+				beforeJoinKey = project(beforeRightRow, rightJoinKeyFields);
 			}
 		}
 
@@ -518,8 +556,8 @@ public class HazelcastJoinProcessor extends HazelcastProcessorBaseNode {
 		List<JoinResult> joinResults = null;
 		String joinKey = StringUtils.isNotBlank(afterJoinKey) ? afterJoinKey : beforeJoinKey;
 
-		if (leftJoinCache.exists(joinKey)) {
-			final Map<String, Map<String, Object>> leftKeyCache = leftJoinCache.find(joinKey);
+		final Map<String, Map<String, Object>> leftKeyCache = leftJoinCache.find(joinKey);
+		if (MapUtils.isNotEmpty(leftKeyCache)) {
 			joinResults = new ArrayList<>(leftKeyCache.size());
 			for (Map<String, Object> beforeLeftRow : leftKeyCache.values()) {
 
@@ -574,8 +612,7 @@ public class HazelcastJoinProcessor extends HazelcastProcessorBaseNode {
 	) throws Exception {
 		if (OperationType.DELETE.getOp().equals(opType)) {
 
-			final Map<String, Map<String, Object>> rightKeyCache = rightJoinCache.find(joinKey);
-			if (MapUtils.isNotEmpty(rightKeyCache)) {
+			if (rightJoinCache.exists(joinKey)) {
 				return OperationType.DELETE.getOp();
 			} else {
 				return OperationType.UPDATE.getOp();
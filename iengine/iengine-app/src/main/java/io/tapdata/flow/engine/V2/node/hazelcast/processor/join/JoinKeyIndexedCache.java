@@ -0,0 +1,175 @@
+package io.tapdata.flow.engine.V2.node.hazelcast.processor.join;
+
+import io.tapdata.HazelcastConstruct;
+import io.tapdata.constructImpl.ConstructMultiMap;
+import io.tapdata.constructImpl.ConstructRocksDB;
+import org.apache.commons.collections.MapUtils;
+
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Rows of one side of join, keyed by primary key, with a secondary index of join key -> primary keys
+ * <p>
+ * Every event only reads and writes its own row and the index entry of its join key, lookups by join key cost
+ * O(matches). When the join key of a row is changed, the row is moved from the old index entry to the new one.
+ * <p>
+ * RocksDB keeps keys in order, so the index is stored as "joinKey + delimiter + pk" keys and found by prefix. A
+ * MultiMap index stores the primary keys as values of the join key. Both add and remove one primary key per event, other
+ * constructs store a set of primary keys under each join key and write it back as a whole.
+ **/
+public class JoinKeyIndexedCache {
+
+	private static final String INDEX_DELIMITER = "\u0001";
+
+	private final HazelcastConstruct<Map<String, Object>> rows;
+	private final HazelcastConstruct<Object> index;
+	private final Function<Map<String, Object>, String> joinKeyFunction;
+	private final boolean prefixIndex;
+	private final boolean multiValueIndex;
+
+	public JoinKeyIndexedCache(HazelcastConstruct<Map<String, Object>> rows,
+							   HazelcastConstruct<Object> index,
+							   Function<Map<String, Object>, String> joinKeyFunction) {
+		this.rows = rows;
+		this.index = index;
+		this.joinKeyFunction = joinKeyFunction;
+		this.prefixIndex = ConstructRocksDB.TYPE.equals(index.getType());
+		this.multiValueIndex = ConstructMultiMap.TYPE.equals(index.getType());
+	}
+
+	/**
+	 * @return the cached row of primary key before upsert, null if not exists
+	 */
+	public Map<String, Object> upsert(String primaryKey, Map<String, Object> row) throws Exception {
+		final String joinKey = joinKeyFunction.apply(row);
+		final Map<String, Object> cachedRow = rows.find(primaryKey);
+		if (MapUtils.isNotEmpty(cachedRow)) {
+			final String cachedJoinKey = joinKeyFunction.apply(cachedRow);
+			if (!cachedJoinKey.equals(joinKey)) {
+				removeIndex(cachedJoinKey, primaryKey);
+				addIndex(joinKey, primaryKey);
+			}
+		} else {
+			addIndex(joinKey, primaryKey);
+		}
+		rows.upsert(primaryKey, row);
+		return cachedRow;
+	}
+
+	/**
+	 * @return the deleted row, null if not exists
+	 */
+	public Map<String, Object> delete(String primaryKey) throws Exception {
+		final Map<String, Object> cachedRow = rows.find(primaryKey);
+		if (MapUtils.isEmpty(cachedRow)) {
+			return null;
+		}
+		removeIndex(joinKeyFunction.apply(cachedRow), primaryKey);
+		rows.delete(primaryKey);
+		return cachedRow;
+	}
+
+	/**
+	 * Rows are read by one findAll call, IMap getAll and RocksDB multi get cost one round trip per join key
+	 *
+	 * @return primary key -> row of all the rows with the join key
+	 */
+	public Map<String, Map<String, Object>> find(String joinKey) throws Exception {
+		final Set<String> primaryKeys = primaryKeys(joinKey);
+		if (primaryKeys.isEmpty()) {
+			return new LinkedHashMap<>();
+		}
+		return rows.findAll(primaryKeys);
+	}
+
+	public boolean exists(String joinKey) throws Exception {
+		if (prefixIndex) {
+			return index.existsByPrefix(joinKey + INDEX_DELIMITER);
+		}
+		return index.exists(joinKey);
+	}
+
+	public void clear() throws Exception {
+		rows.clear();
+		index.clear();
+	}
+
+	public void destroy() throws Exception {
+		try {
+			rows.destroy();
+		} finally {
+			index.destroy();
+		}
+	}
+
+	private Set<String> primaryKeys(String joinKey) throws Exception {
+		if (prefixIndex) {
+			final String prefix = joinKey + INDEX_DELIMITER;
+			final Set<String> primaryKeys = new HashSet<>();
+			for (String key : index.findByPrefix(prefix).keySet()) {
+				primaryKeys.add(key.substring(prefix.length()));
+			}
+			return primaryKeys;
+		}
+		if (multiValueIndex) {
+			final Set<String> primaryKeys = new HashSet<>();
+			for (Object primaryKey : index.findValues(joinKey)) {
+				primaryKeys.add((String) primaryKey);
+			}
+			return primaryKeys;
+		}
+		final Set<String> primaryKeys = getPrimaryKeySet(joinKey);
+		return null == primaryKeys ? new HashSet<>() : primaryKeys;
+	}
+
+	private void addIndex(String joinKey, String primaryKey) throws Exception {
+		if (prefixIndex) {
+			index.upsert(joinKey + INDEX_DELIMITER + primaryKey, Boolean.TRUE);
+			return;
+		}
+		if (multiValueIndex) {
+			index.addValue(joinKey, primaryKey);
+			return;
+		}
+		Set<String> primaryKeys = getPrimaryKeySet(joinKey);
+		if (null == primaryKeys) {
+			primaryKeys = new HashSet<>();
+		}
+		if (primaryKeys.add(primaryKey)) {
+			index.upsert(joinKey, primaryKeys);
+		}
+	}
+
+	private void removeIndex(String joinKey, String primaryKey) throws Exception {
+		if (prefixIndex) {
+			index.delete(joinKey + INDEX_DELIMITER + primaryKey);
+			return;
+		}
+		if (multiValueIndex) {
+			index.removeValue(joinKey, primaryKey);
+			return;
+		}
+		final Set<String> primaryKeys = getPrimaryKeySet(joinKey);
+		if (null == primaryKeys || !primaryKeys.remove(primaryKey)) {
+			return;
+		}
+		if (primaryKeys.isEmpty()) {
+			index.delete(joinKey);
+		} else {
+			index.upsert(joinKey, primaryKeys);
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	private Set<String> getPrimaryKeySet(String joinKey) throws Exception {
+		final Object primaryKeys = index.find(joinKey);
+		if (primaryKeys instanceof Set) {
+			return (Set<String>) primaryKeys;
+		}
+		return null;
+	}
+}
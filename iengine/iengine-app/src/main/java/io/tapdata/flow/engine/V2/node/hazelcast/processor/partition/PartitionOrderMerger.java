@@ -0,0 +1,103 @@
+package io.tapdata.flow.engine.V2.node.hazelcast.processor.partition;
+
+import com.hazelcast.jet.core.AbstractProcessor;
+import com.tapdata.entity.TapdataEvent;
+import com.tapdata.entity.TapdataPartitionSkipEvent;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Exit of a parallel processor node, collects the outputs of all processor instances and emits them in the sequence given
+ * by {@link PartitionSequencer}, so the downstream nodes see the events in source order.
+ * <p>
+ * Skip events stand for the inputs filtered out by the processor, they only advance the sequence and are not emitted
+ **/
+public class PartitionOrderMerger extends AbstractProcessor {
+
+	private final Map<Long, TapdataEvent> bufferedEvents = new HashMap<>();
+	private long nextSequence = 1L;
+	private TapdataEvent pendingEvent;
+	private int pendingOrdinal;
+	private TapdataEvent.TapEventShare pendingShare;
+
+	@Override
+	protected boolean tryProcess(int ordinal, @NotNull Object item) {
+		if (!drain()) {
+			return false;
+		}
+		TapdataEvent tapdataEvent = (TapdataEvent) item;
+		Long sequence = tapdataEvent.getPartitionSequence();
+		if (null == sequence) {
+			// not numbered, no order to keep
+			setPending(tapdataEvent);
+		} else {
+			bufferedEvents.put(sequence, tapdataEvent);
+		}
+		drain();
+		return true;
+	}
+
+	@Override
+	public boolean tryProcess() {
+		drain();
+		return true;
+	}
+
+	@Override
+	public boolean complete() {
+		return drain() && bufferedEvents.isEmpty();
+	}
+
+	/**
+	 * Emit the pending event and the buffered events which are next in sequence
+	 *
+	 * @return false if outbox is full
+	 */
+	private boolean drain() {
+		while (true) {
+			if (null != pendingEvent) {
+				if (!emit(pendingEvent)) {
+					return false;
+				}
+				pendingEvent = null;
+			}
+			TapdataEvent tapdataEvent = bufferedEvents.remove(nextSequence);
+			if (null == tapdataEvent) {
+				return true;
+			}
+			nextSequence++;
+			if (tapdataEvent instanceof TapdataPartitionSkipEvent) {
+				continue;
+			}
+			tapdataEvent.setPartitionSequence(null);
+			setPending(tapdataEvent);
+		}
+	}
+
+	private void setPending(TapdataEvent tapdataEvent) {
+		pendingEvent = tapdataEvent;
+		pendingOrdinal = 0;
+		pendingShare = null;
+	}
+
+	private boolean emit(TapdataEvent tapdataEvent) {
+		final int bucketCount = getOutbox().bucketCount();
+		if (bucketCount <= 1) {
+			return tryEmit(tapdataEvent);
+		}
+		if (0 == pendingOrdinal && null == pendingShare && tapdataEvent.isDML()) {
+			tapdataEvent.ensureWritable();
+			pendingShare = new TapdataEvent.TapEventShare(bucketCount);
+		}
+		// continue from the first ordinal which has not accepted the event
+		for (; pendingOrdinal < bucketCount; pendingOrdinal++) {
+			TapdataEvent event = null == pendingShare ? (TapdataEvent) tapdataEvent.clone() : tapdataEvent.shareCopy(pendingShare);
+			if (!tryEmit(pendingOrdinal, event)) {
+				return false;
+			}
+		}
+		return true;
+	}
+}
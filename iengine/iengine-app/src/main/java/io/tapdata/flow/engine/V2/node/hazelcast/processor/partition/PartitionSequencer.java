@@ -0,0 +1,26 @@
+package io.tapdata.flow.engine.V2.node.hazelcast.processor.partition;
+
+import com.hazelcast.jet.core.AbstractProcessor;
+import com.tapdata.entity.TapdataEvent;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Entry of a parallel processor node, numbers the events in arrival order before the partitioned edge spreads them over the
+ * processor instances, {@link PartitionOrderMerger} uses the numbers to restore the order after the instances
+ **/
+public class PartitionSequencer extends AbstractProcessor {
+
+	private long sequence;
+
+	@Override
+	protected boolean tryProcess(int ordinal, @NotNull Object item) {
+		if (item instanceof TapdataEvent) {
+			TapdataEvent tapdataEvent = (TapdataEvent) item;
+			// an item rejected by outbox is offered again, keep its sequence
+			if (null == tapdataEvent.getPartitionSequence()) {
+				tapdataEvent.setPartitionSequence(++sequence);
+			}
+		}
+		return tryEmit(item);
+	}
+}
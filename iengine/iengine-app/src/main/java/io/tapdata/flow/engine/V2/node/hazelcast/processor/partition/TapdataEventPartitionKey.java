@@ -0,0 +1,88 @@
+package io.tapdata.flow.engine.V2.node.hazelcast.processor.partition;
+
+import com.hazelcast.function.FunctionEx;
+import com.tapdata.entity.TapdataEvent;
+import io.tapdata.entity.event.TapEvent;
+import io.tapdata.entity.event.dml.TapDeleteRecordEvent;
+import io.tapdata.entity.event.dml.TapInsertRecordEvent;
+import io.tapdata.entity.event.dml.TapUpdateRecordEvent;
+import io.tapdata.entity.schema.TapTable;
+import io.tapdata.flow.engine.V2.node.hazelcast.data.pdk.concurrent.selector.TapEventPartitionKeySelector;
+import io.tapdata.flow.engine.V2.util.TapEventUtil;
+import io.tapdata.schema.TapTableMap;
+import org.apache.commons.collections.MapUtils;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Partition key of the edge into a parallel processor node: table id + primary key values of the record, so all events of
+ * one row are processed by the same instance. Events other than dml go to one instance
+ **/
+public class TapdataEventPartitionKey implements FunctionEx<TapdataEvent, Integer> {
+
+	private static final long serialVersionUID = 4362170853126648812L;
+	private static final Integer NON_DML_KEY = 0;
+
+	private final String nodeId;
+	private final TapTableMap<String, TapTable> tapTableMap;
+	private transient Map<String, List<String>> primaryKeysMap;
+	private transient TapEventPartitionKeySelector keySelector;
+
+	public TapdataEventPartitionKey(String nodeId, TapTableMap<String, TapTable> tapTableMap) {
+		this.nodeId = nodeId;
+		this.tapTableMap = tapTableMap;
+	}
+
+	@Override
+	public Integer applyEx(TapdataEvent tapdataEvent) {
+		if (!tapdataEvent.isDML()) {
+			return NON_DML_KEY;
+		}
+		TapEvent tapEvent = tapdataEvent.getTapEvent();
+		Map<String, Object> row = null;
+		if (tapEvent instanceof TapInsertRecordEvent) {
+			row = ((TapInsertRecordEvent) tapEvent).getAfter();
+		} else if (tapEvent instanceof TapDeleteRecordEvent) {
+			row = ((TapDeleteRecordEvent) tapEvent).getBefore();
+		} else if (tapEvent instanceof TapUpdateRecordEvent) {
+			row = ((TapUpdateRecordEvent) tapEvent).getBefore();
+			if (MapUtils.isEmpty(row)) {
+				row = ((TapUpdateRecordEvent) tapEvent).getAfter();
+			}
+		}
+		TapEventPartitionKeySelector selector = getKeySelector();
+		List<Object> partitionOriginalValues = selector.convert2OriginValue(selector.select(tapEvent, row));
+		return Objects.hash(TapEventUtil.getTableId(tapEvent), partitionOriginalValues);
+	}
+
+	private TapEventPartitionKeySelector getKeySelector() {
+		if (null == keySelector) {
+			primaryKeysMap = new ConcurrentHashMap<>();
+			keySelector = new TapEventPartitionKeySelector(tapEvent -> primaryKeysMap.computeIfAbsent(TapEventUtil.getTableId(tapEvent), this::getPrimaryKeys));
+		}
+		return keySelector;
+	}
+
+	/**
+	 * Schema of multiple tables processor is keyed by table name, single table processor by node id
+	 */
+	private List<String> getPrimaryKeys(String tableId) {
+		TapTable tapTable = null;
+		if (null != tableId && tapTableMap.containsKey(tableId)) {
+			tapTable = tapTableMap.get(tableId);
+		} else if (tapTableMap.containsKey(nodeId)) {
+			tapTable = tapTableMap.get(nodeId);
+		}
+		if (null == tapTable) {
+			return Collections.emptyList();
+		}
+		Collection<String> primaryKeys = tapTable.primaryKeys(true);
+		return null == primaryKeys ? Collections.emptyList() : new ArrayList<>(primaryKeys);
+	}
+}
@@ -12,6 +12,7 @@ import com.tapdata.tm.commons.task.dto.TaskDto;
 import io.tapdata.ConstructIterator;
 import io.tapdata.HazelcastConstruct;
 import io.tapdata.common.sharecdc.ShareCdcUtil;
+import io.tapdata.constructImpl.ConstructPartitionedRingBuffer;
 import io.tapdata.constructImpl.ConstructRingBuffer;
 import io.tapdata.entity.event.TapEvent;
 import io.tapdata.entity.event.dml.TapDeleteRecordEvent;
@@ -119,8 +120,8 @@ public class ShareCdcPDKTaskReader extends ShareCdcHZReader implements Serializa
 		this.logCollectorTaskDto = getLogCollectorSubTask();
 		logger.info(logWrapper(++step, "Found log collector task: " + this.logCollectorTaskDto.getName()));
 
-		this.hazelcastConstruct = new ConstructRingBuffer<>(hazelcastInstance, ShareCdcUtil.getConstructName(this.logCollectorTaskDto));
-		logger.info(logWrapper(++step, "Init hazelcast construct completed"));
+		this.hazelcastConstruct = ConstructPartitionedRingBuffer.create(hazelcastInstance, ShareCdcUtil.getConstructName(this.logCollectorTaskDto), null);
+		logger.info(logWrapper(++step, "Init hazelcast construct completed: " + this.hazelcastConstruct.getType()));
 
 		// Check cdc start timestamp is available in log storage
 		try {
@@ -207,6 +208,10 @@ public class ShareCdcPDKTaskReader extends ShareCdcHZReader implements Serializa
 		// Find hazelcast construct iterator
 		Map<String, Object> filter = new HashMap<>();
 		filter.put(ConstructRingBuffer.SEQUENCE_KEY, this.headSequence);
+		// Logs of other tables are dropped in the ringbuffer read, not returned and converted here
+		if (null != tableNames && !tableNames.isEmpty()) {
+			filter.put(ConstructRingBuffer.TABLES_KEY, tableNames);
+		}
 		ConstructIterator<Document> iterator;
 		try {
 			iterator = this.hazelcastConstruct.find(filter);
@@ -308,6 +313,26 @@ public class ShareCdcPDKTaskReader extends ShareCdcHZReader implements Serializa
 		return new ShareCDCReaderEvent(tapEvent, offsetObj);
 	}
 
+	/**
+	 * @return logs returned by the share log storage
+	 */
+	public long getReadCount() {
+		if (this.hazelcastConstruct instanceof ConstructPartitionedRingBuffer) {
+			return ((ConstructPartitionedRingBuffer) this.hazelcastConstruct).getRead();
+		}
+		return this.hazelcastConstruct instanceof ConstructRingBuffer ? ((ConstructRingBuffer<?>) this.hazelcastConstruct).getRead() : 0L;
+	}
+
+	/**
+	 * @return logs of other tables dropped by the share log storage
+	 */
+	public long getSkippedCount() {
+		if (this.hazelcastConstruct instanceof ConstructPartitionedRingBuffer) {
+			return ((ConstructPartitionedRingBuffer) this.hazelcastConstruct).getSkipped();
+		}
+		return this.hazelcastConstruct instanceof ConstructRingBuffer ? ((ConstructRingBuffer<?>) this.hazelcastConstruct).getSkipped() : 0L;
+	}
+
 	private String logWrapper(String message) {
 		return LOG_PREFIX + message;
 	}
@@ -3,6 +3,7 @@ package io.tapdata.flow.engine.V2.task.impl;
 import com.hazelcast.config.Config;
 import com.hazelcast.core.Hazelcast;
 import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.function.SupplierEx;
 import com.hazelcast.jet.Job;
 import com.hazelcast.jet.config.JobConfig;
 import com.hazelcast.jet.config.ProcessingGuarantee;
@@ -44,11 +45,16 @@ import io.tapdata.flow.engine.V2.node.hazelcast.data.pdk.*;
 import io.tapdata.flow.engine.V2.node.hazelcast.processor.*;
 import io.tapdata.flow.engine.V2.node.hazelcast.processor.aggregation.HazelcastMultiAggregatorProcessor;
 import io.tapdata.flow.engine.V2.node.hazelcast.processor.join.HazelcastJoinProcessor;
+import io.tapdata.flow.engine.V2.node.hazelcast.processor.partition.PartitionOrderMerger;
+import io.tapdata.flow.engine.V2.node.hazelcast.processor.partition.PartitionSequencer;
+import io.tapdata.flow.engine.V2.node.hazelcast.processor.partition.TapdataEventPartitionKey;
 import io.tapdata.flow.engine.V2.task.TaskClient;
 import io.tapdata.flow.engine.V2.task.TaskService;
 import io.tapdata.flow.engine.V2.util.GraphUtil;
 import io.tapdata.flow.engine.V2.util.MergeTableUtil;
 import io.tapdata.flow.engine.V2.util.NodeUtil;
+import io.tapdata.flow.engine.V2.util.ProcessorFusionUtil;
+import io.tapdata.flow.engine.V2.util.ProcessorParallelismUtil;
 import io.tapdata.milestone.MilestoneContext;
 import io.tapdata.milestone.MilestoneFactory;
 import io.tapdata.milestone.MilestoneFlowServiceJetV2;
@@ -82,6 +88,9 @@ import static org.springframework.data.mongodb.core.query.Criteria.where;
 public class HazelcastTaskService implements TaskService<TaskDto> {
 
 	private static final Logger logger = LogManager.getLogger(HazelcastTaskService.class);
+	private static final String SEQUENCER_VERTEX_SUFFIX = "-sequencer";
+	private static final String MERGER_VERTEX_SUFFIX = "-merger";
+	private static final String FUSED_VERTEX_NAME_DELIMITER = "+";
 
 	private static HazelcastInstance hazelcastInstance;
 
@@ -177,7 +186,11 @@ public class HazelcastTaskService implements TaskService<TaskDto> {
 
 		final List<Node> nodes = taskDtoAtomicReference.get().getDag().getNodes();
 		final List<Edge> edges = taskDtoAtomicReference.get().getDag().getEdges();
-		Map<String, Vertex> vertexMap = new HashMap<>();
+		// 并行节点的入口与出口是不同的 vertex, 合并的节点只有链头有入口、链尾有出口
+		Map<String, Vertex> inVertexMap = new HashMap<>();
+		Map<String, Vertex> outVertexMap = new HashMap<>();
+		Map<String, SupplierEx<HazelcastBaseNode>> nodeSupplierMap = new HashMap<>();
+		Map<String, TapTableMap<String, TapTable>> tapTableMapByNodeId = new HashMap<>();
 		Map<String, AbstractProcessor> hazelcastBaseNodeMap = new HashMap<>();
 		Map<String, AbstractProcessor> typeConvertMap = new HashMap<>();
 		Map<String, Node<?>> nodeMap = nodes.stream().collect(Collectors.toMap(Element::getId, n -> n));
@@ -236,7 +249,7 @@ public class HazelcastTaskService implements TaskService<TaskDto> {
 				DatabaseTypeEnum.DatabaseType finalDatabaseType = databaseType;
 
 				TapTableMap<String, TapTable> finalTapTableMap = tapTableMap;
-				Vertex vertex = new Vertex(NodeUtil.getVertexName(node), () -> {
+				nodeSupplierMap.put(node.getId(), () -> {
 					try {
 						Log4jUtil.setThreadContext(taskDtoAtomicReference.get());
 						return createNode(
@@ -257,13 +270,60 @@ public class HazelcastTaskService implements TaskService<TaskDto> {
 						throw e;
 					}
 				});
-				vertexMap.put(node.getId(), vertex);
+				tapTableMapByNodeId.put(node.getId(), finalTapTableMap);
+			}
 
-				vertex.localParallelism(1);
+			// 连续的无状态处理节点合并为一个 vertex, 其余节点各自一个 vertex
+			List<List<Node>> nodeGroups = ProcessorFusionUtil.groupNodes(nodes);
+			for (List<Node> group : nodeGroups) {
+				Node<?> head = group.get(0);
+				Node<?> tail = group.get(group.size() - 1);
+				Vertex vertex;
+				if (group.size() == 1) {
+					vertex = new Vertex(NodeUtil.getVertexName(head), nodeSupplierMap.get(head.getId()));
+				} else {
+					List<SupplierEx<HazelcastBaseNode>> suppliers = new ArrayList<>();
+					group.forEach(n -> suppliers.add(nodeSupplierMap.get(n.getId())));
+					String vertexName = group.stream().map(NodeUtil::getVertexName).collect(Collectors.joining(FUSED_VERTEX_NAME_DELIMITER));
+					vertex = new Vertex(vertexName, () -> {
+						List<HazelcastProcessorBaseNode> fusedNodes = new ArrayList<>(suppliers.size());
+						for (SupplierEx<HazelcastBaseNode> supplier : suppliers) {
+							HazelcastBaseNode hazelcastBaseNode = supplier.getEx();
+							if (!(hazelcastBaseNode instanceof HazelcastProcessorBaseNode)) {
+								throw new IllegalStateException("Only processor node can be fused, node: " + hazelcastBaseNode.getClass().getName());
+							}
+							fusedNodes.add((HazelcastProcessorBaseNode) hazelcastBaseNode);
+						}
+						return new HazelcastFusedProcessorNode(fusedNodes);
+					});
+					logger.info("Processor nodes {} are fused into one vertex", group.stream().map(Element::getName).collect(Collectors.toList()));
+				}
 				dag.vertex(vertex);
+
+				int parallelism = group.stream()
+						.mapToInt(n -> ProcessorParallelismUtil.getParallelism(taskDtoAtomicReference.get(), nodes, n))
+						.min().orElse(1);
+				if (parallelism > 1) {
+					// 并行处理节点: 序号 -> 按表+主键分区到多个实例 -> 按序号合并, 保持源端顺序
+					vertex.localParallelism(parallelism);
+					Vertex sequencer = dag.newVertex(vertex.getName() + SEQUENCER_VERTEX_SUFFIX, PartitionSequencer::new)
+							.localParallelism(1);
+					Vertex merger = dag.newVertex(vertex.getName() + MERGER_VERTEX_SUFFIX, PartitionOrderMerger::new)
+							.localParallelism(1);
+					dag.edge(com.hazelcast.jet.core.Edge.between(sequencer, vertex)
+							.partitioned(new TapdataEventPartitionKey(head.getId(), tapTableMapByNodeId.get(head.getId()))));
+					dag.edge(com.hazelcast.jet.core.Edge.between(vertex, merger));
+					inVertexMap.put(head.getId(), sequencer);
+					outVertexMap.put(tail.getId(), merger);
+					logger.info("Processor vertex [{}] runs with parallelism {}", vertex.getName(), parallelism);
+				} else {
+					vertex.localParallelism(1);
+					inVertexMap.put(head.getId(), vertex);
+					outVertexMap.put(tail.getId(), vertex);
+				}
 			}
 
-			handleEdge(dag, edges, nodeMap, vertexMap);
+			handleEdge(dag, edges, inVertexMap, outVertexMap, ProcessorFusionUtil.fusedEdgeKeys(nodeGroups));
 		}
 
 		return new JetDag(dag, hazelcastBaseNodeMap, typeConvertMap);
@@ -584,21 +644,28 @@ public class HazelcastTaskService implements TaskService<TaskDto> {
 	private void handleEdge(
 			DAG dag,
 			List<Edge> edges,
-			Map<String, Node<?>> nodeMap,
-			Map<String, Vertex> vertexMap
+			Map<String, Vertex> inVertexMap,
+			Map<String, Vertex> outVertexMap,
+			Set<String> fusedEdgeKeys
 	) {
 		if (CollectionUtils.isNotEmpty(edges)) {
 			for (Edge edge : edges) {
-				final String source = edge.getSource();
-				final String target = edge.getTarget();
-				final Node<?> srcNode = nodeMap.get(source);
-				final Node<?> tgtNode = nodeMap.get(target);
-				List<com.hazelcast.jet.core.Edge> outboundEdges = dag.getOutboundEdges(NodeUtil.getVertexName(srcNode));
-				List<com.hazelcast.jet.core.Edge> inboundEdges = dag.getInboundEdges(NodeUtil.getVertexName(tgtNode));
+				if (fusedEdgeKeys.contains(ProcessorFusionUtil.edgeKey(edge.getSource(), edge.getTarget()))) {
+					// 合并节点之间的边在 vertex 内部传递, 没有 Jet edge
+					continue;
+				}
+				final Vertex srcVertex = outVertexMap.get(edge.getSource());
+				final Vertex tgtVertex = inVertexMap.get(edge.getTarget());
+				if (null == srcVertex || null == tgtVertex) {
+					throw new RuntimeException(String.format("Vertex of edge [%s -> %s] not found, source vertex: %s, target vertex: %s",
+							edge.getSource(), edge.getTarget(), srcVertex, tgtVertex));
+				}
+				List<com.hazelcast.jet.core.Edge> outboundEdges = dag.getOutboundEdges(srcVertex.getName());
+				List<com.hazelcast.jet.core.Edge> inboundEdges = dag.getInboundEdges(tgtVertex.getName());
 				dag.edge(
 						com.hazelcast.jet.core.Edge
-								.from(vertexMap.get(source), outboundEdges.size())
-								.to(vertexMap.get(target), inboundEdges.size())
+								.from(srcVertex, outboundEdges.size())
+								.to(tgtVertex, inboundEdges.size())
 				);
 			}
 		}
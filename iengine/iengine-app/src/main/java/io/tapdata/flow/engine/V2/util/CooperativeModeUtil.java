@@ -0,0 +1,110 @@
+package io.tapdata.flow.engine.V2.util;
+
+import com.tapdata.tm.commons.dag.Node;
+import com.tapdata.tm.commons.dag.nodes.DataParentNode;
+import com.tapdata.tm.commons.task.dto.TaskDto;
+import io.tapdata.flow.engine.V2.common.node.NodeTypeEnum;
+import io.tapdata.pdk.core.utils.CommonUtils;
+import org.apache.commons.collections.CollectionUtils;
+import org.apache.commons.lang3.StringUtils;
+
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Cooperative execution mode for light tasks.
+ * <p>
+ * By default every node is a non-cooperative Jet processor with its own thread. In cooperative mode pdk sources, pdk
+ * targets and stateless processors without user scripts run on the Jet cooperative threads, which are shared by all
+ * tasks of the engine: sources poll their event queue without waiting, targets hand the connector writes to a shared
+ * bounded io pool and yield until the write is done. The connector stream read of a source still owns its thread,
+ * because the pdk read functions block until the task stops.
+ * <p>
+ * Targets with concurrent write are not light and keep the non-cooperative mode, so do processors of a task whose
+ * sources send ddl events
+ **/
+public class CooperativeModeUtil {
+
+	public static final String TASK_COOPERATIVE_MODE_KEY = "TASK_COOPERATIVE_MODE";
+	public static final boolean DEFAULT_TASK_COOPERATIVE_MODE = false;
+	public static final String TASK_COOPERATIVE_IO_THREADS_KEY = "TASK_COOPERATIVE_IO_THREADS";
+
+	/**
+	 * Field processor, row filter and field calc are not here, they evaluate user expressions with the script engine
+	 */
+	private static final Set<NodeTypeEnum> COOPERATIVE_NODE_TYPES = EnumSet.of(
+			NodeTypeEnum.TABLE,
+			NodeTypeEnum.DATABASE,
+			NodeTypeEnum.FIELD_RENAME_PROCESSOR,
+			NodeTypeEnum.FIELD_MOD_TYPE_PROCESSOR,
+			NodeTypeEnum.FIELD_ADD_DEL_PROCESSOR,
+			NodeTypeEnum.TABLE_RENAME_PROCESSOR,
+			NodeTypeEnum.MIGRATE_FIELD_RENAME_PROCESSOR
+	);
+
+	private static volatile ExecutorService ioExecutor;
+
+	/**
+	 * @param taskDto task
+	 * @param node    node of processor
+	 * @return true if the node's processor runs on the cooperative threads
+	 */
+	public static boolean isCooperative(TaskDto taskDto, Node<?> node) {
+		if (null == taskDto || null == node || !CommonUtils.getPropertyBool(TASK_COOPERATIVE_MODE_KEY, DEFAULT_TASK_COOPERATIVE_MODE)) {
+			return false;
+		}
+		if (!StringUtils.equalsAnyIgnoreCase(taskDto.getSyncType(), TaskDto.SYNC_TYPE_SYNC, TaskDto.SYNC_TYPE_MIGRATE)) {
+			return false;
+		}
+		NodeTypeEnum nodeTypeEnum = NodeTypeEnum.get(node.getType());
+		if (null == nodeTypeEnum || !COOPERATIVE_NODE_TYPES.contains(nodeTypeEnum)) {
+			return false;
+		}
+		if (node instanceof DataParentNode) {
+			DataParentNode<?> dataParentNode = (DataParentNode<?>) node;
+			return !Boolean.TRUE.equals(dataParentNode.getInitialConcurrent()) && !Boolean.TRUE.equals(dataParentNode.getCdcConcurrent());
+		}
+		// processors reload their config (from management server) on ddl events
+		return !hasDDLSource(taskDto);
+	}
+
+	private static boolean hasDDLSource(TaskDto taskDto) {
+		if (null == taskDto.getDag()) {
+			return false;
+		}
+		for (Node<?> n : taskDto.getDag().getNodes()) {
+			if (n instanceof DataParentNode && CollectionUtils.isEmpty(n.predecessors())
+					&& Boolean.TRUE.equals(((DataParentNode<?>) n).getEnableDDL())) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * @return io pool shared by the cooperative nodes of all tasks, for the blocking connector calls
+	 */
+	public static ExecutorService getIoExecutor() {
+		if (null == ioExecutor) {
+			synchronized (CooperativeModeUtil.class) {
+				if (null == ioExecutor) {
+					int threads = CommonUtils.getPropertyInt(TASK_COOPERATIVE_IO_THREADS_KEY, Math.max(4, Runtime.getRuntime().availableProcessors() * 2));
+					AtomicInteger threadNo = new AtomicInteger();
+					ThreadPoolExecutor threadPoolExecutor = new ThreadPoolExecutor(threads, threads, 60L, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), r -> {
+						Thread thread = new Thread(r, "Cooperative-IO-" + threadNo.incrementAndGet());
+						thread.setDaemon(true);
+						return thread;
+					});
+					threadPoolExecutor.allowCoreThreadTimeOut(true);
+					ioExecutor = threadPoolExecutor;
+				}
+			}
+		}
+		return ioExecutor;
+	}
+}
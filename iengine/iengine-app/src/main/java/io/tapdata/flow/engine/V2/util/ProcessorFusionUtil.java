@@ -0,0 +1,143 @@
+package io.tapdata.flow.engine.V2.util;
+
+import com.tapdata.tm.commons.dag.Node;
+import io.tapdata.flow.engine.V2.common.node.NodeTypeEnum;
+import io.tapdata.pdk.core.utils.CommonUtils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Groups the nodes of a task into vertices: consecutive stateless processor nodes (a node with one successor which has
+ * no other predecessor) are fused into one vertex, every other node keeps its own vertex.
+ * <p>
+ * Field, row filter and rename nodes process one event at a time and can be at any position of a chain. Script nodes
+ * (js, cache lookup) process the Jet inbox in batches when script batch mode is on, only the head of a chain gets the
+ * inbox, so they can only start a chain. Join, merge table and aggregation nodes are never fused
+ **/
+public class ProcessorFusionUtil {
+
+	public static final String PROCESSOR_FUSION_ENABLE_KEY = "PROCESSOR_FUSION_ENABLE";
+	public static final boolean DEFAULT_PROCESSOR_FUSION_ENABLE = true;
+
+	private static final Set<NodeTypeEnum> FUSIBLE_NODE_TYPES = EnumSet.of(
+			NodeTypeEnum.FIELD_PROCESSOR,
+			NodeTypeEnum.FIELD_RENAME_PROCESSOR,
+			NodeTypeEnum.FIELD_MOD_TYPE_PROCESSOR,
+			NodeTypeEnum.FIELD_ADD_DEL_PROCESSOR,
+			NodeTypeEnum.FIELD_CALC_PROCESSOR,
+			NodeTypeEnum.ROW_FILTER_PROCESSOR,
+			NodeTypeEnum.TABLE_RENAME_PROCESSOR,
+			NodeTypeEnum.MIGRATE_FIELD_RENAME_PROCESSOR
+	);
+	private static final Set<NodeTypeEnum> CHAIN_HEAD_NODE_TYPES = EnumSet.of(
+			NodeTypeEnum.JS_PROCESSOR,
+			NodeTypeEnum.MIGRATE_JS_PROCESSOR,
+			NodeTypeEnum.CACHE_LOOKUP_PROCESSOR
+	);
+
+	/**
+	 * @param nodes all nodes of task
+	 * @return node groups in the order of nodes, a group of more than one node is a fused chain in flow order
+	 */
+	public static List<List<Node>> groupNodes(List<Node> nodes) {
+		List<List<Node>> groups = new ArrayList<>();
+		boolean fusionEnable = CommonUtils.getPropertyBool(PROCESSOR_FUSION_ENABLE_KEY, DEFAULT_PROCESSOR_FUSION_ENABLE);
+		Set<String> groupedNodeIds = new HashSet<>();
+		for (Node node : nodes) {
+			if (groupedNodeIds.contains(node.getId())) {
+				continue;
+			}
+			if (!fusionEnable || !(isFusible(node) || isChainHead(node))) {
+				groups.add(Collections.singletonList(node));
+				groupedNodeIds.add(node.getId());
+				continue;
+			}
+			// find the head of the chain, a chain head node has no fusible predecessor
+			Node head = node;
+			Node previous;
+			while (null != (previous = fusiblePredecessor(head)) && !groupedNodeIds.contains(previous.getId())) {
+				head = previous;
+			}
+			List<Node> chain = new ArrayList<>();
+			Node current = head;
+			do {
+				chain.add(current);
+				groupedNodeIds.add(current.getId());
+				current = fusibleSuccessor(current);
+			} while (null != current && !groupedNodeIds.contains(current.getId()));
+			groups.add(chain);
+		}
+		return groups;
+	}
+
+	/**
+	 * @param groups node groups of {@link #groupNodes(List)}
+	 * @return keys of the edges inside the fused chains, see {@link #edgeKey(String, String)}, these edges have no Jet edge
+	 */
+	public static Set<String> fusedEdgeKeys(List<List<Node>> groups) {
+		Set<String> fusedEdgeKeys = new HashSet<>();
+		for (List<Node> group : groups) {
+			for (int i = 1; i < group.size(); i++) {
+				fusedEdgeKeys.add(edgeKey(group.get(i - 1).getId(), group.get(i).getId()));
+			}
+		}
+		return fusedEdgeKeys;
+	}
+
+	public static String edgeKey(String source, String target) {
+		return source + "->" + target;
+	}
+
+	/**
+	 * @return true if the node can be at any position of a chain
+	 */
+	private static boolean isFusible(Node<?> node) {
+		NodeTypeEnum nodeTypeEnum = NodeTypeEnum.get(node.getType());
+		return null != nodeTypeEnum && FUSIBLE_NODE_TYPES.contains(nodeTypeEnum);
+	}
+
+	/**
+	 * @return true if the node can only be the head of a chain
+	 */
+	private static boolean isChainHead(Node<?> node) {
+		NodeTypeEnum nodeTypeEnum = NodeTypeEnum.get(node.getType());
+		return null != nodeTypeEnum && CHAIN_HEAD_NODE_TYPES.contains(nodeTypeEnum);
+	}
+
+	/**
+	 * @return the only successor of node if they can be fused
+	 */
+	private static Node fusibleSuccessor(Node<?> node) {
+		List<Node> successors = node.successors();
+		if (null == successors || successors.size() != 1) {
+			return null;
+		}
+		Node successor = successors.get(0);
+		List<Node> predecessors = successor.predecessors();
+		if (!isFusible(successor) || null == predecessors || predecessors.size() != 1) {
+			return null;
+		}
+		return successor;
+	}
+
+	/**
+	 * @return the only predecessor of node if they can be fused
+	 */
+	private static Node fusiblePredecessor(Node<?> node) {
+		List<Node> predecessors = node.predecessors();
+		if (null == predecessors || predecessors.size() != 1) {
+			return null;
+		}
+		Node predecessor = predecessors.get(0);
+		if (!isFusible(predecessor) && !isChainHead(predecessor)) {
+			return null;
+		}
+		Node successor = fusibleSuccessor(predecessor);
+		return null != successor && node.getId().equals(successor.getId()) ? predecessor : null;
+	}
+}
@@ -0,0 +1,73 @@
+package io.tapdata.flow.engine.V2.util;
+
+import com.tapdata.tm.commons.dag.Node;
+import com.tapdata.tm.commons.dag.nodes.DataParentNode;
+import com.tapdata.tm.commons.dag.nodes.DatabaseNode;
+import com.tapdata.tm.commons.task.dto.TaskDto;
+import io.tapdata.flow.engine.V2.common.node.NodeTypeEnum;
+import io.tapdata.pdk.core.utils.CommonUtils;
+import org.apache.commons.collections.CollectionUtils;
+import org.apache.commons.lang3.StringUtils;
+
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Local parallelism of processor node vertices.
+ * <p>
+ * A parallel processor node runs as several instances behind a partitioned edge (table + primary key), the outputs are
+ * merged back into source order before the downstream node. Only stateless processors are parallel, and only when no
+ * source of the task can send ddl or dynamic table events, because such events update the node config held by every
+ * instance while only one instance would receive them
+ **/
+public class ProcessorParallelismUtil {
+
+	public static final String PROCESSOR_PARALLELISM_KEY = "PROCESSOR_PARALLELISM";
+	public static final int DEFAULT_PROCESSOR_PARALLELISM = 1;
+
+	private static final Set<NodeTypeEnum> PARALLEL_NODE_TYPES = EnumSet.of(
+			NodeTypeEnum.JS_PROCESSOR,
+			NodeTypeEnum.MIGRATE_JS_PROCESSOR,
+			NodeTypeEnum.FIELD_PROCESSOR,
+			NodeTypeEnum.ROW_FILTER_PROCESSOR,
+			NodeTypeEnum.FIELD_RENAME_PROCESSOR,
+			NodeTypeEnum.FIELD_MOD_TYPE_PROCESSOR,
+			NodeTypeEnum.FIELD_CALC_PROCESSOR,
+			NodeTypeEnum.FIELD_ADD_DEL_PROCESSOR,
+			NodeTypeEnum.TABLE_RENAME_PROCESSOR,
+			NodeTypeEnum.MIGRATE_FIELD_RENAME_PROCESSOR
+	);
+
+	/**
+	 * @param taskDto task
+	 * @param nodes   all nodes of task
+	 * @param node    node of vertex
+	 * @return local parallelism of the node's vertex, 1 if the node cannot run in parallel
+	 */
+	public static int getParallelism(TaskDto taskDto, List<Node> nodes, Node<?> node) {
+		int parallelism = CommonUtils.getPropertyInt(PROCESSOR_PARALLELISM_KEY, DEFAULT_PROCESSOR_PARALLELISM);
+		if (parallelism <= 1) {
+			return 1;
+		}
+		NodeTypeEnum nodeTypeEnum = NodeTypeEnum.get(node.getType());
+		if (null == nodeTypeEnum || !PARALLEL_NODE_TYPES.contains(nodeTypeEnum)) {
+			return 1;
+		}
+		if (!StringUtils.equalsAnyIgnoreCase(taskDto.getSyncType(), TaskDto.SYNC_TYPE_SYNC, TaskDto.SYNC_TYPE_MIGRATE)) {
+			return 1;
+		}
+		for (Node<?> n : nodes) {
+			if (!(n instanceof DataParentNode) || CollectionUtils.isNotEmpty(n.predecessors())) {
+				continue;
+			}
+			if (Boolean.TRUE.equals(((DataParentNode<?>) n).getEnableDDL())) {
+				return 1;
+			}
+			if (n instanceof DatabaseNode && Boolean.TRUE.equals(((DatabaseNode) n).getEnableDynamicTable())) {
+				return 1;
+			}
+		}
+		return parallelism;
+	}
+}
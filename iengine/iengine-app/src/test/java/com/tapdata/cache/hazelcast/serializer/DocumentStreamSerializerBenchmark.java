@@ -0,0 +1,113 @@
+package com.tapdata.cache.hazelcast.serializer;
+
+import com.hazelcast.config.SerializationConfig;
+import com.hazelcast.config.SerializerConfig;
+import com.hazelcast.internal.serialization.Data;
+import com.hazelcast.internal.serialization.InternalSerializationService;
+import com.hazelcast.internal.serialization.impl.DefaultSerializationServiceBuilder;
+import org.bson.Document;
+import org.bson.types.Decimal128;
+import org.bson.types.ObjectId;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.Date;
+
+/**
+ * Serialize and deserialize cost of a cached row, java serialization of {@link Document} (current encoding) against
+ * {@link DocumentStreamSerializer}. Bytes per entry of both encodings are printed at setup.
+ * <p>
+ * Run {@link #main(String[])} with the test classpath after test-compile
+ **/
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(java.util.concurrent.TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 3)
+@Measurement(iterations = 5, time = 3)
+@Fork(1)
+public class DocumentStreamSerializerBenchmark {
+
+	@Param({"java", "document"})
+	private String encoding;
+
+	@Param({"10", "50"})
+	private int fields;
+
+	private InternalSerializationService serializationService;
+	private Document row;
+	private Data data;
+
+	@Setup(Level.Trial)
+	public void setup() {
+		SerializationConfig serializationConfig = new SerializationConfig();
+		if ("document".equals(encoding)) {
+			serializationConfig.addSerializerConfig(new SerializerConfig()
+					.setImplementation(new DocumentStreamSerializer()).setTypeClass(Document.class));
+		}
+		serializationService = new DefaultSerializationServiceBuilder().setConfig(serializationConfig).build();
+		row = row(fields);
+		data = serializationService.toData(row);
+		System.out.println(encoding + " encoding, " + fields + " fields: " + data.totalSize() + " bytes/entry");
+	}
+
+	@Benchmark
+	public Data serialize() {
+		return serializationService.toData(row);
+	}
+
+	@Benchmark
+	public Object deserialize() {
+		return serializationService.toObject(data);
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		Options options = new OptionsBuilder()
+				.include(DocumentStreamSerializerBenchmark.class.getSimpleName())
+				.build();
+		new Runner(options).run();
+	}
+
+	private static Document row(int fields) {
+		Document row = new Document();
+		row.put("_id", new ObjectId());
+		for (int i = 0; row.size() < fields; i++) {
+			switch (i % 6) {
+				case 0:
+					row.put("int_column_" + i, i * 31);
+					break;
+				case 1:
+					row.put("long_column_" + i, System.currentTimeMillis() + i);
+					break;
+				case 2:
+					row.put("string_column_" + i, "value of column " + i);
+					break;
+				case 3:
+					row.put("date_column_" + i, new Date());
+					break;
+				case 4:
+					row.put("decimal_column_" + i, new Decimal128(new BigDecimal("12345.678")));
+					break;
+				default:
+					row.put("nested_column_" + i, new Document("status", "ok").append("tags", Arrays.asList("a", "b")));
+					break;
+			}
+		}
+		return row;
+	}
+}
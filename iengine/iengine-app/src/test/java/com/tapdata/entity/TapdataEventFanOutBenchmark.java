@@ -0,0 +1,108 @@
+package com.tapdata.entity;
+
+import io.tapdata.entity.event.dml.TapUpdateRecordEvent;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.math.BigDecimal;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Cost of sending one update record to several branches.
+ * <ul>
+ *     <li>clone: every branch gets a deep clone (previous behaviour of HazelcastBaseNode#offer)</li>
+ *     <li>share: branches share the record and copy it on write, the last writer takes the original</li>
+ * </ul>
+ * writers is the number of branches which modify the record, targets and processors do, so fanOut == writers is the
+ * usual case.
+ * <p>
+ * Run {@link #main(String[])} with the test classpath after test-compile, add "-prof gc" to compare allocation rates
+ **/
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(java.util.concurrent.TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 3)
+@Measurement(iterations = 5, time = 3)
+@Fork(1)
+public class TapdataEventFanOutBenchmark {
+
+	@Param({"clone", "share"})
+	private String mode;
+
+	@Param({"2", "6"})
+	private int fanOut;
+
+	@Param({"0", "6"})
+	private int writers;
+
+	@Param({"30"})
+	private int fields;
+
+	private Map<String, Object> before;
+	private Map<String, Object> after;
+
+	@Setup(Level.Trial)
+	public void setup() {
+		before = row(fields, 1);
+		after = row(fields, 2);
+	}
+
+	@Benchmark
+	public void fanOut(Blackhole blackhole) {
+		TapdataEvent tapdataEvent = new TapdataEvent();
+		tapdataEvent.setTapEvent(TapUpdateRecordEvent.create().table("t").before(new LinkedHashMap<>(before)).after(new LinkedHashMap<>(after)));
+		TapdataEvent.TapEventShare share = "share".equals(mode) ? new TapdataEvent.TapEventShare(fanOut) : null;
+		for (int i = 0; i < fanOut; i++) {
+			TapdataEvent branchEvent = null == share ? (TapdataEvent) tapdataEvent.clone() : tapdataEvent.shareCopy(share);
+			if (i < writers) {
+				branchEvent.ensureWritable();
+			}
+			blackhole.consume(branchEvent);
+		}
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		Options options = new OptionsBuilder()
+				.include(TapdataEventFanOutBenchmark.class.getSimpleName())
+				.build();
+		new Runner(options).run();
+	}
+
+	private static Map<String, Object> row(int fields, int rowNo) {
+		Map<String, Object> row = new LinkedHashMap<>();
+		for (int i = 0; i < fields; i++) {
+			switch (i % 4) {
+				case 0:
+					row.put("column_" + i, rowNo * 31 + i);
+					break;
+				case 1:
+					row.put("column_" + i, "value of column " + i);
+					break;
+				case 2:
+					row.put("column_" + i, new Date());
+					break;
+				default:
+					row.put("column_" + i, new BigDecimal("12345.678"));
+					break;
+			}
+		}
+		return row;
+	}
+}
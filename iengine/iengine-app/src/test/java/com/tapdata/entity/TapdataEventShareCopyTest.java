@@ -0,0 +1,82 @@
+package com.tapdata.entity;
+
+import com.tapdata.entity.dataflow.SyncProgress;
+import io.tapdata.entity.event.dml.TapInsertRecordEvent;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Branches of a fan-out share one record and copy it on write
+ **/
+public class TapdataEventShareCopyTest {
+
+	@Test
+	public void testBranchesMutateSharedRecord() {
+		TapdataEvent tapdataEvent = recordEvent();
+		TapdataEvent.TapEventShare share = new TapdataEvent.TapEventShare(2);
+		TapdataEvent branch1 = tapdataEvent.shareCopy(share);
+		TapdataEvent branch2 = tapdataEvent.shareCopy(share);
+		Assert.assertSame(branch1.getTapEvent(), branch2.getTapEvent());
+		Assert.assertTrue(branch1.isShared());
+		Assert.assertTrue(branch2.isShared());
+
+		// first writer copies the record
+		Assert.assertTrue(branch1.ensureWritable());
+		Assert.assertNotSame(branch1.getTapEvent(), branch2.getTapEvent());
+		after(branch1).put("name", "branch1");
+		Assert.assertEquals("source", after(branch2).get("name"));
+
+		// last writer takes the original record
+		Assert.assertFalse(branch2.ensureWritable());
+		Assert.assertSame(tapdataEvent.getTapEvent(), branch2.getTapEvent());
+		after(branch2).put("name", "branch2");
+		Assert.assertEquals("branch1", after(branch1).get("name"));
+		Assert.assertEquals("branch2", after(branch2).get("name"));
+
+		Assert.assertFalse(branch1.isShared());
+		Assert.assertFalse(branch1.ensureWritable());
+	}
+
+	@Test
+	public void testShareCopyKeepsCloneSemantics() {
+		TapdataEvent tapdataEvent = recordEvent();
+		TapdataEvent cloned = (TapdataEvent) tapdataEvent.clone();
+		TapdataEvent branch = tapdataEvent.shareCopy(new TapdataEvent.TapEventShare(2));
+
+		Assert.assertEquals(cloned.getOffset(), branch.getOffset());
+		Assert.assertEquals(cloned.getBatchOffset(), branch.getBatchOffset());
+		Assert.assertEquals(cloned.getStreamOffset(), branch.getStreamOffset());
+		Assert.assertEquals(cloned.getType(), branch.getType());
+		Assert.assertEquals(cloned.getFromNodeId(), branch.getFromNodeId());
+		Assert.assertEquals(cloned.getSyncStage(), branch.getSyncStage());
+		Assert.assertEquals(cloned.getSourceTime(), branch.getSourceTime());
+		Assert.assertEquals(tapdataEvent.getNodeIds(), branch.getNodeIds());
+		Assert.assertNotSame(tapdataEvent.getNodeIds(), branch.getNodeIds());
+	}
+
+	private static TapdataEvent recordEvent() {
+		Map<String, Object> after = new LinkedHashMap<>();
+		after.put("id", 1);
+		after.put("name", "source");
+		TapdataEvent tapdataEvent = new TapdataEvent();
+		tapdataEvent.setTapEvent(TapInsertRecordEvent.create().table("t").after(after));
+		tapdataEvent.setSyncStage(SyncStage.CDC);
+		tapdataEvent.setSourceTime(System.currentTimeMillis());
+		tapdataEvent.setNodeIds(new ArrayList<>(Collections.singletonList("source")));
+		tapdataEvent.setOffset(Collections.singletonMap("offset", 1));
+		tapdataEvent.setBatchOffset(Collections.singletonMap("table", 1));
+		tapdataEvent.setStreamOffset(Collections.singletonMap("position", 1));
+		tapdataEvent.setType(SyncProgress.Type.NORMAL);
+		tapdataEvent.setFromNodeId("source");
+		return tapdataEvent;
+	}
+
+	private static Map<String, Object> after(TapdataEvent tapdataEvent) {
+		return ((TapInsertRecordEvent) tapdataEvent.getTapEvent()).getAfter();
+	}
+}
@@ -0,0 +1,210 @@
+package io.tapdata.flow.engine.V2.node.hazelcast.data.pdk.compaction;
+
+import io.tapdata.entity.event.TapEvent;
+import io.tapdata.entity.event.ddl.table.TapDropFieldEvent;
+import io.tapdata.entity.event.dml.TapDeleteRecordEvent;
+import io.tapdata.entity.event.dml.TapInsertRecordEvent;
+import io.tapdata.entity.event.dml.TapUpdateRecordEvent;
+import io.tapdata.pdk.apis.entity.merge.MergeInfo;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Folding of the events of one primary key, the result must write the same rows as the events one by one
+ **/
+public class TapRecordEventCompactorTest {
+
+	private final TapRecordEventCompactor compactor = new TapRecordEventCompactor(event -> Collections.singletonList("id"), false);
+	private final TapRecordEventCompactor ignoreOnExistsCompactor = new TapRecordEventCompactor(event -> Collections.singletonList("id"), true);
+
+	@Test
+	public void testInsertOnlyBatchIsNotCopied() {
+		List<TapEvent> events = Arrays.asList(insert(1, "a"), insert(1, "b"));
+		Assert.assertSame(events, compactor.compact(events));
+	}
+
+	@Test
+	public void testInsertUpdate() {
+		TapInsertRecordEvent insert = insert(1, "a");
+		List<TapEvent> results = compactor.compact(Arrays.asList(insert, update(row(1, "a"), partial(1, "age", 18))));
+
+		Assert.assertEquals(1, results.size());
+		Assert.assertTrue(results.get(0) instanceof TapInsertRecordEvent);
+		Assert.assertEquals(row(1, "a", "age", 18), ((TapInsertRecordEvent) results.get(0)).getAfter());
+		Assert.assertEquals("t", ((TapInsertRecordEvent) results.get(0)).getTableId());
+		// the original events are not modified
+		Assert.assertEquals(row(1, "a"), insert.getAfter());
+	}
+
+	@Test
+	public void testInsertUpdateWhenIgnoreOnExists() {
+		TapInsertRecordEvent insert = insert(1, "a");
+		List<TapEvent> results = ignoreOnExistsCompactor.compact(Arrays.asList(
+				insert,
+				update(row(1, "a"), partial(1, "name", "b")),
+				update(row(1, "b"), partial(1, "age", 18))
+		));
+
+		// the row may exist and ignore the insert, the updates must still be written
+		Assert.assertEquals(2, results.size());
+		Assert.assertSame(insert, results.get(0));
+		TapUpdateRecordEvent update = (TapUpdateRecordEvent) results.get(1);
+		Assert.assertEquals(row(1, "a"), update.getBefore());
+		Assert.assertEquals(row(1, "b", "age", 18), update.getAfter());
+	}
+
+	@Test
+	public void testInsertUpdateDeleteWhenIgnoreOnExists() {
+		TapInsertRecordEvent insert = insert(1, "a");
+		TapDeleteRecordEvent delete = delete(1);
+		List<TapEvent> results = ignoreOnExistsCompactor.compact(Arrays.asList(insert, update(row(1, "a"), partial(1, "name", "b")), delete));
+
+		Assert.assertEquals(Arrays.asList(insert, delete), results);
+	}
+
+	@Test
+	public void testUpdateUpdate() {
+		List<TapEvent> results = compactor.compact(Arrays.asList(
+				update(row(1, "a"), partial(1, "name", "b")),
+				update(row(1, "b"), partial(1, "age", 18))
+		));
+
+		Assert.assertEquals(1, results.size());
+		TapUpdateRecordEvent update = (TapUpdateRecordEvent) results.get(0);
+		Assert.assertEquals(row(1, "a"), update.getBefore());
+		Assert.assertEquals(row(1, "b", "age", 18), update.getAfter());
+	}
+
+	@Test
+	public void testUpdateWithoutKeyInAfter() {
+		Map<String, Object> after = new LinkedHashMap<>();
+		after.put("name", "b");
+		List<TapEvent> results = compactor.compact(Arrays.asList(insert(1, "a"), update(row(1, "a"), after)));
+
+		Assert.assertEquals(1, results.size());
+		Assert.assertEquals(row(1, "b"), ((TapInsertRecordEvent) results.get(0)).getAfter());
+	}
+
+	@Test
+	public void testInsertDelete() {
+		TapDeleteRecordEvent delete = delete(1);
+		Assert.assertEquals(Collections.singletonList(delete), compactor.compact(Arrays.asList(insert(1, "a"), delete)));
+		Assert.assertEquals(Collections.singletonList(delete), ignoreOnExistsCompactor.compact(Arrays.asList(insert(1, "a"), delete)));
+	}
+
+	@Test
+	public void testUpdateDelete() {
+		TapDeleteRecordEvent delete = delete(1);
+		Assert.assertEquals(Collections.singletonList(delete), compactor.compact(Arrays.asList(update(row(1, "a"), row(1, "b")), delete)));
+	}
+
+	@Test
+	public void testEventsAfterDeleteNotFolded() {
+		TapDeleteRecordEvent delete = delete(1);
+		List<TapEvent> results = compactor.compact(Arrays.asList(delete, insert(1, "a"), update(row(1, "a"), row(1, "b"))));
+
+		// the insert after delete is not folded into the delete, the following update is folded into the insert
+		Assert.assertEquals(2, results.size());
+		Assert.assertSame(delete, results.get(0));
+		Assert.assertEquals(row(1, "b"), ((TapInsertRecordEvent) results.get(1)).getAfter());
+	}
+
+	@Test
+	public void testDuplicateInsertNotFolded() {
+		List<TapEvent> events = Arrays.asList(insert(1, "a"), insert(1, "b"), delete(2));
+		Assert.assertEquals(events, compactor.compact(events));
+	}
+
+	@Test
+	public void testPrimaryKeyChangeIsBarrier() {
+		TapUpdateRecordEvent changeKey = update(row(1, "a"), row(2, "a"));
+		TapUpdateRecordEvent update = update(row(2, "a"), row(2, "b"));
+		List<TapEvent> events = Arrays.asList(insert(2, "x"), changeKey, update);
+		// the update of key 2 must not be folded before the change of the primary key
+		Assert.assertEquals(events, compactor.compact(events));
+	}
+
+	@Test
+	public void testDdlIsBarrier() {
+		TapDropFieldEvent ddl = new TapDropFieldEvent();
+		ddl.setTableId("t");
+		List<TapEvent> events = Arrays.asList(insert(1, "a"), ddl, update(row(1, "a"), row(1, "b")));
+		Assert.assertEquals(events, compactor.compact(events));
+	}
+
+	@Test
+	public void testMergeInfoNotFolded() {
+		TapUpdateRecordEvent update = update(row(1, "a"), row(1, "b"));
+		update.addInfo(MergeInfo.EVENT_INFO_KEY, new MergeInfo());
+		List<TapEvent> events = Arrays.asList(insert(1, "a"), update, update(row(1, "b"), row(1, "c")));
+		Assert.assertEquals(events, compactor.compact(events));
+	}
+
+	@Test
+	public void testNoPrimaryKeyNotFolded() {
+		TapRecordEventCompactor noKeyCompactor = new TapRecordEventCompactor(event -> null, false);
+		List<TapEvent> events = Arrays.asList(insert(1, "a"), update(row(1, "a"), row(1, "b")), delete(1));
+		Assert.assertEquals(events, noKeyCompactor.compact(events));
+	}
+
+	@Test
+	public void testKeysAndTablesKeepOrder() {
+		TapUpdateRecordEvent otherTable = update(row(1, "a"), row(1, "b"));
+		otherTable.setTableId("t2");
+		List<TapEvent> results = compactor.compact(new ArrayList<>(Arrays.asList(
+				insert(1, "a"), insert(2, "a"), otherTable, update(row(2, "a"), row(2, "b")), update(row(1, "a"), row(1, "c"))
+		)));
+
+		Assert.assertEquals(3, results.size());
+		Assert.assertEquals(row(1, "c"), ((TapInsertRecordEvent) results.get(0)).getAfter());
+		Assert.assertEquals(row(2, "b"), ((TapInsertRecordEvent) results.get(1)).getAfter());
+		Assert.assertSame(otherTable, results.get(2));
+	}
+
+	@Test
+	public void testKeyValuesOfDifferentTypes() {
+		Map<String, Object> after = new LinkedHashMap<>();
+		after.put("id", 1L);
+		after.put("name", "b");
+		List<TapEvent> results = compactor.compact(Arrays.asList(insert(1, "a"), update(null, after)));
+
+		Assert.assertEquals(1, results.size());
+		Assert.assertEquals("b", ((TapInsertRecordEvent) results.get(0)).getAfter().get("name"));
+	}
+
+	private static TapInsertRecordEvent insert(int id, String name) {
+		return TapInsertRecordEvent.create().table("t").after(row(id, name));
+	}
+
+	private static TapUpdateRecordEvent update(Map<String, Object> before, Map<String, Object> after) {
+		return TapUpdateRecordEvent.create().table("t").before(before).after(after);
+	}
+
+	private static TapDeleteRecordEvent delete(int id) {
+		return TapDeleteRecordEvent.create().table("t").before(row(id, "a"));
+	}
+
+	private static Map<String, Object> row(int id, String name, Object... others) {
+		Map<String, Object> row = new LinkedHashMap<>();
+		row.put("id", id);
+		row.put("name", name);
+		for (int i = 0; i + 1 < others.length; i += 2) {
+			row.put((String) others[i], others[i + 1]);
+		}
+		return row;
+	}
+
+	private static Map<String, Object> partial(int id, String field, Object value) {
+		Map<String, Object> row = new LinkedHashMap<>();
+		row.put("id", id);
+		row.put(field, value);
+		return row;
+	}
+}
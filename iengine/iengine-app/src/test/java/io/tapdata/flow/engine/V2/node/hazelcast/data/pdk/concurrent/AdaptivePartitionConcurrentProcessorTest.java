@@ -0,0 +1,254 @@
+package io.tapdata.flow.engine.V2.node.hazelcast.data.pdk.concurrent;
+
+import com.tapdata.entity.TapdataEvent;
+import com.tapdata.tm.commons.task.dto.TaskDto;
+import io.tapdata.entity.event.dml.TapInsertRecordEvent;
+import io.tapdata.flow.engine.V2.node.hazelcast.data.pdk.concurrent.partitioner.PartitionResult;
+import io.tapdata.flow.engine.V2.node.hazelcast.data.pdk.concurrent.selector.TapEventPartitionKeySelector;
+import org.bson.types.ObjectId;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+/**
+ * Events of one key are processed in order by one worker at a time, even when idle workers steal the key slots
+ **/
+public class AdaptivePartitionConcurrentProcessorTest {
+
+	private static final int MAX_WORKERS = 4;
+	private static final int BATCH_SIZE = 10;
+
+	private final List<String> violations = new CopyOnWriteArrayList<>();
+	private final Map<Integer, AtomicInteger> inflight = new ConcurrentHashMap<>();
+	// events handed to the writer and events written successfully, by key
+	private final Map<Integer, List<Integer>> seen = new ConcurrentHashMap<>();
+	private final Map<Integer, List<Integer>> processed = new ConcurrentHashMap<>();
+	private final Map<Integer, List<String>> processThreads = new ConcurrentHashMap<>();
+	private final List<TapdataEvent> flushed = new CopyOnWriteArrayList<>();
+	private final List<Throwable> errors = new CopyOnWriteArrayList<>();
+	private AdaptivePartitionConcurrentProcessor processor;
+
+	@After
+	public void after() {
+		if (processor != null) {
+			processor.forceStop();
+		}
+	}
+
+	@Test(timeout = 60000L)
+	public void testKeyOrderUnderStealing() {
+		final Random random = new Random(7L);
+		processor = createProcessor(events -> {
+			for (TapdataEvent event : events) {
+				if (key(event) == 0) {
+					// hot key is slow, its slot holds a worker while the others steal the rest
+					LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(50L));
+				}
+			}
+		});
+		processor.start();
+
+		final int keys = 16;
+		final int[] seqs = new int[keys];
+		List<TapdataEvent> lastBatch = null;
+		for (int batch = 0; batch < 50; batch++) {
+			final List<TapdataEvent> events = new ArrayList<>();
+			for (int i = 0; i < 100; i++) {
+				// half of the events belong to the hot key
+				final int key = random.nextBoolean() ? 0 : 1 + random.nextInt(keys - 1);
+				events.add(event(key, seqs[key]++));
+			}
+			processor.process(events, true);
+			lastBatch = events;
+		}
+		processor.stop();
+
+		Assert.assertEquals(Collections.emptyList(), violations);
+		Assert.assertEquals(Collections.emptyList(), errors);
+		for (int key = 0; key < keys; key++) {
+			Assert.assertEquals("key " + key, seqs[key], processed.getOrDefault(key, Collections.emptyList()).size());
+		}
+		Assert.assertFalse(flushed.isEmpty());
+		Assert.assertSame(lastBatch.get(lastBatch.size() - 1), flushed.get(flushed.size() - 1));
+	}
+
+	@Test(timeout = 60000L)
+	public void testBlockedKeyIsNotStolen() throws Exception {
+		final CountDownLatch blocked = new CountDownLatch(1);
+		final CountDownLatch release = new CountDownLatch(1);
+		processor = createProcessor(events -> {
+			for (TapdataEvent event : events) {
+				if (key(event) == 0 && seq(event) == 0) {
+					blocked.countDown();
+					try {
+						release.await();
+					} catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+					}
+				}
+			}
+		});
+		processor.start();
+
+		processor.process(Collections.singletonList(event(0, 0)), true);
+		Assert.assertTrue(blocked.await(10L, TimeUnit.SECONDS));
+		final String blockedThread = processThreads.get(0).get(0);
+		final int blockedWorker = Integer.parseInt(blockedThread.substring(blockedThread.lastIndexOf('-') + 1));
+
+		// slots of these keys are scheduled to the deque of the blocked worker, only a thief can process them
+		final List<Integer> stolenKeys = new ArrayList<>();
+		final List<TapdataEvent> events = new ArrayList<>();
+		for (int seq = 1; seq <= 4; seq++) {
+			events.add(event(0, seq));
+		}
+		for (int key = blockedWorker + 2; stolenKeys.size() < 4; key += 2) {
+			stolenKeys.add(key);
+			for (int seq = 0; seq < 3; seq++) {
+				events.add(event(key, seq));
+			}
+		}
+		processor.process(events, true);
+
+		for (Integer key : stolenKeys) {
+			while (processed.getOrDefault(key, Collections.emptyList()).size() < 3) {
+				TimeUnit.MILLISECONDS.sleep(10L);
+			}
+			for (String thread : processThreads.get(key)) {
+				Assert.assertNotEquals(blockedThread, thread);
+			}
+		}
+		// the blocked key keeps its worker, the following events of it wait in the slot
+		Assert.assertEquals(Collections.singletonList(0), seen.get(0));
+		Assert.assertNull(processed.get(0));
+
+		release.countDown();
+		processor.stop();
+
+		Assert.assertEquals(Arrays.asList(0, 1, 2, 3, 4), processed.get(0));
+		Assert.assertEquals(Collections.emptyList(), violations);
+		Assert.assertEquals(Collections.emptyList(), errors);
+	}
+
+	@Test(timeout = 60000L)
+	public void testErrorStopsProcessor() throws Exception {
+		final RuntimeException failure = new RuntimeException("write failed");
+		final CountDownLatch failed = new CountDownLatch(1);
+		processor = createProcessor(events -> {
+			for (TapdataEvent event : events) {
+				if (key(event) == 3 && seq(event) == 2) {
+					throw failure;
+				}
+			}
+		}, failed);
+		processor.start();
+
+		final List<TapdataEvent> events = new ArrayList<>();
+		for (int seq = 0; seq < 5; seq++) {
+			for (int key = 0; key < 8; key++) {
+				events.add(event(key, seq));
+			}
+		}
+		// sync process must return after the failure instead of waiting for the pending events
+		processor.process(events, false);
+		Assert.assertTrue(failed.await(10L, TimeUnit.SECONDS));
+		Assert.assertEquals(1, errors.size());
+		Assert.assertSame(failure, errors.get(0));
+
+		// stop does not wait for the pending events once the processor failed
+		processor.stop();
+		final List<Integer> failedKey = processed.getOrDefault(3, Collections.emptyList());
+		Assert.assertFalse(failedKey.contains(2));
+		Assert.assertFalse(failedKey.contains(3));
+		Assert.assertFalse(failedKey.contains(4));
+
+		// a stopped processor accepts no more events
+		final int processedCount = processed.values().stream().mapToInt(List::size).sum();
+		processor.process(Collections.singletonList(event(0, 5)), false);
+		Assert.assertEquals(processedCount, processed.values().stream().mapToInt(List::size).sum());
+		Assert.assertFalse(seen.getOrDefault(0, Collections.emptyList()).contains(5));
+		Assert.assertEquals(1, errors.size());
+		Assert.assertEquals(Collections.emptyList(), violations);
+	}
+
+	private AdaptivePartitionConcurrentProcessor createProcessor(Consumer<List<TapdataEvent>> writer) {
+		return createProcessor(writer, new CountDownLatch(1));
+	}
+
+	/**
+	 * Wrap the writer, check every key is processed by one worker at a time and in sequence order
+	 */
+	private AdaptivePartitionConcurrentProcessor createProcessor(Consumer<List<TapdataEvent>> writer, CountDownLatch failed) {
+		final TaskDto taskDto = new TaskDto();
+		taskDto.setId(new ObjectId());
+		taskDto.setName("test");
+		return new AdaptivePartitionConcurrentProcessor(
+				MAX_WORKERS,
+				BATCH_SIZE,
+				(partitionSize, event, partitionValue) -> new PartitionResult<>(((Number) partitionValue.get(0)).intValue() % partitionSize, event),
+				new TapEventPartitionKeySelector(tapEvent -> Collections.singletonList("id")),
+				events -> {
+					final List<Integer> keys = new ArrayList<>();
+					for (TapdataEvent event : events) {
+						final int key = key(event);
+						if (!keys.contains(key)) {
+							keys.add(key);
+							if (inflight.computeIfAbsent(key, k -> new AtomicInteger()).incrementAndGet() > 1) {
+								violations.add("key " + key + " is processed by two workers");
+							}
+						}
+						final List<Integer> seqs = seen.computeIfAbsent(key, k -> new CopyOnWriteArrayList<>());
+						if (seq(event) != seqs.size()) {
+							violations.add("key " + key + " expect seq " + seqs.size() + " but " + seq(event));
+						}
+						seqs.add(seq(event));
+						processThreads.computeIfAbsent(key, k -> new CopyOnWriteArrayList<>()).add(Thread.currentThread().getName());
+					}
+					try {
+						writer.accept(events);
+						events.forEach(event -> processed.computeIfAbsent(key(event), k -> new CopyOnWriteArrayList<>()).add(seq(event)));
+					} finally {
+						keys.forEach(key -> inflight.get(key).decrementAndGet());
+					}
+				},
+				flushed::add,
+				(throwable, message) -> {
+					errors.add(throwable);
+					failed.countDown();
+				},
+				() -> true,
+				taskDto
+		);
+	}
+
+	private static TapdataEvent event(int key, int seq) {
+		final Map<String, Object> after = new LinkedHashMap<>();
+		after.put("id", key);
+		after.put("seq", seq);
+		final TapdataEvent tapdataEvent = new TapdataEvent();
+		tapdataEvent.setTapEvent(TapInsertRecordEvent.create().table("t").after(after));
+		return tapdataEvent;
+	}
+
+	private static int key(TapdataEvent tapdataEvent) {
+		return (int) ((TapInsertRecordEvent) tapdataEvent.getTapEvent()).getAfter().get("id");
+	}
+
+	private static int seq(TapdataEvent tapdataEvent) {
+		return (int) ((TapInsertRecordEvent) tapdataEvent.getTapEvent()).getAfter().get("seq");
+	}
+}
@@ -0,0 +1,170 @@
+package io.tapdata.flow.engine.V2.node.hazelcast.processor.join;
+
+import io.tapdata.HazelcastConstruct;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per event cost of the join cache, the former layout (join key -> all rows of the join key, read and written back as a
+ * whole) against {@link JoinKeyIndexedCache} (pk -> row, join key -> pks)
+ * <p>
+ * The in-memory construct copies values on read and write like IMap does, run {@link #main(String[])} with the test
+ * classpath after test-compile
+ **/
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgs = {"-Xms16g", "-Xmx16g"})
+public class JoinKeyIndexedCacheBenchmark {
+
+	@Param({"1000000", "10000000"})
+	private int rows;
+
+	@Param({"10", "1000"})
+	private int rowsPerJoinKey;
+
+	private int joinKeys;
+	private HazelcastConstruct<Map<String, Map<String, Object>>> groupCache;
+	private JoinKeyIndexedCache indexedCache;
+
+	@Setup(Level.Trial)
+	public void setup() throws Exception {
+		joinKeys = Math.max(1, rows / rowsPerJoinKey);
+		groupCache = new CopyOnAccessConstruct<>();
+		indexedCache = new JoinKeyIndexedCache(new CopyOnAccessConstruct<>(), new CopyOnAccessConstruct<>(), row -> String.valueOf(row.get("joinKey")));
+		Map<String, Map<String, Map<String, Object>>> groups = new HashMap<>(joinKeys * 4 / 3 + 1);
+		for (int i = 0; i < rows; i++) {
+			Map<String, Object> row = row(i, i % joinKeys);
+			groups.computeIfAbsent(joinKey(i % joinKeys), k -> new HashMap<>()).put(primaryKey(i), row);
+			indexedCache.upsert(primaryKey(i), row);
+		}
+		for (Map.Entry<String, Map<String, Map<String, Object>>> entry : groups.entrySet()) {
+			groupCache.upsert(entry.getKey(), entry.getValue());
+		}
+	}
+
+	@Benchmark
+	public Object groupUpsert() throws Exception {
+		int id = ThreadLocalRandom.current().nextInt(rows);
+		String joinKey = joinKey(id % joinKeys);
+		Map<String, Map<String, Object>> group = groupCache.find(joinKey);
+		group.put(primaryKey(id), row(id, id % joinKeys));
+		return groupCache.upsert(joinKey, group);
+	}
+
+	@Benchmark
+	public Object indexedUpsert() throws Exception {
+		int id = ThreadLocalRandom.current().nextInt(rows);
+		return indexedCache.upsert(primaryKey(id), row(id, id % joinKeys));
+	}
+
+	@Benchmark
+	public Object groupLookup() throws Exception {
+		return groupCache.find(joinKey(ThreadLocalRandom.current().nextInt(joinKeys)));
+	}
+
+	@Benchmark
+	public Object indexedLookup() throws Exception {
+		return indexedCache.find(joinKey(ThreadLocalRandom.current().nextInt(joinKeys)));
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		Options options = new OptionsBuilder()
+				.include(JoinKeyIndexedCacheBenchmark.class.getSimpleName())
+				.build();
+		new Runner(options).run();
+	}
+
+	private static String primaryKey(int id) {
+		return "[" + id + "]";
+	}
+
+	private static String joinKey(int joinKey) {
+		return "[" + joinKey + "]";
+	}
+
+	private static Map<String, Object> row(int id, int joinKey) {
+		Map<String, Object> row = new HashMap<>();
+		row.put("id", id);
+		row.put("joinKey", joinKey);
+		row.put("name", "name-" + id);
+		return row;
+	}
+
+	/**
+	 * Values are copied on every read and write, as IMap (de)serializes them
+	 */
+	private static class CopyOnAccessConstruct<T> implements HazelcastConstruct<T> {
+		private final Map<String, T> map = new HashMap<>();
+
+		@Override
+		public int upsert(String key, T data) {
+			map.put(key, copy(data));
+			return 1;
+		}
+
+		@Override
+		public int delete(String key) {
+			map.remove(key);
+			return 1;
+		}
+
+		@Override
+		public T find(String key) {
+			return copy(map.get(key));
+		}
+
+		@Override
+		public boolean exists(String key) {
+			return map.containsKey(key);
+		}
+
+		@Override
+		public void clear() {
+			map.clear();
+		}
+
+		@Override
+		public String getType() {
+			return "Memory";
+		}
+
+		@SuppressWarnings("unchecked")
+		private static <T> T copy(T value) {
+			if (value instanceof Map) {
+				Map<Object, Object> copy = new HashMap<>();
+				for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+					copy.put(entry.getKey(), copy(entry.getValue()));
+				}
+				return (T) copy;
+			}
+			if (value instanceof Set) {
+				return (T) new HashSet<>((Set<?>) value);
+			}
+			return value;
+		}
+	}
+}
@@ -0,0 +1,224 @@
+package io.tapdata.flow.engine.V2.util;
+
+import com.hazelcast.config.Config;
+import com.hazelcast.core.Hazelcast;
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.jet.Job;
+import com.hazelcast.jet.core.AbstractProcessor;
+import com.hazelcast.jet.core.DAG;
+import com.hazelcast.jet.core.Edge;
+import com.hazelcast.jet.core.Inbox;
+import com.hazelcast.jet.core.Vertex;
+import org.jetbrains.annotations.NotNull;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Many light tasks on one engine, every task is source -> processor -> target like a task with a field rename processor.
+ * <ul>
+ *     <li>blocking: every vertex is non-cooperative, the source waits on its event queue and the target writes in
+ *     process (previous behaviour)</li>
+ *     <li>cooperative: the source polls without waiting, the target writes on a shared io pool, see
+ *     {@link CooperativeModeUtil}</li>
+ * </ul>
+ * A background feeder sends a low rate of events to every task, the benchmark measures the latency of one event through
+ * a random task with all tasks running. The number of engine threads is printed at setup. The connector stream read
+ * threads are the same in both modes and are not part of the benchmark.
+ * <p>
+ * Run {@link #main(String[])} with the test classpath after test-compile
+ **/
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class CooperativeModeBenchmark {
+
+	private static final long WRITE_NANOS = TimeUnit.MILLISECONDS.toNanos(1L);
+	private static final Map<Integer, LinkedBlockingQueue<CompletableFuture<Long>>> QUEUES = new ConcurrentHashMap<>();
+	private static final ExecutorService IO_POOL = Executors.newFixedThreadPool(8);
+
+	@Param({"blocking", "cooperative"})
+	private String mode;
+
+	@Param({"50", "300"})
+	private int tasks;
+
+	private HazelcastInstance hazelcastInstance;
+	private final List<Job> jobs = new ArrayList<>();
+	private ScheduledExecutorService feeder;
+
+	@Setup(Level.Trial)
+	public void setup() {
+		int baseThreads = ManagementFactory.getThreadMXBean().getThreadCount();
+		Config config = new Config();
+		config.setClusterName("cooperative-mode-benchmark");
+		config.getJetConfig().setEnabled(true);
+		config.getNetworkConfig().getJoin().getMulticastConfig().setEnabled(false);
+		hazelcastInstance = Hazelcast.newHazelcastInstance(config);
+		boolean cooperative = "cooperative".equals(mode);
+		for (int i = 0; i < tasks; i++) {
+			QUEUES.put(i, new LinkedBlockingQueue<>());
+			jobs.add(hazelcastInstance.getJet().newJob(lightTask(i, cooperative)));
+		}
+		// low rate cdc events, one event per task every 100 ms
+		feeder = Executors.newSingleThreadScheduledExecutor();
+		feeder.scheduleAtFixedRate(() -> QUEUES.values().forEach(queue -> queue.offer(new CompletableFuture<>())), 100L, 100L, TimeUnit.MILLISECONDS);
+		LockSupport.parkNanos(TimeUnit.SECONDS.toNanos(5L));
+		System.out.println("\nmode: " + mode + ", tasks: " + tasks + ", engine threads: "
+				+ (ManagementFactory.getThreadMXBean().getThreadCount() - baseThreads));
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		feeder.shutdownNow();
+		jobs.forEach(Job::cancel);
+		jobs.clear();
+		hazelcastInstance.shutdown();
+		QUEUES.clear();
+	}
+
+	@Benchmark
+	public Long eventLatency() throws Exception {
+		CompletableFuture<Long> event = new CompletableFuture<>();
+		QUEUES.get(ThreadLocalRandom.current().nextInt(tasks)).offer(event);
+		return event.get(30L, TimeUnit.SECONDS);
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		Options options = new OptionsBuilder()
+				.include(CooperativeModeBenchmark.class.getSimpleName())
+				.build();
+		new Runner(options).run();
+	}
+
+	private static DAG lightTask(int taskNo, boolean cooperative) {
+		DAG dag = new DAG();
+		Vertex source = dag.newVertex("source", () -> new QueueSource(taskNo, cooperative)).localParallelism(1);
+		Vertex processor = dag.newVertex("processor", () -> new PassThrough(cooperative)).localParallelism(1);
+		Vertex target = dag.newVertex("target", () -> new SlowTarget(cooperative)).localParallelism(1);
+		dag.edge(Edge.between(source, processor)).edge(Edge.between(processor, target));
+		return dag;
+	}
+
+	private static class QueueSource extends AbstractProcessor {
+		private final int taskNo;
+		private final boolean cooperative;
+		private CompletableFuture<Long> pending;
+
+		private QueueSource(int taskNo, boolean cooperative) {
+			this.taskNo = taskNo;
+			this.cooperative = cooperative;
+		}
+
+		@Override
+		public boolean isCooperative() {
+			return cooperative;
+		}
+
+		@Override
+		public boolean complete() {
+			if (null == pending) {
+				try {
+					pending = cooperative ? QUEUES.get(taskNo).poll() : QUEUES.get(taskNo).poll(5L, TimeUnit.SECONDS);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					return true;
+				}
+			}
+			if (null != pending && tryEmit(pending)) {
+				pending = null;
+			}
+			return false;
+		}
+	}
+
+	private static class PassThrough extends AbstractProcessor {
+		private final boolean cooperative;
+
+		private PassThrough(boolean cooperative) {
+			this.cooperative = cooperative;
+		}
+
+		@Override
+		public boolean isCooperative() {
+			return cooperative;
+		}
+
+		@Override
+		protected boolean tryProcess(int ordinal, @NotNull Object item) {
+			return tryEmit(item);
+		}
+	}
+
+	private static class SlowTarget extends AbstractProcessor {
+		private final boolean cooperative;
+		private CompletableFuture<Void> pendingWrite;
+
+		private SlowTarget(boolean cooperative) {
+			this.cooperative = cooperative;
+		}
+
+		@Override
+		public boolean isCooperative() {
+			return cooperative;
+		}
+
+		@Override
+		public void process(int ordinal, @NotNull Inbox inbox) {
+			if (!cooperative) {
+				List<CompletableFuture<Long>> events = new ArrayList<>();
+				inbox.drainTo(events);
+				write(events);
+				return;
+			}
+			if (null != pendingWrite && !pendingWrite.isDone()) {
+				return;
+			}
+			List<CompletableFuture<Long>> events = new ArrayList<>();
+			inbox.drainTo(events);
+			pendingWrite = CompletableFuture.runAsync(() -> write(events), IO_POOL);
+		}
+
+		@Override
+		public boolean complete() {
+			return null == pendingWrite || pendingWrite.isDone();
+		}
+
+		private static void write(List<CompletableFuture<Long>> events) {
+			LockSupport.parkNanos(WRITE_NANOS);
+			long now = System.nanoTime();
+			events.forEach(event -> event.complete(now));
+		}
+	}
+}
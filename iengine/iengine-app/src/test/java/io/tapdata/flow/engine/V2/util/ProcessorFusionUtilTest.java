@@ -0,0 +1,199 @@
+package io.tapdata.flow.engine.V2.util;
+
+import com.tapdata.tm.commons.dag.Edge;
+import com.tapdata.tm.commons.dag.Node;
+import com.tapdata.tm.commons.dag.nodes.TableNode;
+import com.tapdata.tm.commons.dag.process.CacheLookupProcessorNode;
+import com.tapdata.tm.commons.dag.process.FieldAddDelProcessorNode;
+import com.tapdata.tm.commons.dag.process.FieldCalcProcessorNode;
+import com.tapdata.tm.commons.dag.process.FieldProcessorNode;
+import com.tapdata.tm.commons.dag.process.FieldRenameProcessorNode;
+import com.tapdata.tm.commons.dag.process.JsProcessorNode;
+import com.tapdata.tm.commons.dag.process.RowFilterProcessorNode;
+import io.github.openlg.graphlib.Graph;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Vertex grouping of task DAGs, every edge must either be inside a fused chain or connect two vertices
+ **/
+public class ProcessorFusionUtilTest {
+
+	private final Graph<Node, Edge> graph = new Graph<>();
+	private final List<Node> nodes = new ArrayList<>();
+	private final List<Edge> edges = new ArrayList<>();
+
+	@After
+	public void after() {
+		System.clearProperty(ProcessorFusionUtil.PROCESSOR_FUSION_ENABLE_KEY);
+	}
+
+	@Test
+	public void testFuseConsecutiveProcessors() {
+		node(new TableNode(), "source");
+		node(new FieldRenameProcessorNode(), "rename");
+		node(new FieldAddDelProcessorNode(), "addDel");
+		node(new TableNode(), "target");
+		edge("source", "rename");
+		edge("rename", "addDel");
+		edge("addDel", "target");
+
+		List<List<Node>> groups = ProcessorFusionUtil.groupNodes(nodes);
+
+		Assert.assertEquals(Arrays.asList(
+				Collections.singletonList("source"),
+				Arrays.asList("rename", "addDel"),
+				Collections.singletonList("target")
+		), ids(groups));
+		Assert.assertEquals(Collections.singleton(ProcessorFusionUtil.edgeKey("rename", "addDel")), ProcessorFusionUtil.fusedEdgeKeys(groups));
+		assertEdgesCovered(groups);
+	}
+
+	@Test
+	public void testFuseFieldAndRowFilterProcessors() {
+		node(new TableNode(), "source");
+		node(new FieldProcessorNode(), "field");
+		node(new RowFilterProcessorNode(), "filter");
+		node(new FieldCalcProcessorNode(), "calc");
+		node(new TableNode(), "target");
+		edge("source", "field");
+		edge("field", "filter");
+		edge("filter", "calc");
+		edge("calc", "target");
+
+		List<List<Node>> groups = ProcessorFusionUtil.groupNodes(nodes);
+
+		Assert.assertEquals(Arrays.asList(
+				Collections.singletonList("source"),
+				Arrays.asList("field", "filter", "calc"),
+				Collections.singletonList("target")
+		), ids(groups));
+		assertEdgesCovered(groups);
+	}
+
+	@Test
+	public void testScriptNodeOnlyChainHead() {
+		node(new TableNode(), "source");
+		node(new FieldRenameProcessorNode(), "rename");
+		node(new JsProcessorNode(), "js");
+		node(new FieldAddDelProcessorNode(), "addDel");
+		node(new TableNode(), "target");
+		edge("source", "rename");
+		edge("rename", "js");
+		edge("js", "addDel");
+		edge("addDel", "target");
+
+		List<List<Node>> groups = ProcessorFusionUtil.groupNodes(nodes);
+
+		// the script node gets the Jet inbox only as the head of a chain
+		Assert.assertEquals(Arrays.asList(
+				Collections.singletonList("source"),
+				Collections.singletonList("rename"),
+				Arrays.asList("js", "addDel"),
+				Collections.singletonList("target")
+		), ids(groups));
+		Assert.assertEquals(Collections.singleton(ProcessorFusionUtil.edgeKey("js", "addDel")), ProcessorFusionUtil.fusedEdgeKeys(groups));
+		assertEdgesCovered(groups);
+	}
+
+	@Test
+	public void testConsecutiveScriptNodesNotFused() {
+		node(new TableNode(), "source");
+		node(new CacheLookupProcessorNode(), "lookup");
+		node(new JsProcessorNode(), "js");
+		node(new TableNode(), "target");
+		edge("source", "lookup");
+		edge("lookup", "js");
+		edge("js", "target");
+
+		List<List<Node>> groups = ProcessorFusionUtil.groupNodes(nodes);
+
+		Assert.assertEquals(4, groups.size());
+		Assert.assertTrue(ProcessorFusionUtil.fusedEdgeKeys(groups).isEmpty());
+		assertEdgesCovered(groups);
+	}
+
+	@Test
+	public void testBranchNotFused() {
+		node(new TableNode(), "source");
+		node(new FieldRenameProcessorNode(), "rename");
+		node(new FieldAddDelProcessorNode(), "addDel1");
+		node(new FieldAddDelProcessorNode(), "addDel2");
+		node(new TableNode(), "target1");
+		node(new TableNode(), "target2");
+		edge("source", "rename");
+		edge("rename", "addDel1");
+		edge("rename", "addDel2");
+		edge("addDel1", "target1");
+		edge("addDel2", "target2");
+
+		List<List<Node>> groups = ProcessorFusionUtil.groupNodes(nodes);
+
+		Assert.assertEquals(6, groups.size());
+		Assert.assertTrue(ProcessorFusionUtil.fusedEdgeKeys(groups).isEmpty());
+		assertEdgesCovered(groups);
+	}
+
+	@Test
+	public void testFusionDisabled() {
+		System.setProperty(ProcessorFusionUtil.PROCESSOR_FUSION_ENABLE_KEY, "false");
+		node(new TableNode(), "source");
+		node(new FieldRenameProcessorNode(), "rename");
+		node(new FieldAddDelProcessorNode(), "addDel");
+		node(new TableNode(), "target");
+		edge("source", "rename");
+		edge("rename", "addDel");
+		edge("addDel", "target");
+
+		List<List<Node>> groups = ProcessorFusionUtil.groupNodes(nodes);
+
+		Assert.assertEquals(4, groups.size());
+		Assert.assertTrue(ProcessorFusionUtil.fusedEdgeKeys(groups).isEmpty());
+		assertEdgesCovered(groups);
+	}
+
+	/**
+	 * Same wiring as the task service: a group has its head as entry and its tail as exit
+	 */
+	private void assertEdgesCovered(List<List<Node>> groups) {
+		Set<String> fusedEdgeKeys = ProcessorFusionUtil.fusedEdgeKeys(groups);
+		Set<String> heads = groups.stream().map(group -> group.get(0).getId()).collect(Collectors.toSet());
+		Set<String> tails = groups.stream().map(group -> group.get(group.size() - 1).getId()).collect(Collectors.toSet());
+		Assert.assertEquals(nodes.size(), groups.stream().mapToInt(List::size).sum());
+		for (Edge edge : edges) {
+			if (fusedEdgeKeys.contains(ProcessorFusionUtil.edgeKey(edge.getSource(), edge.getTarget()))) {
+				continue;
+			}
+			Assert.assertTrue("edge source is not a vertex exit: " + edge.getSource(), tails.contains(edge.getSource()));
+			Assert.assertTrue("edge target is not a vertex entry: " + edge.getTarget(), heads.contains(edge.getTarget()));
+		}
+	}
+
+	private void node(Node node, String id) {
+		node.setId(id);
+		node.setName(id);
+		node.setGraph(graph);
+		graph.setNode(id, node);
+		nodes.add(node);
+	}
+
+	private void edge(String source, String target) {
+		Edge edge = new Edge(source, target);
+		graph.setEdge(source, target, edge);
+		edges.add(edge);
+	}
+
+	private static List<List<String>> ids(List<List<Node>> groups) {
+		return groups.stream()
+				.map(group -> group.stream().map(Node::getId).collect(Collectors.toList()))
+				.collect(Collectors.toList());
+	}
+}
@@ -0,0 +1,299 @@
+package com.tapdata.cache.hazelcast.serializer;
+
+import com.hazelcast.nio.ObjectDataInput;
+import com.hazelcast.nio.ObjectDataOutput;
+import com.hazelcast.nio.serialization.StreamSerializer;
+import org.bson.Document;
+import org.bson.types.Decimal128;
+import org.bson.types.ObjectId;
+
+import javax.annotation.Nonnull;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compact encoding of the documents kept in hazelcast (merge caches, share cdc ringbuffer), instead of java
+ * serialization of {@link Document}:
+ * <ul>
+ *     <li>a field name is written once per serialized document, the following occurrences in nested documents and
+ *     lists are written as the index of the name in the document's name table</li>
+ *     <li>integers, longs and dates are zigzag varints</li>
+ *     <li>strings are utf-8 bytes with varint length</li>
+ *     <li>nested documents, maps and lists are written inline, other types fall back to hazelcast serialization</li>
+ * </ul>
+ * The name table is part of the serialized bytes, so they can be read by any member or after restart.
+ * <p>
+ * Containers are read back as the type of their encoding, not as the written class: a {@link Document} (or subclass)
+ * as {@link Document}, any other map with string keys as {@link LinkedHashMap}, any list as {@link ArrayList}, in the
+ * same iteration order. Maps with other keys fall back to hazelcast serialization
+ */
+public class DocumentStreamSerializer implements StreamSerializer<Document> {
+
+	public static final int TYPE_ID = 1234565770;
+
+	private static final byte NULL = 0;
+	private static final byte STRING = 1;
+	private static final byte INT = 2;
+	private static final byte LONG = 3;
+	private static final byte DOUBLE = 4;
+	private static final byte FLOAT = 5;
+	private static final byte TRUE = 6;
+	private static final byte FALSE = 7;
+	private static final byte DATE = 8;
+	private static final byte OBJECT_ID = 9;
+	private static final byte DECIMAL128 = 10;
+	private static final byte BIG_DECIMAL = 11;
+	private static final byte BYTES = 12;
+	private static final byte DOCUMENT = 13;
+	private static final byte MAP = 14;
+	private static final byte LIST = 15;
+	private static final byte OBJECT = 16;
+
+	@Override
+	public void write(@Nonnull ObjectDataOutput out, @Nonnull Document document) throws IOException {
+		writeFields(out, document, new HashMap<>());
+	}
+
+	@Nonnull
+	@Override
+	public Document read(@Nonnull ObjectDataInput in) throws IOException {
+		Document document = new Document();
+		readFields(in, document, new ArrayList<>());
+		return document;
+	}
+
+	@Override
+	public int getTypeId() {
+		return TYPE_ID;
+	}
+
+	private void writeFields(ObjectDataOutput out, Map<?, ?> map, Map<String, Integer> nameTable) throws IOException {
+		writeVarInt(out, map.size());
+		for (Map.Entry<?, ?> entry : map.entrySet()) {
+			writeFieldName(out, (String) entry.getKey(), nameTable);
+			writeValue(out, entry.getValue(), nameTable);
+		}
+	}
+
+	private void readFields(ObjectDataInput in, Map<String, Object> map, List<String> nameTable) throws IOException {
+		int size = readVarInt(in);
+		for (int i = 0; i < size; i++) {
+			String name = readFieldName(in, nameTable);
+			map.put(name, readValue(in, nameTable));
+		}
+	}
+
+	/**
+	 * Index in the name table as (index << 1), or (length << 1 | 1) followed by the name when it is first written
+	 */
+	private static void writeFieldName(ObjectDataOutput out, String name, Map<String, Integer> nameTable) throws IOException {
+		Integer index = nameTable.get(name);
+		if (null != index) {
+			writeVarInt(out, index << 1);
+			return;
+		}
+		nameTable.put(name, nameTable.size());
+		byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+		writeVarInt(out, (bytes.length << 1) | 1);
+		out.write(bytes);
+	}
+
+	private static String readFieldName(ObjectDataInput in, List<String> nameTable) throws IOException {
+		int value = readVarInt(in);
+		if ((value & 1) == 0) {
+			int index = value >>> 1;
+			if (index >= nameTable.size()) {
+				throw new IOException("Unknown field name index " + index + " in serialized document, name table size " + nameTable.size());
+			}
+			return nameTable.get(index);
+		}
+		byte[] bytes = new byte[value >>> 1];
+		in.readFully(bytes);
+		String name = new String(bytes, StandardCharsets.UTF_8);
+		nameTable.add(name);
+		return name;
+	}
+
+	private void writeValue(ObjectDataOutput out, Object value, Map<String, Integer> nameTable) throws IOException {
+		if (null == value) {
+			out.writeByte(NULL);
+		} else if (value instanceof String) {
+			out.writeByte(STRING);
+			writeString(out, (String) value);
+		} else if (value instanceof Integer) {
+			out.writeByte(INT);
+			writeVarLong(out, zigzag((Integer) value));
+		} else if (value instanceof Long) {
+			out.writeByte(LONG);
+			writeVarLong(out, zigzag((Long) value));
+		} else if (value instanceof Double) {
+			out.writeByte(DOUBLE);
+			out.writeDouble((Double) value);
+		} else if (value instanceof Float) {
+			out.writeByte(FLOAT);
+			out.writeFloat((Float) value);
+		} else if (value instanceof Boolean) {
+			out.writeByte((Boolean) value ? TRUE : FALSE);
+		} else if (value.getClass() == Date.class) {
+			out.writeByte(DATE);
+			writeVarLong(out, zigzag(((Date) value).getTime()));
+		} else if (value instanceof ObjectId) {
+			out.writeByte(OBJECT_ID);
+			out.write(((ObjectId) value).toByteArray());
+		} else if (value instanceof Decimal128) {
+			out.writeByte(DECIMAL128);
+			out.writeLong(((Decimal128) value).getHigh());
+			out.writeLong(((Decimal128) value).getLow());
+		} else if (value instanceof BigDecimal) {
+			out.writeByte(BIG_DECIMAL);
+			writeVarLong(out, zigzag(((BigDecimal) value).scale()));
+			writeBytes(out, ((BigDecimal) value).unscaledValue().toByteArray());
+		} else if (value instanceof byte[]) {
+			out.writeByte(BYTES);
+			writeBytes(out, (byte[]) value);
+		} else if (value instanceof Document) {
+			out.writeByte(DOCUMENT);
+			writeFields(out, (Document) value, nameTable);
+		} else if (value instanceof Map && hasStringKeys((Map<?, ?>) value)) {
+			out.writeByte(MAP);
+			writeFields(out, (Map<?, ?>) value, nameTable);
+		} else if (value instanceof List) {
+			out.writeByte(LIST);
+			List<?> list = (List<?>) value;
+			writeVarInt(out, list.size());
+			for (Object element : list) {
+				writeValue(out, element, nameTable);
+			}
+		} else {
+			out.writeByte(OBJECT);
+			out.writeObject(value);
+		}
+	}
+
+	private Object readValue(ObjectDataInput in, List<String> nameTable) throws IOException {
+		byte type = in.readByte();
+		switch (type) {
+			case NULL:
+				return null;
+			case STRING:
+				return readString(in);
+			case INT:
+				return (int) unzigzag(readVarLong(in));
+			case LONG:
+				return unzigzag(readVarLong(in));
+			case DOUBLE:
+				return in.readDouble();
+			case FLOAT:
+				return in.readFloat();
+			case TRUE:
+				return Boolean.TRUE;
+			case FALSE:
+				return Boolean.FALSE;
+			case DATE:
+				return new Date(unzigzag(readVarLong(in)));
+			case OBJECT_ID:
+				byte[] objectId = new byte[12];
+				in.readFully(objectId);
+				return new ObjectId(objectId);
+			case DECIMAL128:
+				long high = in.readLong();
+				return Decimal128.fromIEEE754BIDEncoding(high, in.readLong());
+			case BIG_DECIMAL:
+				int scale = (int) unzigzag(readVarLong(in));
+				return new BigDecimal(new BigInteger(readBytes(in)), scale);
+			case BYTES:
+				return readBytes(in);
+			case DOCUMENT:
+				Document document = new Document();
+				readFields(in, document, nameTable);
+				return document;
+			case MAP:
+				Map<String, Object> map = new LinkedHashMap<>();
+				readFields(in, map, nameTable);
+				return map;
+			case LIST:
+				int size = readVarInt(in);
+				List<Object> list = new ArrayList<>(size);
+				for (int i = 0; i < size; i++) {
+					list.add(readValue(in, nameTable));
+				}
+				return list;
+			case OBJECT:
+				return in.readObject();
+			default:
+				throw new IOException("Unknown value type " + type + " in serialized document");
+		}
+	}
+
+	private static boolean hasStringKeys(Map<?, ?> map) {
+		for (Object key : map.keySet()) {
+			if (!(key instanceof String)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static void writeString(ObjectDataOutput out, String value) throws IOException {
+		writeBytes(out, value.getBytes(StandardCharsets.UTF_8));
+	}
+
+	private static String readString(ObjectDataInput in) throws IOException {
+		return new String(readBytes(in), StandardCharsets.UTF_8);
+	}
+
+	private static void writeBytes(ObjectDataOutput out, byte[] bytes) throws IOException {
+		writeVarInt(out, bytes.length);
+		out.write(bytes);
+	}
+
+	private static byte[] readBytes(ObjectDataInput in) throws IOException {
+		byte[] bytes = new byte[readVarInt(in)];
+		in.readFully(bytes);
+		return bytes;
+	}
+
+	private static long zigzag(long value) {
+		return (value << 1) ^ (value >> 63);
+	}
+
+	private static long unzigzag(long value) {
+		return (value >>> 1) ^ -(value & 1);
+	}
+
+	private static void writeVarInt(ObjectDataOutput out, int value) throws IOException {
+		writeVarLong(out, value & 0xFFFFFFFFL);
+	}
+
+	private static int readVarInt(ObjectDataInput in) throws IOException {
+		return (int) readVarLong(in);
+	}
+
+	private static void writeVarLong(ObjectDataOutput out, long value) throws IOException {
+		while ((value & ~0x7FL) != 0) {
+			out.writeByte((int) ((value & 0x7F) | 0x80));
+			value >>>= 7;
+		}
+		out.writeByte((int) value);
+	}
+
+	private static long readVarLong(ObjectDataInput in) throws IOException {
+		long value = 0L;
+		for (int shift = 0; shift < 64; shift += 7) {
+			byte b = in.readByte();
+			value |= (long) (b & 0x7F) << shift;
+			if ((b & 0x80) == 0) {
+				return value;
+			}
+		}
+		throw new IOException("Malformed varint in serialized document");
+	}
+}
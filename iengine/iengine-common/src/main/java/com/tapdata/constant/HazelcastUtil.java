@@ -8,6 +8,7 @@ import com.hazelcast.config.*;
 import com.hazelcast.core.Hazelcast;
 import com.hazelcast.core.HazelcastInstance;
 import com.tapdata.cache.hazelcast.HazelcastCacheStats;
+import com.tapdata.cache.hazelcast.serializer.DocumentStreamSerializer;
 import com.tapdata.cache.hazelcast.serializer.HazelcastCacheStatsSerializer;
 import com.tapdata.cache.hazelcast.serializer.HazelcastDataFlowCacheConfigSerializer;
 import com.tapdata.entity.Connections;
@@ -20,10 +21,12 @@ import com.tapdata.tm.commons.dag.logCollector.LogCollectorNode;
 import com.tapdata.tm.commons.dag.nodes.CacheNode;
 import com.tapdata.tm.commons.dag.nodes.DatabaseNode;
 import com.tapdata.tm.commons.dag.nodes.TableNode;
+import io.tapdata.pdk.core.utils.CommonUtils;
 import org.apache.commons.collections.CollectionUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.bson.Document;
 import org.bson.types.ObjectId;
 
 import java.io.File;
@@ -43,6 +46,7 @@ public class HazelcastUtil {
 	private final static String KEYSTORE_DIR = ".keystore";
 	private final static String KEYSTORE_SUFFIX = ".keystore";
 	private final static String TRUSTSTORE_SUFFIX = ".truststore";
+	public final static String DOCUMENT_SERIALIZER_KEY = "HAZELCAST_DOCUMENT_SERIALIZER";
 
 	private static Logger logger = LogManager.getLogger(HazelcastUtil.class);
 
@@ -64,6 +68,11 @@ public class HazelcastUtil {
 		SerializerConfig hazelcastDataFlowCacheConfigSerializer = new SerializerConfig().setImplementation(new HazelcastDataFlowCacheConfigSerializer()).setTypeClass(DataFlowCacheConfig.class);
 		config.getSerializationConfig().addSerializerConfig(hazelcastCacheStatsSerializer);
 		config.getSerializationConfig().addSerializerConfig(hazelcastDataFlowCacheConfigSerializer);
+		// the serialized documents carry their own field name table, they are readable by any member
+		if (CommonUtils.getPropertyBool(DOCUMENT_SERIALIZER_KEY, true)) {
+			SerializerConfig documentSerializer = new SerializerConfig().setImplementation(new DocumentStreamSerializer()).setTypeClass(Document.class);
+			config.getSerializationConfig().addSerializerConfig(documentSerializer);
+		}
 		return config;
 	}
 
@@ -244,28 +244,31 @@ public class MapUtil {
 
 		for (Object obj : map.entrySet()) {
 			Map.Entry entry = (Map.Entry) obj;
-			Object key = entry.getKey();
-			Object value = entry.getValue();
-			// recursive map
-			if (value instanceof Map) {
-				Map newObject = (Map) value.getClass().newInstance();
-				deepCloneMap((Map) value, newObject);
-				newMap.put(key, newObject);
-			} else if (value instanceof List) {
-				List newObject = (List) value.getClass().newInstance();
-				ListUtil.serialCloneList((List) value, newObject);
-				newMap.put(key, newObject);
-			} else if (value instanceof Serializable) {
-				Serializable serl = (Serializable) value;
-				Serializable clone = SerializationUtils.clone(serl);
-				newMap.put(key, clone);
-			} else {
-				newMap.put(key, value);
-			}
+			newMap.put(entry.getKey(), deepCloneValue(entry.getValue()));
 		}
 
 	}
 
+	/**
+	 * Deep clone one value the same way as {@link #deepCloneMap(Map, Map)} clones the values of a map
+	 */
+	public static Object deepCloneValue(Object value) throws IllegalAccessException, InstantiationException {
+		// recursive map
+		if (value instanceof Map) {
+			Map newObject = (Map) value.getClass().newInstance();
+			deepCloneMap((Map) value, newObject);
+			return newObject;
+		} else if (value instanceof List) {
+			List newObject = (List) value.getClass().newInstance();
+			ListUtil.serialCloneList((List) value, newObject);
+			return newObject;
+		} else if (value instanceof Serializable) {
+			return SerializationUtils.clone((Serializable) value);
+		} else {
+			return value;
+		}
+	}
+
 	public static void copyToNewMap(Map map, Map newMap) {
 
 		if (map == null) {
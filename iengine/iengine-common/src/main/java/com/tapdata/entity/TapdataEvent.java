@@ -11,6 +11,7 @@ import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * @author jackin
@@ -49,6 +50,16 @@ public class TapdataEvent implements Serializable, Cloneable {
 
 	private String fromNodeId;
 
+	/**
+	 * 并行处理节点的输入序号, 用于在并行实例之后按源顺序合并事件, 非并行节点之间为空
+	 */
+	private Long partitionSequence;
+
+	/**
+	 * 非空时 tapEvent 与其他分支的事件共享, 修改前需调用 {@link #ensureWritable()}
+	 */
+	private transient TapEventShare tapEventShare;
+
 	public SyncStage getSyncStage() {
 		return syncStage;
 	}
@@ -152,6 +163,7 @@ public class TapdataEvent implements Serializable, Cloneable {
 		tapdataEvent.setSourceTime(sourceTime);
 		tapdataEvent.setSourceSerialNo(sourceSerialNo);
 		tapdataEvent.setSyncStage(syncStage);
+		tapdataEvent.setPartitionSequence(partitionSequence);
 		if (this.getNodeIds() != null) {
 			tapdataEvent.nodeIds = new ArrayList<>(this.getNodeIds());
 		}
@@ -162,17 +174,65 @@ public class TapdataEvent implements Serializable, Cloneable {
 		}
 
 		if (tapEvent != null) {
-			try {
-				TapEvent cloneTapEvent = tapEvent.getClass().newInstance();
-				tapEvent.clone(cloneTapEvent);
-				tapdataEvent.setTapEvent(cloneTapEvent);
-			} catch (InstantiationException | IllegalAccessException e) {
-				throw new RuntimeException("Clone tap event failed: " + e.getMessage(), e);
-			}
+			tapdataEvent.setTapEvent(cloneTapEvent(tapEvent));
 		}
 		return tapdataEvent;
 	}
 
+	private static TapEvent cloneTapEvent(TapEvent tapEvent) {
+		try {
+			TapEvent cloneTapEvent = tapEvent.getClass().newInstance();
+			tapEvent.clone(cloneTapEvent);
+			return cloneTapEvent;
+		} catch (InstantiationException | IllegalAccessException e) {
+			throw new RuntimeException("Clone tap event failed: " + e.getMessage(), e);
+		}
+	}
+
+	/**
+	 * 复制事件外壳用于多分支下发, 记录事件的 TapEvent 不复制, 由各分支共享(写时复制).
+	 * 其余字段与 {@link #clone()} 相同: nodeIds 等可变字段各分支独立, 偏移量不带给分支
+	 *
+	 * @param tapEventShare 同一事件的所有分支共用, 见 {@link TapEventShare}
+	 * @return 分支事件
+	 */
+	public TapdataEvent shareCopy(TapEventShare tapEventShare) {
+		TapEvent sharedTapEvent = this.tapEvent;
+		TapdataEvent tapdataEvent;
+		this.tapEvent = null;
+		try {
+			tapdataEvent = (TapdataEvent) clone();
+		} finally {
+			this.tapEvent = sharedTapEvent;
+		}
+		tapdataEvent.tapEvent = sharedTapEvent;
+		tapdataEvent.tapEventShare = tapEventShare;
+		return tapdataEvent;
+	}
+
+	public boolean isShared() {
+		return null != tapEventShare;
+	}
+
+	/**
+	 * 修改 tapEvent 之前调用: 共享的 tapEvent 先复制一份归本事件独有, 最后一个修改的分支直接使用原事件
+	 *
+	 * @return true 复制了 tapEvent
+	 */
+	public boolean ensureWritable() {
+		TapEventShare share = this.tapEventShare;
+		if (null == share) {
+			return false;
+		}
+		this.tapEventShare = null;
+		if (share.acquireLast()) {
+			return false;
+		}
+		this.tapEvent = cloneTapEvent(tapEvent);
+		share.release();
+		return true;
+	}
+
 	public String getFromNodeId() {
 		return fromNodeId;
 	}
@@ -181,6 +241,14 @@ public class TapdataEvent implements Serializable, Cloneable {
 		this.fromNodeId = fromNodeId;
 	}
 
+	public Long getPartitionSequence() {
+		return partitionSequence;
+	}
+
+	public void setPartitionSequence(Long partitionSequence) {
+		this.partitionSequence = partitionSequence;
+	}
+
 	public Object getBatchOffset() {
 		return batchOffset;
 	}
@@ -217,4 +285,24 @@ public class TapdataEvent implements Serializable, Cloneable {
 		sb.append('}');
 		return sb.toString();
 	}
+
+	/**
+	 * 共享同一个 TapEvent 的分支计数. 分支在复制完成之后才释放, 因此只剩一个持有者时,
+	 * 其他分支都不会再读原事件, 该分支可以直接修改原事件
+	 */
+	public static class TapEventShare {
+		private final AtomicInteger holders;
+
+		public TapEventShare(int holders) {
+			this.holders = new AtomicInteger(holders);
+		}
+
+		boolean acquireLast() {
+			return holders.get() == 1 && holders.compareAndSet(1, 0);
+		}
+
+		void release() {
+			holders.decrementAndGet();
+		}
+	}
 }
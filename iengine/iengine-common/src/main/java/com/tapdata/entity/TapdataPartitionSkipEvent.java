@@ -0,0 +1,22 @@
+package com.tapdata.entity;
+
+import java.io.Serializable;
+
+/**
+ * Emitted by a parallel processor instance in place of an input event which is filtered out, so that the sequence of the
+ * input event is not missing when the outputs of all instances are merged back into source order
+ **/
+public class TapdataPartitionSkipEvent extends TapdataEvent implements Serializable, Cloneable {
+	private static final long serialVersionUID = -3216524802476718291L;
+
+	public TapdataPartitionSkipEvent(Long partitionSequence) {
+		setPartitionSequence(partitionSequence);
+	}
+
+	@Override
+	public Object clone() {
+		TapdataEvent tapdataEvent = new TapdataPartitionSkipEvent(getPartitionSequence());
+		super.clone(tapdataEvent);
+		return tapdataEvent;
+	}
+}
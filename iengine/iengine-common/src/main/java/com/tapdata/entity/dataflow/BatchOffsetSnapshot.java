@@ -0,0 +1,99 @@
+package com.tapdata.entity.dataflow;
+
+import java.io.Serializable;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Immutable batch offsets of all tables at one point of the initial sync, carried by the source events instead of a
+ * deep clone of the whole batch offset map.
+ * <p>
+ * A snapshot is either a base (a full map) or one table offset on top of a parent snapshot, so recording the offset of
+ * a table is O(1) and shares everything else with the previous snapshot. The full map is only built by {@link #toMap()}
+ * when a checkpoint is saved. When the chain of table offsets gets longer than the base, the next snapshot is built as a
+ * new base, so the cost stays O(1) per table offset on average and {@link #toMap()} is O(tables).
+ * <p>
+ * Offset values must not be changed after they are put into a snapshot, clone them before if the source keeps
+ * changing them (e.g. {@link SplitBatchOffset})
+ */
+public class BatchOffsetSnapshot implements Serializable {
+	private static final long serialVersionUID = -4786329513385264015L;
+	private static final int MIN_COMPACT_DEPTH = 32;
+
+	private final BatchOffsetSnapshot parent;
+	private final String tableId;
+	private final Object tableOffset;
+	private final Map<String, Object> base;
+	private final int depth;
+	private final int baseSize;
+
+	private BatchOffsetSnapshot(Map<String, Object> base) {
+		this.parent = null;
+		this.tableId = null;
+		this.tableOffset = null;
+		this.base = Collections.unmodifiableMap(base);
+		this.depth = 0;
+		this.baseSize = base.size();
+	}
+
+	private BatchOffsetSnapshot(BatchOffsetSnapshot parent, String tableId, Object tableOffset) {
+		this.parent = parent;
+		this.tableId = tableId;
+		this.tableOffset = tableOffset;
+		this.base = null;
+		this.depth = parent.depth + 1;
+		this.baseSize = parent.baseSize;
+	}
+
+	/**
+	 * @param batchOffsets table id -> table offset, copied, the values are not cloned
+	 * @return base snapshot of the offsets
+	 */
+	public static BatchOffsetSnapshot of(Map<String, Object> batchOffsets) {
+		return new BatchOffsetSnapshot(null == batchOffsets ? new HashMap<>() : new HashMap<>(batchOffsets));
+	}
+
+	/**
+	 * @param tableId     table id
+	 * @param tableOffset offset of the table, must not be changed afterwards
+	 * @return new snapshot, this snapshot is not changed
+	 */
+	public BatchOffsetSnapshot put(String tableId, Object tableOffset) {
+		if (depth >= Math.max(MIN_COMPACT_DEPTH, baseSize)) {
+			Map<String, Object> batchOffsets = toMap();
+			batchOffsets.put(tableId, tableOffset);
+			return new BatchOffsetSnapshot(batchOffsets);
+		}
+		return new BatchOffsetSnapshot(this, tableId, tableOffset);
+	}
+
+	/**
+	 * @return new mutable map of all table offsets
+	 */
+	public Map<String, Object> toMap() {
+		BatchOffsetSnapshot[] chain = new BatchOffsetSnapshot[depth];
+		BatchOffsetSnapshot snapshot = this;
+		for (int i = depth - 1; i >= 0; i--) {
+			chain[i] = snapshot;
+			snapshot = snapshot.parent;
+		}
+		Map<String, Object> batchOffsets = new HashMap<>(snapshot.base);
+		for (BatchOffsetSnapshot delta : chain) {
+			batchOffsets.put(delta.tableId, delta.tableOffset);
+		}
+		return batchOffsets;
+	}
+
+	/**
+	 * Serialize as a base, a long chain would be serialized recursively
+	 */
+	private Object writeReplace() {
+		return 0 == depth ? this : new BatchOffsetSnapshot(toMap());
+	}
+
+	@Override
+	public String toString() {
+		return "BatchOffsetSnapshot{" + toMap() + '}';
+	}
+}
@@ -0,0 +1,106 @@
+package com.tapdata.entity.dataflow;
+
+import com.tapdata.constant.MapUtil;
+import io.tapdata.pdk.apis.entity.BatchReadSplit;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Batch offset of one table which is read by splits, stored in {@link SyncProgress#getBatchOffsetObj()} under the table id.
+ * <p>
+ * Keep it as a map so it can be deep cloned and encoded like the other batch offsets, splits are persisted together
+ * with the offsets because a split offset only makes sense with the same split boundaries when resuming.
+ * <p>
+ * {@link #snapshot()} copies it for the batch offset snapshot of the events, only the offsets changed since the last
+ * snapshot are cloned
+ */
+public class SplitBatchOffset extends ConcurrentHashMap<String, Object> {
+	private static final long serialVersionUID = -2818422425516432452L;
+	private static final String SPLITS_KEY = "splits";
+	private static final String OFFSETS_KEY = "offsets";
+	private static final String COMPLETED_KEY = "completed";
+
+	private transient SplitBatchOffset lastSnapshot;
+	private transient Set<String> changedSplitIds;
+
+	public SplitBatchOffset() {
+	}
+
+	public SplitBatchOffset(List<BatchReadSplit> splits) {
+		put(SPLITS_KEY, new ArrayList<>(splits));
+	}
+
+	@SuppressWarnings("unchecked")
+	public List<BatchReadSplit> getSplits() {
+		Object splits = get(SPLITS_KEY);
+		return splits instanceof List ? (List<BatchReadSplit>) splits : new ArrayList<>();
+	}
+
+	public Object getSplitOffset(String splitId) {
+		return offsets().get(splitId);
+	}
+
+	public synchronized void setSplitOffset(String splitId, Object offset) {
+		if (null == offset) {
+			return;
+		}
+		offsets().put(splitId, offset);
+		if (null == changedSplitIds) {
+			changedSplitIds = new HashSet<>();
+		}
+		changedSplitIds.add(splitId);
+	}
+
+	public boolean isCompleted(String splitId) {
+		return completed().containsKey(splitId);
+	}
+
+	public void complete(String splitId) {
+		completed().put(splitId, true);
+	}
+
+	public boolean isAllCompleted() {
+		return getSplits().stream().allMatch(split -> isCompleted(split.getId()));
+	}
+
+	/**
+	 * Copy of the current state, must not be changed afterwards. The splits are shared, they never change after the table
+	 * is split, the offsets not changed since the last snapshot are shared with it, the others are deep cloned
+	 *
+	 * @return new copy
+	 */
+	public synchronized SplitBatchOffset snapshot() throws IllegalAccessException, InstantiationException {
+		SplitBatchOffset snapshot = new SplitBatchOffset();
+		Object splits = get(SPLITS_KEY);
+		if (null != splits) {
+			snapshot.put(SPLITS_KEY, splits);
+		}
+		Map<String, Object> snapshotOffsets = snapshot.offsets();
+		for (Map.Entry<String, Object> entry : offsets().entrySet()) {
+			Object offset = null;
+			if (null != lastSnapshot && (null == changedSplitIds || !changedSplitIds.contains(entry.getKey()))) {
+				offset = lastSnapshot.getSplitOffset(entry.getKey());
+			}
+			snapshotOffsets.put(entry.getKey(), null != offset ? offset : MapUtil.deepCloneValue(entry.getValue()));
+		}
+		snapshot.completed().putAll(completed());
+		lastSnapshot = snapshot;
+		changedSplitIds = null;
+		return snapshot;
+	}
+
+	@SuppressWarnings("unchecked")
+	private Map<String, Object> offsets() {
+		return (Map<String, Object>) computeIfAbsent(OFFSETS_KEY, k -> new ConcurrentHashMap<String, Object>());
+	}
+
+	@SuppressWarnings("unchecked")
+	private Map<String, Object> completed() {
+		return (Map<String, Object>) computeIfAbsent(COMPLETED_KEY, k -> new ConcurrentHashMap<String, Object>());
+	}
+}
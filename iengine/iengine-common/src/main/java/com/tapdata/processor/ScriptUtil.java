@@ -24,7 +24,9 @@ import org.bson.BsonUndefined;
 import org.bson.Document;
 import org.bson.types.ObjectId;
 import org.graalvm.polyglot.Context;
+import org.graalvm.polyglot.Engine;
 import org.graalvm.polyglot.HostAccess;
+import org.graalvm.polyglot.Source;
 import org.graalvm.polyglot.Value;
 import org.graalvm.polyglot.proxy.ProxyObject;
 import org.springframework.beans.factory.config.BeanDefinition;
@@ -51,6 +53,23 @@ public class ScriptUtil {
 
 	public static final String SCRIPT_FUNCTION_NAME = "validate";
 
+	public static final String BATCH_FUNCTION_NAME = "__tapdata_process_batch";
+
+	/**
+	 * Call the process function for a micro batch of records in one invocation, the errors are kept per record so that
+	 * one bad record does not fail the others
+	 */
+	private static final String BATCH_FUNCTION = "function " + BATCH_FUNCTION_NAME + "(records, contexts, results, errors) {\n" +
+			"  for (var i = 0; i < records.length; i++) {\n" +
+			"    context = contexts[i];\n" +
+			"    try {\n" +
+			"      results[i] = " + FUNCTION_NAME + "(records[i]);\n" +
+			"    } catch (e) {\n" +
+			"      errors[i] = (e && e.stack) ? String(e.stack) : String(e);\n" +
+			"    }\n" +
+			"  }\n" +
+			"}\n";
+
 	/**
 	 * 获取js引擎
 	 *
@@ -58,11 +77,22 @@ public class ScriptUtil {
 	 * @return
 	 */
 	public static ScriptEngine getScriptEngine(String jsEngineName) {
+		return getScriptEngine(jsEngineName, (Engine) null);
+	}
+
+	/**
+	 * 获取js引擎，graalvm js 的多个引擎可以共用一个 {@link Engine}，共享脚本的解析和编译结果
+	 *
+	 * @param jsEngineName
+	 * @param sharedEngine 为空时每个引擎单独编译
+	 * @return
+	 */
+	public static ScriptEngine getScriptEngine(String jsEngineName, Engine sharedEngine) {
 		JSEngineEnum jsEngineEnum = JSEngineEnum.getByEngineName(jsEngineName);
 		ScriptEngine scriptEngine;
 		if (jsEngineEnum == JSEngineEnum.GRAALVM_JS) {
 			scriptEngine = GraalJSScriptEngine
-					.create(null,
+					.create(sharedEngine,
 							Context.newBuilder("js")
 									.allowAllAccess(true)
 									.allowHostAccess(HostAccess.newBuilder(HostAccess.ALL)
@@ -88,6 +118,16 @@ public class ScriptUtil {
 	}
 	public static Invocable getScriptEngine(String jsEngineName, String script, List<JavaScriptFunctions> javaScriptFunctions,
 											ClientMongoOperator clientMongoOperator, ScriptConnection source, ScriptConnection target, ICacheGetter memoryCacheGetter) throws ScriptException {
+		return getScriptEngine(jsEngineName, script, javaScriptFunctions, clientMongoOperator, source, target, memoryCacheGetter, null);
+	}
+
+	/**
+	 * @param sharedEngine graalvm engine shared by the pooled script engines of one processor, the script is compiled
+	 *                     once as a cached {@link Source} and reused by every context created on the engine
+	 */
+	public static Invocable getScriptEngine(String jsEngineName, String script, List<JavaScriptFunctions> javaScriptFunctions,
+											ClientMongoOperator clientMongoOperator, ScriptConnection source, ScriptConnection target,
+											ICacheGetter memoryCacheGetter, Engine sharedEngine) throws ScriptException {
 
 		if (StringUtils.isBlank(script)) {
 			return null;
@@ -98,12 +138,16 @@ public class ScriptUtil {
 			if (contextClassLoader == null) {
 				Thread.currentThread().setContextClassLoader(ScriptUtil.class.getClassLoader());
 			}
-			ScriptEngine e = getScriptEngine(jsEngineName);
+			ScriptEngine e = getScriptEngine(jsEngineName, sharedEngine);
 			String buildInMethod = initBuildInMethod(javaScriptFunctions, clientMongoOperator);
-			String scripts = script + System.lineSeparator() + buildInMethod;
+			String scripts = script + System.lineSeparator() + buildInMethod + BATCH_FUNCTION;
 
 			try {
-				e.eval(scripts);
+				if (sharedEngine != null && e instanceof GraalJSScriptEngine) {
+					((GraalJSScriptEngine) e).getPolyglotContext().eval(Source.newBuilder("js", scripts, "processor.js").cached(true).build());
+				} else {
+					e.eval(scripts);
+				}
 			} catch (Throwable ex) {
 				throw new RuntimeException(String.format("script eval error: %s, %s, %s, %s", jsEngineName, e, scripts, contextClassLoader), ex);
 			}
@@ -139,6 +183,69 @@ public class ScriptUtil {
 			Map<String, Object> context,
 			Logger logger
 	) throws Exception {
+		fillContext(message, sourceConn, targetConn, job, context);
+		if (engine == null) {
+			logger.error("script engine is null, {}", Arrays.asList(Thread.currentThread().getStackTrace()));
+		}
+
+		((ScriptEngine) engine).put("context", context);
+		((ScriptEngine) engine).put("log", logger);
+
+		Object o;
+		Map<String, Object> record = MapUtils.isNotEmpty(message.getAfter()) ? message.getAfter() : message.getBefore();
+		try {
+			if (engine instanceof GraalJSScriptEngine) {
+				o = engine.invokeFunction(functionName, ProxyObject.fromMap(record));
+			} else {
+				o = engine.invokeFunction(functionName, record);
+			}
+		} catch (Throwable e) {
+			throw new RuntimeException(String.format("Invoke function %s error: %s", functionName, e.getMessage(), e), e);
+		}
+
+		return o;
+	}
+
+	/**
+	 * Invoke the process function for a micro batch of messages in one call, the engine must be created by
+	 * {@link #getScriptEngine(String, String, List, ClientMongoOperator, ScriptConnection, ScriptConnection, ICacheGetter)}
+	 * and not be used by other threads at the same time
+	 *
+	 * @param contexts the context of each message, filled before invoke
+	 * @param errors   the error of each message, null if succeed
+	 * @return the result of each message
+	 */
+	public static Object[] invokeScriptBatch(
+			Invocable engine,
+			List<MessageEntity> messages,
+			Connections sourceConn,
+			Connections targetConn,
+			Job job,
+			List<Map<String, Object>> contexts,
+			String[] errors,
+			Logger logger
+	) throws Exception {
+		int size = messages.size();
+		Object[] records = new Object[size];
+		for (int i = 0; i < size; i++) {
+			MessageEntity message = messages.get(i);
+			fillContext(message, sourceConn, targetConn, job, contexts.get(i));
+			Map<String, Object> record = MapUtils.isNotEmpty(message.getAfter()) ? message.getAfter() : message.getBefore();
+			records[i] = engine instanceof GraalJSScriptEngine ? ProxyObject.fromMap(record) : record;
+		}
+
+		((ScriptEngine) engine).put("log", logger);
+
+		Object[] results = new Object[size];
+		try {
+			engine.invokeFunction(BATCH_FUNCTION_NAME, records, contexts.toArray(), results, errors);
+		} catch (Throwable e) {
+			throw new RuntimeException(String.format("Invoke function %s error: %s", BATCH_FUNCTION_NAME, e.getMessage()), e);
+		}
+		return results;
+	}
+
+	private static void fillContext(MessageEntity message, Connections sourceConn, Connections targetConn, Job job, Map<String, Object> context) throws IllegalAccessException {
 		ProcessContext processContext = message.getProcessContext();
 		if (message.getProcessContext() == null) {
 			processContext = new ProcessContext(message.getOp(), message.getTableName(), sourceConn, targetConn, job, message.getOffset());
@@ -170,26 +277,6 @@ public class ScriptUtil {
 		processContext.getEvent().setBefore(message.getBefore());
 		Map<String, Object> eventMap = MapUtil.obj2Map(processContext.getEvent());
 		context.put("event", eventMap);
-		if (engine == null) {
-			logger.error("script engine is null, {}", Arrays.asList(Thread.currentThread().getStackTrace()));
-		}
-
-		((ScriptEngine) engine).put("context", context);
-		((ScriptEngine) engine).put("log", logger);
-
-		Object o;
-		Map<String, Object> record = MapUtils.isNotEmpty(message.getAfter()) ? message.getAfter() : message.getBefore();
-		try {
-			if (engine instanceof GraalJSScriptEngine) {
-				o = engine.invokeFunction(functionName, ProxyObject.fromMap(record));
-			} else {
-				o = engine.invokeFunction(functionName, record);
-			}
-		} catch (Throwable e) {
-			throw new RuntimeException(String.format("Invoke function %s error: %s", functionName, e.getMessage(), e), e);
-		}
-
-		return o;
 	}
 
 	public static List<Map<String, Object>> executeMongoQuery(ScriptConnection connection, String database, String table, String fieldsStr, Object... values) {
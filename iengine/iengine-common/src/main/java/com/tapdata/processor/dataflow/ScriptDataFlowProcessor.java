@@ -14,13 +14,16 @@ import org.apache.commons.collections.MapUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.graalvm.polyglot.Engine;
 
 import javax.script.Invocable;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
 
 
 /**
@@ -38,13 +41,42 @@ public class ScriptDataFlowProcessor implements DataFlowProcessor {
 
 	private Map<String, Object> processContext;
 
+	/**
+	 * Script engines for {@link #processBatch(List)}, every engine (graalvm context) is used by one thread at a time
+	 */
+	private BlockingQueue<Invocable> enginePool;
+
+	private Engine sharedEngine;
+
 	@Override
 	public void initialize(ProcessorContext context, Stage stage) throws Exception {
 		this.context = context;
 		this.stage = stage;
 
-		String script = stage.getScript();
+		this.engine = createEngine(null);
+
+		processContext = new ConcurrentHashMap<>();
+
+	}
+
+	/**
+	 * Create the engines used by {@link #processBatch(List)}, they share one graalvm engine so the script is only
+	 * compiled once
+	 *
+	 * @param poolSize the max number of threads calling {@link #processBatch(List)} at the same time
+	 */
+	public void initializeEnginePool(int poolSize) throws Exception {
+		if (null == sharedEngine) {
+			sharedEngine = Engine.create();
+		}
+		BlockingQueue<Invocable> pool = new LinkedBlockingQueue<>();
+		for (int i = 0; i < poolSize; i++) {
+			pool.add(createEngine(sharedEngine));
+		}
+		this.enginePool = pool;
+	}
 
+	private Invocable createEngine(Engine sharedEngine) throws Exception {
 		ScriptConnection sourceScriptConnection = context.getSourceScriptConnection();
 		ScriptConnection targetScriptConnection = context.getTargetScriptConnection();
 		ICacheService cacheService = null;
@@ -52,17 +84,15 @@ public class ScriptDataFlowProcessor implements DataFlowProcessor {
 			cacheService = context.getCacheService();
 		}
 
-		this.engine = ScriptUtil.getScriptEngine(
+		return ScriptUtil.getScriptEngine(
 				stage.getJsEngineName(),
-				script,
+				stage.getScript(),
 				context.getJavaScriptFunctions(),
 				context.getClientMongoOperator(),
 				sourceScriptConnection,
 				targetScriptConnection,
-				cacheService);
-
-		processContext = new ConcurrentHashMap<>();
-
+				cacheService,
+				sharedEngine);
 	}
 
 	public List<MessageEntity> process(MessageEntity message) {
@@ -87,11 +117,11 @@ public class ScriptDataFlowProcessor implements DataFlowProcessor {
 					} else if (o instanceof List) {
 						for (Object obj : (List) o) {
 							final MessageEntity newMsg = (MessageEntity) message.clone();
-							convertMessage(newMsg, messageOp, record, (Map<String, Object>) obj);
+							convertMessage(newMsg, messageOp, record, (Map<String, Object>) obj, processContext);
 							resultList.add(newMsg);
 						}
 					} else {
-						convertMessage(message, messageOp, record, (Map<String, Object>) o);
+						convertMessage(message, messageOp, record, (Map<String, Object>) o, processContext);
 						resultList.add(message);
 					}
 				}
@@ -105,7 +135,7 @@ public class ScriptDataFlowProcessor implements DataFlowProcessor {
 		return resultList;
 	}
 
-	private void convertMessage(MessageEntity message, String messageOp, Map<String, Object> record, Map<String, Object> o) {
+	private void convertMessage(MessageEntity message, String messageOp, Map<String, Object> record, Map<String, Object> o, Map<String, Object> processContext) {
 		Map<String, Object> newMap = new HashMap<>();
 		MapUtil.copyToNewMap(o, newMap);
 		record.clear();
@@ -121,6 +151,103 @@ public class ScriptDataFlowProcessor implements DataFlowProcessor {
 		}
 	}
 
+	/**
+	 * Process a micro batch of messages with one script call on a pooled engine, it can be called by multiple threads
+	 * at the same time after {@link #initializeEnginePool(int)}.
+	 * <p>
+	 * Every message has its own context, so the context is not shared between records as {@link #process(List)} does
+	 *
+	 * @return the processed messages of each message, in the order of batch
+	 */
+	public List<List<MessageEntity>> processBatch(List<MessageEntity> batch) throws InterruptedException {
+		List<List<MessageEntity>> resultLists = new ArrayList<>(batch.size());
+		List<MessageEntity> scriptMessages = new ArrayList<>();
+		List<Integer> scriptIndexes = new ArrayList<>();
+		for (int i = 0; i < batch.size(); i++) {
+			MessageEntity message = batch.get(i);
+			String messageOp = message.getOp();
+			List<MessageEntity> resultList = new ArrayList<>();
+			if (ConnectorConstant.MESSAGE_OPERATION_INSERT.equals(messageOp) ||
+					ConnectorConstant.MESSAGE_OPERATION_UPDATE.equals(messageOp) ||
+					ConnectorConstant.MESSAGE_OPERATION_DELETE.equals(messageOp)
+			) {
+				if (MapUtils.isNotEmpty(message.getAfter()) || MapUtils.isNotEmpty(message.getBefore())) {
+					scriptMessages.add(message);
+					scriptIndexes.add(i);
+				}
+			} else {
+				resultList.add(message);
+			}
+			resultLists.add(resultList);
+		}
+		if (scriptMessages.isEmpty()) {
+			return resultLists;
+		}
+
+		List<Map<String, Object>> contexts = new ArrayList<>(scriptMessages.size());
+		for (int i = 0; i < scriptMessages.size(); i++) {
+			contexts.add(new HashMap<>());
+		}
+		String[] errors = new String[scriptMessages.size()];
+		Object[] results;
+		Invocable pooledEngine = enginePool.take();
+		try {
+			results = ScriptUtil.invokeScriptBatch(pooledEngine, scriptMessages, context.getSourceConn(), context.getTargetConn(), context.getJob(), contexts, errors, logger);
+		} catch (Exception e) {
+			context.getJob().jobError(e, true, OffsetUtil.getSyncStage(scriptMessages.get(0).getOffset()), logger, ConnectorConstant.WORKER_TYPE_CONNECTOR,
+					TapLog.PROCESSOR_ERROR_0005.getMsg(), null, null, e.getMessage());
+			return resultLists;
+		} finally {
+			enginePool.add(pooledEngine);
+		}
+
+		for (int i = 0; i < scriptMessages.size(); i++) {
+			MessageEntity message = scriptMessages.get(i);
+			String messageOp = message.getOp();
+			Map<String, Object> record = MapUtils.isNotEmpty(message.getAfter()) ? message.getAfter() : message.getBefore();
+			List<MessageEntity> resultList = resultLists.get(scriptIndexes.get(i));
+			if (null != errors[i]) {
+				Exception e = new RuntimeException(String.format("Invoke function %s error: %s", ScriptUtil.FUNCTION_NAME, errors[i]));
+				context.getJob().jobError(e, true, OffsetUtil.getSyncStage(message.getOffset()), logger, ConnectorConstant.WORKER_TYPE_CONNECTOR,
+						TapLog.PROCESSOR_ERROR_0005.getMsg(), null, record, e.getMessage());
+				continue;
+			}
+			Object o = results[i];
+			if (o instanceof List) {
+				for (Object obj : (List) o) {
+					final MessageEntity newMsg = (MessageEntity) message.clone();
+					convertMessage(newMsg, messageOp, record, (Map<String, Object>) obj, contexts.get(i));
+					resultList.add(newMsg);
+				}
+			} else if (o != null) {
+				convertMessage(message, messageOp, record, (Map<String, Object>) o, contexts.get(i));
+				resultList.add(message);
+			}
+		}
+		return resultLists;
+	}
+
+	/**
+	 * Add the processed messages of one message into the result batch, a filtered cdc message is kept as commit
+	 * offset message
+	 */
+	public static void addProcessResult(List<MessageEntity> resultBatch, MessageEntity messageEntity, List<MessageEntity> processResultList) {
+		if (CollectionUtils.isEmpty(processResultList)) {
+			final Object offset = messageEntity.getOffset();
+			if (offset instanceof TapdataOffset) {
+				TapdataOffset tapdataOffset = (TapdataOffset) offset;
+				if (TapdataOffset.SYNC_STAGE_CDC.equals(tapdataOffset.getSyncStage())) {
+					messageEntity.setOp(OperationType.COMMIT_OFFSET.getOp());
+					messageEntity.setAfter(null);
+					messageEntity.setBefore(null);
+					resultBatch.add(messageEntity);
+				}
+			}
+		} else {
+			resultBatch.addAll(processResultList);
+		}
+	}
+
 	@Override
 	public List<MessageEntity> process(List<MessageEntity> batch) {
 		if (CollectionUtils.isNotEmpty(batch)) {
@@ -128,20 +255,7 @@ public class ScriptDataFlowProcessor implements DataFlowProcessor {
 			for (int i = 0; i < batch.size(); i++) {
 				MessageEntity messageEntity = batch.get(i);
 				List<MessageEntity> processResultList = process(messageEntity);
-				if (CollectionUtils.isEmpty(processResultList)) {
-					final Object offset = messageEntity.getOffset();
-					if (offset instanceof TapdataOffset) {
-						TapdataOffset tapdataOffset = (TapdataOffset) offset;
-						if (TapdataOffset.SYNC_STAGE_CDC.equals(tapdataOffset.getSyncStage())) {
-							messageEntity.setOp(OperationType.COMMIT_OFFSET.getOp());
-							messageEntity.setAfter(null);
-							messageEntity.setBefore(null);
-							resultBatch.add(messageEntity);
-						}
-					}
-				} else {
-					resultBatch.addAll(processResultList);
-				}
+				addProcessResult(resultBatch, messageEntity, processResultList);
 				if (!ConnectorConstant.RUNNING.equals(context.getJob().getStatus())) {
 					break;
 				}
@@ -180,6 +294,19 @@ public class ScriptDataFlowProcessor implements DataFlowProcessor {
 	@Override
 	public void stop() {
 		ProcessorUtil.closeScriptConnection(context);
+		closeEnginePool();
+	}
+
+	public void closeEnginePool() {
+		enginePool = null;
+		if (null != sharedEngine) {
+			try {
+				sharedEngine.close();
+			} catch (Exception e) {
+				logger.warn("Close script engine failed: {}", e.getMessage());
+			}
+			sharedEngine = null;
+		}
 	}
 
 	@Override
@@ -0,0 +1,133 @@
+package io.tapdata.schema;
+
+import io.tapdata.entity.schema.TapTable;
+import org.apache.commons.collections4.MapUtils;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 表模型的堆内缓存层, 放在 ehcache 磁盘层之前, 命中时不需要反序列化
+ * <p>
+ * 按 key 的 hash 分段, 每段一个按访问顺序的 LRU 和独立的锁; 容量按字段数计算(每个表 1 + 字段数), 超出该段容量时淘汰最久未访问的表.
+ * 缓存的是同一个对象, 调用方不应修改取到的表模型, 需要修改时使用 {@link TapTableMap#modify} 复制后整体替换
+ */
+class TapTableHeapTier {
+
+	private final Segment[] segments;
+	private final int segmentMask;
+
+	/**
+	 * @param maxWeight   所有段的字段数上限
+	 * @param concurrency 分段数, 向上取 2 的幂
+	 */
+	TapTableHeapTier(long maxWeight, int concurrency) {
+		int segmentCount = 1;
+		while (segmentCount < concurrency) {
+			segmentCount <<= 1;
+		}
+		this.segments = new Segment[segmentCount];
+		this.segmentMask = segmentCount - 1;
+		long segmentWeight = Math.max(1L, maxWeight / segmentCount);
+		for (int i = 0; i < segmentCount; i++) {
+			segments[i] = new Segment(segmentWeight);
+		}
+	}
+
+	TapTable get(String key) {
+		return segment(key).get(key);
+	}
+
+	void put(String key, TapTable tapTable) {
+		if (null == tapTable) {
+			remove(key);
+			return;
+		}
+		segment(key).put(key, tapTable);
+	}
+
+	void remove(String key) {
+		segment(key).remove(key);
+	}
+
+	void clear() {
+		for (Segment segment : segments) {
+			segment.clear();
+		}
+	}
+
+	int size() {
+		int size = 0;
+		for (Segment segment : segments) {
+			size += segment.size();
+		}
+		return size;
+	}
+
+	private Segment segment(String key) {
+		int hash = key.hashCode();
+		return segments[(hash ^ (hash >>> 16)) & segmentMask];
+	}
+
+	private static class Segment {
+		private final long maxWeight;
+		// 放入时的权重和表一起保存, 表被修改后淘汰时也能扣减正确的权重
+		private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+		private long weight;
+
+		private Segment(long maxWeight) {
+			this.maxWeight = maxWeight;
+		}
+
+		private synchronized TapTable get(String key) {
+			Entry entry = entries.get(key);
+			return null == entry ? null : entry.tapTable;
+		}
+
+		private synchronized void put(String key, TapTable tapTable) {
+			Entry entry = new Entry(tapTable);
+			Entry previous = entries.put(key, entry);
+			if (null != previous) {
+				weight -= previous.weight;
+			}
+			weight += entry.weight;
+			Iterator<Map.Entry<String, Entry>> iterator = entries.entrySet().iterator();
+			// 至少保留刚放入的表
+			while (weight > maxWeight && entries.size() > 1 && iterator.hasNext()) {
+				Map.Entry<String, Entry> eldest = iterator.next();
+				if (eldest.getKey().equals(key)) {
+					continue;
+				}
+				weight -= eldest.getValue().weight;
+				iterator.remove();
+			}
+		}
+
+		private synchronized void remove(String key) {
+			Entry previous = entries.remove(key);
+			if (null != previous) {
+				weight -= previous.weight;
+			}
+		}
+
+		private synchronized void clear() {
+			entries.clear();
+			weight = 0L;
+		}
+
+		private synchronized int size() {
+			return entries.size();
+		}
+	}
+
+	private static class Entry {
+		private final TapTable tapTable;
+		private final long weight;
+
+		private Entry(TapTable tapTable) {
+			this.tapTable = tapTable;
+			this.weight = 1L + (MapUtils.isEmpty(tapTable.getNameFieldMap()) ? 0 : tapTable.getNameFieldMap().size());
+		}
+	}
+}
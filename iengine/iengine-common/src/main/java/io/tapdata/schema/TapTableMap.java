@@ -7,6 +7,8 @@ import com.tapdata.tm.commons.util.ConnHeartbeatUtils;
 import io.tapdata.cache.EhcacheService;
 import io.tapdata.entity.schema.TapField;
 import io.tapdata.entity.schema.TapTable;
+import io.tapdata.entity.utils.InstanceFactory;
+import io.tapdata.entity.utils.ObjectSerializable;
 import io.tapdata.pdk.core.utils.CommonUtils;
 import io.tapdata.pdk.core.utils.cache.EhcacheKVMap;
 import org.apache.commons.collections4.MapUtils;
@@ -17,10 +19,12 @@ import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
 import java.util.function.BiConsumer;
 import java.util.function.BiFunction;
+import java.util.function.Consumer;
 import java.util.function.Function;
 
 import static org.springframework.data.mongodb.core.query.Criteria.where;
@@ -38,9 +42,15 @@ public class TapTableMap<K extends String, V extends TapTable> extends HashMap<K
 	public static final String TAP_TABLE_OFF_HEAP_MB_KEY = "TAP_TABLE_OFF_HEAP_MB";
 	public static final String TAP_TABLE_DISK_MB_KEY = "TAP_TABLE_DISK_MB";
 	public static final String TAP_TABLE_PREFIX = "TAP_TABLE_";
+	public static final String TAP_TABLE_HEAP_MAX_FIELDS_KEY = "TAP_TABLE_HEAP_MAX_FIELDS";
+	public static final int DEFAULT_HEAP_MAX_FIELDS = 200000;
+	public static final String TAP_TABLE_PREFETCH_SIZE_KEY = "TAP_TABLE_PREFETCH_SIZE";
+	public static final int DEFAULT_PREFETCH_SIZE = 100;
+	private static final int LOCK_STRIPES = 64;
+	// 同一个 mapKey 的多个实例共用缓存, 和 EhcacheService 中的 ehcache 一一对应
+	private static final Map<String, CacheState> CACHE_STATES = new ConcurrentHashMap<>();
 	private Map<K, String> tableNameAndQualifiedNameMap;
 	private String mapKey;
-	private Lock lock = new ReentrantLock();
 	private String nodeId;
 	private Long time;
 
@@ -74,6 +84,7 @@ public class TapTableMap<K extends String, V extends TapTable> extends HashMap<K
 				.time(time)
 				.init(prefix);
 		EhcacheService.getInstance().getEhcacheKVMap(tapTableMap.mapKey).clear();
+		tapTableMap.cacheState().clear();
 		return tapTableMap;
 	}
 
@@ -116,9 +127,18 @@ public class TapTableMap<K extends String, V extends TapTable> extends HashMap<K
 				.maxDiskMB(CommonUtils.getPropertyInt(TAP_TABLE_DISK_MB_KEY, DEFAULT_DISK_MB))
 				.init();
 		EhcacheService.getInstance().putEhcacheKVMap(mapKey, tapTableMap);
+		CACHE_STATES.put(mapKey, new CacheState(CommonUtils.getPropertyInt(TAP_TABLE_HEAP_MAX_FIELDS_KEY, DEFAULT_HEAP_MAX_FIELDS)));
 		return this;
 	}
 
+	private CacheState cacheState() {
+		CacheState cacheState = CACHE_STATES.get(mapKey);
+		if (null == cacheState) {
+			throw new IllegalStateException("Table map " + mapKey + " has been reset");
+		}
+		return cacheState;
+	}
+
 	public String getQualifiedName(String tableName) {
 		return tableNameAndQualifiedNameMap.get(tableName);
 	}
@@ -163,7 +183,7 @@ public class TapTableMap<K extends String, V extends TapTable> extends HashMap<K
 		if (!tableNameAndQualifiedNameMap.containsKey(key)) {
 			throw new IllegalArgumentException("Table " + key + " does not exists, cannot put in table map");
 		}
-		EhcacheService.getInstance().getEhcacheKVMap(mapKey).put(key, value);
+		putToCache(key, value);
 		return value;
 	}
 
@@ -172,7 +192,49 @@ public class TapTableMap<K extends String, V extends TapTable> extends HashMap<K
 			throw new IllegalArgumentException("Qualified name is blank, table id: " + key + ", schema: " + value);
 		}
 		this.tableNameAndQualifiedNameMap.put(key, qualifiedName);
-		EhcacheService.getInstance().getEhcacheKVMap(mapKey).put(key, value);
+		putToCache(key, value);
+	}
+
+	/**
+	 * get 返回的是缓存中共享的表模型, 不能原地修改; 这里复制一份, 修改后整体替换, 同一个表的 modify 在该表所在分段的锁内串行执行
+	 *
+	 * @param modifier 修改复制出来的表模型
+	 * @return 修改后的表模型, 也就是之后 get 返回的对象
+	 */
+	public V modify(K key, Consumer<V> modifier) {
+		if (!tableNameAndQualifiedNameMap.containsKey(key)) {
+			throw new IllegalArgumentException("Table " + key + " does not exists, cannot modify in table map");
+		}
+		CacheState cacheState = cacheState();
+		AtomicReference<V> modified = new AtomicReference<>();
+		try {
+			handleWithLock(cacheState.lock(key), () -> {
+				// 和 ehcache 磁盘层相同的序列化方式复制
+				ObjectSerializable objectSerializable = InstanceFactory.instance(ObjectSerializable.class);
+				V copy = (V) objectSerializable.toObject(objectSerializable.fromObject(get(key)));
+				modifier.accept(copy);
+				putToCache(key, copy);
+				modified.set(copy);
+			});
+		} catch (RuntimeException e) {
+			throw e;
+		} catch (Exception e) {
+			throw new RuntimeException("Modify schema failed, table: " + key + ", message: " + e.getMessage(), e);
+		}
+		return modified.get();
+	}
+
+	private void putToCache(K key, V value) {
+		CacheState cacheState = cacheState();
+		try {
+			handleWithLock(cacheState.lock(key), () -> {
+				EhcacheService.getInstance().getEhcacheKVMap(mapKey).put(key, value);
+				cacheState.diskKeys.add(key);
+				cacheState.heapTier.put(key, value);
+			});
+		} catch (Exception e) {
+			throw new RuntimeException("Put schema failed, table: " + key + ", message: " + e.getMessage(), e);
+		}
 	}
 
 	@Override
@@ -183,7 +245,16 @@ public class TapTableMap<K extends String, V extends TapTable> extends HashMap<K
 	@Override
 	public V remove(Object key) {
 		this.tableNameAndQualifiedNameMap.remove(key);
-		EhcacheService.getInstance().getEhcacheKVMap(mapKey).remove((String) key);
+		CacheState cacheState = cacheState();
+		try {
+			handleWithLock(cacheState.lock((String) key), () -> {
+				EhcacheService.getInstance().getEhcacheKVMap(mapKey).remove((String) key);
+				cacheState.diskKeys.remove(key);
+				cacheState.heapTier.remove((String) key);
+			});
+		} catch (Exception e) {
+			throw new RuntimeException("Remove schema failed, table: " + key + ", message: " + e.getMessage(), e);
+		}
 		return null;
 	}
 
@@ -191,6 +262,7 @@ public class TapTableMap<K extends String, V extends TapTable> extends HashMap<K
 	public void clear() {
 		this.tableNameAndQualifiedNameMap.clear();
 		EhcacheService.getInstance().getEhcacheKVMap(this.mapKey).clear();
+		cacheState().clear();
 	}
 
 	@Override
@@ -275,25 +347,107 @@ public class TapTableMap<K extends String, V extends TapTable> extends HashMap<K
 		throw new UnsupportedOperationException();
 	}
 
+	/**
+	 * 依次查找堆内缓存, ehcache 磁盘缓存, 都没有时从 TM 批量加载; 除堆内命中外都在该表所在分段的锁内执行
+	 */
 	private TapTable getTapTable(K key) {
-		EhcacheKVMap<TapTable> tapTableMap = EhcacheService.getInstance().getEhcacheKVMap(this.mapKey);
-		AtomicReference<TapTable> tapTable = new AtomicReference<>(tapTableMap.get(key));
-		if (null == tapTable.get()) {
-			try {
-				handleWithLock(() -> {
-					tapTable.set(tapTableMap.get(key));
-					if (null == tapTable.get()) {
-						tapTable.set(findSchema(key));
-						tapTableMap.put(key, tapTable.get());
-					}
-				});
-			} catch (Exception e) {
-				throw new RuntimeException("Find schema failed, message: " + e.getMessage(), e);
-			}
+		CacheState cacheState = cacheState();
+		TapTable cached = cacheState.heapTier.get(key);
+		if (null != cached) {
+			cacheState.heapHits.increment();
+			return cached;
+		}
+		AtomicReference<TapTable> tapTable = new AtomicReference<>();
+		try {
+			handleWithLock(cacheState.lock(key), () -> {
+				tapTable.set(cacheState.heapTier.get(key));
+				if (null != tapTable.get()) {
+					cacheState.heapHits.increment();
+					return;
+				}
+				EhcacheKVMap<TapTable> ehcacheKVMap = EhcacheService.getInstance().getEhcacheKVMap(this.mapKey);
+				tapTable.set(ehcacheKVMap.get(key));
+				if (null != tapTable.get()) {
+					cacheState.diskHits.increment();
+				} else {
+					cacheState.misses.increment();
+					tapTable.set(loadSchema(key, cacheState, ehcacheKVMap));
+				}
+				cacheState.heapTier.put(key, tapTable.get());
+			});
+		} catch (Exception e) {
+			throw new RuntimeException("Find schema failed, message: " + e.getMessage(), e);
 		}
 		return tapTable.get();
 	}
 
+	/**
+	 * 从 TM 加载表模型放入 ehcache, 同时预取最多 {@link #TAP_TABLE_PREFETCH_SIZE_KEY} 个还没有加载过的表
+	 * <p>
+	 * 预取的表使用 putIfAbsent 放入, 不会覆盖其它线程同时放入的新模型(DDL)
+	 */
+	private TapTable loadSchema(K key, CacheState cacheState, EhcacheKVMap<TapTable> ehcacheKVMap) {
+		long startTime = System.currentTimeMillis();
+		int prefetchSize = CommonUtils.getPropertyInt(TAP_TABLE_PREFETCH_SIZE_KEY, DEFAULT_PREFETCH_SIZE);
+		TapTable tapTable = null;
+		int loaded = 0;
+		if (prefetchSize > 1 && (null == time || time.compareTo(0L) <= 0) && StringUtils.isNotBlank(tableNameAndQualifiedNameMap.get(key))) {
+			Map<String, K> qualifiedNameKeys = new HashMap<>();
+			qualifiedNameKeys.put(tableNameAndQualifiedNameMap.get(key), key);
+			for (Map.Entry<K, String> entry : tableNameAndQualifiedNameMap.entrySet()) {
+				if (qualifiedNameKeys.size() >= prefetchSize) {
+					break;
+				}
+				if (StringUtils.isNotBlank(entry.getValue()) && !cacheState.diskKeys.contains(entry.getKey())) {
+					qualifiedNameKeys.putIfAbsent(entry.getValue(), entry.getKey());
+				}
+			}
+			Map<K, V> schemas = findSchemas(qualifiedNameKeys);
+			loaded = schemas.size();
+			for (Map.Entry<K, V> entry : schemas.entrySet()) {
+				if (key.equals(entry.getKey())) {
+					tapTable = entry.getValue();
+				} else if (cacheState.diskKeys.add(entry.getKey())) {
+					ehcacheKVMap.putIfAbsent(entry.getKey(), entry.getValue());
+				}
+			}
+		}
+		if (null == tapTable) {
+			tapTable = findSchema(key);
+			loaded++;
+		}
+		ehcacheKVMap.put(key, tapTable);
+		cacheState.diskKeys.add(key);
+		cacheState.loadedTables.add(loaded);
+		cacheState.loadTimeMs.add(System.currentTimeMillis() - startTime);
+		return tapTable;
+	}
+
+	/**
+	 * 按 qualified name 批量查询, 结果按表名对应回 key, 对应不上的表不返回
+	 */
+	private Map<K, V> findSchemas(Map<String, K> qualifiedNameKeys) {
+		ClientMongoOperator clientMongoOperator = BeanUtil.getBean(ClientMongoOperator.class);
+		Query query = Query.query(where("qualified_name").in(qualifiedNameKeys.keySet()));
+		query.limit(qualifiedNameKeys.size());
+		List<TapTable> tapTables = clientMongoOperator.find(query, ConnectorConstant.METADATA_INSTANCE_COLLECTION + "/tapTables", TapTable.class);
+		Map<String, K> nameKeys = new HashMap<>();
+		for (K k : qualifiedNameKeys.values()) {
+			nameKeys.put(k, k);
+		}
+		Map<K, V> schemas = new HashMap<>();
+		if (null != tapTables) {
+			for (TapTable tapTable : tapTables) {
+				K k = null == tapTable ? null : nameKeys.get(tapTable.getId());
+				if (null != k) {
+					sortFields(tapTable);
+					schemas.put(k, (V) tapTable);
+				}
+			}
+		}
+		return schemas;
+	}
+
 	private V findSchema(K k) {
 		String qualifiedName = tableNameAndQualifiedNameMap.get(k);
 		if (StringUtils.isBlank(qualifiedName)) {
@@ -323,7 +477,11 @@ public class TapTableMap<K extends String, V extends TapTable> extends HashMap<K
 		if (null == tapTable) {
 			throw new RuntimeException("Table name \"" + k + "\" not exists, qualified name: " + qualifiedName);
 		}
+		sortFields(tapTable);
+		return (V) tapTable;
+	}
 
+	private static void sortFields(TapTable tapTable) {
 		LinkedHashMap<String, TapField> nameFieldMap = tapTable.getNameFieldMap();
 		if (MapUtils.isNotEmpty(nameFieldMap)) {
 			LinkedHashMap<String, TapField> sortedFieldMap = new LinkedHashMap<>();
@@ -345,22 +503,21 @@ public class TapTableMap<K extends String, V extends TapTable> extends HashMap<K
 			}).forEach(entry -> sortedFieldMap.put(entry.getKey(), entry.getValue()));
 			tapTable.setNameFieldMap(sortedFieldMap);
 		}
-		return (V) tapTable;
 	}
 
-	private void handleWithLock(Handler handler) throws Exception {
+	private static void handleWithLock(Lock lock, Handler handler) throws Exception {
+		lock(lock);
 		try {
-			lock();
 			handler.run();
 		} finally {
 			lock.unlock();
 		}
 	}
 
-	private void lock() throws Exception {
+	private static void lock(Lock lock) throws Exception {
 		while (true) {
 			if (Thread.currentThread().isInterrupted()) {
-				break;
+				throw new InterruptedException("Interrupted while waiting for table map lock");
 			}
 			if (lock.tryLock(3, TimeUnit.SECONDS)) {
 				break;
@@ -378,7 +535,66 @@ public class TapTableMap<K extends String, V extends TapTable> extends HashMap<K
 			EhcacheKVMap<Object> ehcacheKVMap = ehcacheService.getEhcacheKVMap(mapKey);
 			Optional.ofNullable(ehcacheKVMap).ifPresent(EhcacheKVMap::reset);
 			ehcacheService.removeEhcacheKVMap(mapKey);
+			CACHE_STATES.remove(mapKey);
 		}
 		this.tableNameAndQualifiedNameMap.clear();
 	}
+
+	public long getHeapHits() {
+		return cacheStateOrEmpty().heapHits.sum();
+	}
+
+	public long getDiskHits() {
+		return cacheStateOrEmpty().diskHits.sum();
+	}
+
+	public long getMisses() {
+		return cacheStateOrEmpty().misses.sum();
+	}
+
+	/**
+	 * @return 从 TM 加载的表数, 包括预取的表
+	 */
+	public long getLoadedTables() {
+		return cacheStateOrEmpty().loadedTables.sum();
+	}
+
+	public long getLoadTimeMs() {
+		return cacheStateOrEmpty().loadTimeMs.sum();
+	}
+
+	private CacheState cacheStateOrEmpty() {
+		CacheState cacheState = CACHE_STATES.get(mapKey);
+		return null == cacheState ? CacheState.EMPTY : cacheState;
+	}
+
+	private static class CacheState {
+		private static final CacheState EMPTY = new CacheState(1);
+		private final TapTableHeapTier heapTier;
+		// 已经放入 ehcache 的表, 预取时跳过
+		private final Set<String> diskKeys = ConcurrentHashMap.newKeySet();
+		private final Lock[] locks = new Lock[LOCK_STRIPES];
+		private final LongAdder heapHits = new LongAdder();
+		private final LongAdder diskHits = new LongAdder();
+		private final LongAdder misses = new LongAdder();
+		private final LongAdder loadedTables = new LongAdder();
+		private final LongAdder loadTimeMs = new LongAdder();
+
+		private CacheState(int heapMaxFields) {
+			this.heapTier = new TapTableHeapTier(heapMaxFields, LOCK_STRIPES);
+			for (int i = 0; i < LOCK_STRIPES; i++) {
+				locks[i] = new ReentrantLock();
+			}
+		}
+
+		private Lock lock(String key) {
+			int hash = key.hashCode();
+			return locks[((hash ^ (hash >>> 16)) & 0x7fffffff) % LOCK_STRIPES];
+		}
+
+		private void clear() {
+			heapTier.clear();
+			diskKeys.clear();
+		}
+	}
 }
@@ -0,0 +1,124 @@
+package com.tapdata.cache.hazelcast.serializer;
+
+import com.hazelcast.config.SerializationConfig;
+import com.hazelcast.config.SerializerConfig;
+import com.hazelcast.internal.serialization.InternalSerializationService;
+import com.hazelcast.internal.serialization.impl.DefaultSerializationServiceBuilder;
+import org.bson.Document;
+import org.bson.types.Decimal128;
+import org.bson.types.ObjectId;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Documents written by {@link DocumentStreamSerializer} are read back with the same values
+ **/
+public class DocumentStreamSerializerTest {
+
+	private final InternalSerializationService serializationService = new DefaultSerializationServiceBuilder()
+			.setConfig(new SerializationConfig().addSerializerConfig(new SerializerConfig()
+					.setImplementation(new DocumentStreamSerializer()).setTypeClass(Document.class)))
+			.build();
+
+	@Test
+	public void testScalarValues() {
+		Document document = new Document("_id", new ObjectId())
+				.append("null", null)
+				.append("string", "value 值")
+				.append("emptyString", "")
+				.append("int", -12)
+				.append("maxInt", Integer.MAX_VALUE)
+				.append("long", Long.MIN_VALUE)
+				.append("double", 1.5D)
+				.append("float", 2.5F)
+				.append("true", true)
+				.append("false", false)
+				.append("date", new Date())
+				.append("beforeEpoch", new Date(-86400000L))
+				.append("bigDecimal", new BigDecimal("-12345678901234567890.0123456789"))
+				.append("decimal128", new Decimal128(new BigDecimal("12345.678")));
+
+		Document result = roundTrip(document);
+
+		Assert.assertEquals(document, result);
+		Assert.assertEquals(new ArrayList<>(document.keySet()), new ArrayList<>(result.keySet()));
+		Assert.assertTrue(result.containsKey("null"));
+		Assert.assertTrue(result.get("int") instanceof Integer);
+		Assert.assertTrue(result.get("long") instanceof Long);
+	}
+
+	@Test
+	public void testBytes() {
+		byte[] bytes = {0, 1, -1, 127, -128};
+		Document result = roundTrip(new Document("bytes", bytes).append("empty", new byte[0]));
+
+		Assert.assertArrayEquals(bytes, (byte[]) result.get("bytes"));
+		Assert.assertArrayEquals(new byte[0], (byte[]) result.get("empty"));
+	}
+
+	@Test
+	public void testNestedValues() {
+		Map<String, Object> map = new LinkedHashMap<>();
+		map.put("name", "a");
+		map.put("date", new Date());
+		map.put("list", Arrays.asList(1, null, "b"));
+		Document document = new Document("name", "root")
+				.append("document", new Document("name", "nested").append("document", new Document("name", "deep").append("id", new ObjectId())))
+				.append("map", map)
+				.append("list", Arrays.asList(
+						new Document("name", "first").append("amount", new BigDecimal("1.10")),
+						new Document("name", "second").append("amount", null),
+						Arrays.asList("x", Arrays.asList(1L, 2L)),
+						null
+				))
+				.append("emptyDocument", new Document())
+				.append("emptyList", new ArrayList<>());
+
+		Document result = roundTrip(document);
+
+		// field names repeated in the nested values are written as indexes of the name table
+		Assert.assertEquals(document, result);
+		Assert.assertTrue(result.get("document") instanceof Document);
+		Assert.assertTrue(((Document) result.get("document")).get("document") instanceof Document);
+		Assert.assertTrue(((List<?>) result.get("list")).get(0) instanceof Document);
+	}
+
+	@Test
+	public void testContainerTypes() {
+		Map<String, Object> treeMap = new TreeMap<>();
+		treeMap.put("b", 2);
+		treeMap.put("a", 1);
+		Map<Integer, String> integerKeyMap = new HashMap<>();
+		integerKeyMap.put(1, "a");
+		List<Object> linkedList = new LinkedList<>(Arrays.asList("a", "b"));
+		Document document = new Document("treeMap", treeMap)
+				.append("integerKeyMap", integerKeyMap)
+				.append("linkedList", linkedList);
+
+		Document result = roundTrip(document);
+
+		// maps with string keys and lists are read back as LinkedHashMap and ArrayList, in the same order
+		Assert.assertEquals(LinkedHashMap.class, result.get("treeMap").getClass());
+		Assert.assertEquals(Arrays.asList("a", "b"), new ArrayList<>(((Map<?, ?>) result.get("treeMap")).keySet()));
+		Assert.assertEquals(treeMap, result.get("treeMap"));
+		Assert.assertEquals(ArrayList.class, result.get("linkedList").getClass());
+		Assert.assertEquals(linkedList, result.get("linkedList"));
+		// other maps fall back to hazelcast serialization
+		Assert.assertEquals(integerKeyMap, result.get("integerKeyMap"));
+	}
+
+	private Document roundTrip(Document document) {
+		return serializationService.toObject(serializationService.toData(document));
+	}
+}
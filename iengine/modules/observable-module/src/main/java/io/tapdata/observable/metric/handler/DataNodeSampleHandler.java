@@ -8,6 +8,7 @@ import io.tapdata.common.sample.CollectorFactory;
 import io.tapdata.common.sample.SampleCollector;
 import io.tapdata.common.sample.sampler.AverageSampler;
 import io.tapdata.common.sample.sampler.CounterSampler;
+import io.tapdata.common.sample.sampler.HistogramSampler;
 import io.tapdata.common.sample.sampler.NumberSampler;
 import io.tapdata.common.sample.sampler.SpeedSampler;
 import io.tapdata.entity.event.dml.TapRecordEvent;
@@ -73,6 +74,7 @@ public class DataNodeSampleHandler extends AbstractNodeSampleHandler {
     private final Map<String, SpeedSampler> outputQpsSpeeds = new HashMap<>();
 
     private final Map<String, AverageSampler> timeCostAverages = new HashMap<>();
+    private final Map<String, HistogramSampler> writeLatencyHistograms = new HashMap<>();
 
     private final Map<String, NumberSampler<Long>>  currentEventTimestamps = new HashMap<>();
 
@@ -128,6 +130,7 @@ public class DataNodeSampleHandler extends AbstractNodeSampleHandler {
         outputQpsSpeeds.put(nodeId, collector.getSpeedSampler("outputQps"));
 
         timeCostAverages.put(nodeId, collector.getAverageSampler("timeCostAvg"));
+        writeLatencyHistograms.put(nodeId, collector.getHistogramSampler("writeLatency"));
 
         Number currentEventTimestampInitial = values.getOrDefault("currentEventTimestamp", null);
         currentEventTimestamps.put(nodeId, collector.getNumberCollector("currentEventTimestamp", Long.class,
@@ -241,7 +244,10 @@ public class DataNodeSampleHandler extends AbstractNodeSampleHandler {
         Optional.ofNullable(outputQpsSpeeds.get(nodeId)).ifPresent(speed -> speed.add(total));
 
         Optional.ofNullable(timeCostAverages.get(nodeId)).ifPresent(average -> {
-            average.add(total, acceptTime - writeRecordAcceptLastTs.get(nodeId));
+            long writeCost = acceptTime - writeRecordAcceptLastTs.get(nodeId);
+            average.add(total, writeCost);
+            // every record of the batch waits for the whole batch
+            Optional.ofNullable(writeLatencyHistograms.get(nodeId)).ifPresent(histogram -> histogram.record(total, writeCost));
             writeRecordAcceptLastTs.put(nodeId, acceptTime);
         });
 
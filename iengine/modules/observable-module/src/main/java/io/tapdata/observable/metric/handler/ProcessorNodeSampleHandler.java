@@ -6,6 +6,7 @@ import io.tapdata.common.sample.CollectorFactory;
 import io.tapdata.common.sample.SampleCollector;
 import io.tapdata.common.sample.sampler.AverageSampler;
 import io.tapdata.common.sample.sampler.CounterSampler;
+import io.tapdata.common.sample.sampler.HistogramSampler;
 import io.tapdata.common.sample.sampler.NumberSampler;
 import io.tapdata.common.sample.sampler.SpeedSampler;
 import io.tapdata.observable.metric.TaskSampleRetriever;
@@ -43,6 +44,7 @@ public class ProcessorNodeSampleHandler extends AbstractNodeSampleHandler {
     private final Map<String, SpeedSampler> outputSpeeds = new HashMap<>();
 
     private final Map<String, AverageSampler> timeCostAverages = new HashMap<>();
+    private final Map<String, HistogramSampler> processTimeHistograms = new HashMap<>();
 
     private final Map<String, NumberSampler<Long>>  currentEventTimestamps = new HashMap<>();
 
@@ -83,6 +85,7 @@ public class ProcessorNodeSampleHandler extends AbstractNodeSampleHandler {
         inputSpeeds.put(nodeId, collector.getSpeedSampler("inputQps"));
         outputSpeeds.put(nodeId, collector.getSpeedSampler("outputQps"));
         timeCostAverages.put(nodeId, collector.getAverageSampler("timeCostAvg"));
+        processTimeHistograms.put(nodeId, collector.getHistogramSampler("processTime"));
 
         Number currentEventTimestampInitial = values.getOrDefault("currentEventTimestamp", null);
         currentEventTimestamps.put(nodeId, collector.getNumberCollector("currentEventTimestamp", Long.class,
@@ -124,5 +127,7 @@ public class ProcessorNodeSampleHandler extends AbstractNodeSampleHandler {
     public void handleProcessEnd(String nodeId, Long startAt, Long endAt, long total) {
         Optional.ofNullable(timeCostAverages.get(nodeId)).ifPresent(average ->
                 average.add(total, endAt - startAt));
+        Optional.ofNullable(processTimeHistograms.get(nodeId)).ifPresent(histogram ->
+                histogram.record(total, endAt - startAt));
     }
 }
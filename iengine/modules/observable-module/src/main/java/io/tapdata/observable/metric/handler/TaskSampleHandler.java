@@ -5,6 +5,7 @@ import io.tapdata.common.sample.CollectorFactory;
 import io.tapdata.common.sample.SampleCollector;
 import io.tapdata.common.sample.sampler.AverageSampler;
 import io.tapdata.common.sample.sampler.CounterSampler;
+import io.tapdata.common.sample.sampler.HistogramSampler;
 import io.tapdata.common.sample.sampler.SpeedSampler;
 import io.tapdata.entity.event.dml.*;
 import io.tapdata.entity.logger.TapLogger;
@@ -52,6 +53,7 @@ public class TaskSampleHandler extends AbstractHandler {
     private SpeedSampler outputQps;
 
     private AverageSampler timeCostAvg;
+    private HistogramSampler replicateLag;
 
     private Long snapshotDoneAt = null;
 
@@ -102,6 +104,7 @@ public class TaskSampleHandler extends AbstractHandler {
         outputQps = collector.getSpeedSampler("outputQps");
 
         timeCostAvg = collector.getAverageSampler("timeCostAvg");
+        replicateLag = collector.getHistogramSampler("replicateLag");
 
         Number retrieveSnapshotDoneAt = values.getOrDefault("snapshotDoneAt", null);
         if (retrieveSnapshotDoneAt != null) {
@@ -184,6 +187,7 @@ public class TaskSampleHandler extends AbstractHandler {
                 break;
             }
             timeCostTotal += (current - time);
+            replicateLag.record(current - time);
         }
         timeCostAvg.add(total, timeCostTotal);
     }
@@ -70,6 +70,12 @@ public abstract class DataParentNode<S> extends Node<S> {
 	private Boolean cdcConcurrent;
 	/** 增量写入线程数*/
 	private Integer cdcConcurrentWriteNum;
+	/** 并发写入是否使用自适应模式，写入线程数作为最大线程数*/
+	private Boolean adaptiveConcurrentWrite;
+	/** 是否开启全量分片并发读取*/
+	private Boolean initialConcurrentRead;
+	/** 全量分片读取线程数*/
+	private Integer initialConcurrentReadNum;
     /**
      * constructor for node
      *
@@ -123,6 +123,10 @@ public class ParentTaskDto extends SchedulableDto {
     @EqField
     private Integer writeThreadSize;
 
+    /** 关联/合并节点缓存存储方式, IMap(默认) 或 RocksDB */
+    @EqField
+    private String stateStoreType;
+
     /** 删除标记*/
     private boolean is_deleted;
 
@@ -1,11 +1,13 @@
 package com.tapdata.tm.monitor.entity;
 
 import io.tapdata.common.sample.request.Sample;
+import io.tapdata.common.sample.sampler.HistogramSampler;
 import io.tapdata.common.utils.NumberUtils;
 import lombok.Data;
 import org.bson.codecs.pojo.annotations.BsonId;
 import org.springframework.data.mongodb.core.mapping.Field;
 
+import java.util.Arrays;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
@@ -31,6 +33,9 @@ public class MeasurementEntity {
     public static final String FIELD_SAMPLES = "ss";
     public static final String FIELD_STATISTICS = "statistics";
 
+    private static final List<String> HISTOGRAM_TAIL_SUFFIXES = Arrays.asList(HistogramSampler.P95, HistogramSampler.P99,
+            HistogramSampler.P999, HistogramSampler.MAX);
+
     @Field(FIELD_GRANULARITY)
     private String granularity;
     @Field(FIELD_DATE)
@@ -89,6 +94,51 @@ public class MeasurementEntity {
                 }
             }
         }
+        aggregateHistogramValues(finalKeyValueMap);
         return finalKeyValueMap;
     }
+
+    /**
+     * Percentiles of histogram samplers can not be averaged, the exact percentiles are only known by the agent:
+     * p50 is weighted by the count of each sample, the tail percentiles and max take the max of the samples, which is
+     * the upper bound of the real value. Count is the sum of the samples.
+     */
+    private void aggregateHistogramValues(Map<String, Number> finalKeyValueMap) {
+        if (samples == null) {
+            return;
+        }
+        Map<String, Number> tailValueMap = new HashMap<>();
+        Map<String, Double> weightedP50Map = new HashMap<>();
+        Map<String, Long> countMap = new HashMap<>();
+        for (Sample sample : samples) {
+            Map<String, Number> map = sample.getVs();
+            for (Map.Entry<String, Number> entry : map.entrySet()) {
+                String key = entry.getKey();
+                if (null == entry.getValue() || !key.endsWith(HistogramSampler.COUNT)) {
+                    continue;
+                }
+                String id = key.substring(0, key.length() - HistogramSampler.COUNT.length());
+                Number p50 = map.get(id + HistogramSampler.P50);
+                if (null == p50) {
+                    continue;
+                }
+                long count = entry.getValue().longValue();
+                weightedP50Map.merge(id, p50.doubleValue() * count, Double::sum);
+                countMap.merge(id, count, Long::sum);
+                for (String suffix : HISTOGRAM_TAIL_SUFFIXES) {
+                    Number value = map.get(id + suffix);
+                    if (null != value && count > 0) {
+                        tailValueMap.merge(id + suffix, value, (a, b) -> a.doubleValue() >= b.doubleValue() ? a : b);
+                    }
+                }
+            }
+        }
+        for (Map.Entry<String, Long> entry : countMap.entrySet()) {
+            finalKeyValueMap.put(entry.getKey() + HistogramSampler.COUNT, entry.getValue());
+            if (entry.getValue() > 0) {
+                finalKeyValueMap.put(entry.getKey() + HistogramSampler.P50, Math.round(weightedP50Map.get(entry.getKey()) / entry.getValue()));
+            }
+        }
+        finalKeyValueMap.putAll(tailValueMap);
+    }
 }
@@ -18,8 +18,9 @@ import io.tapdata.entity.utils.InstanceFactory;
 import io.tapdata.entity.utils.JavaTypesToTapTypes;
 
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
-import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.ConcurrentHashMap;
 
 import static io.tapdata.entity.simplify.TapSimplify.field;
 import static io.tapdata.entity.simplify.TapSimplify.tapRaw;
@@ -29,6 +30,11 @@ public class TapCodecsFilterManager {
     private MapIteratorEx mapIteratorToTapValue;
     private MapIteratorEx mapIteratorFromTapValue;
     private final TapCodecsRegistry codecsRegistry;
+    //Compiled ToTapValue plans by name field map instance, cleared when too many schemas passed through
+    private static final int MAX_CACHED_PLANS = 256;
+    private final Map<PlanKey, ToTapValuePlan> toTapValuePlans = new ConcurrentHashMap<>();
+    private volatile ToTapValuePlan lastToTapValuePlan;
+    private final Map<Class<?>, FromTapValueCodec<?>> fromTapValueCodecMap = new ConcurrentHashMap<>();
 
     public TapCodecsFilterManager(TapCodecsRegistry codecsRegistry) {
         this.codecsRegistry = codecsRegistry;
@@ -44,18 +50,88 @@ public class TapCodecsFilterManager {
     public void transformToTapValueMap(Map<String, Object> value, Map<String, TapField> nameFieldMap, TapDetector... detectors) {
         if(value == null)
             return;
-        NewFieldDetector newFieldDetector = null;
+        ToTapValuePlan plan = nameFieldMap != null ? toTapValuePlan(nameFieldMap) : null;
+        mapIteratorToTapValue.iterate(value, new ToTapValueFilter(plan, nameFieldMap != null, newFieldDetector(detectors)));
+    }
+
+    /**
+     * Convert a batch of records of the same table, the conversion plan of the table is resolved only once for the whole batch.
+     */
+    public void transformToTapValueMaps(List<Map<String, Object>> values, Map<String, TapField> nameFieldMap, TapDetector... detectors) {
+        if(values == null || values.isEmpty())
+            return;
+        ToTapValuePlan plan = nameFieldMap != null ? toTapValuePlan(nameFieldMap) : null;
+        NewFieldDetector newFieldDetector = newFieldDetector(detectors);
+        for(Map<String, Object> value : values) {
+            if(value != null)
+                mapIteratorToTapValue.iterate(value, new ToTapValueFilter(plan, nameFieldMap != null, newFieldDetector));
+        }
+    }
+
+    /**
+     * Drop the compiled conversion plan of the name field map, call it after the fields were changed in place (DDL).
+     * Replacing the whole name field map, adding/dropping fields or replacing a field instance is detected automatically.
+     */
+    public void invalidateToTapValuePlan(Map<String, TapField> nameFieldMap) {
+        if(nameFieldMap == null)
+            return;
+        toTapValuePlans.remove(new PlanKey(nameFieldMap));
+        ToTapValuePlan plan = lastToTapValuePlan;
+        if(plan != null && plan.getNameFieldMap() == nameFieldMap)
+            lastToTapValuePlan = null;
+    }
+
+    /**
+     * Drop all compiled plans and resolved codecs, call it after codecs were registered or unregistered in the registry.
+     */
+    public void clearCodecsPlans() {
+        toTapValuePlans.clear();
+        lastToTapValuePlan = null;
+        fromTapValueCodecMap.clear();
+    }
+
+    private ToTapValuePlan toTapValuePlan(Map<String, TapField> nameFieldMap) {
+        ToTapValuePlan plan = lastToTapValuePlan;
+        if(plan != null && plan.matches(nameFieldMap))
+            return plan;
+        PlanKey planKey = new PlanKey(nameFieldMap);
+        plan = toTapValuePlans.get(planKey);
+        if(plan == null || !plan.matches(nameFieldMap)) {
+            if(toTapValuePlans.size() >= MAX_CACHED_PLANS)
+                toTapValuePlans.clear();
+            plan = new ToTapValuePlan(nameFieldMap);
+            toTapValuePlans.put(planKey, plan);
+        }
+        lastToTapValuePlan = plan;
+        return plan;
+    }
+
+    private NewFieldDetector newFieldDetector(TapDetector... detectors) {
         if(detectors != null) {
             for(TapDetector detector : detectors) {
-                if(newFieldDetector == null && detector instanceof NewFieldDetector) {
-                    newFieldDetector = (NewFieldDetector) detector;
+                if(detector instanceof NewFieldDetector) {
+                    return (NewFieldDetector) detector;
                 }
             }
         }
-        AtomicReference<NewFieldDetector> newFieldDetectorRef = new AtomicReference<>(newFieldDetector);
-        mapIteratorToTapValue.iterate(value, (name, entry, recursive) -> {
-            Object theValue = entry;
-            String fieldName = name;
+        return null;
+    }
+
+    private class ToTapValueFilter implements EntryFilter {
+        private final ToTapValuePlan plan;
+        private final boolean withSchema;
+        private final NewFieldDetector newFieldDetector;
+        //Position of the next top level field in schema order
+        private int position;
+
+        private ToTapValueFilter(ToTapValuePlan plan, boolean withSchema, NewFieldDetector newFieldDetector) {
+            this.plan = plan;
+            this.withSchema = withSchema;
+            this.newFieldDetector = newFieldDetector;
+        }
+
+        @Override
+        public Object filter(String fieldName, Object theValue, boolean recursive) {
             if(theValue != null && fieldName != null) {
                 if((theValue instanceof TapValue)) {
                     TapLogger.debug(TAG, "Value {} for field {} already in TapValue format, no need do ToTapValue conversion. ", theValue, fieldName);
@@ -65,20 +141,23 @@ public class TapCodecsFilterManager {
                 String dataType = null;
                 TapType typeFromSchema = null;
                 ToTapValueCodec<?> valueCodec = null;
-                if(nameFieldMap != null) {
-                    valueCodec = this.codecsRegistry.getCustomToTapValueCodec(theValue.getClass());
-
-                    TapField field = nameFieldMap.get(fieldName);
-                    if(field != null) {
-                        dataType = field.getDataType();
-                        typeFromSchema = field.getTapType();
+                if(withSchema) {
+                    ToTapValuePlan.FieldPlan fieldPlan = plan.field(fieldName, recursive ? -1 : position);
+                    if(fieldPlan != null) {
+                        if(!recursive)
+                            position = fieldPlan.index() + 1;
+                        valueCodec = fieldPlan.customCodec(theValue.getClass(), codecsRegistry);
+                        dataType = fieldPlan.dataType();
+                        typeFromSchema = fieldPlan.tapType();
                         if(typeFromSchema != null && valueCodec == null)
-                            valueCodec = typeFromSchema.toTapValueCodec();
+                            valueCodec = fieldPlan.schemaCodec(typeFromSchema);
+                    } else {
+                        valueCodec = codecsRegistry.getCustomToTapValueCodec(theValue.getClass());
                     }
                 }
                 boolean handleByTypeCodec = false;
                 if(valueCodec == null) {
-                    valueCodec = this.codecsRegistry.getToTapValueCodec(theValue.getClass());
+                    valueCodec = codecsRegistry.getToTapValueCodec(theValue.getClass());
                     typeFromSchema = JavaTypesToTapTypes.toTapType(theValue);
                     handleByTypeCodec = true;
                 }
@@ -88,7 +167,7 @@ public class TapCodecsFilterManager {
                     TapValue tapValue = valueCodec.toTapValue(theValue, typeFromSchema);
                     if(tapValue == null && !handleByTypeCodec) {
                         TapLogger.debug(TAG, "Value Codec {} from model convert TapValue failed, value {}", valueCodec.getClass().getSimpleName(), theValue);
-                        valueCodec = this.codecsRegistry.getToTapValueCodec(theValue.getClass());
+                        valueCodec = codecsRegistry.getToTapValueCodec(theValue.getClass());
                         if(valueCodec != null) {
                             tapValue = valueCodec.toTapValue(theValue, typeFromSchema);
                             if(tapValue == null) {
@@ -109,12 +188,11 @@ public class TapCodecsFilterManager {
                         typeFromSchema = tapValue.createDefaultTapType();
                     tapValue.setTapType(typeFromSchema);
                     tapValue.setOriginValue(theValue);
-//                    entry.setValue(tapValue);
 
                     if(handleByTypeCodec) {
                         //Means new field.
-                        if(!recursive && newFieldDetectorRef.get() != null) {
-                            newFieldDetectorRef.get().detected(field(fieldName, typeFromSchema.getClass().getSimpleName()).tapType(typeFromSchema));
+                        if(!recursive && newFieldDetector != null) {
+                            newFieldDetector.detected(field(fieldName, typeFromSchema.getClass().getSimpleName()).tapType(typeFromSchema));
                         }
                     }
 
@@ -122,7 +200,7 @@ public class TapCodecsFilterManager {
                 }
             }
             return null;
-        });
+        }
     }
 
     public Map<String, TapField> transformFromTapValueMap(Map<String, Object> tapValueMap) {
@@ -137,7 +215,7 @@ public class TapCodecsFilterManager {
                 TapValue<?, ?> theValue = (TapValue<?, ?>) object;
 //                String fieldName = stringTapValueEntry.getKey();
                 if(fieldName != null) {
-                    FromTapValueCodec<TapValue<?, ?>> fromTapValueCodec = this.codecsRegistry.getFromTapValueCodec((Class<TapValue<?, ?>>) theValue.getClass());
+                    FromTapValueCodec<TapValue<?, ?>> fromTapValueCodec = fromTapValueCodec(theValue.getClass());
                     if(fromTapValueCodec == null)
                         throw new UnknownCodecException("fromTapValueMap codecs not found for value class " + theValue.getClass());
 
@@ -158,6 +236,30 @@ public class TapCodecsFilterManager {
         return nameFieldMap;
     }
 
+    /**
+     * Convert a batch of records, returns the name field map shared by the whole batch.
+     */
+    public Map<String, TapField> transformFromTapValueMaps(List<Map<String, Object>> tapValueMaps, Map<String, TapField> sourceNameFieldMap) {
+        Map<String, TapField> nameFieldMap = sourceNameFieldMap != null ? sourceNameFieldMap : new LinkedHashMap<>();
+        if(tapValueMaps != null) {
+            for(Map<String, Object> tapValueMap : tapValueMaps) {
+                if(tapValueMap != null)
+                    transformFromTapValueMap(tapValueMap, nameFieldMap);
+            }
+        }
+        return nameFieldMap;
+    }
+
+    private FromTapValueCodec<TapValue<?, ?>> fromTapValueCodec(Class<?> tapValueClass) {
+        FromTapValueCodec<?> codec = fromTapValueCodecMap.get(tapValueClass);
+        if(codec == null) {
+            codec = this.codecsRegistry.getFromTapValueCodec((Class<TapValue<?, ?>>) tapValueClass);
+            if(codec != null)
+                fromTapValueCodecMap.put(tapValueClass, codec);
+        }
+        return (FromTapValueCodec<TapValue<?, ?>>) codec;
+    }
+
     public String getDataTypeByTapType(Class<? extends TapType> tapTypeClass) {
         return codecsRegistry.getDataTypeByTapType(tapTypeClass);
     }
@@ -181,4 +283,22 @@ public class TapCodecsFilterManager {
     public TapCodecsRegistry getCodecsRegistry() {
         return codecsRegistry;
     }
+
+    private static class PlanKey {
+        private final Map<String, TapField> nameFieldMap;
+
+        private PlanKey(Map<String, TapField> nameFieldMap) {
+            this.nameFieldMap = nameFieldMap;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof PlanKey && ((PlanKey) o).nameFieldMap == nameFieldMap;
+        }
+
+        @Override
+        public int hashCode() {
+            return System.identityHashCode(nameFieldMap);
+        }
+    }
 }
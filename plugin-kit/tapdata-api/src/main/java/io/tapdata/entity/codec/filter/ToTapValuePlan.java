@@ -0,0 +1,141 @@
+package io.tapdata.entity.codec.filter;
+
+import io.tapdata.entity.codec.TapCodecsRegistry;
+import io.tapdata.entity.codec.ToTapValueCodec;
+import io.tapdata.entity.schema.TapField;
+import io.tapdata.entity.schema.type.TapType;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compiled ToTapValue conversion plan of one name field map.
+ * <p>
+ * The fields are kept in schema order and the codec of each field's TapType is resolved once at compile time, so converting
+ * a record no longer resolves codecs through {@link io.tapdata.entity.utils.InstanceFactory} for every value.
+ * Records which keep the schema order (most of them) are matched by position, other names fall back to a name lookup.
+ * <p>
+ * A plan belongs to the {@link TapCodecsFilterManager} which compiled it and is shared between its threads,
+ * the only mutable state is the per field custom codec cache which is replaced as an immutable holder.
+ */
+class ToTapValuePlan {
+    private final Map<String, TapField> nameFieldMap;
+    private final int size;
+    private final FieldPlan[] fields;
+    private final Map<String, FieldPlan> nameFieldPlanMap;
+
+    ToTapValuePlan(Map<String, TapField> nameFieldMap) {
+        this.nameFieldMap = nameFieldMap;
+        this.size = nameFieldMap.size();
+        List<FieldPlan> fieldPlans = new ArrayList<>(size);
+        for (Map.Entry<String, TapField> entry : nameFieldMap.entrySet()) {
+            if (entry.getKey() == null || entry.getValue() == null)
+                continue;
+            fieldPlans.add(new FieldPlan(entry.getKey(), entry.getValue()));
+        }
+        this.fields = fieldPlans.toArray(new FieldPlan[0]);
+        this.nameFieldPlanMap = new HashMap<>(fields.length * 4 / 3 + 1);
+        for (int i = 0; i < fields.length; i++) {
+            fields[i].index = i;
+            nameFieldPlanMap.put(fields[i].name, fields[i]);
+        }
+    }
+
+    /**
+     * The plan is only valid for the same name field map instance holding the same field instances in the same order.
+     * A size change means fields were added or dropped in place, a different field instance means a field was replaced
+     * in place (type change for example), both recompile the plan. The check only compares references.
+     */
+    boolean matches(Map<String, TapField> nameFieldMap) {
+        if (this.nameFieldMap != nameFieldMap || size != nameFieldMap.size())
+            return false;
+        int i = 0;
+        for (Map.Entry<String, TapField> entry : nameFieldMap.entrySet()) {
+            if (entry.getKey() == null || entry.getValue() == null)
+                continue;
+            if (i >= fields.length || fields[i].field != entry.getValue())
+                return false;
+            i++;
+        }
+        return i == fields.length;
+    }
+
+    /**
+     * @param name     field name
+     * @param position expected position of the field in schema order
+     * @return field plan, null if the field is not in the schema
+     */
+    FieldPlan field(String name, int position) {
+        if (position >= 0 && position < fields.length) {
+            FieldPlan fieldPlan = fields[position];
+            if (fieldPlan.name.equals(name))
+                return fieldPlan;
+        }
+        return nameFieldPlanMap.get(name);
+    }
+
+    Map<String, TapField> getNameFieldMap() {
+        return nameFieldMap;
+    }
+
+    static class FieldPlan {
+        private final String name;
+        private final TapField field;
+        private final TapType tapType;
+        private final ToTapValueCodec<?> schemaCodec;
+        private int index;
+        private volatile CustomCodec customCodec;
+
+        private FieldPlan(String name, TapField field) {
+            this.name = name;
+            this.field = field;
+            this.tapType = field.getTapType();
+            this.schemaCodec = tapType != null ? tapType.toTapValueCodec() : null;
+        }
+
+        int index() {
+            return index;
+        }
+
+        String dataType() {
+            return field.getDataType();
+        }
+
+        TapType tapType() {
+            return field.getTapType();
+        }
+
+        /**
+         * Codec of the field's TapType, resolved again if the TapType was replaced in place after compiling.
+         */
+        ToTapValueCodec<?> schemaCodec(TapType currentTapType) {
+            if (currentTapType == tapType)
+                return schemaCodec;
+            return currentTapType != null ? currentTapType.toTapValueCodec() : null;
+        }
+
+        /**
+         * Values of one field nearly always have the same class, the custom codec of the last class is kept.
+         */
+        ToTapValueCodec<?> customCodec(Class<?> valueClass, TapCodecsRegistry codecsRegistry) {
+            CustomCodec cached = customCodec;
+            if (cached == null || cached.valueClass != valueClass) {
+                cached = new CustomCodec(valueClass, codecsRegistry.getCustomToTapValueCodec(valueClass));
+                customCodec = cached;
+            }
+            return cached.codec;
+        }
+    }
+
+    private static class CustomCodec {
+        private final Class<?> valueClass;
+        private final ToTapValueCodec<?> codec;
+
+        private CustomCodec(Class<?> valueClass, ToTapValueCodec<?> codec) {
+            this.valueClass = valueClass;
+            this.codec = codec;
+        }
+    }
+}
@@ -18,7 +18,7 @@ import java.util.concurrent.TimeUnit;
 /**
  * Generic point collector.
  * 指标点收集器
- * 目前支持4中采集， 平均采集AveragePoint， 计数器采集CounterPoint， 数字采集NumberPoint， 速度采集SpeedPoint
+ * 目前支持5中采集， 平均采集AveragePoint， 计数器采集CounterPoint， 数字采集NumberPoint， 速度采集SpeedPoint， 直方图采集HistogramSampler
  */
 public class SampleCollector {
     private static final Logger logger = LoggerFactory.getLogger(SampleCollector.class.getSimpleName());
@@ -121,7 +121,11 @@ public class SampleCollector {
                         continue;
                     }
                     long time = System.currentTimeMillis();
-                    result.put(entry.getKey(), entry.getValue().value());
+                    if (entry.getValue() instanceof HistogramSampler) {
+                        result.putAll(((HistogramSampler) entry.getValue()).values(entry.getKey()));
+                    } else {
+                        result.put(entry.getKey(), entry.getValue().value());
+                    }
                     long takes = System.currentTimeMillis() - time;
                     if(takes > 10) {
                         logger.warn("PointSampler {} execute more than 10 milliseconds, {}", entry.getValue().getClass().getSimpleName(), takes);
@@ -248,6 +252,16 @@ public class SampleCollector {
         return (SpeedSampler) idSamplerMap.computeIfAbsent(id, s -> new SpeedSampler());
     }
 
+    /**
+     * 根据业务指定的ID获得直方图采集器，上报时输出 id + P50/P95/P99/P999/Max/Count，上报之后直方图会清零
+     *
+     * @param id
+     * @return
+     */
+    public HistogramSampler getHistogramSampler(String id) {
+        return (HistogramSampler) idSamplerMap.computeIfAbsent(id, s -> new HistogramSampler());
+    }
+
 
     public static void main(String... args) {
         SampleCollector p = new SampleCollector((pointValues, tags) -> {
@@ -0,0 +1,175 @@
+package io.tapdata.common.sample.sampler;
+
+import io.tapdata.common.sample.Sampler;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Record the distribution of values (latency in milliseconds for example), and calculate percentiles when upload.
+ * The histogram is cleared when upload.
+ *
+ * Values are counted in log-linear buckets like HdrHistogram: values below 128 are counted exactly, bigger values are
+ * counted in 64 sub buckets of every power of 2, so the relative error of percentiles is less than 1/64.
+ * Recording is lock free, the buckets are swapped out one by one with getAndSet when upload, so no value is lost
+ * between two periods.
+ */
+public class HistogramSampler implements Sampler {
+    public static final String P50 = "P50";
+    public static final String P95 = "P95";
+    public static final String P99 = "P99";
+    public static final String P999 = "P999";
+    public static final String MAX = "Max";
+    public static final String COUNT = "Count";
+
+    private static final int SUB_BUCKET_HALF_COUNT_MAGNITUDE = 6;
+    private static final int SUB_BUCKET_HALF_COUNT = 1 << SUB_BUCKET_HALF_COUNT_MAGNITUDE;
+    private static final int SUB_BUCKET_COUNT = SUB_BUCKET_HALF_COUNT << 1;
+    /**
+     * Values bigger than 2^40 (about 35 years in milliseconds) are counted as 2^40
+     */
+    private static final int MAX_VALUE_MAGNITUDE = 40;
+    private static final long MAX_TRACKABLE_VALUE = (1L << MAX_VALUE_MAGNITUDE) - 1;
+    static final int BUCKET_COUNT = SUB_BUCKET_COUNT + (MAX_VALUE_MAGNITUDE - SUB_BUCKET_HALF_COUNT_MAGNITUDE - 1) * SUB_BUCKET_HALF_COUNT;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+    private final AtomicLong max = new AtomicLong();
+
+    public void record(long value) {
+        record(1, value);
+    }
+
+    /**
+     * Record the value for cnt times, the batch write costs for example, every record of the batch takes the same time.
+     */
+    public void record(long cnt, long value) {
+        if (cnt <= 0) {
+            return;
+        }
+        long normalized = Math.min(Math.max(value, 0L), MAX_TRACKABLE_VALUE);
+        counts.addAndGet(bucketIndex(normalized), cnt);
+        long currentMax;
+        while (normalized > (currentMax = max.get())) {
+            if (max.compareAndSet(currentMax, normalized)) {
+                break;
+            }
+        }
+    }
+
+    /**
+     * Take the values recorded since last snapshot, and clear the histogram.
+     */
+    public Snapshot snapshotThenReset() {
+        long[] snapshotCounts = new long[BUCKET_COUNT];
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            snapshotCounts[i] = counts.getAndSet(i, 0L);
+        }
+        return new Snapshot(snapshotCounts, max.getAndSet(0L));
+    }
+
+    /**
+     * Single value of the sampler is p99, use {@link #values(String)} to upload all the percentiles.
+     */
+    @Override
+    public Number value() {
+        return snapshotThenReset().percentile(99.0);
+    }
+
+    /**
+     * Percentiles, max and count since last upload, with keys like "{id}P99".
+     */
+    public Map<String, Number> values(String id) {
+        return snapshotThenReset().values(id);
+    }
+
+    static int bucketIndex(long value) {
+        if (value < SUB_BUCKET_COUNT) {
+            return (int) value;
+        }
+        int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_HALF_COUNT_MAGNITUDE;
+        int subBucket = (int) (value >>> shift);
+        return SUB_BUCKET_COUNT + (shift - 1) * SUB_BUCKET_HALF_COUNT + (subBucket - SUB_BUCKET_HALF_COUNT);
+    }
+
+    static long highestEquivalentValue(int index) {
+        if (index < SUB_BUCKET_COUNT) {
+            return index;
+        }
+        int shift = (index - SUB_BUCKET_COUNT) / SUB_BUCKET_HALF_COUNT + 1;
+        long subBucket = (index - SUB_BUCKET_COUNT) % SUB_BUCKET_HALF_COUNT + SUB_BUCKET_HALF_COUNT;
+        return ((subBucket + 1) << shift) - 1;
+    }
+
+    /**
+     * Values of one period, snapshots of different samplers or periods can be merged without losing precision.
+     */
+    public static class Snapshot {
+        private final long[] counts;
+        private long totalCount;
+        private long max;
+
+        public Snapshot() {
+            this(new long[BUCKET_COUNT], 0L);
+        }
+
+        Snapshot(long[] counts, long max) {
+            this.counts = counts;
+            this.max = max;
+            for (long count : counts) {
+                totalCount += count;
+            }
+        }
+
+        public Snapshot merge(Snapshot other) {
+            if (null == other) {
+                return this;
+            }
+            for (int i = 0; i < BUCKET_COUNT; i++) {
+                counts[i] += other.counts[i];
+            }
+            totalCount += other.totalCount;
+            max = Math.max(max, other.max);
+            return this;
+        }
+
+        /**
+         * @param percentile 0 ~ 100
+         * @return the highest value of the bucket which holds the percentile, 0 if nothing recorded
+         */
+        public long percentile(double percentile) {
+            if (totalCount == 0) {
+                return 0L;
+            }
+            long countAtPercentile = Math.max(1L, (long) Math.ceil(Math.min(percentile, 100.0) / 100.0 * totalCount));
+            long accumulated = 0L;
+            for (int i = 0; i < BUCKET_COUNT; i++) {
+                accumulated += counts[i];
+                if (accumulated >= countAtPercentile) {
+                    return Math.min(highestEquivalentValue(i), max);
+                }
+            }
+            return max;
+        }
+
+        public long getTotalCount() {
+            return totalCount;
+        }
+
+        public long getMax() {
+            return max;
+        }
+
+        public Map<String, Number> values(String id) {
+            Map<String, Number> values = new LinkedHashMap<>();
+            values.put(id + P50, percentile(50.0));
+            values.put(id + P95, percentile(95.0));
+            values.put(id + P99, percentile(99.0));
+            values.put(id + P999, percentile(99.9));
+            values.put(id + MAX, max);
+            values.put(id + COUNT, totalCount);
+            return values;
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package io.tapdata.pdk.apis.entity;
+
+import java.io.Serializable;
+
+/**
+ * A key range of one table which can be batch read independently from the other splits of the same table.
+ * <p>
+ * The range is [lowerBound, upperBound) on splitKey, null bound means unbounded on that side.
+ * Bound values must be serializable, engine will store the splits with the batch offset to resume from them.
+ */
+public class BatchReadSplit implements Serializable {
+    private static final long serialVersionUID = 1L;
+    private String id;
+    private String tableId;
+    private String splitKey;
+    private Object lowerBound;
+    private Object upperBound;
+
+    public BatchReadSplit() {}
+
+    public BatchReadSplit(String id, String tableId, String splitKey, Object lowerBound, Object upperBound) {
+        this.id = id;
+        this.tableId = tableId;
+        this.splitKey = splitKey;
+        this.lowerBound = lowerBound;
+        this.upperBound = upperBound;
+    }
+
+    public static BatchReadSplit create(String tableId, int index) {
+        BatchReadSplit split = new BatchReadSplit();
+        split.id = tableId + "_" + index;
+        split.tableId = tableId;
+        return split;
+    }
+
+    public BatchReadSplit splitKey(String splitKey) {
+        this.splitKey = splitKey;
+        return this;
+    }
+
+    public BatchReadSplit lowerBound(Object lowerBound) {
+        this.lowerBound = lowerBound;
+        return this;
+    }
+
+    public BatchReadSplit upperBound(Object upperBound) {
+        this.upperBound = upperBound;
+        return this;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getTableId() {
+        return tableId;
+    }
+
+    public void setTableId(String tableId) {
+        this.tableId = tableId;
+    }
+
+    public String getSplitKey() {
+        return splitKey;
+    }
+
+    public void setSplitKey(String splitKey) {
+        this.splitKey = splitKey;
+    }
+
+    public Object getLowerBound() {
+        return lowerBound;
+    }
+
+    public void setLowerBound(Object lowerBound) {
+        this.lowerBound = lowerBound;
+    }
+
+    public Object getUpperBound() {
+        return upperBound;
+    }
+
+    public void setUpperBound(Object upperBound) {
+        this.upperBound = upperBound;
+    }
+
+    public String toString() {
+        return "BatchReadSplit id " + id + " table " + tableId + " splitKey " + splitKey + " [" + lowerBound + ", " + upperBound + ")";
+    }
+}
@@ -15,6 +15,8 @@ public class ConnectionOptions {
     public static final String CAPABILITY_RESUME_STREAM_BY_TIMESTAMP = "resume_stream_by_timestamp";
     //Connector disable batch read offset or not, default is disable batch read offset
     public static final String CAPABILITY_DISABLE_BATCH_READ_OFFSET = "disable_batch_read_offset";
+    //Max number of tables the connector can drop/create/clear/index at the same time, declared as the first alternative in spec
+    public static final String CAPABILITY_TABLE_DDL_CONCURRENCY = "table_ddl_concurrency";
 
     //DDL events
     public static final String DDL_ALTER_FIELD_NAME_EVENT = FormatUtils.formatTapEvent(TapAlterFieldNameEvent.class);
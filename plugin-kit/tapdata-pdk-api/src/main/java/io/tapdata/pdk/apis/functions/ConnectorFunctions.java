@@ -20,6 +20,8 @@ import java.util.function.Consumer;
 public class ConnectorFunctions extends ConnectionFunctions<ConnectorFunctions> {
     protected ReleaseExternalFunction releaseExternalFunction;
     protected BatchReadFunction batchReadFunction;
+    protected SplitTableFunction splitTableFunction;
+    protected BatchReadSplitFunction batchReadSplitFunction;
     protected StreamReadFunction streamReadFunction;
     protected BatchCountFunction batchCountFunction;
     protected TimestampToStreamOffsetFunction timestampToStreamOffsetFunction;
@@ -178,6 +180,25 @@ public class ConnectorFunctions extends ConnectionFunctions<ConnectorFunctions>
         return this;
     }
 
+    /**
+     * Flow engine will ask for the key ranges of a table when concurrent snapshot read is enabled on the source node,
+     * then read each split by BatchReadSplitFunction with its own offset in parallel.
+     *
+     * Both SplitTableFunction and BatchReadSplitFunction are required, otherwise Flow engine will fall back to BatchReadFunction.
+     *
+     * @param function
+     * @return
+     */
+    public ConnectorFunctions supportSplitTable(SplitTableFunction function) {
+        splitTableFunction = function;
+        return this;
+    }
+
+    public ConnectorFunctions supportBatchReadSplit(BatchReadSplitFunction function) {
+        batchReadSplitFunction = function;
+        return this;
+    }
+
     /**
      *
      */
@@ -249,6 +270,14 @@ public class ConnectorFunctions extends ConnectionFunctions<ConnectorFunctions>
         return batchReadFunction;
     }
 
+    public SplitTableFunction getSplitTableFunction() {
+        return splitTableFunction;
+    }
+
+    public BatchReadSplitFunction getBatchReadSplitFunction() {
+        return batchReadSplitFunction;
+    }
+
     public StreamReadFunction getStreamReadFunction() {
         return streamReadFunction;
     }
@@ -0,0 +1,24 @@
+package io.tapdata.pdk.apis.functions.connector.source;
+
+import io.tapdata.entity.event.TapEvent;
+import io.tapdata.entity.schema.TapTable;
+import io.tapdata.pdk.apis.context.TapConnectorContext;
+import io.tapdata.pdk.apis.entity.BatchReadSplit;
+import io.tapdata.pdk.apis.functions.connector.TapConnectorFunction;
+
+import java.util.List;
+import java.util.function.BiConsumer;
+
+public interface BatchReadSplitFunction extends TapConnectorFunction {
+    /**
+     * Will be invoked concurrently for different splits of the same table, implementation must be thread safe.
+     *
+     * @param connectorContext the node context in a DAG
+     * @param table the table to batch read from
+     * @param split the key range to read, returned by SplitTableFunction
+     * @param offsetState if null, means start from the beginning of the split, otherwise is the start point in the split.
+     * @param eventBatchSize the batch size for the max record list size when consumer#accept a batch
+     * @param eventsOffsetConsumer accept the records and offsetState of the split.
+     */
+    void batchReadSplit(TapConnectorContext connectorContext, TapTable table, BatchReadSplit split, Object offsetState, int eventBatchSize, BiConsumer<List<TapEvent>, Object> eventsOffsetConsumer) throws Throwable;
+}
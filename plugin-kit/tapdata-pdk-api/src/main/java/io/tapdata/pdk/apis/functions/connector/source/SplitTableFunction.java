@@ -0,0 +1,18 @@
+package io.tapdata.pdk.apis.functions.connector.source;
+
+import io.tapdata.entity.schema.TapTable;
+import io.tapdata.pdk.apis.context.TapConnectorContext;
+import io.tapdata.pdk.apis.entity.BatchReadSplit;
+import io.tapdata.pdk.apis.functions.connector.TapConnectorFunction;
+
+import java.util.List;
+
+public interface SplitTableFunction extends TapConnectorFunction {
+    /**
+     * @param connectorContext the node context in a DAG
+     * @param table the table to split
+     * @param splitCount expected split count, connector can return less splits, empty or null means the table can not be split.
+     * @return key ranges which cover the whole table without overlapping
+     */
+    List<BatchReadSplit> split(TapConnectorContext connectorContext, TapTable table, int splitCount) throws Throwable;
+}
@@ -22,6 +22,8 @@ public enum PDKMethod {
     SOURCE_BATCH_COUNT(TimeUnit.SECONDS.toMillis(30)),
 
     SOURCE_BATCH_READ,
+    SOURCE_SPLIT_TABLE(TimeUnit.SECONDS.toMillis(30)),
+    SOURCE_BATCH_READ_SPLIT,
     SOURCE_BATCH_OFFSET,
     SOURCE_QUERY_BY_FILTER,
     SOURCE_QUERY_BY_ADVANCE_FILTER,
@@ -0,0 +1,121 @@
+package io.tapdata.common.sample.sampler;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HistogramSamplerTest {
+
+    @Test
+    void testBucketBounds() {
+        // values below 128 have their own bucket
+        for (long value = 0; value < 128; value++) {
+            assertEquals(value, HistogramSampler.bucketIndex(value));
+            assertEquals(value, HistogramSampler.highestEquivalentValue((int) value));
+        }
+        assertEquals(128, HistogramSampler.bucketIndex(128L));
+        assertEquals(128, HistogramSampler.bucketIndex(129L));
+        assertEquals(129, HistogramSampler.bucketIndex(130L));
+        // buckets are contiguous: the value after the highest value of a bucket is in the next bucket
+        for (int index = 0; index < HistogramSampler.BUCKET_COUNT; index++) {
+            long highest = HistogramSampler.highestEquivalentValue(index);
+            assertEquals(index, HistogramSampler.bucketIndex(highest));
+            if (index < HistogramSampler.BUCKET_COUNT - 1) {
+                assertEquals(index + 1, HistogramSampler.bucketIndex(highest + 1));
+            }
+        }
+        assertEquals((1L << 40) - 1, HistogramSampler.highestEquivalentValue(HistogramSampler.BUCKET_COUNT - 1));
+    }
+
+    @Test
+    void testRelativeError() {
+        for (long value = 128; value < (1L << 40); value = value * 3 / 2 + 7) {
+            long highest = HistogramSampler.highestEquivalentValue(HistogramSampler.bucketIndex(value));
+            assertTrue(highest >= value);
+            assertTrue(highest - value < value / 64 + 1, "value: " + value + ", bucket highest: " + highest);
+        }
+    }
+
+    @Test
+    void testPercentiles() {
+        HistogramSampler sampler = new HistogramSampler();
+        for (long value = 1; value <= 100; value++) {
+            sampler.record(value);
+        }
+        HistogramSampler.Snapshot snapshot = sampler.snapshotThenReset();
+        assertEquals(100L, snapshot.getTotalCount());
+        assertEquals(100L, snapshot.getMax());
+        assertEquals(1L, snapshot.percentile(0.0));
+        assertEquals(50L, snapshot.percentile(50.0));
+        assertEquals(95L, snapshot.percentile(95.0));
+        assertEquals(99L, snapshot.percentile(99.0));
+        assertEquals(100L, snapshot.percentile(99.9));
+        assertEquals(100L, snapshot.percentile(100.0));
+    }
+
+    @Test
+    void testPercentileOfBigValues() {
+        HistogramSampler sampler = new HistogramSampler();
+        sampler.record(99L, 10L);
+        sampler.record(1L, 10000L);
+        HistogramSampler.Snapshot snapshot = sampler.snapshotThenReset();
+        assertEquals(100L, snapshot.getTotalCount());
+        assertEquals(10L, snapshot.percentile(99.0));
+        // the bucket of the max holds values above the max, the percentile does not go over the max
+        assertEquals(10000L, snapshot.percentile(99.9));
+        assertEquals(10000L, snapshot.getMax());
+    }
+
+    @Test
+    void testRecordOutOfRange() {
+        HistogramSampler sampler = new HistogramSampler();
+        sampler.record(-5L);
+        sampler.record(1L << 50);
+        sampler.record(0L, 7L);
+        HistogramSampler.Snapshot snapshot = sampler.snapshotThenReset();
+        assertEquals(2L, snapshot.getTotalCount());
+        assertEquals(0L, snapshot.percentile(50.0));
+        assertEquals((1L << 40) - 1, snapshot.getMax());
+        assertEquals((1L << 40) - 1, snapshot.percentile(100.0));
+    }
+
+    @Test
+    void testSnapshotThenReset() {
+        HistogramSampler sampler = new HistogramSampler();
+        sampler.record(3L, 20L);
+        HistogramSampler.Snapshot first = sampler.snapshotThenReset();
+        assertEquals(3L, first.getTotalCount());
+        assertEquals(20L, first.getMax());
+
+        HistogramSampler.Snapshot empty = sampler.snapshotThenReset();
+        assertEquals(0L, empty.getTotalCount());
+        assertEquals(0L, empty.getMax());
+        assertEquals(0L, empty.percentile(99.0));
+
+        sampler.record(5L);
+        HistogramSampler.Snapshot second = sampler.snapshotThenReset();
+        assertEquals(1L, second.getTotalCount());
+        assertEquals(5L, second.getMax());
+
+        HistogramSampler.Snapshot merged = new HistogramSampler.Snapshot().merge(first).merge(second);
+        assertEquals(4L, merged.getTotalCount());
+        assertEquals(20L, merged.getMax());
+        assertEquals(5L, merged.percentile(25.0));
+        assertEquals(20L, merged.percentile(50.0));
+    }
+
+    @Test
+    void testValues() {
+        HistogramSampler sampler = new HistogramSampler();
+        sampler.record(4L, 8L);
+        Map<String, Number> values = sampler.values("writeCost");
+        assertEquals(8L, values.get("writeCost" + HistogramSampler.P50));
+        assertEquals(8L, values.get("writeCost" + HistogramSampler.P999));
+        assertEquals(8L, values.get("writeCost" + HistogramSampler.MAX));
+        assertEquals(4L, values.get("writeCost" + HistogramSampler.COUNT));
+        assertEquals(0L, sampler.values("writeCost").get("writeCost" + HistogramSampler.COUNT));
+        assertEquals(0L, sampler.value().longValue());
+    }
+}
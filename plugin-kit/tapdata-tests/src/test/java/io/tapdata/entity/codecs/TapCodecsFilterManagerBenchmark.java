@@ -0,0 +1,183 @@
+package io.tapdata.entity.codecs;
+
+import io.tapdata.entity.codec.TapCodecsRegistry;
+import io.tapdata.entity.codec.filter.TapCodecsFilterManager;
+import io.tapdata.entity.schema.TapField;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static io.tapdata.entity.simplify.TapSimplify.*;
+
+/**
+ * ToTapValue/FromTapValue cost of a batch of records of one wide table.
+ * <ul>
+ *     <li>compiled: the conversion plan of the table is compiled once and reused (normal case)</li>
+ *     <li>recompiled: plans are dropped before every record, the cost of resolving every field's codec per record</li>
+ *     <li>batch: {@link TapCodecsFilterManager#transformToTapValueMaps} resolves the plan once per batch</li>
+ * </ul>
+ * Records are copied from the prepared rows in every invocation because the conversion is done in place, the copy cost is
+ * the same for all modes.
+ * <p>
+ * Run {@link #main(String[])} with the test classpath after test-compile
+ **/
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(java.util.concurrent.TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 3)
+@Measurement(iterations = 5, time = 3)
+@Fork(1)
+public class TapCodecsFilterManagerBenchmark {
+
+    @Param({"compiled", "recompiled", "batch"})
+    private String mode;
+
+    @Param({"20", "200", "1000"})
+    private int fields;
+
+    @Param({"100"})
+    private int batchSize;
+
+    private TapCodecsFilterManager codecsFilterManager;
+    private Map<String, TapField> nameFieldMap;
+    private List<Map<String, Object>> rows;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        codecsFilterManager = TapCodecsFilterManager.create(TapCodecsRegistry.create());
+        nameFieldMap = nameFieldMap(fields);
+        rows = new ArrayList<>(batchSize);
+        for (int i = 0; i < batchSize; i++) {
+            rows.add(row(fields, i));
+        }
+    }
+
+    @Benchmark
+    public List<Map<String, Object>> toTapValue() {
+        List<Map<String, Object>> records = copyRows();
+        toTapValue(records);
+        return records;
+    }
+
+    @Benchmark
+    public List<Map<String, Object>> roundTrip() {
+        List<Map<String, Object>> records = copyRows();
+        toTapValue(records);
+        if ("batch".equals(mode)) {
+            codecsFilterManager.transformFromTapValueMaps(records, null);
+        } else {
+            for (Map<String, Object> record : records) {
+                codecsFilterManager.transformFromTapValueMap(record);
+            }
+        }
+        return records;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(TapCodecsFilterManagerBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+
+    private void toTapValue(List<Map<String, Object>> records) {
+        switch (mode) {
+            case "batch":
+                codecsFilterManager.transformToTapValueMaps(records, nameFieldMap);
+                break;
+            case "recompiled":
+                for (Map<String, Object> record : records) {
+                    codecsFilterManager.clearCodecsPlans();
+                    codecsFilterManager.transformToTapValueMap(record, nameFieldMap);
+                }
+                break;
+            default:
+                for (Map<String, Object> record : records) {
+                    codecsFilterManager.transformToTapValueMap(record, nameFieldMap);
+                }
+                break;
+        }
+    }
+
+    private List<Map<String, Object>> copyRows() {
+        List<Map<String, Object>> records = new ArrayList<>(rows.size());
+        for (Map<String, Object> row : rows) {
+            records.add(new LinkedHashMap<>(row));
+        }
+        return records;
+    }
+
+    private static Map<String, TapField> nameFieldMap(int fields) {
+        Map<String, TapField> nameFieldMap = new LinkedHashMap<>();
+        for (int i = 0; i < fields; i++) {
+            String name = columnName(i);
+            switch (i % 5) {
+                case 0:
+                    nameFieldMap.put(name, field(name, "int").tapType(tapNumber().bit(32).maxValue(BigDecimal.valueOf(Integer.MAX_VALUE)).minValue(BigDecimal.valueOf(Integer.MIN_VALUE))));
+                    break;
+                case 1:
+                    nameFieldMap.put(name, field(name, "bigint").tapType(tapNumber().bit(64).maxValue(BigDecimal.valueOf(Long.MAX_VALUE)).minValue(BigDecimal.valueOf(Long.MIN_VALUE))));
+                    break;
+                case 2:
+                    nameFieldMap.put(name, field(name, "varchar(100)").tapType(tapString().bytes(100L)));
+                    break;
+                case 3:
+                    nameFieldMap.put(name, field(name, "datetime").tapType(tapDateTime().fraction(3)));
+                    break;
+                default:
+                    nameFieldMap.put(name, field(name, "decimal(10,3)").tapType(tapNumber().precision(10).scale(3)));
+                    break;
+            }
+        }
+        return nameFieldMap;
+    }
+
+    private static Map<String, Object> row(int fields, int rowNo) {
+        Map<String, Object> row = new LinkedHashMap<>();
+        for (int i = 0; i < fields; i++) {
+            String name = columnName(i);
+            switch (i % 5) {
+                case 0:
+                    row.put(name, rowNo * 31 + i);
+                    break;
+                case 1:
+                    row.put(name, System.currentTimeMillis() + i);
+                    break;
+                case 2:
+                    row.put(name, "value of column " + i);
+                    break;
+                case 3:
+                    row.put(name, new Date());
+                    break;
+                default:
+                    row.put(name, new BigDecimal("12345.678"));
+                    break;
+            }
+        }
+        return row;
+    }
+
+    private static String columnName(int i) {
+        return "column_" + i;
+    }
+}